@@ -45,6 +45,7 @@ public class Module {
     public static final Module HTTP = forName("konduit-serving-http");
     public static final Module GRPC = forName("konduit-serving-grpc");
     public static final Module MQTT = forName("konduit-serving-mqtt");
+    public static final Module SHARED_MEMORY = forName("konduit-serving-shm");
     public static final Module DL4J = forName("konduit-serving-deeplearning4j");
     public static final Module SAMEDIFF = forName("konduit-serving-samediff");
     public static final Module TENSORFLOW = forName("konduit-serving-samediff");
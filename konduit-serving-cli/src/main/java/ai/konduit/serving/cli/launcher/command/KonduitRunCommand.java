@@ -22,6 +22,9 @@ import ai.konduit.serving.pipeline.api.protocol.URIResolver;
 import ai.konduit.serving.pipeline.settings.KonduitSettings;
 import ai.konduit.serving.vertx.api.DeployKonduitServing;
 import ai.konduit.serving.vertx.config.InferenceConfiguration;
+import ai.konduit.serving.vertx.config.VertxConfiguration;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.VertxOptions;
 import io.vertx.core.cli.CLIException;
 import io.vertx.core.cli.annotations.*;
 import io.vertx.core.impl.launcher.CommandLineUtils;
@@ -50,6 +53,11 @@ public class KonduitRunCommand extends RunCommand {
     public static final List<String> VALID_SERVICE_TYPES = Collections.singletonList(INFERENCE_SERVICE_TYPE_NAME);
     private String serviceType;
     private InferenceConfiguration inferenceConfiguration;
+    private VertxOptions vertxOptions;
+
+    private boolean nativeTransport;
+    private int eventLoopPoolSize;
+    private int workerPoolSize;
 
     @Override
     @Option(longName = "service", shortName = "s", argName = "service-type")
@@ -86,6 +94,29 @@ public class KonduitRunCommand extends RunCommand {
         super.setConfig(configuration);
     }
 
+    @Option(longName = "native-transport", flag = true)
+    @Description("Use the native transport (epoll on Linux), if available. Overrides the 'vertxConfiguration' " +
+            "setting in the server configuration.")
+    public void setNativeTransport(boolean nativeTransport) {
+        this.nativeTransport = nativeTransport;
+    }
+
+    @Option(longName = "event-loops", argName = "count")
+    @DefaultValue("0")
+    @Description("Number of event loop threads. Overrides the 'vertxConfiguration' setting in the server configuration. " +
+            "Defaults to 0, which means the configured value, or twice the number of cores, is used.")
+    public void setEventLoopPoolSize(int eventLoopPoolSize) {
+        this.eventLoopPoolSize = eventLoopPoolSize;
+    }
+
+    @Option(longName = "worker-pool-size", argName = "count")
+    @DefaultValue("0")
+    @Description("Number of worker threads. Overrides the 'vertxConfiguration' setting in the server configuration. " +
+            "Defaults to 0, which means the configured value, or 20, is used.")
+    public void setWorkerPoolSize(int workerPoolSize) {
+        this.workerPoolSize = workerPoolSize;
+    }
+
     @Override
     public void run() {
         SysOutOverSLF4J.sendSystemOutAndErrToSLF4J();
@@ -166,6 +197,62 @@ public class KonduitRunCommand extends RunCommand {
         }
     }
 
+    @Override
+    protected void beforeStartingVertx(VertxOptions options) {
+        super.beforeStartingVertx(options);
+
+        if (inferenceConfiguration != null) {
+            VertxConfiguration vertxConfiguration = inferenceConfiguration.vertxConfiguration();
+            if (vertxConfiguration == null) {
+                vertxConfiguration = new VertxConfiguration();
+                inferenceConfiguration.vertxConfiguration(vertxConfiguration);
+            }
+
+            if (nativeTransport) {
+                vertxConfiguration.preferNativeTransport(true);
+            }
+
+            if (eventLoopPoolSize > 0) {
+                vertxConfiguration.eventLoopPoolSize(eventLoopPoolSize);
+            }
+
+            if (workerPoolSize > 0) {
+                vertxConfiguration.workerPoolSize(workerPoolSize);
+            }
+
+            // The verticle instances are applied in beforeDeployingVerticle, where "--instances" takes precedence
+            DeployKonduitServing.applyVertxConfiguration(options, null, inferenceConfiguration);
+        }
+
+        this.vertxOptions = options;
+    }
+
+    @Override
+    protected void beforeDeployingVerticle(DeploymentOptions deploymentOptions) {
+        super.beforeDeployingVerticle(deploymentOptions);
+
+        if (inferenceConfiguration != null && !instancesOptionGiven() && inferenceConfiguration.vertxConfiguration() != null &&
+                inferenceConfiguration.vertxConfiguration().verticleInstances() > 0) {
+            deploymentOptions.setInstances(inferenceConfiguration.vertxConfiguration().verticleInstances());
+        }
+
+        if (vertx != null && vertxOptions != null) {
+            DeployKonduitServing.logVertxDiagnostics(vertx, vertxOptions, deploymentOptions);
+        }
+    }
+
+    /**
+     * @return True if "--instances" was given on the command line. Checked explicitly, as an explicit "--instances 1"
+     * can't be told apart from the default value of 1 otherwise
+     */
+    private boolean instancesOptionGiven() {
+        if (executionContext == null || executionContext.commandLine() == null) {
+            return false;
+        }
+        io.vertx.core.cli.Option option = executionContext.cli().getOption("instances");
+        return option != null && executionContext.commandLine().isOptionAssigned(option);
+    }
+
     @Override
     protected void deploy() {
         if (INFERENCE_SERVICE_TYPE_NAME.equalsIgnoreCase(serviceType)) {
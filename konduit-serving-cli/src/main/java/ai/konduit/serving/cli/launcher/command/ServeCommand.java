@@ -51,7 +51,9 @@ import static ai.konduit.serving.cli.launcher.command.KonduitRunCommand.DEFAULT_
         "- Starts a server in the foreground with an id of 'inf_server' using 'config.json' as configuration file:\n" +
         "$ konduit serve -id inf_server -c config.json\n\n" +
         "- Starts a server in the background with an id of 'inf_server' using 'config.yaml' as configuration file:\n" +
-        "$ konduit serve -id inf_server -c config.yaml -b\n" +
+        "$ konduit serve -id inf_server -c config.yaml -b\n\n" +
+        "- Starts a server with 8 verticle instances on 16 event loops, using the native transport:\n" +
+        "$ konduit serve -id inf_server -c config.json -i 8 --event-loops 16 --native-transport\n" +
         "--------------")
 @Slf4j
 public class ServeCommand extends DefaultCommand {
@@ -60,7 +62,7 @@ public class ServeCommand extends DefaultCommand {
     protected int port;
     protected String id;
     protected String launcher;
-    protected int instances = 1;
+    protected Integer instances;
     protected String classpath;
     protected String service;
     protected String configuration;
@@ -68,6 +70,10 @@ public class ServeCommand extends DefaultCommand {
     protected boolean redirect;
     protected String jvmOptions;
 
+    protected boolean nativeTransport;
+    protected int eventLoopPoolSize;
+    protected int workerPoolSize;
+
     /**
      * Sets the host name of the konduit server.
      *
@@ -100,12 +106,49 @@ public class ServeCommand extends DefaultCommand {
      * @param instances the number of instances
      */
     @Option(shortName = "i", longName = "instances", argName = "instances")
-    @DefaultValue("1")
-    @Description("Specifies how many instances of the server will be deployed. Defaults to 1.")
-    public void setInstances(int instances) {
+    @Description("Specifies how many instances of the server will be deployed. Defaults to the verticleInstances " +
+            "value of the configuration if set, or 1 otherwise.")
+    public void setInstances(Integer instances) {
         this.instances = instances;
     }
 
+    /**
+     * Enables the native (epoll) transport, if available.
+     *
+     * @param nativeTransport whether the native transport should be preferred
+     */
+    @Option(longName = "native-transport", flag = true)
+    @Description("Use the native transport (epoll on Linux), if available.")
+    public void setNativeTransport(boolean nativeTransport) {
+        this.nativeTransport = nativeTransport;
+    }
+
+    /**
+     * Sets the number of event loop threads.
+     *
+     * @param eventLoopPoolSize the number of event loop threads
+     */
+    @Option(longName = "event-loops", argName = "count")
+    @DefaultValue("0")
+    @Description("Specifies the number of event loop threads. Defaults to 0, which means the value from the " +
+            "configuration, or twice the number of cores, is used.")
+    public void setEventLoopPoolSize(int eventLoopPoolSize) {
+        this.eventLoopPoolSize = eventLoopPoolSize;
+    }
+
+    /**
+     * Sets the number of worker threads.
+     *
+     * @param workerPoolSize the number of worker threads
+     */
+    @Option(longName = "worker-pool-size", argName = "count")
+    @DefaultValue("0")
+    @Description("Specifies the number of worker threads. Defaults to 0, which means the value from the " +
+            "configuration, or 20, is used.")
+    public void setWorkerPoolSize(int workerPoolSize) {
+        this.workerPoolSize = workerPoolSize;
+    }
+
     /**
      * Sets the classpath.
      *
@@ -193,6 +236,20 @@ public class ServeCommand extends DefaultCommand {
             cliArguments.add("-c");
             cliArguments.add(configuration);
         }
+
+        if(nativeTransport) {
+            cliArguments.add("--native-transport");
+        }
+
+        if(eventLoopPoolSize > 0) {
+            cliArguments.add("--event-loops");
+            cliArguments.add(String.valueOf(eventLoopPoolSize));
+        }
+
+        if(workerPoolSize > 0) {
+            cliArguments.add("--worker-pool-size");
+            cliArguments.add(String.valueOf(workerPoolSize));
+        }
     }
 
     /**
@@ -208,8 +265,11 @@ public class ServeCommand extends DefaultCommand {
         // Must be called only once !
         List<String> cliArguments = new ArrayList<>();
 
-        cliArguments.add("--instances");
-        cliArguments.add(String.valueOf(instances));
+        // Only passed on when given, so that the configuration's verticleInstances applies otherwise
+        if (instances != null) {
+            cliArguments.add("--instances");
+            cliArguments.add(String.valueOf(instances));
+        }
 
         addCustomServeOptions(cliArguments);
 
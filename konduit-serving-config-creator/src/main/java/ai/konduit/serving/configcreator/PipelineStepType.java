@@ -37,6 +37,7 @@ public enum PipelineStepType {
     EXTRACT_BOUNDING_BOX,
     CAMERA_FRAME_CAPTURE,
     VIDEO_FRAME_CAPTURE,
+    MULTI_STREAM_CAPTURE,
     IMAGE_TO_NDARRAY,
     LOGGING,
     SSD_TO_BOUNDING_BOX,
@@ -134,6 +135,9 @@ public enum PipelineStepType {
             case VIDEO_FRAME_CAPTURE:
                 clazz = Class.forName("ai.konduit.serving.data.image.step.capture.VideoFrameCaptureStep");
                 return (Class<? extends PipelineStep>) clazz;
+            case MULTI_STREAM_CAPTURE:
+                clazz = Class.forName("ai.konduit.serving.data.image.step.capture.MultiStreamCaptureStep");
+                return (Class<? extends PipelineStep>) clazz;
             case IMAGE_TO_NDARRAY:
                 clazz = Class.forName("ai.konduit.serving.data.image.step.ndarray.ImageToNDArrayStep");
                 return (Class<? extends PipelineStep>) clazz;
@@ -132,6 +132,7 @@ public class StepCreator implements CommandLine.IModelTransformer, Callable<Inte
                     EXTRACT_BOUNDING_BOX,
                     CAMERA_FRAME_CAPTURE,
                     VIDEO_FRAME_CAPTURE,
+                    MULTI_STREAM_CAPTURE,
                     IMAGE_TO_NDARRAY,
                     LOGGING,
                     SSD_TO_BOUNDING_BOX,
@@ -68,6 +68,9 @@ public class ImageToNDArrayConfigTypeConverter implements CommandLine.ITypeConve
                 case "listHandling":
                     imageToNDArrayConfig.listHandling(ImageToNDArrayConfig.ListHandling.valueOf(entry.getValue().toUpperCase()));
                     break;
+                case "mixedSizeHandling":
+                    imageToNDArrayConfig.mixedSizeHandling(ImageToNDArrayConfig.MixedSizeHandling.valueOf(entry.getValue().toUpperCase()));
+                    break;
                 case "normalization":
                     ImageNormalizationTypeConverter imageNormalizationTypeConverter = new ImageNormalizationTypeConverter();
                     ImageNormalization convert = imageNormalizationTypeConverter.convert(entry.getValue());
@@ -44,7 +44,7 @@ import org.nd4j.shade.jackson.annotation.JsonProperty;
  *     <li><b>aspectRatioHandling</b>: How should input images with different aspect ratio to the output height/width be handled? Default: CENTER_CROP</li>
  *     <ul>
  *         <li><b>CENTER_CROP</b>: Crop the larger dimension down to the correct aspect ratio (and then resize if necessary).</li>
- *         <li><b>PAD</b>: Zero pad the smaller dimension to make the aspect ratio match the output (and then resize if necessary)</li>
+ *         <li><b>PAD</b>: Resize to fit the output while keeping the aspect ratio, then zero pad both sides of the smaller dimension (letterbox)</li>
  *         <li><b>STRETCH</b>: Simply resize the image to the required aspect ratio, distorting the image if necessary</li>
  *     </ul>
  *     <li><b>format</b>: CHANNELS_FIRST (output shape: [1, c, h, w] or [c, h, w]) or CHANNELS_LAST (output shape: [1, h, w, c] or [h, w, c])</li>
@@ -69,6 +69,11 @@ import org.nd4j.shade.jackson.annotation.JsonProperty;
  *         instead of a single {@code NDArray} - one entry for each entry in the input {@code List<Image>}. FIRST:
  *         the first bounding box only is returned as as single {@code NDArray} - the remainder are discarded/ignored.
  *     </li>
+ *     <li><b>mixedSizeHandling</b>: Only applies with listHandling == BATCH when height/width are not set, and the images
+ *         in the list have different sizes. FAIL: throw an exception (default). RESIZE: convert all images to the size of
+ *         the first image (according to aspectRatioHandling). PAD: zero pad every image at the bottom and right to the
+ *         largest height and width in the list.
+ *     </li>
  * </ul>
  *
  * @author Alex Black
@@ -88,6 +93,15 @@ public class ImageToNDArrayConfig {
             "FIRST -> Convert the first image in the list of images to an n-dimensional array.")
     public enum ListHandling {NONE, BATCH, LIST_OUT, FIRST}
 
+    /**
+     * See {@link ImageToNDArrayConfig} - mixedSizeHandling field
+     */
+    @Schema(description = "An enum to specify how images of different sizes are batched, when height and width are not set. <br><br>" +
+            "FAIL -> Throw an exception, <br>" +
+            "RESIZE -> Convert all images to the size of the first image in the list, <br>" +
+            "PAD -> Zero pad all images at the bottom and right to the largest height and width in the list.")
+    public enum MixedSizeHandling {FAIL, RESIZE, PAD}
+
 
     @Schema(description = "Output array image height. Leave null to convert to the same size as the image height.")
     private Integer height;
@@ -96,7 +110,9 @@ public class ImageToNDArrayConfig {
     private Integer width;
 
     
-    @Schema(description = "Data type of the n-dimensional array.", defaultValue = "FLOAT")
+    @Schema(description = "Data type of the n-dimensional array. For integer types, normalized values are rounded to the " +
+            "nearest integer and saturated to the range of the type (i.e., out of range values are clipped, not wrapped).",
+            defaultValue = "FLOAT")
     private NDArrayType dataType = NDArrayType.FLOAT;
 
     
@@ -109,7 +125,7 @@ public class ImageToNDArrayConfig {
 
     @Schema(description = "An enum to Handle the situation where the input image and output NDArray have different aspect ratios. <br><br>" +
             "CENTER_CROP (crop larger dimension then resize if necessary), <br>" +
-            "PAD (pad smaller dimension then resize if necessary), <br>" +
+            "PAD (resize keeping the aspect ratio, then pad smaller dimension on both sides), <br>" +
             "STRETCH (simply resize, distorting if necessary).",
             defaultValue = "CENTER_CROP")
     private AspectRatioHandling aspectRatioHandling = AspectRatioHandling.CENTER_CROP;
@@ -134,11 +150,24 @@ public class ImageToNDArrayConfig {
             defaultValue = "NONE")
     private ListHandling listHandling = ListHandling.NONE;
 
+    @Schema(description = "An enum to specify how images of different sizes are batched with listHandling == BATCH, " +
+            "when height and width are not set.",
+            defaultValue = "FAIL")
+    private MixedSizeHandling mixedSizeHandling = MixedSizeHandling.FAIL;
+
+
+    public ImageToNDArrayConfig(Integer height, Integer width, NDArrayType dataType, boolean includeMinibatchDim,
+                                AspectRatioHandling aspectRatioHandling, NDFormat format, NDChannelLayout channelLayout,
+                                ImageNormalization normalization, ListHandling listHandling){
+        this(height, width, dataType, includeMinibatchDim, aspectRatioHandling, format, channelLayout, normalization,
+                listHandling, MixedSizeHandling.FAIL);
+    }
 
     public ImageToNDArrayConfig(@JsonProperty("height") Integer height, @JsonProperty("width") Integer width, @JsonProperty("dataType") NDArrayType dataType,
                                 @JsonProperty("includeMinibatchDim") boolean includeMinibatchDim, @JsonProperty("aspectRatioHandling") AspectRatioHandling aspectRatioHandling,
                                 @JsonProperty("format") NDFormat format, @JsonProperty("channelLayout") NDChannelLayout channelLayout,
-                                @JsonProperty("normalization") ImageNormalization normalization, @JsonProperty("listHandling") ListHandling listHandling){
+                                @JsonProperty("normalization") ImageNormalization normalization, @JsonProperty("listHandling") ListHandling listHandling,
+                                @JsonProperty("mixedSizeHandling") MixedSizeHandling mixedSizeHandling){
         this.height = height;
         this.width = width;
         this.dataType = dataType;
@@ -148,6 +177,7 @@ public class ImageToNDArrayConfig {
         this.channelLayout = channelLayout;
         this.normalization = normalization;
         this.listHandling = listHandling;
+        this.mixedSizeHandling = mixedSizeHandling == null ? MixedSizeHandling.FAIL : mixedSizeHandling;
     }
 
 
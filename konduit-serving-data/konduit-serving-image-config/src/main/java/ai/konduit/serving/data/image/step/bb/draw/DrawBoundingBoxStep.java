@@ -106,6 +106,11 @@ public class DrawBoundingBoxStep implements PipelineStep {
     @Schema(description = "Color of the crop region. Only used if drawCropRegion = true.")
     private String cropRegionColor;
 
+    @Schema(description = "If true, the bounding boxes are drawn directly on the input image instead of on a copy of it. " +
+            "Only set this if no other step uses the input image - otherwise they will see the boxes too.",
+            defaultValue = "false")
+    private boolean inPlace = false;
+
     /*
     Other things could add:
     - Upscale? (or minimum resolution, or always scale) - also aspect ratio part...
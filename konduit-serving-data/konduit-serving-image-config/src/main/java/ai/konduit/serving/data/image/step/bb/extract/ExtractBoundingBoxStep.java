@@ -38,7 +38,11 @@ import lombok.experimental.Accessors;
  * Note: If the aspect ratio field is set, the image cropping will increase the smaller dimension to ensure the cropped
  * image complies with the requested aspect ratio.<br>
  * <br>
- * Note: If resizeH and resizeW are specified, the cropped images will be resized to the specified size
+ * Note: If resizeH and resizeW are specified, the cropped images will be resized to the specified size<br>
+ * <br>
+ * Note: If outputNDArrayConfig is specified, the cropped regions are not returned as images; instead, they are resized
+ * and written directly to a single NDArray with all crops batched along dimension 0 (i.e., [n, c, h, w] or [n, h, w, c]),
+ * ready for a second stage model. This is faster than converting each cropped image separately.
  *
  */
 @Data
@@ -80,5 +84,11 @@ public class ExtractBoundingBoxStep implements PipelineStep {
             "produced the bounding boxes.")
     private ImageToNDArrayConfig imageToNDArrayConfig;
 
+    @Schema(description = "If set, the cropped regions are returned as a single NDArray (with all crops batched along " +
+            "dimension 0) instead of a list of images. The height and width of the config must be set; resizeH and resizeW " +
+            "are ignored. The aspect ratio handling is applied around the center of each (possibly aspect ratio adjusted) " +
+            "bounding box.")
+    private ImageToNDArrayConfig outputNDArrayConfig;
+
 
 }
@@ -0,0 +1,143 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.data.image.step.capture;
+
+import ai.konduit.serving.annotation.json.JsonName;
+import ai.konduit.serving.pipeline.api.step.PipelineStep;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+import lombok.experimental.Tolerate;
+import org.nd4j.shade.jackson.annotation.JsonProperty;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * MultiStreamCaptureStep captures frames from multiple video sources (RTSP/HTTP streams or video files) at once.<br>
+ * The streams are read and decoded in the background by a shared pool of decoder threads; each time inference is
+ * called, the latest available frame(s) are returned along with the ID of the stream they came from.<br>
+ * Streams are selected using weighted round robin, based on their priority - i.e., a stream with priority 2 is served
+ * twice as often as a stream with priority 1 (if frames are available for both). When the decoder pool can't keep
+ * up with all streams, higher priority streams are decoded first.<br>
+ * Streams that fail or end are reconnected (reopened) after a delay, with exponential backoff.<br>
+ * If batchSize is larger than 1, up to batchSize frames (possibly from different streams) are returned as a
+ * List&lt;Image&gt; and List&lt;String&gt; of stream IDs, for batching frames from multiple cameras in later steps.
+ */
+@Data
+@Accessors(fluent=true)
+@NoArgsConstructor
+@JsonName("MULTI_STREAM_CAPTURE")
+@Schema(description = "A pipeline step that captures frames from multiple video streams or files, decoded in the background " +
+        "by a shared thread pool. Each time inference is called, the latest frame(s) are returned, tagged with the ID of " +
+        "the stream they came from. Failed streams are reconnected automatically.")
+public class MultiStreamCaptureStep implements PipelineStep {
+
+    @Schema(description = "Locations of the video streams or files - for example rtsp://host:554/stream or /path/to/video.mp4")
+    private List<String> sources;
+
+    @Schema(description = "Optional - IDs of the streams, in the same order as sources. If not set: the index of the " +
+            "stream in the sources list is used (\"0\", \"1\", ...)")
+    private List<String> streamIds;
+
+    @Schema(description = "Optional - Priorities of the streams, in the same order as sources. Streams are returned in a " +
+            "weighted round robin manner proportional to their priority, and higher priority streams are decoded first " +
+            "if the decoder threads can't keep up with all streams. If not set: all streams have priority 1")
+    private List<Integer> priorities;
+
+    @Schema(description = "Name of the output key for the image frame(s).",
+            defaultValue = "image")
+    private String outputKey = "image";
+
+    @Schema(description = "Name of the output key for the ID of the stream that the image frame(s) came from.",
+            defaultValue = "stream_id")
+    private String streamIdKey = "stream_id";
+
+    @Schema(description = "Maximum number of frames to return for each inference call. If 1: a single Image and stream ID " +
+            "are returned. If larger than 1: lists of images and stream IDs are returned, with all frames that are " +
+            "available (up to batchSize) once at least one frame is available.",
+            defaultValue = "1")
+    private int batchSize = 1;
+
+    @Schema(description = "Optional - Number of threads in the shared pool used to read and decode all streams. If not set: " +
+            "the number of streams or the number of CPU cores, whichever is smaller.")
+    private Integer poolThreads;
+
+    @Schema(description = "Optional - Number of threads FFmpeg should use for decoding each stream. If not set: the FFmpeg default is used.")
+    private Integer decoderThreads;
+
+    @Schema(description = "Number of decoded frames to buffer for each stream. If the buffer is full, the oldest frame is " +
+            "dropped: i.e., the latest frames are always returned.",
+            defaultValue = "1")
+    private int bufferSize = 1;
+
+    @Schema(description = "Optional - RTSP transport protocol for RTSP streams: \"tcp\" or \"udp\". If not set: the FFmpeg default is used.")
+    private String rtspTransport;
+
+    @Schema(description = "Timeout in milliseconds for reading from a stream. A stream that times out is reconnected. 0 disables the timeout.",
+            defaultValue = "10000")
+    private long readTimeoutMs = 10000;
+
+    @Schema(description = "Delay in milliseconds before the first reconnection attempt, after a stream fails or ends. " +
+            "The delay is doubled after each failed attempt, up to maxReconnectDelayMs. Delays below 10 ms are rounded up to 10 ms.",
+            defaultValue = "500")
+    private long reconnectDelayMs = 500;
+
+    @Schema(description = "Maximum delay in milliseconds between reconnection attempts.",
+            defaultValue = "30000")
+    private long maxReconnectDelayMs = 30000;
+
+    @Schema(description = "Maximum time in milliseconds to wait for a frame from any stream, before throwing an exception.",
+            defaultValue = "10000")
+    private long frameTimeoutMs = 10000;
+
+    public MultiStreamCaptureStep(@JsonProperty("sources") List<String> sources, @JsonProperty("streamIds") List<String> streamIds,
+                                  @JsonProperty("priorities") List<Integer> priorities, @JsonProperty("outputKey") String outputKey,
+                                  @JsonProperty("streamIdKey") String streamIdKey, @JsonProperty("batchSize") Integer batchSize,
+                                  @JsonProperty("poolThreads") Integer poolThreads, @JsonProperty("decoderThreads") Integer decoderThreads,
+                                  @JsonProperty("bufferSize") Integer bufferSize, @JsonProperty("rtspTransport") String rtspTransport,
+                                  @JsonProperty("readTimeoutMs") Long readTimeoutMs, @JsonProperty("reconnectDelayMs") Long reconnectDelayMs,
+                                  @JsonProperty("maxReconnectDelayMs") Long maxReconnectDelayMs, @JsonProperty("frameTimeoutMs") Long frameTimeoutMs){
+        this.sources = sources;
+        this.streamIds = streamIds;
+        this.priorities = priorities;
+        this.outputKey = outputKey == null ? "image" : outputKey;
+        this.streamIdKey = streamIdKey == null ? "stream_id" : streamIdKey;
+        this.batchSize = batchSize == null ? 1 : batchSize;
+        this.poolThreads = poolThreads;
+        this.decoderThreads = decoderThreads;
+        this.bufferSize = bufferSize == null ? 1 : bufferSize;
+        this.rtspTransport = rtspTransport;
+        this.readTimeoutMs = readTimeoutMs == null ? 10000 : readTimeoutMs;
+        this.reconnectDelayMs = reconnectDelayMs == null ? 500 : reconnectDelayMs;
+        this.maxReconnectDelayMs = maxReconnectDelayMs == null ? 30000 : maxReconnectDelayMs;
+        this.frameTimeoutMs = frameTimeoutMs == null ? 10000 : frameTimeoutMs;
+    }
+
+    @Tolerate
+    public MultiStreamCaptureStep sources(String... sources) {
+        return this.sources(Arrays.asList(sources));
+    }
+
+    @Tolerate
+    public MultiStreamCaptureStep streamIds(String... streamIds) {
+        return this.streamIds(Arrays.asList(streamIds));
+    }
+}
@@ -59,12 +59,44 @@ public class VideoFrameCaptureStep implements PipelineStep {
             defaultValue = "image")
     private Integer skipFrames;
 
+    @Schema(description = "Optional - Number of threads FFmpeg should use for decoding the video. 0 means automatic (based " +
+            "on the number of CPU cores). If not set: the FFmpeg default is used.")
+    private Integer decoderThreads;
+
+    @Schema(description = "Optional - Name of the FFmpeg video decoder to use. May be used to select a hardware accelerated " +
+            "decoder - for example, \"h264_cuvid\" (NVIDIA) or \"h264_qsv\" (Intel Quick Sync). If not set: the default " +
+            "decoder for the video's codec is used.")
+    private String videoCodec;
+
+    @Schema(description = "If true: skipped frames (see skipFrames) are dropped at the packet level, without decoding them. " +
+            "As decoding can only restart at a keyframe, the next returned frame is the first keyframe after the skipped " +
+            "frames - i.e., returned frames are spaced by at least skipFrames, but the spacing depends on the video's keyframe " +
+            "interval. If false: skipped frames are decoded (but not converted) and the spacing is exactly skipFrames.",
+            defaultValue = "false")
+    private boolean skipToKeyFrames = false;
+
+    @Schema(description = "Optional - Number of frame buffers to reuse for returned frames, in a round robin manner. " +
+            "If not set or 0: a new buffer is allocated for every frame. If set, a returned image is overwritten " +
+            "framePoolSize frames later, so this should be larger than the number of frames that can be in use by the " +
+            "pipeline at the same time (for example, in asynchronous pipelines).")
+    private Integer framePoolSize;
+
+    public VideoFrameCaptureStep(String filePath, String outputKey, boolean loop, Integer skipFrames){
+        this(filePath, outputKey, loop, skipFrames, null, null, false, null);
+    }
+
     public VideoFrameCaptureStep(@JsonProperty("filePath") String filePath, @JsonProperty("outputKey") String outputKey,
-                                 @JsonProperty("loop") boolean loop, @JsonProperty("skipFrames") Integer skipFrames){
+                                 @JsonProperty("loop") boolean loop, @JsonProperty("skipFrames") Integer skipFrames,
+                                 @JsonProperty("decoderThreads") Integer decoderThreads, @JsonProperty("videoCodec") String videoCodec,
+                                 @JsonProperty("skipToKeyFrames") boolean skipToKeyFrames, @JsonProperty("framePoolSize") Integer framePoolSize){
         this.filePath = filePath;
         this.outputKey = outputKey;
         this.loop = loop;
         this.skipFrames = skipFrames;
+        this.decoderThreads = decoderThreads;
+        this.videoCodec = videoCodec;
+        this.skipToKeyFrames = skipToKeyFrames;
+        this.framePoolSize = framePoolSize;
     }
 
 }
@@ -78,6 +78,11 @@ public class DrawFixedGridStep implements PipelineStep {
             "If null then the same value as the borderThickness is used")
     private Integer gridThickness;
 
+    @Schema(description = "If true, the grid is drawn directly on the input image instead of on a copy of it. Only safe " +
+            "when this step is the only consumer of the image.",
+            defaultValue = "false")
+    private boolean inPlace = false;
+
     @Tolerate
     public DrawFixedGridStep points(Point... points) {
         return this.points(Arrays.asList(points));
@@ -42,8 +42,8 @@ import java.util.List;
  *     <li><b>keys</b>: may be null. If non-null: These are the names of images in the Data instance to convert</li>
  *     <li><b>outputNames</b>: may be null. If non-null: the input images are renamed to this in the output Data instance after conversion to NDArray</li>
  *     <li><b>keepOtherValues</b>: True by default. If true: copy all the other (non-converted/non-image) entries in the input Data to the output Data</li>
- *     <li><b>metadata</b>: False by default. If true: include metadata about the images in the output Data - for example if/how it was cropped,
- *         and the original input size.</li>
+ *     <li><b>metadata</b>: False by default. If true: include metadata about the images in the output Data - for example if/how it was cropped
+ *         or padded (the crop region, and the scale and padding to map original image pixels to the array), and the original input size.</li>
  *     <li><b>metadataKey</b>: Sets the key that the metadata will be stored under. Default: {@link #DEFAULT_METADATA_KEY}. Not relevant if
  *         metadata == false</li>
  * </ul>
@@ -73,6 +73,11 @@ public class ImageToNDArrayStep implements PipelineStep {
     public static final String META_IMG_H = "image_height";
     public static final String META_IMG_W = "image_width";
     public static final String META_CROP_REGION = "crop_region";
+    /** Output pixel = original image pixel * scale + pad, for each of x and y */
+    public static final String META_SCALE_X = "scale_x";
+    public static final String META_SCALE_Y = "scale_y";
+    public static final String META_PAD_X = "pad_x";
+    public static final String META_PAD_Y = "pad_y";
 
     @Schema(description = "Configuration for how conversion should be performed.")
     private ImageToNDArrayConfig config;
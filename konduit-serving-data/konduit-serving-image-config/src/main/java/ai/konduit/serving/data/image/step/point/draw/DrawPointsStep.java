@@ -91,6 +91,11 @@ public class DrawPointsStep implements PipelineStep {
             defaultValue = DEFAULT_OUTPUT_NAME)
     private String outputName;
 
+    @Schema(description = "Only used when \"image\" is set. If true, the points are drawn directly on that image; if " +
+            "false, they are drawn on a copy, and the input image is left unchanged.",
+            defaultValue = "false")
+    private boolean inPlace = false;
+
     @Tolerate
     public DrawPointsStep points(String... points) {
         return this.points(Arrays.asList(points));
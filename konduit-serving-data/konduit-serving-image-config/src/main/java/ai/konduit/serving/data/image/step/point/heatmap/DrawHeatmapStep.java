@@ -95,6 +95,12 @@ public class DrawHeatmapStep implements PipelineStep {
             "aspect ratio. This allows the step to determine the subset of the image actually passed to the network.")
     private ImageToNDArrayConfig imageToNDArrayConfig;
 
+    @Schema(description = "Only used when \"image\" is set. If true, the heatmap is blended directly into that image " +
+            "(if it is an 8-bit, 3 channel image), saving a full size image allocation per call. Only set this if no " +
+            "other step uses the reference image.",
+            defaultValue = "false")
+    private boolean inPlace = false;
+
     @Tolerate
     public DrawHeatmapStep points(String... points) {
         return this.points(Arrays.asList(points));
@@ -89,6 +89,11 @@ public class DrawSegmentationStep implements PipelineStep {
             "produced the segmentation prediction to be drawn.")
     private ImageToNDArrayConfig imageToNDArrayConfig;
 
+    @Schema(description = "Only used when \"image\" is set. If true, the mask is drawn directly on that image (if it is an " +
+            "8-bit, 3 channel image) instead of on a copy. Only set this if no other step uses the image.",
+            defaultValue = "false")
+    private boolean inPlace = false;
+
     @Tolerate
     public DrawSegmentationStep classColors(String... classColors) {
         return this.classColors(Arrays.asList(classColors));
@@ -21,6 +21,7 @@ package ai.konduit.serving.data.image.convert;
 import ai.konduit.serving.data.image.convert.config.AspectRatioHandling;
 import ai.konduit.serving.data.image.convert.config.NDChannelLayout;
 import ai.konduit.serving.data.image.convert.config.NDFormat;
+import ai.konduit.serving.data.image.format.MatDecodeHints;
 import ai.konduit.serving.data.image.util.ImageUtils;
 import ai.konduit.serving.pipeline.api.data.BoundingBox;
 import ai.konduit.serving.pipeline.api.data.Image;
@@ -28,15 +29,34 @@ import ai.konduit.serving.pipeline.api.data.NDArray;
 import ai.konduit.serving.pipeline.api.data.NDArrayType;
 import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
 import com.google.common.primitives.Longs;
-import org.bytedeco.javacpp.Loader;
-import org.bytedeco.javacpp.indexer.*;
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.indexer.DoubleIndexer;
 import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.MatVector;
 import org.bytedeco.opencv.opencv_core.Rect;
+import org.bytedeco.opencv.opencv_core.Scalar;
 import org.bytedeco.opencv.opencv_core.Size;
 import org.nd4j.common.base.Preconditions;
 import org.nd4j.common.primitives.Pair;
 
-import java.nio.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_BGR2GRAY;
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_BGR2RGB;
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_BGRA2BGR;
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_BGRA2GRAY;
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_GRAY2BGR;
+import static org.bytedeco.opencv.global.opencv_imgproc.INTER_LINEAR;
+import static org.bytedeco.opencv.global.opencv_imgproc.cvtColor;
+import static org.bytedeco.opencv.global.opencv_imgproc.warpAffine;
 
 
 /**
@@ -89,7 +109,7 @@ public class ImageToNDArray {
             if (h == AspectRatioHandling.CENTER_CROP) {
                 return centerCropBB(imgH, imgW, outH, outW);
             } else if (h == AspectRatioHandling.PAD) {
-                throw new UnsupportedOperationException("Not yet implemented");
+                return letterboxBB(imgH, imgW, outH, outW);
             } else if (h == AspectRatioHandling.STRETCH) {
                 return BoundingBox.createXY(0.0, 1.0, 0.0, 1.0);
             } else {
@@ -117,20 +137,296 @@ public class ImageToNDArray {
         return out;
     }
 
+    /**
+     * Convert a list of images to a single NDArray, with the images batched along dimension 0 - i.e., shape
+     * [n, c, h, w] or [n, h, w, c].<br>
+     * The images are converted in parallel (see {@link #parallelFor(int, IntConsumer)}), each one directly in to its
+     * slice of the output buffer. When
+     * {@link ImageToNDArrayConfig#height()} or {@link ImageToNDArrayConfig#width()} are not set and the images have
+     * different sizes, {@link ImageToNDArrayConfig#mixedSizeHandling()} determines the output size.
+     *
+     * @param images Images to convert. Must not be empty
+     * @param config Configuration to use
+     * @return The images converted to a single NDArray
+     */
+    public static NDArray convertBatch(List<Image> images, ImageToNDArrayConfig config) {
+        Preconditions.checkState(!images.isEmpty(), "Unable to convert an empty list of images to a batch");
+
+        int n = images.size();
+        int firstH = config.height() != null ? config.height() : images.get(0).height();
+        int firstW = config.width() != null ? config.width() : images.get(0).width();
+        int maxH = firstH;
+        int maxW = firstW;
+        boolean sameSize = true;
+        for (Image i : images) {
+            int h = config.height() != null ? config.height() : i.height();
+            int w = config.width() != null ? config.width() : i.width();
+            sameSize &= h == firstH && w == firstW;
+            maxH = Math.max(maxH, h);
+            maxW = Math.max(maxW, w);
+        }
+
+        ImageToNDArrayConfig c = config;
+        boolean pad = false;
+        if (!sameSize) {
+            switch (config.mixedSizeHandling()) {
+                case RESIZE:
+                    c = withSize(config, firstH, firstW);
+                    break;
+                case PAD:
+                    pad = true;
+                    break;
+                case FAIL:
+                default:
+                    throw new IllegalStateException("Error in ImageToNDArray: unable to combine images of different sizes in " +
+                            "to a single batch. Set ImageToNDArrayConfig.height/width, set ImageToNDArrayConfig.mixedSizeHandling " +
+                            "to RESIZE or PAD, or only pass in images of the same size");
+            }
+        }
+
+        int outH = pad ? maxH : firstH;
+        int outW = pad ? maxW : firstW;
+        int ch = config.channelLayout().numChannels();
+        long sliceBytes = (long) ch * outH * outW * config.dataType().width();
+        Preconditions.checkState(sliceBytes * n <= Integer.MAX_VALUE, "Batch of %s images of size %sx%s is too large for a single buffer", n, outH, outW);
+
+        ByteBuffer bb = ByteBuffer.allocateDirect((int) (sliceBytes * n)).order(ByteOrder.LITTLE_ENDIAN);
+        ImageToNDArrayConfig conf = c;
+        boolean padImages = pad;
+        parallelFor(n, i -> {
+            Mat m = prepare(images.get(i), conf, false).getFirst();
+            if (padImages && (m.rows() != outH || m.cols() != outW)) {
+                Mat padded = new Mat();
+                copyMakeBorder(m, padded, 0, outH - m.rows(), 0, outW - m.cols(), BORDER_CONSTANT, new Scalar(0.0));
+                m = padded;
+            }
+            writeTo(m, conf, bb, i * sliceBytes);
+        });
+
+        long[] shape;
+        if (config.format() == NDFormat.CHANNELS_FIRST) {
+            shape = new long[]{n, ch, outH, outW};
+        } else {
+            shape = new long[]{n, outH, outW, ch};
+        }
+
+        return NDArray.create(new SerializedNDArray(config.dataType(), shape, bb));
+    }
+
+    /**
+     * Convert a list of images to a list of NDArrays, one per image. The images are converted in parallel - see
+     * {@link #parallelFor(int, IntConsumer)}
+     */
+    public static List<NDArray> convertList(List<Image> images, ImageToNDArrayConfig config) {
+        NDArray[] out = new NDArray[images.size()];
+        parallelFor(out.length, i -> out[i] = convert(images.get(i), config));
+        return Arrays.asList(out);
+    }
+
+    /**
+     * Run the task for indices 0 to n-1 in parallel, on the calling thread and the threads of a shared pool with one
+     * thread per CPU core.<br>
+     * A dedicated, bounded pool is used instead of parallel streams: parallel streams run on the common ForkJoin pool,
+     * which is shared with any other parallel stream in the JVM, and blocking it from many concurrent requests would
+     * starve unrelated work. The calling thread takes part in the work, so each request still makes progress (on its
+     * own thread) when the pool is busy with other requests.
+     */
+    protected static void parallelFor(int n, IntConsumer task) {
+        int numTasks = Math.min(n, ConversionPool.THREADS + 1);
+        if (numTasks <= 1) {
+            for (int i = 0; i < n; i++) {
+                task.accept(i);
+            }
+            return;
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            int i;
+            while ((i = next.getAndIncrement()) < n) {
+                task.accept(i);
+            }
+        };
+
+        List<Future<?>> futures = new ArrayList<>(numTasks - 1);
+        for (int t = 1; t < numTasks; t++) {
+            futures.add(ConversionPool.EXECUTOR.submit(worker));
+        }
+
+        Throwable error = null;
+        try {
+            worker.run();
+        } catch (Throwable t) {
+            error = t;
+            //Stop the pool threads from picking up more indices
+            next.set(n);
+        }
+
+        //Always wait for the pool threads, as they write to buffers owned by the caller
+        boolean interrupted = false;
+        for (Future<?> f : futures) {
+            while (true) {
+                try {
+                    f.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (error == null) {
+                        error = e.getCause();
+                        next.set(n);
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        } else if (error instanceof Error) {
+            throw (Error) error;
+        } else if (error != null) {
+            throw new RuntimeException(error);
+        }
+    }
+
+    /**
+     * Lazily created pool for {@link #parallelFor(int, IntConsumer)}. Idle threads are stopped after a minute
+     */
+    private static class ConversionPool {
+        private static final int THREADS = Runtime.getRuntime().availableProcessors();
+        private static final ExecutorService EXECUTOR;
+
+        static {
+            AtomicInteger count = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "image-to-ndarray-" + count.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            EXECUTOR = executor;
+        }
+    }
+
+    private static ImageToNDArrayConfig withSize(ImageToNDArrayConfig config, int height, int width) {
+        return new ImageToNDArrayConfig(height, width, config.dataType(), config.includeMinibatchDim(),
+                config.aspectRatioHandling(), config.format(), config.channelLayout(), config.normalization(),
+                config.listHandling(), config.mixedSizeHandling());
+    }
+
+    /**
+     * Crop the given regions of an image and convert them to a single NDArray, with the crops batched along dimension 0 -
+     * i.e., shape [n, c, h, w] or [n, h, w, c], where h and w are {@link ImageToNDArrayConfig#height()} and
+     * {@link ImageToNDArrayConfig#width()}, which must be set.<br>
+     * Each region is cropped and resized in a single warpAffine call from the source image, without copying the region
+     * first, and then written directly in to its slice of the output buffer. The regions are processed in parallel (see
+     * {@link #parallelFor(int, IntConsumer)}).<br>
+     * The aspect ratio handling is applied around the center of each region: CENTER_CROP shrinks the region, PAD enlarges
+     * it (including the surrounding image content) to match the output aspect ratio. Parts of a region outside of the
+     * image are filled with zeros.
+     *
+     * @param image   Image to crop
+     * @param regions Regions to crop, in relative (0 to 1) coordinates. May be empty
+     * @param config  Configuration to use for the output
+     * @return The cropped regions as a single NDArray
+     */
+    public static NDArray convertCrops(Image image, List<BoundingBox> regions, ImageToNDArrayConfig config) {
+        Preconditions.checkState(config.height() != null && config.width() != null, "ImageToNDArrayConfig height and width " +
+                "must be set to convert image crops to a batch; got height=%s, width=%s", config.height(), config.width());
+
+        int n = regions.size();
+        int outH = config.height();
+        int outW = config.width();
+        int ch = config.channelLayout().numChannels();
+        long sliceBytes = (long) ch * outH * outW * config.dataType().width();
+        Preconditions.checkState(sliceBytes * n <= Integer.MAX_VALUE, "Batch of %s crops of size %sx%s is too large for a single buffer", n, outH, outW);
+
+        ByteBuffer bb = ByteBuffer.allocateDirect((int) (sliceBytes * n)).order(ByteOrder.LITTLE_ENDIAN);
+        if (n > 0) {
+            Mat img = image.getAs(Mat.class);
+            int imgH = img.rows();
+            int imgW = img.cols();
+            AspectRatioHandling arh = config.aspectRatioHandling() == null ? AspectRatioHandling.STRETCH : config.aspectRatioHandling();
+            parallelFor(n, i -> {
+                BoundingBox r = regions.get(i);
+                double cx = r.cx() * imgW;
+                double cy = r.cy() * imgH;
+                double sx = outW / Math.max(Math.abs(r.width()) * imgW, 1e-6);
+                double sy = outH / Math.max(Math.abs(r.height()) * imgH, 1e-6);
+                if (arh == AspectRatioHandling.CENTER_CROP) {
+                    sx = sy = Math.max(sx, sy);
+                } else if (arh == AspectRatioHandling.PAD) {
+                    sx = sy = Math.min(sx, sy);
+                }
+
+                //Map the region center to the output center, with the same pixel center convention as resize
+                Mat transform = new Mat(2, 3, CV_64F);
+                DoubleIndexer idx = transform.createIndexer();
+                idx.put(0, 0, sx).put(0, 1, 0.0).put(0, 2, sx * (0.5 - cx) + outW / 2.0 - 0.5);
+                idx.put(1, 0, 0.0).put(1, 1, sy).put(1, 2, sy * (0.5 - cy) + outH / 2.0 - 0.5);
+                idx.release();
+
+                Mat crop = new Mat();
+                warpAffine(img, crop, transform, new Size(outW, outH), INTER_LINEAR, BORDER_CONSTANT, new Scalar(0.0));
+                writeTo(convertColor(crop, config), config, bb, i * sliceBytes);
+            });
+        }
+
+        long[] shape;
+        if (config.format() == NDFormat.CHANNELS_FIRST) {
+            shape = new long[]{n, ch, outH, outW};
+        } else {
+            shape = new long[]{n, outH, outW, ch};
+        }
+
+        return NDArray.create(new SerializedNDArray(config.dataType(), shape, bb));
+    }
+
     protected static Pair<NDArray,BoundingBox> convert(Image image, ImageToNDArrayConfig config, boolean withMeta) {
+        Pair<Mat,BoundingBox> p = prepare(image, config, withMeta);
+        Mat m = p.getFirst();
+
+        ByteBuffer bb = toBuffer(m, config);
+
+        int ch = config.channelLayout().numChannels();
+
+        long[] shape;
+        if (config.format() == NDFormat.CHANNELS_FIRST) {
+            shape =  new long[]{ch, m.rows(), m.cols()};
+        } else {
+            shape = new long[]{m.rows(), m.cols(), ch};
+        }
+
+        if(config.includeMinibatchDim()) {
+            shape = Longs.concat(new long[]{1},shape);
+        }
+
+        SerializedNDArray arr = new SerializedNDArray(config.dataType(), shape, bb);
+
+        return new Pair<>(NDArray.create(arr), p.getSecond());
+    }
+
+    /**
+     * Crop/resize the image to the configured output size, and convert it to the configured number of channels
+     */
+    protected static Pair<Mat,BoundingBox> prepare(Image image, ImageToNDArrayConfig config, boolean withMeta) {
         BoundingBox bbMeta = null;
 
-        Integer outH = config.height();
-        Integer outW = config.width();
-        if (outH == null)
-            outH = image.height();
-        if (outW == null)
-            outW = image.width();
+        //Let the decoder know the target size and channels: jpegs can then be decoded at a reduced size
+        MatDecodeHints hints = new MatDecodeHints(config.height(), config.width(), config.aspectRatioHandling(),
+                config.channelLayout() == NDChannelLayout.GRAYSCALE);
+        Mat m = MatDecodeHints.decode(image, hints);
 
+        int outH = config.height() == null ? m.rows() : config.height();
+        int outW = config.width() == null ? m.cols() : config.width();
 
         //Resize if necessary
-        boolean correctSize = outH == image.height() && outW == image.width();
-        Mat m = image.getAs(Mat.class);
+        boolean correctSize = outH == m.rows() && outW == m.cols();
         if (!correctSize) {
             AspectRatioHandling h = config.aspectRatioHandling();
             if (h == AspectRatioHandling.CENTER_CROP) {
@@ -148,7 +444,12 @@ public class ImageToNDArray {
                     bbMeta = p.getSecond();
                 }
             } else if (h == AspectRatioHandling.PAD) {
-                throw new UnsupportedOperationException("Not yet implemented");
+                Pair<Mat,BoundingBox> p = letterbox(m, outH, outW, withMeta);
+                m = p.getFirst();
+
+                if(withMeta){
+                    bbMeta = p.getSecond();
+                }
             } else if (h == AspectRatioHandling.STRETCH) {
                 Mat resized = new Mat();
                 org.bytedeco.opencv.global.opencv_imgproc.resize(m, resized, new Size(outW, outH));
@@ -169,35 +470,7 @@ public class ImageToNDArray {
         m = convertColor(m, config);
         Preconditions.checkState(m.channels() <= 3,"Channels must not be greater than 3!");
 
-        ByteBuffer bb = toFloatBuffer(m, config);
-
-        if (config.dataType() != NDArrayType.FLOAT) //TODO there are likely more efficient ways than this!
-            bb = ImageUtils.cast(bb, NDArrayType.FLOAT, config.dataType());
-
-        int ch = config.channelLayout().numChannels();
-
-        long[] shape;
-        if (config.format() == NDFormat.CHANNELS_FIRST) {
-            shape =  new long[]{ch, outH, outW};
-        } else {
-            shape = new long[]{outH, outW, ch};
-        }
-
-        /*   INDArray arrCreate = Nd4j.create(ND4JUtil.typeNDArrayTypeToNd4j(config.dataType()),shape, Nd4j.getStrides(shape),'c');
-         *//**
-         * Note this logic assumes 3d arrays.
-         * Postpone reshape till after the data is filled in
-         * since the new shape is just the minibatch size.
-         *//*
-        ImageUtils.fillNDArray(m,true,arrCreate);
-        ByteBuffer bb = arrCreate.data().asNio();*/
-        if(config.includeMinibatchDim()) {
-            shape = Longs.concat(new long[]{1},shape);
-        }
-
-        SerializedNDArray arr = new SerializedNDArray(config.dataType(), shape, bb);
-
-        return new Pair<>(NDArray.create(arr), bbMeta);
+        return new Pair<>(m, bbMeta);
     }
 
     public static Pair<Mat,BoundingBox> centerCrop(Mat image, int outH, int outW, boolean withBB) {
@@ -243,6 +516,63 @@ public class ImageToNDArray {
         return new Pair<>(out, bb);
     }
 
+    /**
+     * Letterbox the image: resize it (once) to the largest size that fits in outH x outW while keeping its aspect
+     * ratio, then zero pad both sides of the smaller dimension to the output size.
+     *
+     * @return The letterboxed image, and (if withBB is true) the region of the output in terms of the original image -
+     * see {@link #letterboxBB(int, int, int, int)}
+     */
+    public static Pair<Mat,BoundingBox> letterbox(Mat image, int outH, int outW, boolean withBB) {
+        int[] p = letterboxPadding(image.rows(), image.cols(), outH, outW);
+        int newW = p[0];
+        int newH = p[1];
+        int padLeft = p[2];
+        int padTop = p[3];
+
+        Mat resized = image;
+        if (newW != image.cols() || newH != image.rows()) {
+            resized = new Mat();
+            org.bytedeco.opencv.global.opencv_imgproc.resize(image, resized, new Size(newW, newH));
+        }
+
+        Mat out = resized;
+        if (newW != outW || newH != outH) {
+            out = new Mat();
+            copyMakeBorder(resized, out, padTop, outH - newH - padTop, padLeft, outW - newW - padLeft,
+                    BORDER_CONSTANT, new Scalar(0.0));
+        }
+
+        return new Pair<>(out, withBB ? letterboxBB(image.rows(), image.cols(), outH, outW) : null);
+    }
+
+    /**
+     * The region covered by a letterboxed output (see {@link #letterbox(Mat, int, int, boolean)}), as a fraction of the
+     * original image size. Unlike center cropping, this extends beyond [0, 1] in the padded dimension - for example,
+     * y1 = -0.25 and y2 = 1.25 when a quarter of the image height is added as padding at the top and the bottom.
+     * As with the crop region, predictions relative to the output can be mapped back to the original image with
+     * {@code x = region.x1() + region.width() * outX} (see {@link ai.konduit.serving.data.image.util.ImageUtils#accountForCrop(BoundingBox, int, int, ImageToNDArrayConfig)})
+     */
+    public static BoundingBox letterboxBB(int imgH, int imgW, int outH, int outW) {
+        int[] p = letterboxPadding(imgH, imgW, outH, outW);
+        double newW = p[0];
+        double newH = p[1];
+        double padLeft = p[2];
+        double padTop = p[3];
+
+        return BoundingBox.createXY(-padLeft / newW, (outW - padLeft) / newW, -padTop / newH, (outH - padTop) / newH);
+    }
+
+    /**
+     * @return The resized width and height, and the left and top padding, for letterboxing the image to outH x outW
+     */
+    protected static int[] letterboxPadding(int imgH, int imgW, int outH, int outW) {
+        double scale = Math.min(outW / (double) imgW, outH / (double) imgH);
+        int newW = Math.min(outW, (int) Math.round(imgW * scale));
+        int newH = Math.min(outH, (int) Math.round(imgH * scale));
+        return new int[]{newW, newH, (outW - newW) / 2, (outH - newH) / 2};
+    }
+
     protected static BoundingBox centerCropBB(int imgH, int imgW, int outH, int outW){
         double aspectIn = imgW / (double)imgH;
         double aspectOut = outW / (double)outH;
@@ -289,12 +619,52 @@ public class ImageToNDArray {
             throw new UnsupportedOperationException("Not yet implemented: Channels != 3 support");
         }
 
-        //TODO - Actually convert color!
+        //Only conversions between gray, BGR and BGRA here - RGB order is handled when writing the output
+        int code = -1;
+        if (ch == 1 && m.channels() == 3) {
+            code = COLOR_BGR2GRAY;
+        } else if (ch == 1 && m.channels() == 4) {
+            code = COLOR_BGRA2GRAY;
+        } else if (ch == 3 && m.channels() == 1) {
+            code = COLOR_GRAY2BGR;
+        } else if (ch == 3 && m.channels() == 4) {
+            code = COLOR_BGRA2BGR;
+        }
+
+        if (code < 0) {
+            return m;
+        }
 
-        return m;
+        Mat converted = new Mat();
+        cvtColor(m, converted, code);
+        return converted;
     }
 
-    protected static ByteBuffer toFloatBuffer(Mat m, ImageToNDArrayConfig config) {
+    /**
+     * Write the (already resized) image to a buffer in the configured format, channel order, normalization and data
+     * type.<br>
+     * Color swap, layout transpose, normalization and data type conversion are done together with bulk OpenCV
+     * operations, writing directly in to the output buffer: for CHW, each channel plane is converted straight in to
+     * its output position; for HWC, the channels are reordered on the 8 bit image and then converted in one pass (or
+     * by a single per pixel affine transform when the normalization differs between channels).<br>
+     * Integer output types use OpenCV's saturating conversion: normalized values are rounded to the nearest integer and
+     * clipped to the range of the type. For example, a value of 300 is 127 for INT8 (not 44), and 0.6 is 1 (not 0).
+     * Types without an OpenCV equivalent (INT64, UINT32, UINT64, BFLOAT16) are converted from float by
+     * {@link ImageUtils#cast(ByteBuffer, NDArrayType, NDArrayType)} instead, which truncates.
+     */
+    protected static ByteBuffer toBuffer(Mat m, ImageToNDArrayConfig config) {
+        long bytes = (long) m.rows() * m.cols() * m.channels() * config.dataType().width();
+        ByteBuffer bb = ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.LITTLE_ENDIAN);
+        writeTo(m, config, bb, 0);
+        return bb;
+    }
+
+    /**
+     * As per {@link #toBuffer(Mat, ImageToNDArrayConfig)}, but writing to the given (direct) buffer, starting at the
+     * given byte offset. The buffer's position and limit are not modified, so different threads can write to
+     * different regions of the same buffer concurrently.
+     */
+    protected static void writeTo(Mat m, ImageToNDArrayConfig config, ByteBuffer bb, long offsetBytes) {
         Preconditions.checkState(config.channelLayout() == NDChannelLayout.RGB ||
                         config.channelLayout() == NDChannelLayout.BGR ||
                         config.channelLayout() == NDChannelLayout.GRAYSCALE,
@@ -303,83 +673,119 @@ public class ImageToNDArray {
         Preconditions.checkState(config.dataType() != NDArrayType.BOOL && config.dataType() != NDArrayType.UTF8,
                 "%s datatype is not supported for ImageToNDArray", config.dataType());
 
-        boolean direct = !Loader.getPlatform().startsWith("android");
+        //Types without an OpenCV equivalent are converted from float afterwards
+        int depth = cvDepth(config.dataType());
+        boolean cast = depth < 0;
+        NDArrayType outType = cast ? NDArrayType.FLOAT : config.dataType();
+        if (cast)
+            depth = CV_32F;
 
-        //By default, Mat stores values in channels first format - CHW
         int h = m.rows();
         int w = m.cols();
         int ch = m.channels();
 
-        int lengthElements = h * w * ch;
-        int lengthBytes = lengthElements * 4;
-
-        ByteBuffer bb = direct ? ByteBuffer.allocateDirect(lengthBytes).order(ByteOrder.LITTLE_ENDIAN) : ByteBuffer.allocate(lengthBytes).order(ByteOrder.LITTLE_ENDIAN);
-        FloatBuffer fb = bb.asFloatBuffer();
-
-        boolean rgb = config.channelLayout() == NDChannelLayout.RGB;
-
-        ImageUtils.FloatNormalizer f = ImageUtils.getFloatNormalizer(config, rgb);
-
+        boolean rgb = config.channelLayout() == NDChannelLayout.RGB && ch == 3;
+        double[][] scaleAndOffset = ImageUtils.getNormalizationScaleAndOffset(config, rgb);
+        double[] scale = scaleAndOffset[0];
+        double[] offset = scaleAndOffset[1];
+
+        long planeBytes = (long) h * w * outType.width();
+        ByteBuffer target = bb;
+        long targetOffset = offsetBytes;
+        if (cast) {
+            target = ByteBuffer.allocateDirect((int) (planeBytes * ch)).order(ByteOrder.LITTLE_ENDIAN);
+            targetOffset = 0;
+        }
 
-        Indexer imgIdx = m.createIndexer(direct);
-        if (imgIdx instanceof UByteIndexer) {
-            UByteIndexer ubIdx = (UByteIndexer) imgIdx;
-            if (config.format() == NDFormat.CHANNELS_FIRST) {
+        if (config.format() == NDFormat.CHANNELS_FIRST) {
+            //Mat is HWC in BGR, we want (N)CHW: split in to planes, and convert each one in to its output position
+            MatVector planes = new MatVector();
+            split(m, planes);
+            for (int c = 0; c < ch; c++) {
+                Mat out = wrap(target, targetOffset + c * planeBytes, h, w, CV_MAKETYPE(depth, 1));
+                planes.get(rgb ? 2 - c : c).convertTo(out, depth, scale[c], offset[c]);
+            }
+        } else {
+            //Mat is HWC in BGR, we want (N)HWC
+            Mat out = wrap(target, targetOffset, h, w, CV_MAKETYPE(depth, ch));
+            if (ch == 1 || isUniform(scale, offset)) {
+                Mat src = m;
                 if (rgb) {
-                    //Mat is HWC in BGR, we want (N)CHW in RGB format
-                    int[] rgbToBgr = {2, 1, 0};
-                    for (int c = 0; c < rgbToBgr.length; c++) {
-                        for (int y = 0; y < h; y++) {
-                            for (int x = 0; x < w; x++) {
-                                //int idxBGR = (ch * w * y) + (ch * x) + rgbToBgr[c];
-                                int v = ubIdx.get(y,x,rgbToBgr[c]);
-                                float normalized = f.normalize(v, c);
-                                fb.put(normalized);
-                            }
-                        }
-                    }
-                } else {
-                    UByteRawIndexer uByteRawIndexer = (UByteRawIndexer) ubIdx;
-                    //Mat is HWC in BGR, we want (N)CHW in BGR format
-                    for (int c = 0; c < 3; c++) {
-                        for (int y = 0; y < h; y++) {
-                            for (int x = 0; x < w; x++) {
-                                int idxBGR = (ch * w * y) + (ch * x) + c;
-                                int v = uByteRawIndexer.getRaw(idxBGR);
-                                float normalized = f.normalize(v, c);
-                                fb.put(normalized);
-                            }
-                        }
-                    }
+                    src = new Mat();
+                    cvtColor(m, src, COLOR_BGR2RGB);
                 }
+                src.convertTo(out, depth, scale[0], offset[0]);
             } else {
-                if (rgb) {
-                    //Mat is HWC in BGR, we want (N)HWC in RGB format
-                    fb.position(0);
-                    UByteRawIndexer uByteRawIndexer = (UByteRawIndexer) ubIdx;
-                    for (int i = 0; i < lengthElements; i += 3) {
-                        int b = uByteRawIndexer.getRaw(i);
-                        int g = uByteRawIndexer.getRaw(i + 1);
-                        int r = uByteRawIndexer.getRaw(i + 2);
-                        fb.put(f.normalize(r, 0));
-                        fb.put(f.normalize(g, 1));
-                        fb.put(f.normalize(b, 2));
+                //Per channel normalization: output channel c = scale[c] * input channel + offset[c]
+                int workDepth = depth == CV_64F ? CV_64F : CV_32F;
+                Mat kernel = new Mat(3, 4, CV_64F);
+                DoubleIndexer idx = kernel.createIndexer();
+                for (int c = 0; c < 3; c++) {
+                    for (int j = 0; j < 4; j++) {
+                        idx.put(c, j, 0.0);
                     }
-                } else {
-                    //Mat is HWC in BGR, we want (N)HWC in BGR format
-                    UByteRawIndexer uByteRawIndexer = (UByteRawIndexer) ubIdx;
+                    idx.put(c, rgb ? 2 - c : c, scale[c]);
+                    idx.put(c, 3, offset[c]);
+                }
+                idx.release();
 
-                    for (int i = 0; i < lengthElements; i++) {
-                        float normalized = f.normalize(uByteRawIndexer.getRaw(i), i % 3);
-                        fb.put(normalized);
-                    }
+                Mat floatImg = new Mat();
+                m.convertTo(floatImg, workDepth);
+                if (workDepth == depth) {
+                    transform(floatImg, out, kernel);
+                } else {
+                    Mat transformed = new Mat();
+                    transform(floatImg, transformed, kernel);
+                    transformed.convertTo(out, depth);
                 }
             }
-        } else {
-            throw new RuntimeException("Not yet implemented: " + imgIdx.getClass());
         }
 
-        return bb;
+        if (cast) {
+            ByteBuffer converted = ImageUtils.cast(target, NDArrayType.FLOAT, config.dataType());
+            converted.rewind();
+            ByteBuffer dst = bb.duplicate();
+            dst.position((int) offsetBytes);
+            dst.put(converted);
+        }
+    }
+
+    private static Mat wrap(ByteBuffer bb, long offsetBytes, int h, int w, int type) {
+        return new Mat(h, w, type, new BytePointer(bb).position(offsetBytes));
+    }
+
+    private static boolean isUniform(double[] scale, double[] offset) {
+        for (int c = 1; c < scale.length; c++) {
+            if (scale[c] != scale[0] || offset[c] != offset[0])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return The OpenCV depth for the given type, or -1 if OpenCV has no equivalent type
+     */
+    protected static int cvDepth(NDArrayType type) {
+        switch (type) {
+            case DOUBLE:
+                return CV_64F;
+            case FLOAT:
+                return CV_32F;
+            case FLOAT16:
+                return CV_16F;
+            case INT32:
+                return CV_32S;
+            case INT16:
+                return CV_16S;
+            case INT8:
+                return CV_8S;
+            case UINT16:
+                return CV_16U;
+            case UINT8:
+                return CV_8U;
+            default:
+                return -1;
+        }
     }
 
 }
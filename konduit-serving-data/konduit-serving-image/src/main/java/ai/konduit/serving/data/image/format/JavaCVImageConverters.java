@@ -18,7 +18,9 @@
 
 package ai.konduit.serving.data.image.format;
 
+import ai.konduit.serving.data.image.convert.config.AspectRatioHandling;
 import ai.konduit.serving.pipeline.api.data.Image;
+import ai.konduit.serving.pipeline.api.format.ImageFormat;
 import ai.konduit.serving.pipeline.impl.data.image.Bmp;
 import ai.konduit.serving.pipeline.impl.data.image.Jpeg;
 import ai.konduit.serving.pipeline.impl.data.image.Png;
@@ -33,6 +35,7 @@ import org.bytedeco.opencv.global.opencv_imgproc;
 import org.bytedeco.opencv.opencv_core.CvArr;
 import org.bytedeco.opencv.opencv_core.IplImage;
 import org.bytedeco.opencv.opencv_core.Mat;
+import org.nd4j.common.base.Preconditions;
 
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
@@ -86,20 +89,87 @@ public class JavaCVImageConverters {
         }
 
         @Override
-        protected <T> T doConversion(Image from, Class<T> to) {
+        public boolean canConvert(Image from, ImageFormat<?> to) {
+            return to instanceof MatDecodeHints && cFrom.isAssignableFrom(from.get().getClass());
+        }
+
+        @Override
+        public <T> T convert(Image from, ImageFormat<T> to) {
+            Preconditions.checkState(canConvert(from, to), "Unable to convert image to format %s", to);
+            MatDecodeHints hints = (MatDecodeHints) to;
             BaseImageFile p = (BaseImageFile) from.get();
+            int factor = p instanceof Jpeg ? reductionFactor(from.height(), from.width(), hints) : 1;
+
+            int flags;
+            switch (factor) {
+                case 8:
+                    flags = hints.grayscale() ? opencv_imgcodecs.IMREAD_REDUCED_GRAYSCALE_8 : opencv_imgcodecs.IMREAD_REDUCED_COLOR_8;
+                    break;
+                case 4:
+                    flags = hints.grayscale() ? opencv_imgcodecs.IMREAD_REDUCED_GRAYSCALE_4 : opencv_imgcodecs.IMREAD_REDUCED_COLOR_4;
+                    break;
+                case 2:
+                    flags = hints.grayscale() ? opencv_imgcodecs.IMREAD_REDUCED_GRAYSCALE_2 : opencv_imgcodecs.IMREAD_REDUCED_COLOR_2;
+                    break;
+                default:
+                    flags = hints.grayscale() ? opencv_imgcodecs.IMREAD_GRAYSCALE : opencv_imgcodecs.IMREAD_UNCHANGED;
+            }
+            if (flags != opencv_imgcodecs.IMREAD_UNCHANGED) {
+                //Same orientation as IMREAD_UNCHANGED, i.e., as the image's height() and width()
+                flags |= opencv_imgcodecs.IMREAD_IGNORE_ORIENTATION;
+            }
+            return (T) decode(p, flags);
+        }
+
+        @Override
+        protected <T> T doConversion(Image from, Class<T> to) {
+            return (T) decode((BaseImageFile) from.get(), opencv_imgcodecs.IMREAD_UNCHANGED);
+        }
+
+        protected Mat decode(BaseImageFile p, int flags) {
             ByteBuffer fileBytes = p.getFileBytes();
             Buffer bufferCast = (Buffer) fileBytes;
             bufferCast.position(0);
 
+            //imdecode always allocates a new Mat for the output - no need to copy it
             Mat m = new Mat(new BytePointer(fileBytes), false);
-            Mat out = org.bytedeco.opencv.global.opencv_imgcodecs.imdecode(m, opencv_imgcodecs.IMREAD_UNCHANGED);
-            Mat ret = out.clone();
+            Mat out = opencv_imgcodecs.imdecode(m, flags);
             //strip alpha channel if exists
             if(out.channels() > 3) {
-                cvtColor(out,ret,CV_BGRA2BGR);
+                cvtColor(out, out, CV_BGRA2BGR);
+            }
+            return out;
+        }
+
+        /**
+         * @return The largest jpeg decoding scale factor (1, 2, 4 or 8) for which the decoded image is still at least as
+         * large as the image will be after resizing to the target size
+         */
+        protected static int reductionFactor(int h, int w, MatDecodeHints hints) {
+            if (hints.targetHeight() == null || hints.targetWidth() == null || h <= 0 || w <= 0)
+                return 1;
+
+            double scaleH = hints.targetHeight() / (double) h;
+            double scaleW = hints.targetWidth() / (double) w;
+            double needH, needW;
+            if (hints.aspectRatioHandling() == AspectRatioHandling.STRETCH) {
+                needH = hints.targetHeight();
+                needW = hints.targetWidth();
+            } else {
+                //PAD: the whole image must fit in the target. CENTER_CROP: the image must cover the target
+                double scale = hints.aspectRatioHandling() == AspectRatioHandling.PAD ? Math.min(scaleH, scaleW) : Math.max(scaleH, scaleW);
+                needH = h * scale;
+                needW = w * scale;
+            }
+
+            for (int f = 8; f > 1; f /= 2) {
+                int reducedH = (h + f - 1) / f;
+                int reducedW = (w + f - 1) / f;
+                if (reducedH >= Math.ceil(needH) && reducedW >= Math.ceil(needW)) {
+                    return f;
+                }
             }
-            return (T) ret;
+            return 1;
         }
     }
 
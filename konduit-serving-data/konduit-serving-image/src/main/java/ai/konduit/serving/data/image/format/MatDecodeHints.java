@@ -0,0 +1,62 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.data.image.format;
+
+import ai.konduit.serving.data.image.convert.config.AspectRatioHandling;
+import ai.konduit.serving.pipeline.api.data.Image;
+import ai.konduit.serving.pipeline.api.format.ImageFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+/**
+ * Hints for decoding image files (jpeg, png, bmp) to a {@link Mat}, describing what the next processing step will do
+ * with the decoded image:
+ * <ul>
+ *     <li><b>targetHeight/targetWidth</b>: The size the image will be resized to. Jpeg images may then be decoded at 1/2,
+ *     1/4 or 1/8 of their size, as long as the decoded image is still large enough for the given
+ *     {@link #aspectRatioHandling()}. May be null if the size is not known.</li>
+ *     <li><b>aspectRatioHandling</b>: How the image will be resized to the target size. Default: CENTER_CROP</li>
+ *     <li><b>grayscale</b>: If true, the image will be converted to grayscale, so it can be decoded as a single channel image</li>
+ * </ul>
+ * Use with {@link #decode(Image, MatDecodeHints)}: images that are not image files are converted as usual.
+ */
+@Data
+@Accessors(fluent = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class MatDecodeHints implements ImageFormat<Mat> {
+
+    private Integer targetHeight;
+    private Integer targetWidth;
+    private AspectRatioHandling aspectRatioHandling = AspectRatioHandling.CENTER_CROP;
+    private boolean grayscale;
+
+    /**
+     * Get the image as a {@link Mat}, using the decode hints if the image is an encoded image file
+     */
+    public static Mat decode(Image image, MatDecodeHints hints) {
+        if (hints != null && image.canGetAs(hints)) {
+            return image.getAs(hints);
+        }
+        return image.getAs(Mat.class);
+    }
+}
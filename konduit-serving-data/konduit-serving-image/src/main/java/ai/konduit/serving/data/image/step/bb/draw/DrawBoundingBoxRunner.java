@@ -96,11 +96,16 @@ public class DrawBoundingBoxRunner implements PipelineStepRunner {
             throw new IllegalStateException("Data[" + bboxName + "] is neither a BoundingBox or List<BoundingBox> - is " + vt);
         }
 
-        Mat m = i.getAs(Mat.class).clone();     //Make a copy to avoid modiying input data that might be used elsewhere (if in graph pipeline)
+        Mat m = i.getAs(Mat.class);
         Map<String,String> cc = step.classColors();
         String dc = step.color();
 
         Mat scaled = scaleIfRequired(m);
+        if(scaled == m && !step.inPlace()){
+            //Make a copy to avoid modifying input data that might be used elsewhere (if in graph pipeline)
+            //Not needed if the image was scaled, as that already creates a new Mat
+            scaled = m.clone();
+        }
 
         int thickness = Math.max(1, step.lineThickness());
 
@@ -26,6 +26,7 @@ import ai.konduit.serving.pipeline.api.context.Context;
 import ai.konduit.serving.pipeline.api.data.BoundingBox;
 import ai.konduit.serving.pipeline.api.data.Data;
 import ai.konduit.serving.pipeline.api.data.Image;
+import ai.konduit.serving.pipeline.api.data.NDArray;
 import ai.konduit.serving.pipeline.api.data.ValueType;
 import ai.konduit.serving.pipeline.api.step.PipelineStep;
 import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
@@ -99,59 +100,69 @@ public class ExtractBoundingBoxRunner implements PipelineStepRunner {
 
         ImageToNDArrayConfig im2ndConf = step.imageToNDArrayConfig();
 
-        Mat img = i.getAs(Mat.class);
-        List<Image> out = new ArrayList<>();
+        int imgH = i.height();
+        int imgW = i.width();
+        List<BoundingBox> regions = new ArrayList<>(list.size());
         for(BoundingBox bb : list) {
             bb = ImageUtils.accountForCrop(i, bb, im2ndConf);
 
-            BoundingBox bbPx = BoundingBox.create(bb.cx() * img.cols(), bb.cy() * img.rows(),
-                    bb.height() * img.rows(), bb.width() * img.cols());
-
             if(step.aspectRatio() != null){
+                //Aspect ratio is in pixels, not relative coordinates
                 double desiredAR = step.aspectRatio();
-                double actualAR = bbPx.width() / bbPx.height();
+                double actualAR = (bb.width() * imgW) / (bb.height() * imgH);
                 if(desiredAR < actualAR){
                     //Increase height dimension to give desired AR
-                    double newH = bbPx.width() / desiredAR;
-                    bbPx = BoundingBox.create(bbPx.cx(), bbPx.cy(), newH, bbPx.width());
+                    double newH = bb.width() * imgW / desiredAR / imgH;
+                    bb = BoundingBox.create(bb.cx(), bb.cy(), newH, bb.width());
                 } else if(desiredAR > actualAR){
                     //Increase width dimension to give desired AR
-                    double newW = bbPx.height() * desiredAR;
-                    bbPx = BoundingBox.create(bbPx.cx(), bbPx.cy(), bbPx.height(), newW);
+                    double newW = bb.height() * imgH * desiredAR / imgW;
+                    bb = BoundingBox.create(bb.cx(), bb.cy(), bb.height(), newW);
                 }
             }
-
-            double x1 = Math.min(bbPx.x1(), bbPx.x2());
-            double y1 = Math.min(bbPx.y1(), bbPx.y2());
-
-            int x = (int) Math.round(x1);
-            int y = (int)Math.round(y1);
-            int h = (int)Math.round(bbPx.height());
-            int w = (int)Math.round(bbPx.width());
-
-            Rect r = new Rect(x, y, w, h);
-            Mat m = img.apply(r);
-
-            if(step.resizeH() != null && step.resizeW() != null){
-                int rH = step.resizeH();
-                int rW = step.resizeW();
-
-                Mat resized = new Mat();
-                org.bytedeco.opencv.global.opencv_imgproc.resize(m, resized, new Size(rH, rW));
-                m = resized;
-            }
-
-            out.add(Image.create(m));
+            regions.add(bb);
         }
 
         String outName = step.outputName() == null ? imgName : step.outputName();
 
         //TODO keep all other values (optionally)
         Data d;
-        if(singleValue){
-            d = Data.singleton(outName, out.get(0));
+        if(step.outputNDArrayConfig() != null){
+            //Crop, resize and convert all regions directly in to a single batch NDArray
+            NDArray arr = ImageToNDArray.convertCrops(i, regions, step.outputNDArrayConfig());
+            d = Data.singleton(outName, arr);
         } else {
-            d = Data.singletonList(outName, out, ValueType.IMAGE);
+            Mat img = i.getAs(Mat.class);
+            List<Image> out = new ArrayList<>();
+            for (BoundingBox bb : regions) {
+                double x1 = Math.min(bb.x1(), bb.x2()) * img.cols();
+                double y1 = Math.min(bb.y1(), bb.y2()) * img.rows();
+
+                int x = (int) Math.round(x1);
+                int y = (int) Math.round(y1);
+                int h = (int) Math.round(bb.height() * img.rows());
+                int w = (int) Math.round(bb.width() * img.cols());
+
+                Rect r = new Rect(x, y, w, h);
+                Mat m = img.apply(r);
+
+                if (step.resizeH() != null && step.resizeW() != null) {
+                    int rH = step.resizeH();
+                    int rW = step.resizeW();
+
+                    Mat resized = new Mat();
+                    org.bytedeco.opencv.global.opencv_imgproc.resize(m, resized, new Size(rH, rW));
+                    m = resized;
+                }
+
+                out.add(Image.create(m));
+            }
+
+            if (singleValue) {
+                d = Data.singleton(outName, out.get(0));
+            } else {
+                d = Data.singletonList(outName, out, ValueType.IMAGE);
+            }
         }
 
         if(step.keepOtherFields()){
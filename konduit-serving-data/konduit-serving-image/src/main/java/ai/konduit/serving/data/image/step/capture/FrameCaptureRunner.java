@@ -24,8 +24,15 @@ import ai.konduit.serving.pipeline.api.data.Image;
 import ai.konduit.serving.pipeline.api.step.PipelineStep;
 import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
 import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.ffmpeg.avcodec.AVPacket;
+import org.bytedeco.ffmpeg.avformat.AVFormatContext;
 import org.bytedeco.javacv.*;
 
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import static org.bytedeco.ffmpeg.global.avutil.AVMEDIA_TYPE_VIDEO;
+
 @Slf4j
 @CanRun(CameraFrameCaptureStep.class)
 public class FrameCaptureRunner implements PipelineStepRunner {
@@ -37,6 +44,10 @@ public class FrameCaptureRunner implements PipelineStepRunner {
     protected FrameGrabber grabber;
     protected OpenCVFrameConverter.ToIplImage converter;
     protected boolean loop = false;
+    protected boolean skipToKeyFrames = false;
+    protected boolean nextKeyFrame = false;
+    protected Frame[] framePool;
+    protected int framePoolIdx;
     private Runnable init;
 
     public FrameCaptureRunner(CameraFrameCaptureStep step){
@@ -55,6 +66,10 @@ public class FrameCaptureRunner implements PipelineStepRunner {
             this.initFFmpegFrameGrabber(step);
         };
         this.skip = step.skipFrames() == null ? 0 : step.skipFrames();
+        this.skipToKeyFrames = step.skipToKeyFrames();
+        if(step.framePoolSize() != null && step.framePoolSize() > 0){
+            this.framePool = new Frame[step.framePoolSize()];
+        }
     }
 
     @Override
@@ -81,31 +96,21 @@ public class FrameCaptureRunner implements PipelineStepRunner {
             init.run();
 
         try {
-            Frame frame = grabber.grab();
+            Frame frame = grabFrame();
             if(frame == null && loop){
-                frame = grabber.grab();
+                grabber.restart();
+                nextKeyFrame = false;
+                frame = grabFrame();
             }
-            frame = frame.clone();  //Clone otherwise buffer will be reused and async overwritten in async pipelines
+            if(frame == null){
+                throw new IllegalStateException("No frame available - end of video reached?");
+            }
+            //Copy, otherwise buffer will be reused and async overwritten in async pipelines
+            frame = copyFrame(frame);
             Image i = Image.create(frame);
-            //System.out.println("IMAGE: h=" + i.height() + ", w=" + i.width());
 
             if(skip > 0){
-                //using setFrameNumber can be costly - seems to require decoding from the last keyframe?
-                //i.e., cost of calling setFrameNumber grows linearly over time, then jumps back to a few MS periodically
-                // (presumably once it hits next keyframe)
-                int maxFrames = grabber.getLengthInFrames();
-                if(skip >= 20){     //TODO this threshold should be selected based
-                    int currFrame = grabber.getFrameNumber();
-                    int setFrame = Math.min(maxFrames, currFrame + skip);
-                    grabber.setFrameNumber(setFrame);
-                } else {
-                    for( int j=0; j<skip; j++ ) {
-                        if(grabber.grab() == null)
-                            break;
-                    }
-                }
-
-
+                skipFrames();
             }
 
             return Data.singleton(outputKey, i);
@@ -114,6 +119,74 @@ public class FrameCaptureRunner implements PipelineStepRunner {
         }
     }
 
+    protected Frame grabFrame() throws FrameGrabber.Exception {
+        if(grabber instanceof FFmpegFrameGrabber){
+            //Video only: no decoding of audio (or data) streams. After skipping at the packet level, decoding
+            //can only restart at a keyframe
+            return ((FFmpegFrameGrabber) grabber).grabFrame(false, true, true, nextKeyFrame, false);
+        }
+        return grabber.grab();
+    }
+
+    protected void skipFrames() throws FrameGrabber.Exception {
+        if(!(grabber instanceof FFmpegFrameGrabber)){
+            for( int j=0; j<skip; j++ ) {
+                if(grabber.grab() == null)
+                    break;
+            }
+            return;
+        }
+
+        FFmpegFrameGrabber g = (FFmpegFrameGrabber) grabber;
+        if(skipToKeyFrames){
+            //Drop the packets of the skipped frames without decoding them
+            AVFormatContext fc = g.getFormatContext();
+            int count = 0;
+            while(count < skip){
+                AVPacket pkt = g.grabPacket();
+                if(pkt == null)
+                    break;
+                if(fc.streams(pkt.stream_index()).codecpar().codec_type() == AVMEDIA_TYPE_VIDEO)
+                    count++;
+            }
+            nextKeyFrame = true;
+        } else {
+            //Skipped frames must still be decoded (later frames may depend on them), but they don't need to be
+            // converted to an image
+            //Note setFrameNumber is not used here: it seeks back to the previous keyframe and decodes from there,
+            // so its cost grows with the distance from the last keyframe
+            for( int j=0; j<skip; j++ ) {
+                if(g.grabFrame(false, true, false, false, false) == null)
+                    break;
+            }
+        }
+    }
+
+    protected Frame copyFrame(Frame frame){
+        if(framePool == null || frame.image == null || !(frame.image[0] instanceof ByteBuffer)){
+            return frame.clone();
+        }
+
+        Frame f = framePool[framePoolIdx];
+        if(f == null || f.imageWidth != frame.imageWidth || f.imageHeight != frame.imageHeight || f.imageDepth != frame.imageDepth
+                || f.imageChannels != frame.imageChannels || f.imageStride != frame.imageStride){
+            f = new Frame(frame.imageWidth, frame.imageHeight, frame.imageDepth, frame.imageChannels, frame.imageStride);
+            framePool[framePoolIdx] = f;
+        }
+        framePoolIdx = (framePoolIdx + 1) % framePool.length;
+
+        ByteBuffer src = ((ByteBuffer) frame.image[0]).duplicate();
+        ByteBuffer dst = ((ByteBuffer) f.image[0]).duplicate();
+        ((Buffer) src).position(0);
+        ((Buffer) dst).position(0);
+        ((Buffer) src).limit(Math.min(src.capacity(), dst.capacity()));
+        dst.put(src);
+
+        f.keyFrame = frame.keyFrame;
+        f.timestamp = frame.timestamp;
+        return f;
+    }
+
     protected void initOpenCVFrameGrabber(CameraFrameCaptureStep step){
         grabber = new OpenCVFrameGrabber(step.camera());
         converter = new OpenCVFrameConverter.ToIplImage();
@@ -134,7 +207,14 @@ public class FrameCaptureRunner implements PipelineStepRunner {
     }
 
     protected void initFFmpegFrameGrabber(VideoFrameCaptureStep step){
-        grabber = new FFmpegFrameGrabber(step.filePath());
+        FFmpegFrameGrabber g = new FFmpegFrameGrabber(step.filePath());
+        if(step.decoderThreads() != null){
+            g.setVideoOption("threads", String.valueOf(step.decoderThreads()));
+        }
+        if(step.videoCodec() != null){
+            g.setVideoCodecName(step.videoCodec());
+        }
+        grabber = g;
 
         loop = step.loop();
         converter = new OpenCVFrameConverter.ToIplImage();
@@ -26,7 +26,8 @@ public class FrameCaptureStepRunnerFactory implements PipelineStepRunnerFactory
     @Override
     public boolean canRun(PipelineStep pipelineStep) {
         return (pipelineStep instanceof CameraFrameCaptureStep)
-                || (pipelineStep instanceof VideoFrameCaptureStep);
+                || (pipelineStep instanceof VideoFrameCaptureStep)
+                || (pipelineStep instanceof MultiStreamCaptureStep);
     }
 
     @Override
@@ -35,6 +36,8 @@ public class FrameCaptureStepRunnerFactory implements PipelineStepRunnerFactory
 
         if(step instanceof CameraFrameCaptureStep){
             return new FrameCaptureRunner((CameraFrameCaptureStep) step);
+        } else if(step instanceof MultiStreamCaptureStep){
+            return new MultiStreamCaptureRunner((MultiStreamCaptureStep) step);
         }else{
             return new FrameCaptureRunner((VideoFrameCaptureStep) step);
         }
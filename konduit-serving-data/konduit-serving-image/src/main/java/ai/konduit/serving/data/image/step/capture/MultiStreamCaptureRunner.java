@@ -0,0 +1,343 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package ai.konduit.serving.data.image.step.capture;
+
+import ai.konduit.serving.annotation.runner.CanRun;
+import ai.konduit.serving.pipeline.api.context.Context;
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.Image;
+import ai.konduit.serving.pipeline.api.step.PipelineStep;
+import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.Frame;
+import org.nd4j.common.base.Preconditions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runner for {@link MultiStreamCaptureStep}.<br>
+ * Each stream has a single decode task, that reads one frame and then resubmits itself to the shared decoder pool.
+ * The pool's queue is ordered by stream priority, then by submission order - so streams with the same priority are
+ * decoded round robin, and higher priority streams are decoded first when the pool is saturated.<br>
+ * Decoded frames are buffered per stream (dropping the oldest frames) and returned by {@link #exec(Context, Data)}
+ * using smooth weighted round robin over the streams that have a frame available.
+ */
+@Slf4j
+@CanRun(MultiStreamCaptureStep.class)
+public class MultiStreamCaptureRunner implements PipelineStepRunner {
+
+    /** Lower bound for the reconnection delay, so that a failing stream is never reopened in a tight loop */
+    protected static final long MIN_RECONNECT_DELAY_MS = 10;
+
+    protected final MultiStreamCaptureStep step;
+    protected final List<Stream> streams = new ArrayList<>();
+    protected final Object frameLock = new Object();
+    protected final AtomicLong taskCounter = new AtomicLong();
+    protected ThreadPoolExecutor decodePool;
+    protected ScheduledExecutorService reconnectScheduler;
+    protected volatile boolean running;
+
+    public MultiStreamCaptureRunner(MultiStreamCaptureStep step){
+        Preconditions.checkState(step.sources() != null && !step.sources().isEmpty(), "MultiStreamCaptureStep: at least one source must be set");
+        Preconditions.checkState(step.streamIds() == null || step.streamIds().size() == step.sources().size(),
+                "MultiStreamCaptureStep: streamIds must have the same length as sources - got %s stream IDs for %s sources",
+                (step.streamIds() == null ? 0 : step.streamIds().size()), step.sources().size());
+        Preconditions.checkState(step.priorities() == null || step.priorities().size() == step.sources().size(),
+                "MultiStreamCaptureStep: priorities must have the same length as sources - got %s priorities for %s sources",
+                (step.priorities() == null ? 0 : step.priorities().size()), step.sources().size());
+        this.step = step;
+
+        for( int i=0; i<step.sources().size(); i++ ){
+            String id = step.streamIds() == null ? String.valueOf(i) : step.streamIds().get(i);
+            int priority = step.priorities() == null ? 1 : step.priorities().get(i);
+            Preconditions.checkState(priority > 0, "MultiStreamCaptureStep: stream priorities must be positive, got %s for stream %s", priority, id);
+            streams.add(new Stream(id, step.sources().get(i), priority));
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if(!running)
+            return;
+        running = false;
+        reconnectScheduler.shutdownNow();
+        decodePool.shutdown();
+        try {
+            //Let in-progress reads finish before closing the grabbers they use
+            if(!decodePool.awaitTermination(step.readTimeoutMs() + 1000, TimeUnit.MILLISECONDS)){
+                decodePool.shutdownNow();
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        for(Stream s : streams){
+            s.close();
+        }
+    }
+
+    @Override
+    public PipelineStep getPipelineStep() {
+        return step;
+    }
+
+    @Override
+    public Data exec(Context ctx, Data data) {
+        synchronized (this){
+            if(!running)
+                start();
+        }
+
+        int batchSize = Math.max(1, step.batchSize());
+        List<Image> images = new ArrayList<>(batchSize);
+        List<String> ids = new ArrayList<>(batchSize);
+
+        long timeout = step.frameTimeoutMs() > 0 ? step.frameTimeoutMs() : Long.MAX_VALUE / 2;
+        long end = System.currentTimeMillis() + timeout;
+        synchronized (frameLock){
+            Stream s;
+            while((s = nextStream()) == null){
+                long wait = end - System.currentTimeMillis();
+                if(wait <= 0){
+                    throw new IllegalStateException("No frames received from any of the " + streams.size() + " streams within " +
+                            step.frameTimeoutMs() + " ms. Stream sources: " + step.sources());
+                }
+                try {
+                    frameLock.wait(wait);
+                } catch (InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for frames", e);
+                }
+            }
+
+            //Once at least one frame is available, return all available frames (up to the batch size) without waiting
+            do {
+                images.add(Image.create(s.frames.pollFirst()));
+                ids.add(s.id);
+            } while(images.size() < batchSize && (s = nextStream()) != null);
+        }
+
+        Data out = Data.empty();
+        if(step.batchSize() <= 1){
+            out.put(step.outputKey(), images.get(0));
+            out.put(step.streamIdKey(), ids.get(0));
+        } else {
+            out.putListImage(step.outputKey(), images);
+            out.putListString(step.streamIdKey(), ids);
+        }
+        return out;
+    }
+
+    /**
+     * Smooth weighted round robin over the streams that have frames available. Must be called while holding frameLock
+     * @return The next stream to take a frame from, or null if no frames are available
+     */
+    protected Stream nextStream(){
+        Stream best = null;
+        int total = 0;
+        for(Stream s : streams){
+            if(s.frames.isEmpty())
+                continue;
+            s.currentWeight += s.priority;
+            total += s.priority;
+            if(best == null || s.currentWeight > best.currentWeight)
+                best = s;
+        }
+        if(best != null)
+            best.currentWeight -= total;
+        return best;
+    }
+
+    protected void start(){
+        int nThreads = step.poolThreads() != null ? step.poolThreads() :
+                Math.min(streams.size(), Runtime.getRuntime().availableProcessors());
+        AtomicInteger threadCount = new AtomicInteger();
+        decodePool = new ThreadPoolExecutor(nThreads, nThreads, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "multi-stream-capture-" + threadCount.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        reconnectScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "multi-stream-capture-reconnect");
+            t.setDaemon(true);
+            return t;
+        });
+        running = true;
+        for(Stream s : streams){
+            s.submit();
+        }
+    }
+
+    protected class Stream implements Runnable, Comparable<Stream> {
+        protected final String id;
+        protected final String source;
+        protected final int priority;
+        protected final ArrayDeque<Frame> frames;       //Guarded by frameLock
+        protected int currentWeight;                    //Guarded by frameLock
+        protected FFmpegFrameGrabber grabber;
+        protected long reconnectDelay;
+        protected volatile long order;
+        protected boolean reading;                      //Guarded by this
+        protected boolean closed;                       //Guarded by this
+
+        protected Stream(String id, String source, int priority){
+            this.id = id;
+            this.source = source;
+            this.priority = priority;
+            this.frames = new ArrayDeque<>(Math.max(1, step.bufferSize()));
+            this.reconnectDelay = initialReconnectDelay();
+        }
+
+        protected void submit(){
+            if(!running)
+                return;
+            order = taskCounter.getAndIncrement();
+            try {
+                decodePool.execute(this);
+            } catch (RejectedExecutionException e){
+                //Pool was shut down
+            }
+        }
+
+        @Override
+        public void run() {
+            synchronized (this){
+                if(!running || closed)
+                    return;
+                reading = true;
+            }
+
+            Frame copy = null;
+            Throwable error = null;
+            try {
+                if(grabber == null)
+                    connect();
+                Frame frame = grabber.grabImage();
+                //Clone: the grabber reuses its frame buffers
+                copy = frame == null ? null : frame.clone();
+            } catch (Throwable t){
+                error = t;
+            }
+
+            boolean closedWhileReading;
+            synchronized (this){
+                reading = false;
+                closedWhileReading = closed;
+            }
+            if(closedWhileReading){
+                //close() skipped releasing the grabber while it was in use
+                disconnect();
+                return;
+            }
+
+            if(error != null){
+                log.warn("Error reading from stream {} ({}) - reconnecting in {} ms", id, source, reconnectDelay, error);
+                scheduleReconnect();
+                return;
+            }
+
+            if(copy == null){
+                log.info("End of stream {} ({}) - reconnecting in {} ms", id, source, reconnectDelay);
+                scheduleReconnect();
+                return;
+            }
+            reconnectDelay = initialReconnectDelay();
+
+            synchronized (frameLock){
+                if(frames.size() >= Math.max(1, step.bufferSize()))
+                    frames.pollFirst();
+                frames.addLast(copy);
+                frameLock.notifyAll();
+            }
+            submit();
+        }
+
+        protected void connect() throws FFmpegFrameGrabber.Exception {
+            FFmpegFrameGrabber g = new FFmpegFrameGrabber(source);
+            if(step.rtspTransport() != null && source.startsWith("rtsp")){
+                g.setOption("rtsp_transport", step.rtspTransport());
+            }
+            if(step.readTimeoutMs() > 0){
+                //Socket timeout, in microseconds
+                g.setOption("timeout", String.valueOf(step.readTimeoutMs() * 1000));
+            }
+            if(step.decoderThreads() != null){
+                g.setVideoOption("threads", String.valueOf(step.decoderThreads()));
+            }
+            grabber = g;
+            g.start();
+            log.info("Connected to stream {} ({})", id, source);
+        }
+
+        /**
+         * Release the grabber, unless a decode thread is still reading from it (i.e., it didn't stop within the
+         * read timeout) - in which case that thread releases it once the read returns
+         */
+        protected void close(){
+            synchronized (this){
+                closed = true;
+                if(reading){
+                    log.warn("Stream {} ({}) is still being read - it will be closed once the read returns", id, source);
+                    return;
+                }
+            }
+            disconnect();
+        }
+
+        protected synchronized void disconnect(){
+            if(grabber == null)
+                return;
+            try {
+                grabber.stop();
+                grabber.release();
+            } catch (Throwable t){
+                log.warn("Error closing stream {} ({})", id, source, t);
+            }
+            grabber = null;
+        }
+
+        protected void scheduleReconnect(){
+            disconnect();
+            long delay = reconnectDelay;
+            reconnectDelay = Math.min(reconnectDelay * 2, Math.max(initialReconnectDelay(), step.maxReconnectDelayMs()));
+            if(!running)
+                return;
+            try {
+                reconnectScheduler.schedule(this::submit, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e){
+                //Scheduler was shut down
+            }
+        }
+
+        protected long initialReconnectDelay(){
+            return Math.max(MIN_RECONNECT_DELAY_MS, step.reconnectDelayMs());
+        }
+
+        @Override
+        public int compareTo(Stream o) {
+            if(priority != o.priority)
+                return Integer.compare(o.priority, priority);   //Higher priority first
+            return Long.compare(order, o.order);
+        }
+    }
+}
@@ -102,7 +102,11 @@ public class DrawGridRunner implements PipelineStepRunner {
 
         Preconditions.checkState(points != null && points.size() == 4, "Input List<Points> must have length 4, got %s", points);
 
-        Mat m = i.getAs(Mat.class).clone();
+        boolean inPlace = fixed ? fStep.inPlace() : step.inPlace();
+        Mat m = i.getAs(Mat.class);
+        if(!inPlace){
+            m = m.clone();      //Copy to avoid modifying the input image, that might be used elsewhere
+        }
 
         Scalar borderColor;
         int borderThickness;
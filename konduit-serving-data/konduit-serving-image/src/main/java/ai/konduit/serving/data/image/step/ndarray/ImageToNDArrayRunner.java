@@ -28,15 +28,11 @@ import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
 import ai.konduit.serving.pipeline.impl.data.ValueNotFoundException;
 import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
 import lombok.NonNull;
-import org.bytedeco.javacpp.Loader;
 import org.nd4j.common.base.Preconditions;
 import org.nd4j.common.primitives.Pair;
 
-import java.nio.Buffer;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 @CanRun(ImageToNDArrayStep.class)
@@ -99,6 +95,10 @@ public class ImageToNDArrayRunner implements PipelineStepRunner {
         List<BoundingBox> cropRegionMeta = meta ? new ArrayList<>(toConvert.size()) : null;
         List<Long> origHMeta = meta ? new ArrayList<>(toConvert.size()) : null;
         List<Long> origWMeta = meta ? new ArrayList<>(toConvert.size()) : null;
+        List<Double> scaleXMeta = meta ? new ArrayList<>(toConvert.size()) : null;
+        List<Double> scaleYMeta = meta ? new ArrayList<>(toConvert.size()) : null;
+        List<Double> padXMeta = meta ? new ArrayList<>(toConvert.size()) : null;
+        List<Double> padYMeta = meta ? new ArrayList<>(toConvert.size()) : null;
 
         Data d = Data.empty();
         int idx = 0;
@@ -111,8 +111,6 @@ public class ImageToNDArrayRunner implements PipelineStepRunner {
             boolean isList = data.type(s) == ValueType.LIST && data.listType(s) == ValueType.IMAGE;
 
             if(isList){
-                List<NDArray> l = new ArrayList<>();
-                boolean batch = false;
                 switch (step.config().listHandling()){
                     default:
                     case NONE:
@@ -131,58 +129,21 @@ public class ImageToNDArrayRunner implements PipelineStepRunner {
                         }
                         return d;
                     case BATCH:
-                        batch = true;   //Fall through
-                    case LIST_OUT:
-                        List<Image> images = data.getListImage(s);
-                        for(Image i : images){
-                            NDArray out = ImageToNDArray.convert(i, step.config());
-                            l.add(out);
+                        List<Image> batchImages = data.getListImage(s);
+                        if(batchImages.isEmpty()) {
+                            //Return empty NDArray
+                            empty(d, outNames.get(idx++));
+                        } else if(batchImages.size() == 1) {
+                            d.put(outNames.get(idx++), ImageToNDArray.convert(batchImages.get(0), step.config()));
+                        } else {
+                            //Images are converted in parallel, directly in to their slice of a single batch buffer
+                            d.put(outNames.get(idx++), ImageToNDArray.convertBatch(batchImages, step.config()));
                         }
                         break;
-                }
-
-                if(batch){
-                    if(l.size() == 0) {
-                        //Return empty NDArray
-                        empty(d, outNames.get(idx++));
-                        continue;
-                    } else if(l.size() == 1) {
-                        d.put(outNames.get(idx++), l.get(0));
-                    } else {
-                        //Check that all have the same shape before combining
-                        long[] first = l.get(0).shape();
-                        for (NDArray arr : l) {
-                            long[] curr = arr.shape();
-                            Preconditions.checkState(Arrays.equals(first, curr), "Error in ImageToNDArrayStep:" +
-                                    "ImageToNDArrayStep.config.listHandling == BATCH but at least two output NDArrays have different shapes" +
-                                    "(%s vs. %s). Unable to combine multiple NDArrays according to batch dimension if they have different shapes." +
-                                    " Setting ImageToNDArrayStep.config.height/width or only passing in all the same size images will solve this problem", first, curr);
-                        }
-
-                        //Concatenate. Note that C order along dimension 0 means we can just copy buffers
-                        SerializedNDArray nd = l.get(0).getAs(SerializedNDArray.class);
-                        int size = nd.getBuffer().capacity();
-                        int newSize = size * l.size();
-                        long[] newShape = l.get(0).shape().clone();
-                        if(!step.config().includeMinibatchDim()){
-                            newShape = new long[]{0, newShape[0], newShape[1], newShape[2]};
-                        }
-
-                        newShape[0] = l.size();
-                        boolean direct = !Loader.getPlatform().startsWith("android");
-                        ByteBuffer outBuff = direct ? ByteBuffer.allocateDirect(newSize).order(ByteOrder.LITTLE_ENDIAN) : ByteBuffer.allocate(newSize).order(ByteOrder.LITTLE_ENDIAN);
-                        nd.getBuffer().rewind();
-                        outBuff.put(nd.getBuffer());
-                        for( int i = 1; i < l.size(); i++) {
-                            SerializedNDArray ndarr = l.get(i).getAs(SerializedNDArray.class);
-                            ndarr.getBuffer().rewind();
-                            outBuff.put(ndarr.getBuffer());
-                        }
-                        SerializedNDArray outArr = new SerializedNDArray(l.get(0).type(), newShape, outBuff);
-                        d.put(outNames.get(idx++), NDArray.create(outArr));
-                    }
-                } else {
-                    d.putListNDArray(outNames.get(idx++), l);
+                    case LIST_OUT:
+                        List<NDArray> l = ImageToNDArray.convertList(data.getListImage(s), step.config());
+                        d.putListNDArray(outNames.get(idx++), l);
+                        break;
                 }
 
             } else {
@@ -192,9 +153,21 @@ public class ImageToNDArrayRunner implements PipelineStepRunner {
 
                 if (meta) {
                     Pair<NDArray, BoundingBox> p = ImageToNDArray.convertWithMetadata(i, step.config());
-                    cropRegionMeta.add(p.getSecond());
+                    d.put(outNames.get(idx++), p.getFirst());
+                    BoundingBox region = p.getSecond();
+                    cropRegionMeta.add(region);
                     origHMeta.add((long) i.height());
                     origWMeta.add((long) i.width());
+
+                    //output pixel = original pixel * scale + pad - the pad is negative for cropped regions
+                    int outH = step.config().height() == null ? i.height() : step.config().height();
+                    int outW = step.config().width() == null ? i.width() : step.config().width();
+                    double scaleX = outW / (region.width() * i.width());
+                    double scaleY = outH / (region.height() * i.height());
+                    scaleXMeta.add(scaleX);
+                    scaleYMeta.add(scaleY);
+                    padXMeta.add(-region.x1() * i.width() * scaleX);
+                    padYMeta.add(-region.y1() * i.height() * scaleY);
                 } else {
                     NDArray array = ImageToNDArray.convert(i, step.config());
                     d.put(outNames.get(idx++), array);
@@ -219,6 +192,10 @@ public class ImageToNDArrayRunner implements PipelineStepRunner {
                 dMeta.put(ImageToNDArrayStep.META_IMG_H, origHMeta.get(0));
                 dMeta.put(ImageToNDArrayStep.META_IMG_W, origWMeta.get(0));
                 dMeta.put(ImageToNDArrayStep.META_CROP_REGION, cropRegionMeta.get(0));
+                dMeta.put(ImageToNDArrayStep.META_SCALE_X, scaleXMeta.get(0));
+                dMeta.put(ImageToNDArrayStep.META_SCALE_Y, scaleYMeta.get(0));
+                dMeta.put(ImageToNDArrayStep.META_PAD_X, padXMeta.get(0));
+                dMeta.put(ImageToNDArrayStep.META_PAD_Y, padYMeta.get(0));
             } else {
                 //Multiple images converted: store as multiple values
                 dMeta.putListString(ImageToNDArrayStep.META_INNAME_KEY, toConvert);
@@ -226,6 +203,10 @@ public class ImageToNDArrayRunner implements PipelineStepRunner {
                 dMeta.putListInt64(ImageToNDArrayStep.META_IMG_H, origHMeta);
                 dMeta.putListInt64(ImageToNDArrayStep.META_IMG_W, origWMeta);
                 dMeta.putListBoundingBox(ImageToNDArrayStep.META_CROP_REGION, cropRegionMeta);
+                dMeta.putListDouble(ImageToNDArrayStep.META_SCALE_X, scaleXMeta);
+                dMeta.putListDouble(ImageToNDArrayStep.META_SCALE_Y, scaleYMeta);
+                dMeta.putListDouble(ImageToNDArrayStep.META_PAD_X, padXMeta);
+                dMeta.putListDouble(ImageToNDArrayStep.META_PAD_Y, padYMeta);
             }
             String key = step.metadataKey();
             if(key == null)
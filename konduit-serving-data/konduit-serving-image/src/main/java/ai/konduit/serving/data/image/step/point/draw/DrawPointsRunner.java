@@ -99,14 +99,16 @@ public class DrawPointsRunner implements PipelineStepRunner {
                 width = img.width();
                 height = img.height();
                 image = img.getAs(Mat.class);
+                if(!step.inPlace()){
+                    image = image.clone();
+                }
             }else{
                 throw new IllegalArgumentException("The configured reference image input "+step.image()+" is not an Image!");
             }
         }else if(step.width() != null && step.height() != null){
             width = step.width();
             height = step.height();
-            image = new Mat();
-            image.put(Mat.zeros(height, width, CvType.CV_8UC3));
+            image = new Mat(height, width, CvType.CV_8UC3, Scalar.all(0));
         }else{
             throw new IllegalArgumentException("You have to provide either a reference image or width AND height!");
         }
@@ -33,6 +33,7 @@ import org.bytedeco.opencv.global.opencv_core;
 import org.bytedeco.opencv.global.opencv_imgproc;
 import org.bytedeco.opencv.opencv_core.Mat;
 import org.bytedeco.opencv.opencv_core.Rect;
+import org.bytedeco.opencv.opencv_core.Scalar;
 import org.bytedeco.opencv.opencv_core.Size;
 import org.opencv.core.CvType;
 
@@ -46,6 +47,11 @@ public class DrawHeatmapRunner implements PipelineStepRunner {
     protected final DrawHeatmapStep step;
     protected Mat prev;
     protected Mat brush;
+    //Scratch Mats, reused between calls: the heatmap for the current call (swapped with prev after each call),
+    //the heatmap scaled to 8 bits, and the color mapped heatmap (when blending in place)
+    protected Mat current;
+    protected Mat scaledOut;
+    protected Mat colored;
 
     public DrawHeatmapRunner(@NonNull DrawHeatmapStep step) {
         this.step = step;
@@ -53,7 +59,15 @@ public class DrawHeatmapRunner implements PipelineStepRunner {
 
     @Override
     public void close() {
-
+        for(Mat m : new Mat[]{prev, brush, current, scaledOut, colored}){
+            if(m != null)
+                m.close();
+        }
+        prev = null;
+        brush = null;
+        current = null;
+        scaledOut = null;
+        colored = null;
     }
 
     @Override
@@ -129,8 +143,11 @@ public class DrawHeatmapRunner implements PipelineStepRunner {
             opencv_imgproc.GaussianBlur(brush, brush, kernelSize, radius, radius, opencv_core.BORDER_ISOLATED);
         }
 
-        Mat mat = new Mat();
-        mat.put(Mat.zeros(height, width, CvType.CV_64FC1));
+        if(current == null){
+            current = new Mat(height, width, CvType.CV_64FC1);
+        }
+        Mat mat = current;
+        mat.put(Scalar.all(0));
         for (Point point : points) {
             int row = (int) point.y();
             int col = (int) point.x();
@@ -170,25 +187,34 @@ public class DrawHeatmapRunner implements PipelineStepRunner {
         }
 
         opencv_core.addWeighted(prev, step.fadingFactor() == null ? 0.9 : step.fadingFactor(), mat, 1.0, 0, mat);
-        prev.close();
+        //Swap: this call's heatmap becomes prev, and the old prev is overwritten in the next call
+        current = prev;
         prev = mat;
 
         DoublePointer maxVal = new DoublePointer(1);
         opencv_core.minMaxLoc(mat, null, maxVal, null, null, null);
 
-        Mat scaledOut = new Mat();
+        if(scaledOut == null)
+            scaledOut = new Mat();
         mat.convertTo(scaledOut, CvType.CV_8UC1, 255/maxVal.get(), 0);
         maxVal.close();
 
-        Mat image = new Mat();
-        opencv_imgproc.applyColorMap(scaledOut, image, opencv_imgproc.COLORMAP_TURBO);
-
         // return image
         Image outputImage;
-        if(targetImage == null){
-            outputImage = Image.create(image);
-        }else{
-            opencv_core.addWeighted(targetImage, 1.0, image, step.opacity() == null ? 0.5 : step.opacity(), 0, image);
+        double opacity = step.opacity() == null ? 0.5 : step.opacity();
+        if(targetImage != null && step.inPlace() && targetImage.type() == CvType.CV_8UC3){
+            //Blend into the reference image directly; the color mapped heatmap doesn't leave this step, so can be reused
+            if(colored == null)
+                colored = new Mat();
+            opencv_imgproc.applyColorMap(scaledOut, colored, opencv_imgproc.COLORMAP_TURBO);
+            opencv_core.addWeighted(targetImage, 1.0, colored, opacity, 0, targetImage);
+            outputImage = Image.create(targetImage);
+        } else {
+            Mat image = new Mat();
+            opencv_imgproc.applyColorMap(scaledOut, image, opencv_imgproc.COLORMAP_TURBO);
+            if(targetImage != null){
+                opencv_core.addWeighted(targetImage, 1.0, image, opacity, 0, image);
+            }
             outputImage = Image.create(image);
         }
         out.put(step.outputName() == null ? DrawHeatmapStep.DEFAULT_OUTPUT_NAME : step.outputName(), outputImage);
@@ -21,6 +21,7 @@ package ai.konduit.serving.data.image.step.resize;
 import ai.konduit.serving.annotation.runner.CanRun;
 import ai.konduit.serving.data.image.convert.ImageToNDArray;
 import ai.konduit.serving.data.image.convert.config.AspectRatioHandling;
+import ai.konduit.serving.data.image.format.MatDecodeHints;
 import ai.konduit.serving.pipeline.api.context.Context;
 import ai.konduit.serving.pipeline.api.data.BoundingBox;
 import ai.konduit.serving.pipeline.api.data.Data;
@@ -28,11 +29,7 @@ import ai.konduit.serving.pipeline.api.data.Image;
 import ai.konduit.serving.pipeline.api.data.ValueType;
 import ai.konduit.serving.pipeline.api.step.PipelineStep;
 import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
-import org.bytedeco.javacpp.Loader;
-import org.bytedeco.javacpp.indexer.UByteIndexer;
 import org.bytedeco.opencv.opencv_core.Mat;
-import org.bytedeco.opencv.opencv_core.Rect;
-import org.bytedeco.opencv.opencv_core.Scalar;
 import org.bytedeco.opencv.opencv_core.Size;
 import org.nd4j.common.base.Preconditions;
 import org.nd4j.common.primitives.Pair;
@@ -126,7 +123,7 @@ public class ImageResizeRunner implements PipelineStepRunner {
                 h = step.height();
                 w = (int)Math.round(ar * h);
             }
-            Mat m = in.getAs(Mat.class);
+            Mat m = MatDecodeHints.decode(in, new MatDecodeHints(h, w, AspectRatioHandling.STRETCH, false));
             Mat resized = new Mat();
             org.bytedeco.opencv.global.opencv_imgproc.resize(m, resized, new Size(w, h));
             return Image.create(resized);
@@ -138,7 +135,8 @@ public class ImageResizeRunner implements PipelineStepRunner {
 
             double arCurrent = in.width() / (double)in.height();
             double arOut = step.width() / (double)step.height();
-            Mat m = in.getAs(Mat.class);
+            AspectRatioHandling arh = step.aspectRatioHandling() == null ? AspectRatioHandling.STRETCH : step.aspectRatioHandling();
+            Mat m = MatDecodeHints.decode(in, new MatDecodeHints(step.height(), step.width(), arh, false));
             if(arCurrent == arOut || step.aspectRatioHandling() == AspectRatioHandling.STRETCH || step.aspectRatioHandling() == null){
                 //Aspect ratio OK - or just stretching
                 Mat resized = new Mat();
@@ -155,35 +153,8 @@ public class ImageResizeRunner implements PipelineStepRunner {
                     org.bytedeco.opencv.global.opencv_imgproc.resize(crop, resized, new Size(step.width(), step.height()));
                     return Image.create(resized);
                 } else if(step.aspectRatioHandling() == AspectRatioHandling.PAD){
-                    if(arCurrent > arOut){
-                        //Pad height
-                        int newH = (int)Math.round(in.width() / arOut);
-                        Mat padded = new Mat(newH, in.width(), m.type());
-                        UByteIndexer u = padded.createIndexer(!Loader.getPlatform().startsWith("android"));
-                        u.pointer().zero();
-                        int delta = newH - in.height();
-
-                        Mat sub = padded.apply(new Rect(0,delta/2,in.width(),in.height()));
-                        m.copyTo(sub);
-
-                        Mat resized = new Mat();
-                        org.bytedeco.opencv.global.opencv_imgproc.resize(padded, resized, new Size(step.width(), step.height()));
-                        return Image.create(resized);
-                    } else {
-                        //Pad width
-                        int newW = (int)Math.round(in.height() * arOut);
-                        Mat padded = new Mat(in.height(), newW, m.type());
-                        UByteIndexer u = padded.createIndexer(!Loader.getPlatform().startsWith("android"));
-                        u.pointer().zero();
-                        int delta = newW - in.width();
-
-                        Mat sub = padded.apply(new Rect(delta/2,0, in.width(), in.height()));
-                        m.copyTo(sub);
-
-                        Mat resized = new Mat();
-                        org.bytedeco.opencv.global.opencv_imgproc.resize(padded, resized, new Size(step.height(), step.width()));
-                        return Image.create(resized);
-                    }
+                    //Single resize, then zero padding of the smaller dimension
+                    return Image.create(ImageToNDArray.letterbox(m, step.height(), step.width(), false).getFirst());
                 } else {
                     throw new IllegalStateException("Unknown or not supported aspect ratio handling: " + step.aspectRatioHandling());
                 }
@@ -49,6 +49,13 @@ public class DrawSegmentationRunner implements PipelineStepRunner {
     protected int[] colorsB;
     protected int[] colorsG;
     protected int[] colorsR;
+    //Scratch Mats that don't leave this step, reused between calls. Only used when the segment indices need to be
+    //resized to the image size
+    protected Mat mask;
+    protected Mat backgroundMask;
+    protected Mat resized;
+    protected Mat maskResized;
+    protected Mat asFloat;
 
     public DrawSegmentationRunner(@NonNull DrawSegmentationStep step) {
         this.step = step;
@@ -56,7 +63,15 @@ public class DrawSegmentationRunner implements PipelineStepRunner {
 
     @Override
     public void close() {
-
+        for(Mat m : new Mat[]{mask, backgroundMask, resized, maskResized, asFloat}){
+            if(m != null)
+                m.close();
+        }
+        mask = null;
+        backgroundMask = null;
+        resized = null;
+        maskResized = null;
+        asFloat = null;
     }
 
     @Override
@@ -79,7 +94,6 @@ public class DrawSegmentationRunner implements PipelineStepRunner {
         boolean drawingOnImage;
         Mat drawOn;
         String imgName = step.image();
-        Mat backgroundMask = null;
 
         boolean resizeRequired = false;
         if (imgName == null) {
@@ -101,11 +115,18 @@ public class DrawSegmentationRunner implements PipelineStepRunner {
                     Preconditions.checkState(step.imageToNDArrayConfig() != null, "Image and segment indices array dimensions do not match in terms" +
                             " of aspect ratio, and no ImageToNDArrayConfig was provided. Expected segment indices array with shape [1, height, width] - got array with shape %s and image with h=%s, w=%s", shape, iH, iW);
                 }
-                drawOn = new Mat((int) shape[1], (int) shape[2], CvType.CV_8UC3);       //8 bits per chanel RGB
+                mask = scratch(mask, (int) shape[1], (int) shape[2], CvType.CV_8UC3);       //8 bits per chanel RGB
+                drawOn = mask;
                 drawingOnImage = false;
             } else {
-                drawOn = new Mat();
-                i.getAs(Mat.class).clone().convertTo(drawOn, CvType.CV_8UC3);
+                Mat imageMat = i.getAs(Mat.class);
+                if(step.inPlace() && imageMat.type() == CvType.CV_8UC3 && imageMat.isContinuous()){
+                    drawOn = imageMat;
+                } else {
+                    //Converting to a new Mat also copies it, so the input image is not modified
+                    drawOn = new Mat();
+                    imageMat.convertTo(drawOn, CvType.CV_8UC3);
+                }
                 drawingOnImage = true;
             }
         }
@@ -133,8 +154,11 @@ public class DrawSegmentationRunner implements PipelineStepRunner {
 
         final boolean skipBackgroundClass = step.backgroundClass() != null;
         final int backgroundClass = skipBackgroundClass ? step.backgroundClass() : -1;
-        if(skipBackgroundClass && !drawingOnImage) {
-            backgroundMask = new Mat(drawOn.rows(), drawOn.cols(), CvType.CV_8UC1);   //8 bit grayscale
+        //Background mask is only needed when blending the resized mask with the image
+        Mat bMask = null;
+        if(skipBackgroundClass && resizeRequired) {
+            backgroundMask = scratch(backgroundMask, drawOn.rows(), drawOn.cols(), CvType.CV_8UC1);   //8 bit grayscale
+            bMask = backgroundMask;
         }
 
         if(drawingOnImage){
@@ -173,7 +197,7 @@ public class DrawSegmentationRunner implements PipelineStepRunner {
             }
 
         } else {
-            UByteIndexer bMaskIdx = backgroundMask == null ? null : backgroundMask.createIndexer();
+            UByteIndexer bMaskIdx = bMask == null ? null : bMask.createIndexer();
             UByteRawIndexer uByteRawIndexer2 = (UByteRawIndexer) bMaskIdx;
             for (int y = 0; y < h; y++) {
                 for (int x = 0; x < w; x++) {
@@ -186,7 +210,7 @@ public class DrawSegmentationRunner implements PipelineStepRunner {
                     uByteRawIndexer.putRaw(idxB + 1, colorsG[classIdx]);
                     uByteRawIndexer.putRaw(idxB + 2, colorsR[classIdx]);
 
-                    if(backgroundMask != null) {
+                    if(bMask != null) {
                         long idxMask = w * y + x;
                         uByteRawIndexer2.putRaw(idxMask, classIdx == backgroundClass ? 0 : 1);
                     }
@@ -202,28 +226,34 @@ public class DrawSegmentationRunner implements PipelineStepRunner {
             int x1 = (int) (bb.x1() * im.width());
             int y1 = (int) (bb.y1() * im.height());
 
-            Mat resized = new Mat();
+            if(resized == null)
+                resized = new Mat();
             org.bytedeco.opencv.global.opencv_imgproc.resize(drawOn, resized, new Size(oW, oH));
 
             //Now that we've resized - need to apply to the original image...
-            //Note that to use accumulateWeighted we need to use a float type - method doesn't support integer types
-            Mat resizedFloat = new Mat();
-            resized.convertTo(resizedFloat, CvType.CV_32FC3);
-
-
-            Mat asFloat = new Mat();
-            im.getAs(Mat.class).convertTo(asFloat, CvType.CV_32FC3);
+            //Note that to use accumulateWeighted we need a float type destination - method doesn't support integer types
+            Mat imMat = im.getAs(Mat.class);
+            if(asFloat == null)
+                asFloat = new Mat();
+            imMat.convertTo(asFloat, CvType.CV_32FC3);
             Mat subset = asFloat.apply(new Rect(x1, y1, oW, oH));
-            double opacity = step.opacity();
-            if(backgroundMask == null){
+            double opacity = step.opacity() == null ? DrawSegmentationStep.DEFAULT_OPACITY : step.opacity();
+            if(bMask == null){
                 org.bytedeco.opencv.global.opencv_imgproc.accumulateWeighted(resized, subset, opacity);
             } else {
-                Mat maskResized = new Mat();
-                org.bytedeco.opencv.global.opencv_imgproc.resize(backgroundMask, maskResized, new Size(oW, oH));
+                if(maskResized == null)
+                    maskResized = new Mat();
+                org.bytedeco.opencv.global.opencv_imgproc.resize(bMask, maskResized, new Size(oW, oH));
                 org.bytedeco.opencv.global.opencv_imgproc.accumulateWeighted(resized, subset, opacity, maskResized);
 
             }
-            Mat out = new Mat();
+
+            Mat out;
+            if(step.inPlace() && imMat.type() == CvType.CV_8UC3){
+                out = imMat;        //Same size and type: convertTo writes into the existing image data
+            } else {
+                out = new Mat();
+            }
             asFloat.convertTo(out, CvType.CV_8UC3);
             drawOn = out;
         }
@@ -236,6 +266,13 @@ public class DrawSegmentationRunner implements PipelineStepRunner {
         return Data.singleton(outputName, Image.create(drawOn));
     }
 
+    protected static Mat scratch(Mat m, int rows, int cols, int type){
+        if(m == null)
+            m = new Mat();
+        m.create(rows, cols, type);     //No op if the Mat already has this size and type
+        return m;
+    }
+
     private void initColors(List<String> classColors, int max){
         if (colorsB == null && classColors != null) {
             colorsB = new int[classColors.size()];
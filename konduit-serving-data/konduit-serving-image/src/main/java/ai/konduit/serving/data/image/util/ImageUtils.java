@@ -29,7 +29,6 @@ import org.bytedeco.javacpp.*;
 import org.bytedeco.javacpp.indexer.*;
 import org.bytedeco.opencv.opencv_core.Mat;
 import org.nd4j.common.base.Preconditions;
-import org.nd4j.common.util.ArrayUtil;
 import org.nd4j.linalg.api.concurrency.AffinityManager;
 import org.nd4j.linalg.api.memory.pointers.PagedPointer;
 import org.nd4j.linalg.api.ndarray.INDArray;
@@ -40,6 +39,7 @@ import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.nativeblas.NativeOpsHolder;
 
 import java.nio.*;
+import java.util.Arrays;
 import java.util.function.IntToDoubleFunction;
 
 public class ImageUtils {
@@ -234,60 +234,89 @@ public class ImageUtils {
      * given configuration
      */
     public static FloatNormalizer getFloatNormalizer(ImageToNDArrayConfig config, boolean rgb) {
-        FloatNormalizer f;
+        double[][] scaleAndOffset = getNormalizationScaleAndOffset(config, rgb);
+        double[] scale = scaleAndOffset[0];
+        double[] offset = scaleAndOffset[1];
+        return (x,c) -> (float) (x * scale[c] + offset[c]);
+    }
+
+    /**
+     * Every supported {@link ImageNormalization} is an affine transform per channel: out = in * scale[c] + offset[c].
+     * This returns those coefficients, so that normalization can be applied in bulk together with the data type
+     * conversion (see {@link ImageToNDArray})
+     * @param config the input configuration
+     * @param rgb whether the image layout is rgb or bgr
+     * @return the scale (index 0) and offset (index 1) per output channel, each of length 3
+     */
+    public static double[][] getNormalizationScaleAndOffset(ImageToNDArrayConfig config, boolean rgb) {
+        double[] scale = {1.0, 1.0, 1.0};
+        double[] offset = {0.0, 0.0, 0.0};
+
         ImageNormalization n = config.normalization();
         if(n == null || n.type() == ImageNormalization.Type.NONE) {
-            f = (x,c) -> x;     //No-op
-        } else {
-            switch (config.normalization().type()) {
-                case SCALE:
-                    float scale = (n.maxValue() == null ? 255.0f : n.maxValue().floatValue()) / 2.0f;
-                    f = (x,c) -> (x / scale - 1.0f);
-                    break;
-                case SCALE_01:
-                    float scale01 = n.maxValue() == null ? 255.0f : n.maxValue().floatValue();
-                    f = (x,c) -> (x / scale01);
-                    break;
-                case SUBTRACT_MEAN:
-                    //TODO support grayscale
-                    Preconditions.checkState(n.meanRgb() != null, "Error during normalization: Normalization type is set to " +
-                            "SUBTRACT_MEAN but not meanRgb array is provided");
-                    double[] mrgb = n.meanRgb();
-                    float[] channelMeans = rgb ? ArrayUtil.toFloats(mrgb) : new float[]{(float) mrgb[2], (float) mrgb[1], (float) mrgb[0]};
-                    f = (x,c) -> (x - channelMeans[c]);
-                    break;
-                case STANDARDIZE:
-                    Preconditions.checkState(n.meanRgb() != null, "Error during normalization: Normalization type is set to " +
-                            "STANDARDIZE but not meanRgb array is provided");
-                    Preconditions.checkState(n.stdRgb() != null, "Error during normalization: Normalization type is set to " +
-                            "STANDARDIZE but not stdRgb array is provided");
-                    double[] mrgb2 = n.meanRgb();
-                    double[] stdrgb = n.stdRgb();
-                    float[] channelMeans2 = rgb ? ArrayUtil.toFloats(mrgb2) : new float[]{(float) mrgb2[2], (float) mrgb2[1], (float) mrgb2[0]};
-                    float[] channelStd = rgb ? ArrayUtil.toFloats(stdrgb) : new float[]{(float) stdrgb[2], (float) stdrgb[1], (float) stdrgb[0]};
-                    f = (x,c) -> ( (x-channelMeans2[c]) / channelStd[c]);
-                    break;
-                case INCEPTION:
-                    float scale2 = n.maxValue() == null ? 255.0f : n.maxValue().floatValue();
-                    f = (x,c) -> ( ((x/scale2) - 0.5f) * 2.0f );
-                    break;
-                case VGG_SUBTRACT_MEAN:
-                    double[] mrgbVgg = ImageNormalization.getVggMeanRgb();
-                    float[] channelMeansVGG = rgb ? ArrayUtil.toFloats(mrgbVgg) : new float[]{(float) mrgbVgg[2], (float) mrgbVgg[1], (float) mrgbVgg[0]};
-                    f = (x,c) -> (x - channelMeansVGG[c]);
-                    break;
-                case IMAGE_NET:
-                    double[] imagenetMeanRgb = ImageNormalization.getImagenetMeanRgb();
-                    double[] imageNetMeanStd = ImageNormalization.getImageNetStdRgb();
-                    float[] imageNetNormalized = rgb ? ArrayUtil.toFloats(imagenetMeanRgb) : new float[]{(float) imagenetMeanRgb[2], (float) imagenetMeanRgb[1], (float) imagenetMeanRgb[0]};
-                    float[] imageNetStdNormalized = rgb ? ArrayUtil.toFloats(imageNetMeanStd) : new float[]{(float) imageNetMeanStd[2], (float) imageNetMeanStd[1], (float) imageNetMeanStd[0]};
-                    f = (x,c) -> x - imageNetNormalized[c] / imageNetStdNormalized[c];
-                    break;
-                default:
-                    throw new UnsupportedOperationException("Unsupported image normalization type: " + config.normalization().type());
-            }
+            return new double[][]{scale, offset};     //No-op
         }
-        return f;
+
+        switch (n.type()) {
+            case SCALE:
+                double scaleMax = (n.maxValue() == null ? 255.0 : n.maxValue()) / 2.0;
+                Arrays.fill(scale, 1.0 / scaleMax);
+                Arrays.fill(offset, -1.0);
+                break;
+            case SCALE_01:
+                Arrays.fill(scale, 1.0 / (n.maxValue() == null ? 255.0 : n.maxValue()));
+                break;
+            case SUBTRACT_MEAN:
+                //TODO support grayscale
+                Preconditions.checkState(n.meanRgb() != null, "Error during normalization: Normalization type is set to " +
+                        "SUBTRACT_MEAN but not meanRgb array is provided");
+                double[] channelMeans = toChannelOrder(n.meanRgb(), rgb);
+                for(int c = 0; c < 3; c++) {
+                    offset[c] = -channelMeans[c];
+                }
+                break;
+            case STANDARDIZE:
+                Preconditions.checkState(n.meanRgb() != null, "Error during normalization: Normalization type is set to " +
+                        "STANDARDIZE but not meanRgb array is provided");
+                Preconditions.checkState(n.stdRgb() != null, "Error during normalization: Normalization type is set to " +
+                        "STANDARDIZE but not stdRgb array is provided");
+                double[] channelMeans2 = toChannelOrder(n.meanRgb(), rgb);
+                double[] channelStd = toChannelOrder(n.stdRgb(), rgb);
+                for(int c = 0; c < 3; c++) {
+                    scale[c] = 1.0 / channelStd[c];
+                    offset[c] = -channelMeans2[c] / channelStd[c];
+                }
+                break;
+            case INCEPTION:
+                double scaleMax2 = n.maxValue() == null ? 255.0 : n.maxValue();
+                Arrays.fill(scale, 2.0 / scaleMax2);
+                Arrays.fill(offset, -1.0);
+                break;
+            case VGG_SUBTRACT_MEAN:
+                double[] channelMeansVGG = toChannelOrder(ImageNormalization.getVggMeanRgb(), rgb);
+                for(int c = 0; c < 3; c++) {
+                    offset[c] = -channelMeansVGG[c];
+                }
+                break;
+            case IMAGE_NET:
+                double[] imageNetMean = toChannelOrder(ImageNormalization.getImagenetMeanRgb(), rgb);
+                double[] imageNetStd = toChannelOrder(ImageNormalization.getImageNetStdRgb(), rgb);
+                //KNOWN BUG: this is x - (mean / std), not (x/255 - mean) / std as ImageNet models expect. Kept as-is
+                //for compatibility with existing pipelines (and the original per-pixel implementation) - use
+                //STANDARDIZE with the ImageNet mean and std (scaled by 255) for the correct normalization
+                for(int c = 0; c < 3; c++) {
+                    offset[c] = -imageNetMean[c] / imageNetStd[c];
+                }
+                break;
+            default:
+                throw new UnsupportedOperationException("Unsupported image normalization type: " + config.normalization().type());
+        }
+
+        return new double[][]{scale, offset};
+    }
+
+    private static double[] toChannelOrder(double[] valuesRgb, boolean rgb) {
+        return rgb ? valuesRgb.clone() : new double[]{valuesRgb[2], valuesRgb[1], valuesRgb[0]};
     }
 
     /**
@@ -25,6 +25,7 @@ import ai.konduit.serving.data.image.convert.config.NDChannelLayout;
 import ai.konduit.serving.data.image.convert.config.NDFormat;
 import ai.konduit.serving.data.image.step.bb.extract.ExtractBoundingBoxStep;
 import ai.konduit.serving.data.image.step.capture.CameraFrameCaptureStep;
+import ai.konduit.serving.data.image.step.capture.MultiStreamCaptureStep;
 import ai.konduit.serving.data.image.step.capture.VideoFrameCaptureStep;
 import ai.konduit.serving.data.image.step.crop.ImageCropStep;
 import ai.konduit.serving.data.image.step.face.DrawFaceKeyPointsStep;
@@ -63,6 +64,8 @@ public class JsonCoverageTest extends BaseJsonCoverageTest {
             .format(NDFormat.CHANNELS_LAST)
             .dataType(NDArrayType.UINT8)
             .aspectRatioHandling(AspectRatioHandling.STRETCH)
+            .listHandling(ImageToNDArrayConfig.ListHandling.BATCH)
+            .mixedSizeHandling(ImageToNDArrayConfig.MixedSizeHandling.PAD)
             .normalization(new ImageNormalization(ImageNormalization.Type.SUBTRACT_MEAN)
                     .meanRgb(new double[]{0.3, 0.3}).stdRgb(new double[]{0.3, 0.3}).maxValue(3.0));
 
@@ -104,7 +107,16 @@ public class JsonCoverageTest extends BaseJsonCoverageTest {
 
     @Test
     public void testVideoFrameCaptureStep() {
-        testConfigSerDe(new VideoFrameCaptureStep().filePath("/file.file").skipFrames(2).outputKey("out").loop(false));
+        testConfigSerDe(new VideoFrameCaptureStep().filePath("/file.file").skipFrames(2).outputKey("out").loop(false)
+                .decoderThreads(4).videoCodec("h264_cuvid").skipToKeyFrames(true).framePoolSize(8));
+    }
+
+    @Test
+    public void testMultiStreamCaptureStep() {
+        testConfigSerDe(new MultiStreamCaptureStep().sources("rtsp://host/a", "rtsp://host/b").streamIds("a", "b")
+                .priorities(Arrays.asList(2, 1)).outputKey("out").streamIdKey("id").batchSize(4).poolThreads(2)
+                .decoderThreads(1).bufferSize(2).rtspTransport("tcp").readTimeoutMs(5000).reconnectDelayMs(100)
+                .maxReconnectDelayMs(10000).frameTimeoutMs(2000));
     }
 
     @Test
@@ -118,7 +130,8 @@ public class JsonCoverageTest extends BaseJsonCoverageTest {
                 .outputName("out")
                 .resizeH(360)
                 .resizeW(480)
-                .imageToNDArrayConfig(c));
+                .imageToNDArrayConfig(c)
+                .outputNDArrayConfig(c));
     }
 
     @Test
@@ -155,7 +168,8 @@ public class JsonCoverageTest extends BaseJsonCoverageTest {
                 .opacity(0.5)
                 .points("x","y")
                 .image("image")
-                .outputName("out"));
+                .outputName("out")
+                .inPlace(true));
     }
 
     @Test
@@ -199,7 +213,8 @@ public class JsonCoverageTest extends BaseJsonCoverageTest {
                 .outputName("out")
                 .classColors(Arrays.asList("red", "green"))
                 .opacity(0.5)
-                .backgroundClass(0));
+                .backgroundClass(0)
+                .inPlace(true));
     }
 
     @Test
@@ -208,7 +223,8 @@ public class JsonCoverageTest extends BaseJsonCoverageTest {
                 .imageToNDArrayConfig(c)
                 .points(Arrays.asList("img_points"))
                 .classColors(Collections.singletonMap("color", "red"))
-                .radius(5));
+                .radius(5)
+                .inPlace(true));
     }
 
     @Test
@@ -221,7 +237,8 @@ public class JsonCoverageTest extends BaseJsonCoverageTest {
                 .points(Point.create(2,2))
                 .imageName("image")
                 .borderThickness(4)
-                .gridThickness(2));
+                .gridThickness(2)
+                .inPlace(true));
     }
 
     @Test
@@ -235,7 +252,8 @@ public class JsonCoverageTest extends BaseJsonCoverageTest {
                 .pointsName("points")
                 .imageName("image")
                 .borderThickness(10)
-                .gridThickness(4));
+                .gridThickness(4)
+                .inPlace(true));
     }
 
 
@@ -26,15 +26,21 @@ import ai.konduit.serving.pipeline.api.data.Image;
 import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
 import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
 import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Scalar;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.nd4j.common.resources.Resources;
+import org.opencv.core.CvType;
 
 import java.io.File;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.junit.Assert.*;
+
 public class TestBoundingBoxStep {
 
     @Test @Ignore   //To be run manually
@@ -76,4 +82,31 @@ public class TestBoundingBoxStep {
         Thread.sleep(100000);
     }
 
+    @Test
+    public void testInPlace() {
+        for(boolean inPlace : new boolean[]{false, true}) {
+            Mat m = new Mat(32, 32, CvType.CV_8UC3, Scalar.all(0));
+            Data in = Data.singleton("image", Image.create(m));
+            in.put("bbox", BoundingBox.createXY(0.2, 0.5, 0.3, 0.9));
+
+            Pipeline p = SequencePipeline.builder()
+                    .add(new DrawBoundingBoxStep()
+                            .imageName("image")
+                            .bboxName("bbox")
+                            .inPlace(inPlace))
+                    .build();
+
+            Data out = p.executor().exec(in);
+            Mat outMat = out.getImage("image").getAs(Mat.class);
+            assertTrue(opencv_core.sumElems(outMat).get(1) > 0);      //Green box drawn
+
+            if(inPlace){
+                assertSame(m, outMat);
+            } else {
+                assertNotSame(m, outMat);
+                assertEquals(0.0, opencv_core.sumElems(m).get(1), 0.0);     //Input not modified
+            }
+        }
+    }
+
 }
@@ -18,6 +18,8 @@
 
 package ai.konduit.serving.data.image;
 
+import ai.konduit.serving.data.image.convert.config.AspectRatioHandling;
+import ai.konduit.serving.data.image.format.MatDecodeHints;
 import ai.konduit.serving.pipeline.api.data.Data;
 import ai.konduit.serving.pipeline.api.data.Image;
 import ai.konduit.serving.pipeline.impl.data.image.Bmp;
@@ -219,6 +221,53 @@ public class TestConversion {
         }
     }
 
+    @Test
+    public void testDecodeHints() throws Exception {
+        File dir = testDir.newFolder();
+        BufferedImage bi = new BufferedImage(640, 480, BufferedImage.TYPE_3BYTE_BGR);
+        File fJpg = new File(dir, "test.jpg");
+        ImageIO.write(bi, "jpg", fJpg);
+        File fPng = new File(dir, "test.png");
+        ImageIO.write(bi, "png", fPng);
+
+        Image jpg = Image.create(fJpg);
+        Image png = Image.create(fPng);
+        assertEquals(480, jpg.height());
+        assertEquals(640, jpg.width());
+        assertEquals(3, jpg.channels());
+
+        //Center crop to 100x100: 480/4 = 120 >= 100, 480/8 = 60 < 100
+        Mat m = MatDecodeHints.decode(jpg, new MatDecodeHints(100, 100, AspectRatioHandling.CENTER_CROP, false));
+        assertEquals(120, m.rows());
+        assertEquals(160, m.cols());
+        assertEquals(3, m.channels());
+
+        //Pad to 100x100: 640/4 = 160 >= 100, 640/8 = 80 < 100
+        m = MatDecodeHints.decode(jpg, new MatDecodeHints(100, 100, AspectRatioHandling.PAD, true));
+        assertEquals(120, m.rows());
+        assertEquals(160, m.cols());
+        assertEquals(1, m.channels());
+
+        //Stretch to 50x200: 640/2 = 320 >= 200, 640/4 = 160 < 200
+        m = MatDecodeHints.decode(jpg, new MatDecodeHints(50, 200, AspectRatioHandling.STRETCH, false));
+        assertEquals(240, m.rows());
+        assertEquals(320, m.cols());
+
+        //Upscaling, no target size, or not a jpeg: full size
+        m = MatDecodeHints.decode(jpg, new MatDecodeHints(1000, 1000, AspectRatioHandling.CENTER_CROP, false));
+        assertEquals(480, m.rows());
+        m = MatDecodeHints.decode(jpg, new MatDecodeHints());
+        assertEquals(480, m.rows());
+        m = MatDecodeHints.decode(png, new MatDecodeHints(100, 100, AspectRatioHandling.CENTER_CROP, true));
+        assertEquals(480, m.rows());
+        assertEquals(1, m.channels());
+
+        Mat full = jpg.getAs(Mat.class);
+        assertEquals(480, full.rows());
+        assertEquals(640, full.cols());
+        assertEquals(full.rows(), MatDecodeHints.decode(Image.create(full), new MatDecodeHints(100, 100, AspectRatioHandling.CENTER_CROP, false)).rows());
+    }
+
     protected BufferedImage randomBI(Random r, boolean alpha){
         BufferedImage bi = new BufferedImage(32, 32, alpha ? BufferedImage.TYPE_4BYTE_ABGR: BufferedImage.TYPE_3BYTE_BGR);
         for( int i=0; i<32; i++ ){
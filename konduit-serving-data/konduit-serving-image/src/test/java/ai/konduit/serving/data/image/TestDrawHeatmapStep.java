@@ -21,17 +21,25 @@ package ai.konduit.serving.data.image;
 import ai.konduit.serving.data.image.step.point.heatmap.DrawHeatmapStep;
 import ai.konduit.serving.data.image.step.show.ShowImageStep;
 import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.Image;
 import ai.konduit.serving.pipeline.api.data.Point;
 import ai.konduit.serving.pipeline.api.data.ValueType;
 import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
 import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
 import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Scalar;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.opencv.core.CvType;
 
 import java.util.Arrays;
 import java.util.Collections;
 
+import static ai.konduit.serving.data.image.TestDrawSegmentation.assertMatEquals;
+import static ai.konduit.serving.data.image.TestDrawSegmentation.sum;
+import static org.junit.Assert.*;
+
 public class TestDrawHeatmapStep {
 
     @Ignore
@@ -109,4 +117,67 @@ public class TestDrawHeatmapStep {
         Thread.sleep(Long.MAX_VALUE);
     }
 
+    @Test
+    public void testInPlace() {
+        for(boolean inPlace : new boolean[]{false, true}) {
+            Pipeline p = SequencePipeline.builder()
+                    .add(new DrawHeatmapStep()
+                            .points(Collections.singletonList("points"))
+                            .image("image")
+                            .outputName("heatmap")
+                            .inPlace(inPlace))
+                    .build();
+
+            Mat m = new Mat(32, 32, CvType.CV_8UC3, Scalar.all(0));
+            Data out = p.executor().exec(heatmapInput(m));
+            Mat outMat = out.getImage("heatmap").getAs(Mat.class);
+            assertTrue(sum(outMat) > 0);
+
+            if(inPlace){
+                assertSame(m, outMat);
+            } else {
+                assertNotSame(m, outMat);
+                assertEquals(0.0, sum(m), 0.0);      //Input not modified
+            }
+        }
+    }
+
+    @Test
+    public void testRepeatedCalls() {
+        //The heatmap buffers are swapped between calls: outputs of earlier calls must not change, and with no fading
+        //(i.e., previous heatmaps don't contribute) the same points must give the same output
+        for(boolean inPlace : new boolean[]{false, true}) {
+            PipelineExecutor exec = SequencePipeline.builder()
+                    .add(new DrawHeatmapStep()
+                            .points(Collections.singletonList("points"))
+                            .image("image")
+                            .outputName("heatmap")
+                            .fadingFactor(0.0)
+                            .inPlace(inPlace))
+                    .build().executor();
+
+            Mat out1 = exec.exec(heatmapInput(new Mat(32, 32, CvType.CV_8UC3, Scalar.all(0)))).getImage("heatmap").getAs(Mat.class);
+            Mat expected = out1.clone();
+            Mat out2 = exec.exec(heatmapInput(new Mat(32, 32, CvType.CV_8UC3, Scalar.all(0)))).getImage("heatmap").getAs(Mat.class);
+            Mat out3 = exec.exec(heatmapInput(new Mat(32, 32, CvType.CV_8UC3, Scalar.all(0)))).getImage("heatmap").getAs(Mat.class);
+
+            assertNotSame(out1, out2);
+            assertNotSame(out2, out3);
+            assertMatEquals(expected, out1);
+            assertMatEquals(expected, out2);
+            assertMatEquals(expected, out3);
+        }
+    }
+
+    protected static Data heatmapInput(Mat image){
+        Data data = Data.singleton("image", Image.create(image));
+        data.putListPoint("points",
+                Arrays.asList(
+                        Point.create(0.25, 0.25),
+                        Point.create(0.75, 0.5)
+                )
+        );
+        return data;
+    }
+
 }
@@ -21,16 +21,23 @@ package ai.konduit.serving.data.image;
 import ai.konduit.serving.data.image.step.point.draw.DrawPointsStep;
 import ai.konduit.serving.data.image.step.show.ShowImageStep;
 import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.Image;
 import ai.konduit.serving.pipeline.api.data.Point;
 import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
 import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Scalar;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.opencv.core.CvType;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 
+import static ai.konduit.serving.data.image.TestDrawSegmentation.sum;
+import static org.junit.Assert.*;
+
 public class TestDrawPointsStep {
 
     @Ignore
@@ -64,4 +71,35 @@ public class TestDrawPointsStep {
 
         Thread.sleep(Long.MAX_VALUE);
     }
+
+    @Test
+    public void testInPlace() {
+        //Points are drawn on a copy of the reference image by default
+        for(Boolean inPlace : new Boolean[]{null, false, true}) {
+            DrawPointsStep step = new DrawPointsStep()
+                    .points(Collections.singletonList("points"))
+                    .image("image")
+                    .outputName("out");
+            if(inPlace != null)
+                step.inPlace(inPlace);
+            Pipeline p = SequencePipeline.builder()
+                    .add(step)
+                    .build();
+
+            Mat m = new Mat(32, 32, CvType.CV_8UC3, Scalar.all(0));
+            Data data = Data.singleton("image", Image.create(m));
+            data.putListPoint("points", Collections.singletonList(Point.create(0.5, 0.5)));
+
+            Data out = p.executor().exec(data);
+            Mat outMat = out.getImage("out").getAs(Mat.class);
+            assertTrue(sum(outMat) > 0);
+
+            if(inPlace != null && inPlace){
+                assertSame(m, outMat);
+            } else {
+                assertNotSame(m, outMat);
+                assertEquals(0.0, sum(m), 0.0);      //Input not modified
+            }
+        }
+    }
 }
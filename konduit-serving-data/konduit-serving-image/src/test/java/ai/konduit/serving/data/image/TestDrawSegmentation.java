@@ -18,23 +18,33 @@
 
 package ai.konduit.serving.data.image;
 
+import ai.konduit.serving.data.image.convert.ImageToNDArrayConfig;
+import ai.konduit.serving.data.image.convert.config.AspectRatioHandling;
 import ai.konduit.serving.data.image.step.segmentation.index.DrawSegmentationStep;
 import ai.konduit.serving.data.image.step.show.ShowImageStep;
 import ai.konduit.serving.pipeline.api.data.Data;
 import ai.konduit.serving.pipeline.api.data.Image;
 import ai.konduit.serving.pipeline.api.data.NDArray;
 import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
+import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
 import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+import org.bytedeco.opencv.opencv_core.Scalar;
 import org.junit.Test;
 import org.nd4j.common.resources.Resources;
 import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.opencv.core.CvType;
 
 import java.io.File;
 import java.util.Arrays;
 
+import static org.junit.Assert.*;
+
 public class TestDrawSegmentation {
 
     private final boolean show = false;   //Set to true to visualize
@@ -109,4 +119,121 @@ public class TestDrawSegmentation {
         if(show)
             Thread.sleep(100000);
     }
+
+    @Test
+    public void testInPlace() {
+        //resize == false: segment indices have the image size, so the mask is drawn on the image directly
+        //resize == true: segment indices are half the image size, so the mask is resized and blended with the image
+        for(boolean resize : new boolean[]{false, true}) {
+            for (boolean inPlace : new boolean[]{false, true}) {
+                Pipeline p = SequencePipeline.builder()
+                        .add(segmentationStep(resize).inPlace(inPlace))
+                        .build();
+                PipelineExecutor exec = p.executor();
+
+                Mat m = new Mat(64, 64, CvType.CV_8UC3, Scalar.all(0));
+                long address = m.data().address();
+                Mat outMat = exec.exec(segmentationInput(m, resize)).getImage("out").getAs(Mat.class);
+
+                //Background class (left half) is not drawn, class 1 (right half) is drawn with opacity 0.5
+                //Columns next to the class boundary are skipped: they are interpolated when the mask is resized
+                assertEquals(0.0, sum(outMat.apply(new Rect(0, 0, 30, 64))), 0.0);
+                Scalar right = opencv_core.sumElems(outMat.apply(new Rect(34, 0, 30, 64)));
+                assertEquals(0.0, right.get(0) + right.get(2), 0.0);
+                assertEquals(127.5, right.get(1) / (30 * 64), 0.5);
+
+                if (inPlace) {
+                    assertSame(m, outMat);
+                    assertEquals(address, m.data().address());      //Drawn into the existing image data
+                } else {
+                    assertNotSame(m, outMat);
+                    assertEquals(0.0, sum(m), 0.0);                  //Input not modified
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRepeatedCalls() {
+        //Scratch Mats are reused between calls: outputs of earlier calls must not change, and the same input must
+        //give the same output
+        for(boolean resize : new boolean[]{false, true}) {
+            for (boolean inPlace : new boolean[]{false, true}) {
+                Pipeline p = SequencePipeline.builder()
+                        .add(segmentationStep(resize).inPlace(inPlace))
+                        .build();
+                PipelineExecutor exec = p.executor();
+
+                Mat out1 = exec.exec(segmentationInput(new Mat(64, 64, CvType.CV_8UC3, Scalar.all(0)), resize))
+                        .getImage("out").getAs(Mat.class);
+                Mat expected = out1.clone();
+                Mat out2 = exec.exec(segmentationInput(new Mat(64, 64, CvType.CV_8UC3, Scalar.all(0)), resize))
+                        .getImage("out").getAs(Mat.class);
+
+                assertNotSame(out1, out2);
+                assertMatEquals(expected, out1);
+                assertMatEquals(expected, out2);
+            }
+        }
+    }
+
+    @Test
+    public void testDefaultOpacity() {
+        for(boolean resize : new boolean[]{false, true}) {
+            Mat expected = SequencePipeline.builder()
+                    .add(segmentationStep(resize).opacity(DrawSegmentationStep.DEFAULT_OPACITY))
+                    .build().executor()
+                    .exec(segmentationInput(new Mat(64, 64, CvType.CV_8UC3, Scalar.all(0)), resize))
+                    .getImage("out").getAs(Mat.class);
+
+            Mat actual = SequencePipeline.builder()
+                    .add(segmentationStep(resize).opacity(null))
+                    .build().executor()
+                    .exec(segmentationInput(new Mat(64, 64, CvType.CV_8UC3, Scalar.all(0)), resize))
+                    .getImage("out").getAs(Mat.class);
+
+            assertMatEquals(expected, actual);
+        }
+    }
+
+    protected static DrawSegmentationStep segmentationStep(boolean resize){
+        DrawSegmentationStep step = new DrawSegmentationStep()
+                .image("image")
+                .segmentArray("class_idxs")
+                .outputName("out")
+                .classColors(Arrays.asList("red", "lime"))
+                .backgroundClass(0);
+        if(resize){
+            step.imageToNDArrayConfig(new ImageToNDArrayConfig()
+                    .height(32)
+                    .width(32)
+                    .aspectRatioHandling(AspectRatioHandling.STRETCH));
+        }
+        return step;
+    }
+
+    protected static Data segmentationInput(Mat image, boolean resize){
+        //Class 0 (background) in the left half, class 1 in the right half
+        int size = resize ? 32 : 64;
+        INDArray arr = Nd4j.create(DataType.INT32, 1, size, size);
+        arr.get(NDArrayIndex.point(0), NDArrayIndex.all(), NDArrayIndex.interval(size / 2, size)).assign(1);
+
+        Data d = Data.singleton("class_idxs", NDArray.create(arr));
+        d.put("image", Image.create(image));
+        return d;
+    }
+
+    protected static double sum(Mat m){
+        Scalar s = opencv_core.sumElems(m);
+        return s.get(0) + s.get(1) + s.get(2);
+    }
+
+    protected static void assertMatEquals(Mat expected, Mat actual){
+        assertEquals(expected.rows(), actual.rows());
+        assertEquals(expected.cols(), actual.cols());
+        assertEquals(expected.type(), actual.type());
+        Mat diff = new Mat();
+        opencv_core.absdiff(expected, actual, diff);
+        assertEquals(0.0, sum(diff), 0.0);
+    }
 }
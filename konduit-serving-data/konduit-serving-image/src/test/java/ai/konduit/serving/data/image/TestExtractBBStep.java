@@ -20,10 +20,12 @@ package ai.konduit.serving.data.image;
 
 import ai.konduit.serving.data.image.convert.ImageToNDArray;
 import ai.konduit.serving.data.image.convert.ImageToNDArrayConfig;
+import ai.konduit.serving.data.image.convert.config.AspectRatioHandling;
 import ai.konduit.serving.data.image.step.bb.extract.ExtractBoundingBoxStep;
 import ai.konduit.serving.pipeline.api.data.BoundingBox;
 import ai.konduit.serving.pipeline.api.data.Data;
 import ai.konduit.serving.pipeline.api.data.Image;
+import ai.konduit.serving.pipeline.api.data.NDArray;
 import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
 import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
 import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
@@ -34,8 +36,10 @@ import org.nd4j.common.resources.Resources;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class TestExtractBBStep {
@@ -258,4 +262,77 @@ public class TestExtractBBStep {
             }
         }
     }
+
+    @Test
+    public void testNDArrayOutput(){
+        int inH = 32;
+        int inW = 48;
+
+        BufferedImage bi = new BufferedImage(inW, inH, BufferedImage.TYPE_INT_RGB);
+        for( int i=0; i<inH; i++ ){
+            for( int j=0; j<inW; j++ ){
+                int rgb = i << 16 | j << 8 | (100 + i);
+                bi.setRGB(j, i, rgb);
+            }
+        }
+
+        //Two 16x16 pixel regions, and one that is partially outside of the image
+        List<BoundingBox> lbb = Arrays.asList(
+                BoundingBox.createXY(8 / 48.0, 24 / 48.0, 4 / 32.0, 20 / 32.0),
+                BoundingBox.createXY(0.0, 16 / 48.0, 16 / 32.0, 1.0),
+                BoundingBox.createXY(40 / 48.0, 56 / 48.0, 0.0, 16 / 32.0));
+        int[][] topLeft = {{8, 4}, {0, 16}, {40, 0}};
+
+        ImageToNDArrayConfig outConf = new ImageToNDArrayConfig()
+                .height(16)
+                .width(16)
+                .aspectRatioHandling(AspectRatioHandling.STRETCH)
+                .normalization(null);
+
+        Pipeline p = SequencePipeline.builder()
+                .add(new ExtractBoundingBoxStep()
+                        .outputName("crops")
+                        .outputNDArrayConfig(outConf))
+                .build();
+
+        Data in = Data.singleton("image", Image.create(bi));
+        in.putListBoundingBox("bbox", lbb);
+        Data out = p.executor().exec(in);
+
+        NDArray arr = out.getNDArray("crops");
+        assertArrayEquals(new long[]{3, 3, 16, 16}, arr.shape());
+        float[][][][] f = arr.getAs(float[][][][].class);
+        for( int n=0; n<3; n++ ){
+            for( int y=0; y<16; y++ ){
+                for( int x=0; x<16; x++ ){
+                    int origX = topLeft[n][0] + x;
+                    int origY = topLeft[n][1] + y;
+                    String s = n + "," + x + "," + y;
+                    if(origX >= inW){
+                        //Outside of image: zero padded
+                        assertEquals(s, 0.0, f[n][0][y][x], 0.0);
+                        continue;
+                    }
+                    assertEquals(s, origY, f[n][0][y][x], 1e-3);         //R
+                    assertEquals(s, origX, f[n][1][y][x], 1e-3);         //G
+                    assertEquals(s, 100 + origY, f[n][2][y][x], 1e-3);   //B
+                }
+            }
+        }
+
+        //Should match cropping to images, then converting the images
+        Pipeline p2 = SequencePipeline.builder()
+                .add(new ExtractBoundingBoxStep()
+                        .outputName("crops"))
+                .build();
+        List<Image> images = p2.executor().exec(in).getListImage("crops");
+        for( int n=0; n<2; n++ ){
+            float[][][][] exp = ImageToNDArray.convert(images.get(n), outConf).getAs(float[][][][].class);
+            assertArrayEquals(exp[0][0][5], f[n][0][5], 1e-3f);
+        }
+
+        //No bounding boxes: empty batch
+        in.putListBoundingBox("bbox", Collections.emptyList());
+        assertArrayEquals(new long[]{0, 3, 16, 16}, p.executor().exec(in).getNDArray("crops").shape());
+    }
 }
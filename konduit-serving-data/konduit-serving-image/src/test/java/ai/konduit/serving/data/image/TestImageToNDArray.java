@@ -1,10 +1,13 @@
 package ai.konduit.serving.data.image;
 
+import ai.konduit.serving.data.image.convert.ImageToNDArray;
 import ai.konduit.serving.data.image.convert.ImageToNDArrayConfig;
+import ai.konduit.serving.data.image.convert.config.AspectRatioHandling;
 import ai.konduit.serving.data.image.convert.config.ImageNormalization;
 import ai.konduit.serving.data.image.convert.config.NDChannelLayout;
 import ai.konduit.serving.data.image.convert.config.NDFormat;
 import ai.konduit.serving.data.image.step.ndarray.ImageToNDArrayStep;
+import ai.konduit.serving.data.image.util.ImageUtils;
 import ai.konduit.serving.data.nd4j.util.ND4JUtil;
 import ai.konduit.serving.pipeline.api.data.*;
 import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
@@ -17,6 +20,7 @@ import org.nd4j.common.primitives.Pair;
 import org.nd4j.common.resources.Resources;
 import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.indexing.NDArrayIndex;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
@@ -197,8 +201,9 @@ public class TestImageToNDArray {
         //Test image -> Float16, Float32, Float64, int8, int16, int32, int64, uint8, unt16, uint32, uint64
         for(NDArrayType t : new NDArrayType[]{NDArrayType.FLOAT, NDArrayType.DOUBLE,
                 NDArrayType.INT8, NDArrayType.INT16, NDArrayType.INT32, NDArrayType.INT64,
+                NDArrayType.UINT8, NDArrayType.UINT16, NDArrayType.FLOAT16,
                 //TODO - these types: not yet supported
-                //NDArrayType.FLOAT16, NDArrayType.BFLOAT16, NDArrayType.UINT8, NDArrayType.UINT16, NDArrayType.UINT32, NDArrayType.UINT64
+                //NDArrayType.BFLOAT16, NDArrayType.UINT32, NDArrayType.UINT64
         }){
 
             int h = 32;
@@ -381,6 +386,7 @@ public class TestImageToNDArray {
                     expB = b - (float)vggmean[2];
                     break;
                 case IMAGE_NET:
+                    //Known bug, see ImageUtils.getNormalizationScaleAndOffset: x - mean/std rather than (x/255 - mean)/std
                     double[] imagenetRgbMean = ImageNormalization.getImagenetMeanRgb();
                     double[] imagenetRgbStd = ImageNormalization.getImageNetStdRgb();
                     expR = r - (float)imagenetRgbMean[0] / (float) imagenetRgbStd[0];
@@ -654,6 +660,57 @@ public class TestImageToNDArray {
         }
     }
 
+    @Test
+    public void testIntegerTypesSaturate(){
+        //Integer output types are rounded and clipped to the range of the type - not truncated and wrapped
+        Data in = Data.singleton("image", Image.create(createConstantImageRgb(8, 8, 200, 100, 0)));
+
+        for(NDFormat f : NDFormat.values()) {
+            //No normalization: 200 is out of range for INT8
+            INDArray int8 = convert(in, f, NDArrayType.INT8, null);
+            assertEquals(DataType.BYTE, int8.dataType());
+            assertRgb(int8, f, 127, 100, 0);
+
+            //Subtract mean: negative values are out of range for UINT8
+            ImageNormalization subMean = new ImageNormalization().type(ImageNormalization.Type.SUBTRACT_MEAN).meanRgb(new double[]{128, 200, 50});
+            INDArray uint8 = convert(in, f, NDArrayType.UINT8, subMean);
+            assertEquals(DataType.UBYTE, uint8.dataType());
+            assertRgb(uint8, f, 72, 0, 0);
+
+            //Scale to [0,1]: 200/255 = 0.78 and 100/255 = 0.39 are rounded to the nearest integer
+            INDArray int32 = convert(in, f, NDArrayType.INT32, new ImageNormalization().type(ImageNormalization.Type.SCALE_01));
+            assertEquals(DataType.INT, int32.dataType());
+            assertRgb(int32, f, 1, 0, 0);
+        }
+    }
+
+    private static INDArray convert(Data in, NDFormat f, NDArrayType type, ImageNormalization norm){
+        Pipeline p = SequencePipeline.builder()
+                .add(new ImageToNDArrayStep()
+                        .metadata(false)
+                        .config(new ImageToNDArrayConfig()
+                                .height(8)
+                                .width(8)
+                                .format(f)
+                                .includeMinibatchDim(false)
+                                .dataType(type)
+                                .normalization(norm)
+                        )
+                )
+                .build();
+        return p.executor().exec(in).getNDArray("image").getAs(INDArray.class);
+    }
+
+    private static void assertRgb(INDArray arr, NDFormat f, int r, int g, int b){
+        int[] exp = {r, g, b};
+        for( int c = 0; c < 3; c++) {
+            INDArray channel = f == NDFormat.CHANNELS_FIRST ? arr.get(NDArrayIndex.point(c), NDArrayIndex.all(), NDArrayIndex.all()) :
+                    arr.get(NDArrayIndex.all(), NDArrayIndex.all(), NDArrayIndex.point(c));
+            assertEquals(exp[c], channel.minNumber().intValue());
+            assertEquals(exp[c], channel.maxNumber().intValue());
+        }
+    }
+
     @Test
     public void testBatching(){
 
@@ -836,4 +893,108 @@ public class TestImageToNDArray {
         System.out.println("***** NON-RGB NORMALIZATION NOT YET IMPLEMENTED *****");
     }
 
+    @Test
+    public void testLetterbox(){
+        int inH = 32;
+        int inW = 48;
+        Data in = Data.singleton("image", Image.create(createConstantImageRgb(inH, inW, 255, 0, 0)));
+
+        ImageToNDArrayConfig config = new ImageToNDArrayConfig()
+                .height(32)
+                .width(32)
+                .aspectRatioHandling(AspectRatioHandling.PAD)
+                .normalization(new ImageNormalization(ImageNormalization.Type.NONE))
+                .format(NDFormat.CHANNELS_FIRST)
+                .includeMinibatchDim(false);
+
+        Pipeline p = SequencePipeline.builder()
+                .add(new ImageToNDArrayStep()
+                        .metadata(true)
+                        .outputNames(Collections.singletonList("out"))
+                        .config(config))
+                .build();
+
+        Data out = p.executor().exec(in);
+        NDArray arr = out.getNDArray("out");
+        assertArrayEquals(new long[]{3, 32, 32}, arr.shape());
+
+        //48x32 resized to 32x21, then padded with 5 rows at the top and 6 at the bottom
+        float[][][] f3 = arr.getAs(float[][][].class);
+        for( int y = 0; y < 32; y++ ){
+            float exp = (y >= 5 && y < 26) ? 255 : 0;
+            assertEquals(exp, f3[0][y][0], 0.0f);
+            assertEquals(exp, f3[0][y][31], 0.0f);
+            assertEquals(0, f3[1][y][16], 0.0f);
+        }
+
+        Data meta = out.getMetaData().getData(ImageToNDArrayStep.DEFAULT_METADATA_KEY);
+        BoundingBox region = meta.getBoundingBox(ImageToNDArrayStep.META_CROP_REGION);
+        assertEquals(region, ImageToNDArray.getCropRegion(inW, inH, config));
+        assertEquals(0.0, region.x1(), 1e-6);
+        assertEquals(1.0, region.x2(), 1e-6);
+        assertEquals(-5 / 21.0, region.y1(), 1e-6);
+        assertEquals(27 / 21.0, region.y2(), 1e-6);
+        assertEquals(5.0, meta.getDouble(ImageToNDArrayStep.META_PAD_Y), 1e-6);
+        assertEquals(0.0, meta.getDouble(ImageToNDArrayStep.META_PAD_X), 1e-6);
+        assertEquals(21 / 32.0, meta.getDouble(ImageToNDArrayStep.META_SCALE_Y), 1e-6);
+
+        //A box covering the unpadded part of the array maps back to the whole image
+        BoundingBox mapped = ImageUtils.accountForCrop(BoundingBox.createXY(0.0, 1.0, 5 / 32.0, 26 / 32.0), inW, inH, config);
+        assertEquals(0.0, mapped.x1(), 1e-6);
+        assertEquals(1.0, mapped.x2(), 1e-6);
+        assertEquals(0.0, mapped.y1(), 1e-6);
+        assertEquals(1.0, mapped.y2(), 1e-6);
+    }
+
+    @Test
+    public void testBatchMixedSizes(){
+        List<Image> images = Arrays.asList(
+                Image.create(createConstantImageRgb(16, 24, 255, 0, 0)),
+                Image.create(createConstantImageRgb(32, 20, 0, 255, 0)));
+        Data in = Data.singletonList("images", images, ValueType.IMAGE);
+
+        for(ImageToNDArrayConfig.MixedSizeHandling handling : ImageToNDArrayConfig.MixedSizeHandling.values()) {
+            Pipeline p = SequencePipeline.builder()
+                    .add(new ImageToNDArrayStep()
+                            .outputNames(Collections.singletonList("out"))
+                            .config(new ImageToNDArrayConfig()
+                                    .listHandling(ImageToNDArrayConfig.ListHandling.BATCH)
+                                    .mixedSizeHandling(handling)
+                                    .aspectRatioHandling(AspectRatioHandling.STRETCH)
+                                    .normalization(new ImageNormalization(ImageNormalization.Type.NONE))
+                                    .format(NDFormat.CHANNELS_FIRST)))
+                    .build();
+
+            if(handling == ImageToNDArrayConfig.MixedSizeHandling.FAIL) {
+                try {
+                    p.executor().exec(in);
+                    fail("Expected exception");
+                } catch (IllegalStateException e) {
+                    assertTrue(e.getMessage(), e.getMessage().contains("mixedSizeHandling"));
+                }
+                continue;
+            }
+
+            NDArray arr = p.executor().exec(in).getNDArray("out");
+            float[][][][] f4 = arr.getAs(float[][][][].class);
+            if(handling == ImageToNDArrayConfig.MixedSizeHandling.RESIZE) {
+                //Size of the first image
+                assertArrayEquals(new long[]{2, 3, 16, 24}, arr.shape());
+                assertEquals(255, f4[1][1][15][23], 0.0f);
+            } else {
+                //Largest height and width, zero padded at the bottom and right
+                assertArrayEquals(new long[]{2, 3, 32, 24}, arr.shape());
+                assertEquals(255, f4[0][0][15][23], 0.0f);
+                assertEquals(0, f4[0][0][16][0], 0.0f);
+                assertEquals(255, f4[1][1][31][19], 0.0f);
+                assertEquals(0, f4[1][1][0][20], 0.0f);
+            }
+            //Red image first, green second - RGB order
+            assertEquals(255, f4[0][0][0][0], 0.0f);
+            assertEquals(0, f4[0][1][0][0], 0.0f);
+            assertEquals(255, f4[1][1][0][0], 0.0f);
+            assertEquals(0, f4[1][0][0][0], 0.0f);
+        }
+    }
+
 }
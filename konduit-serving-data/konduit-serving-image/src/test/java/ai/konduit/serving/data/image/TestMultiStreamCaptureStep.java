@@ -0,0 +1,121 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.data.image;
+
+import ai.konduit.serving.data.image.step.capture.MultiStreamCaptureStep;
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.Image;
+import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
+import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
+import ai.konduit.serving.pipeline.api.step.PipelineStep;
+import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import ai.konduit.serving.pipeline.util.ObjectMappers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TestMultiStreamCaptureStep {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void testJsonDefaults() throws Exception {
+        //Fields that aren't in the JSON should get the same defaults as with the no-arg constructor
+        MultiStreamCaptureStep step = (MultiStreamCaptureStep) ObjectMappers.fromJson(
+                "{\"@type\":\"MULTI_STREAM_CAPTURE\",\"sources\":[\"rtsp://host/a\"]}", PipelineStep.class);
+
+        MultiStreamCaptureStep expected = new MultiStreamCaptureStep().sources(Collections.singletonList("rtsp://host/a"));
+        assertEquals(expected, step);
+        assertEquals("image", step.outputKey());
+        assertEquals("stream_id", step.streamIdKey());
+        assertEquals(1, step.batchSize());
+        assertEquals(1, step.bufferSize());
+        assertEquals(10000, step.readTimeoutMs());
+        assertEquals(500, step.reconnectDelayMs());
+        assertEquals(30000, step.maxReconnectDelayMs());
+        assertEquals(10000, step.frameTimeoutMs());
+    }
+
+    @Test(timeout = 60000)
+    public void testSingleFrame() throws Exception {
+        File clip = VideoTestUtils.recordClip(testDir.newFile("clip.mp4"), 10, 5);
+
+        Pipeline p = SequencePipeline.builder()
+                .add(new MultiStreamCaptureStep().sources(clip.getAbsolutePath()).streamIds("cam"))
+                .build();
+
+        PipelineExecutor exec = p.executor();
+        try {
+            for( int i=0; i<5; i++ ){
+                Data out = exec.exec(Data.empty());
+                Image img = out.getImage("image");
+                assertEquals(VideoTestUtils.WIDTH, img.width());
+                assertEquals(VideoTestUtils.HEIGHT, img.height());
+                assertEquals("cam", out.getString("stream_id"));
+            }
+        } finally {
+            exec.close();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testBatchStreamIds() throws Exception {
+        File clipA = VideoTestUtils.recordClip(testDir.newFile("a.mp4"), 10, 5);
+        File clipB = VideoTestUtils.recordClip(testDir.newFile("b.mp4"), 10, 5);
+
+        Pipeline p = SequencePipeline.builder()
+                .add(new MultiStreamCaptureStep()
+                        .sources(clipA.getAbsolutePath(), clipB.getAbsolutePath())
+                        .streamIds("a", "b")
+                        .batchSize(4)
+                        .bufferSize(4)
+                        .outputKey("frames")
+                        .streamIdKey("ids"))
+                .build();
+
+        Set<String> seen = new HashSet<>();
+        PipelineExecutor exec = p.executor();
+        try {
+            for( int i=0; i<20 && seen.size() < 2; i++ ){
+                Data out = exec.exec(Data.empty());
+                List<Image> images = out.getListImage("frames");
+                List<String> ids = out.getListString("ids");
+                assertFalse(images.isEmpty());
+                assertTrue(images.size() <= 4);
+                assertEquals(images.size(), ids.size());
+                for(String id : ids){
+                    assertTrue(id, id.equals("a") || id.equals("b"));
+                }
+                seen.addAll(ids);
+            }
+        } finally {
+            exec.close();
+        }
+        assertEquals(2, seen.size());
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package ai.konduit.serving.data.image;
+
+import ai.konduit.serving.data.image.step.capture.VideoFrameCaptureStep;
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.Image;
+import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
+import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
+import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestVideoFrameCaptureStep {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test(timeout = 60000)
+    public void testSkipFrames() throws Exception {
+        File clip = VideoTestUtils.recordClip(testDir.newFile("clip.mp4"), 20, 5);
+
+        //Skipped frames are decoded, so the spacing is exact
+        List<Image> images = capture(new VideoFrameCaptureStep()
+                .filePath(clip.getAbsolutePath())
+                .skipFrames(2), 5);
+        for( int i=0; i<5; i++ ){
+            assertEquals(3 * i, VideoTestUtils.frameIndex(images.get(i)));
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testSkipToKeyFrames() throws Exception {
+        File clip = VideoTestUtils.recordClip(testDir.newFile("clip.mp4"), 20, 5);
+
+        //Skipped packets are dropped, and decoding resumes at the next keyframe (every 5th frame)
+        List<Image> images = capture(new VideoFrameCaptureStep()
+                .filePath(clip.getAbsolutePath())
+                .loop(false)
+                .skipFrames(2)
+                .skipToKeyFrames(true), 4);
+        int last = -1;
+        for(Image i : images){
+            int idx = VideoTestUtils.frameIndex(i);
+            assertEquals("Frame " + idx + " is not a keyframe", 0, idx % 5);
+            assertTrue("Expected spacing of at least 3 frames, got " + last + " then " + idx, idx >= last + 3);
+            last = idx;
+        }
+        assertEquals(15, last);
+    }
+
+    @Test(timeout = 60000)
+    public void testFramePool() throws Exception {
+        File clip = VideoTestUtils.recordClip(testDir.newFile("clip.mp4"), 10, 5);
+
+        List<Image> images = capture(new VideoFrameCaptureStep()
+                .filePath(clip.getAbsolutePath())
+                .framePoolSize(3), 4);
+
+        //Buffers are reused round robin: the 4th frame is written to the buffer of the 1st frame
+        assertNotSame(images.get(0).get(), images.get(1).get());
+        assertNotSame(images.get(1).get(), images.get(2).get());
+        assertSame(images.get(0).get(), images.get(3).get());
+        assertEquals(1, VideoTestUtils.frameIndex(images.get(1)));
+        assertEquals(2, VideoTestUtils.frameIndex(images.get(2)));
+        assertEquals(3, VideoTestUtils.frameIndex(images.get(3)));
+        assertEquals(3, VideoTestUtils.frameIndex(images.get(0)));
+
+        //Without a pool, each frame gets its own buffer
+        List<Image> copies = capture(new VideoFrameCaptureStep()
+                .filePath(clip.getAbsolutePath()), 4);
+        for( int i=0; i<4; i++ ){
+            assertEquals(i, VideoTestUtils.frameIndex(copies.get(i)));
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testLoop() throws Exception {
+        File clip = VideoTestUtils.recordClip(testDir.newFile("clip.mp4"), 5, 5);
+
+        List<Image> images = capture(new VideoFrameCaptureStep()
+                .filePath(clip.getAbsolutePath())
+                .loop(true), 12);
+        for( int i=0; i<12; i++ ){
+            assertEquals(i % 5, VideoTestUtils.frameIndex(images.get(i)));
+        }
+
+        //Without looping, reading past the end fails
+        Pipeline p = SequencePipeline.builder()
+                .add(new VideoFrameCaptureStep()
+                        .filePath(clip.getAbsolutePath())
+                        .loop(false))
+                .build();
+        PipelineExecutor exec = p.executor();
+        try {
+            for( int i=0; i<5; i++ ){
+                exec.exec(Data.empty());
+            }
+            try {
+                exec.exec(Data.empty());
+                fail("Expected exception at the end of the video");
+            } catch (RuntimeException e){
+                //Expected
+            }
+        } finally {
+            exec.close();
+        }
+    }
+
+    protected static List<Image> capture(VideoFrameCaptureStep step, int numFrames){
+        Pipeline p = SequencePipeline.builder()
+                .add(step)
+                .build();
+
+        List<Image> out = new ArrayList<>();
+        PipelineExecutor exec = p.executor();
+        try {
+            for( int i=0; i<numFrames; i++ ){
+                Image img = exec.exec(Data.empty()).getImage(step.outputKey());
+                assertEquals(VideoTestUtils.WIDTH, img.width());
+                assertEquals(VideoTestUtils.HEIGHT, img.height());
+                out.add(img);
+            }
+        } finally {
+            exec.close();
+        }
+        return out;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.data.image;
+
+import ai.konduit.serving.pipeline.api.data.Image;
+import org.bytedeco.ffmpeg.global.avcodec;
+import org.bytedeco.ffmpeg.global.avutil;
+import org.bytedeco.javacv.FFmpegFrameRecorder;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Scalar;
+
+import java.io.File;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC3;
+import static org.bytedeco.opencv.global.opencv_core.mean;
+
+/**
+ * Generates short video clips for the capture step tests. Frame i of a clip is a uniform gray image with level
+ * {@code 8 * i}, so that the index of a decoded frame can be recovered with {@link #frameIndex(Image)}.
+ */
+public class VideoTestUtils {
+
+    public static final int WIDTH = 64;
+    public static final int HEIGHT = 48;
+    public static final int MAX_FRAMES = 32;
+
+    private VideoTestUtils(){ }
+
+    /**
+     * Record an MPEG-4 clip at 10 frames per second
+     *
+     * @param numFrames Number of frames, at most {@link #MAX_FRAMES}
+     * @param gopSize   Number of frames between key frames
+     */
+    public static File recordClip(File file, int numFrames, int gopSize) throws Exception {
+        if(numFrames > MAX_FRAMES)
+            throw new IllegalArgumentException("At most " + MAX_FRAMES + " frames are supported, got " + numFrames);
+
+        FFmpegFrameRecorder recorder = new FFmpegFrameRecorder(file, WIDTH, HEIGHT);
+        recorder.setFormat("mp4");
+        recorder.setVideoCodec(avcodec.AV_CODEC_ID_MPEG4);
+        recorder.setPixelFormat(avutil.AV_PIX_FMT_YUV420P);
+        recorder.setFrameRate(10);
+        recorder.setGopSize(gopSize);
+        recorder.setVideoQuality(1);
+        recorder.start();
+
+        OpenCVFrameConverter.ToMat converter = new OpenCVFrameConverter.ToMat();
+        try {
+            for( int i=0; i<numFrames; i++ ){
+                int level = 8 * i;
+                Mat m = new Mat(HEIGHT, WIDTH, CV_8UC3, new Scalar(level, level, level, 0));
+                recorder.record(converter.convert(m));
+            }
+        } finally {
+            recorder.stop();
+            recorder.release();
+        }
+        return file;
+    }
+
+    /**
+     * @return The index of the clip frame that the given decoded image is (allowing for compression artifacts)
+     */
+    public static int frameIndex(Image image){
+        Mat m = image.getAs(Mat.class);
+        return (int) Math.round(mean(m).get(0) / 8.0);
+    }
+}
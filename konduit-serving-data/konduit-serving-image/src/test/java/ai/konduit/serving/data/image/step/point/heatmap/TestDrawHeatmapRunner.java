@@ -0,0 +1,96 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package ai.konduit.serving.data.image.step.point.heatmap;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.Image;
+import ai.konduit.serving.pipeline.api.data.Point;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Scalar;
+import org.junit.Test;
+import org.opencv.core.CvType;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the reused buffers of {@link DrawHeatmapRunner} directly - see TestDrawHeatmapStep for the pipeline level tests
+ */
+public class TestDrawHeatmapRunner {
+
+    @Test
+    public void testBufferSwap() {
+        for(boolean inPlace : new boolean[]{false, true}) {
+            DrawHeatmapRunner r = new DrawHeatmapRunner(new DrawHeatmapStep()
+                    .points(Collections.singletonList("points"))
+                    .image("image")
+                    .inPlace(inPlace));
+
+            r.exec(null, input());
+            Mat a = r.prev;         //Heatmap of the first call
+            Mat b = r.current;      //Initial (all zero) prev, to be overwritten by the second call
+            Mat scaledOut = r.scaledOut;
+            Mat colored = r.colored;
+            assertNotNull(a);
+            assertNotNull(b);
+            assertNotSame(a, b);
+            assertNotNull(scaledOut);
+            //Color mapped heatmap is only a scratch Mat when blending in place; otherwise it is the output
+            assertEquals(inPlace, colored != null);
+
+            r.exec(null, input());
+            assertSame(b, r.prev);
+            assertSame(a, r.current);
+
+            r.exec(null, input());
+            assertSame(a, r.prev);
+            assertSame(b, r.current);
+
+            assertSame(scaledOut, r.scaledOut);
+            assertSame(colored, r.colored);
+
+            r.close();
+            assertNull(r.prev);
+            assertNull(r.current);
+        }
+    }
+
+    @Test
+    public void testFading() {
+        //The previous heatmap is faded into the current one, so repeated points accumulate until scaled
+        DrawHeatmapRunner r = new DrawHeatmapRunner(new DrawHeatmapStep()
+                .points(Collections.singletonList("points"))
+                .width(32)
+                .height(32)
+                .fadingFactor(0.5));
+
+        r.exec(null, input());
+        double first = r.prev.createIndexer().getDouble(8, 8);
+        r.exec(null, input());
+        double second = r.prev.createIndexer().getDouble(8, 8);
+        assertEquals(1.5 * first, second, 1e-6 * first);
+        r.close();
+    }
+
+    protected static Data input(){
+        Data data = Data.singleton("image", Image.create(new Mat(32, 32, CvType.CV_8UC3, Scalar.all(0))));
+        data.putListPoint("points", Collections.singletonList(Point.create(0.25, 0.25)));
+        return data;
+    }
+}
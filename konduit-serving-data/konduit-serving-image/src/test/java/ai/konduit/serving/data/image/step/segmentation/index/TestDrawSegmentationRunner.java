@@ -0,0 +1,124 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package ai.konduit.serving.data.image.step.segmentation.index;
+
+import ai.konduit.serving.data.image.convert.ImageToNDArrayConfig;
+import ai.konduit.serving.data.image.convert.config.AspectRatioHandling;
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.Image;
+import ai.konduit.serving.pipeline.api.data.NDArray;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Scalar;
+import org.junit.Test;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.opencv.core.CvType;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the scratch Mats of {@link DrawSegmentationRunner} directly - see TestDrawSegmentation for the pipeline level tests
+ */
+public class TestDrawSegmentationRunner {
+
+    @Test
+    public void testNoResizeUsesNoScratch() {
+        DrawSegmentationRunner r = new DrawSegmentationRunner(step(false));
+        for( int i=0; i<2; i++ ) {
+            r.exec(null, input(false));
+            //Drawn on the image (or a copy of it) directly: no mask to resize, so no scratch Mats
+            assertNull(r.mask);
+            assertNull(r.backgroundMask);
+            assertNull(r.resized);
+            assertNull(r.maskResized);
+            assertNull(r.asFloat);
+        }
+        r.close();
+    }
+
+    @Test
+    public void testResizeReusesScratch() {
+        for(boolean background : new boolean[]{false, true}) {
+            DrawSegmentationStep step = step(true);
+            if(!background)
+                step.backgroundClass(null);
+            DrawSegmentationRunner r = new DrawSegmentationRunner(step);
+            r.exec(null, input(true));
+
+            Mat mask = r.mask;
+            Mat backgroundMask = r.backgroundMask;
+            Mat resized = r.resized;
+            Mat maskResized = r.maskResized;
+            Mat asFloat = r.asFloat;
+            assertNotNull(mask);
+            assertNotNull(resized);
+            assertNotNull(asFloat);
+            //Background mask is only needed when there's a background class to skip
+            assertEquals(background, backgroundMask != null);
+            assertEquals(background, maskResized != null);
+
+            long maskAddress = mask.data().address();
+            long asFloatAddress = asFloat.data().address();
+
+            r.exec(null, input(true));
+            assertSame(mask, r.mask);
+            assertSame(backgroundMask, r.backgroundMask);
+            assertSame(resized, r.resized);
+            assertSame(maskResized, r.maskResized);
+            assertSame(asFloat, r.asFloat);
+            //Same size and type: not reallocated
+            assertEquals(maskAddress, r.mask.data().address());
+            assertEquals(asFloatAddress, r.asFloat.data().address());
+
+            r.close();
+            assertNull(r.mask);
+            assertNull(r.asFloat);
+        }
+    }
+
+    protected static DrawSegmentationStep step(boolean resize){
+        DrawSegmentationStep step = new DrawSegmentationStep()
+                .image("image")
+                .segmentArray("class_idxs")
+                .outputName("out")
+                .classColors(Arrays.asList("red", "lime"))
+                .backgroundClass(0);
+        if(resize){
+            step.imageToNDArrayConfig(new ImageToNDArrayConfig()
+                    .height(32)
+                    .width(32)
+                    .aspectRatioHandling(AspectRatioHandling.STRETCH));
+        }
+        return step;
+    }
+
+    protected static Data input(boolean resize){
+        //Image is 64x64; segment indices are 32x32 if resizing is required
+        int size = resize ? 32 : 64;
+        INDArray arr = Nd4j.create(DataType.INT32, 1, size, size);
+        arr.get(NDArrayIndex.point(0), NDArrayIndex.all(), NDArrayIndex.interval(size / 2, size)).assign(1);
+
+        Data d = Data.singleton("class_idxs", NDArray.create(arr));
+        d.put("image", Image.create(new Mat(64, 64, CvType.CV_8UC3, Scalar.all(0))));
+        return d;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.data.nd4j.util;
+
+import lombok.NonNull;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.INDArrayIndex;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.util.Arrays;
+
+/**
+ * Utilities for padding the batch (first) dimension of model inputs up to a bucket size, and for slicing the
+ * corresponding model outputs back to the original batch size. See
+ * {@link ai.konduit.serving.pipeline.util.ShapeBucketCache#bucketSize(long, java.util.List)}.
+ */
+public class BatchPadding {
+
+    private BatchPadding(){ }
+
+    /**
+     * @return The shape of the array with the first dimension set to the given batch size
+     */
+    public static long[] paddedShape(@NonNull INDArray array, long batchSize) {
+        long[] shape = array.shape().clone();
+        if (shape.length > 0) {
+            shape[0] = batchSize;
+        }
+        return shape;
+    }
+
+    /**
+     * Pad the first dimension of the array with zeros up to the given batch size.
+     *
+     * @param array     The array to pad
+     * @param batchSize The padded batch size. If it's equal to the array's batch size, the array is returned as is
+     * @param buffer    An array to copy the input into, reused across calls. Ignored (and a new array allocated) if
+     *                  null or if it doesn't have the padded shape and the array's data type
+     * @return The padded array
+     */
+    public static INDArray pad(@NonNull INDArray array, long batchSize, INDArray buffer) {
+        if (array.rank() == 0 || array.size(0) == batchSize) {
+            return array;
+        }
+
+        long size = array.size(0);
+        if (size > batchSize) {
+            throw new IllegalArgumentException("Unable to pad array with batch size " + size + " to smaller batch size " + batchSize);
+        }
+
+        long[] shape = paddedShape(array, batchSize);
+        if (buffer == null || buffer.dataType() != array.dataType() || buffer.ordering() != 'c'
+                || !Arrays.equals(buffer.shape(), shape)) {
+            buffer = Nd4j.create(array.dataType(), shape, 'c');
+        } else {
+            buffer.get(batchInterval(array.rank(), size, batchSize)).assign(0);
+        }
+
+        buffer.get(batchInterval(array.rank(), 0, size)).assign(array);
+        return buffer;
+    }
+
+    /**
+     * @return The first {@code batchSize} examples of the given (padded) array, as a new array. If the array already has
+     * the requested batch size, it's returned as is.
+     */
+    public static INDArray slice(@NonNull INDArray array, long batchSize) {
+        if (array.rank() == 0 || array.size(0) == batchSize) {
+            return array;
+        }
+
+        return array.get(batchInterval(array.rank(), 0, batchSize)).dup('c');
+    }
+
+    private static INDArrayIndex[] batchInterval(int rank, long from, long to) {
+        INDArrayIndex[] indices = new INDArrayIndex[rank];
+        indices[0] = NDArrayIndex.interval(from, to);
+        for (int i = 1; i < rank; i++) {
+            indices[i] = NDArrayIndex.all();
+        }
+        return indices;
+    }
+}
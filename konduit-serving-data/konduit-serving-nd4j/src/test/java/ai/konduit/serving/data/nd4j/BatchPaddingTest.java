@@ -0,0 +1,68 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.data.nd4j;
+
+import ai.konduit.serving.data.nd4j.util.BatchPadding;
+import org.junit.Test;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import static org.junit.Assert.*;
+
+public class BatchPaddingTest {
+
+    @Test
+    public void testPadAndSlice() {
+        INDArray arr = Nd4j.rand(DataType.FLOAT, 3, 2, 2);
+
+        INDArray padded = BatchPadding.pad(arr, 4, null);
+        assertArrayEquals(new long[]{4, 2, 2}, padded.shape());
+        assertEquals(arr, padded.get(NDArrayIndex.interval(0, 3), NDArrayIndex.all(), NDArrayIndex.all()));
+        assertEquals(Nd4j.zeros(DataType.FLOAT, 1, 2, 2), padded.get(NDArrayIndex.interval(3, 4), NDArrayIndex.all(), NDArrayIndex.all()));
+
+        assertEquals(arr, BatchPadding.slice(padded, 3));
+
+        //Same batch size: not copied
+        assertSame(arr, BatchPadding.pad(arr, 3, null));
+        assertSame(padded, BatchPadding.slice(padded, 4));
+    }
+
+    @Test
+    public void testPadReusesBuffer() {
+        INDArray buffer = Nd4j.rand(DataType.FLOAT, 4, 5);
+
+        INDArray arr = Nd4j.rand(DataType.FLOAT, 2, 5);
+        INDArray padded = BatchPadding.pad(arr, 4, buffer);
+        assertSame(buffer, padded);
+        assertEquals(arr, padded.get(NDArrayIndex.interval(0, 2), NDArrayIndex.all()));
+        //Stale values from the previous use of the buffer are cleared
+        assertEquals(Nd4j.zeros(DataType.FLOAT, 2, 5), padded.get(NDArrayIndex.interval(2, 4), NDArrayIndex.all()));
+
+        //Different data type: a new array is allocated
+        INDArray doubles = Nd4j.rand(DataType.DOUBLE, 2, 5);
+        assertNotSame(buffer, BatchPadding.pad(doubles, 4, buffer));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPadToSmallerBatch() {
+        BatchPadding.pad(Nd4j.rand(DataType.FLOAT, 5, 2), 4, null);
+    }
+}
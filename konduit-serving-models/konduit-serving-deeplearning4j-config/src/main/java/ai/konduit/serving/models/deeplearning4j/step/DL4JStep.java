@@ -56,6 +56,17 @@ public class DL4JStep implements PipelineStep {
 
     @Schema(description = "Enable verbose mode, defaults to false")
     private boolean verboseMode = false;
+
+    @Schema(description = "Maximum number of padded input buffers (one per distinct padded input shape) kept for reuse " +
+            "when batchBuckets is set. The least recently used buffer is evicted first.", defaultValue = "8")
+    private int maxShapeBuckets = 8;
+
+    @Schema(description = "Optional batch sizes (for example [1, 4, 8]) to pad the network inputs to. Each input's minibatch " +
+            "dimension is zero padded up to the smallest listed size that is at least the request's minibatch size, using " +
+            "a buffer that is reused while the padded shape is unchanged. The network outputs are then sliced back to the " +
+            "request's minibatch size. Minibatches larger than every listed size are passed to the network unpadded.")
+    private List<Integer> batchBuckets;
+
     public DL4JStep(@JsonProperty("modelUri") String modelUri,
                     @JsonProperty("inputNames") List<String> inputNames,
                     @JsonProperty("outputNames") List<String> outputNames,
@@ -85,6 +96,11 @@ public class DL4JStep implements PipelineStep {
         return this.outputNames(Arrays.asList(outputNames));
     }
 
+    @Tolerate
+    public DL4JStep batchBuckets(Integer... batchBuckets) {
+        return this.batchBuckets(Arrays.asList(batchBuckets));
+    }
+
     public DL4JStep verboseMode(boolean verboseMode) {
         this.verboseMode = verboseMode;
         return this;
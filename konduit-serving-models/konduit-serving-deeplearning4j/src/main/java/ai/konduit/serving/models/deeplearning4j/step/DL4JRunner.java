@@ -16,6 +16,7 @@
 package ai.konduit.serving.models.deeplearning4j.step;
 
 import ai.konduit.serving.annotation.runner.CanRun;
+import ai.konduit.serving.data.nd4j.util.BatchPadding;
 import ai.konduit.serving.models.deeplearning4j.step.keras.KerasStep;
 import ai.konduit.serving.pipeline.api.context.Context;
 import ai.konduit.serving.pipeline.api.data.Data;
@@ -25,6 +26,7 @@ import ai.konduit.serving.pipeline.api.protocol.URIResolver;
 import ai.konduit.serving.pipeline.api.step.PipelineStep;
 import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
 import ai.konduit.serving.pipeline.impl.data.JData;
+import ai.konduit.serving.pipeline.util.ShapeBucketCache;
 import lombok.extern.slf4j.Slf4j;
 import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.modelimport.keras.KerasModel;
@@ -57,6 +59,7 @@ public class DL4JRunner implements PipelineStepRunner {
     private KerasStep kStep;
     private MultiLayerNetwork net;
     private ComputationGraph graph;
+    private ShapeBucketCache<INDArray[]> paddedInputs;
 
     public DL4JRunner(KerasStep step) {
         this.kStep = step;
@@ -178,6 +181,10 @@ public class DL4JRunner implements PipelineStepRunner {
 
         Nd4j.getExecutioner().enableDebugMode(step.debugMode());
         Nd4j.getExecutioner().enableVerboseMode(step.verboseMode());
+
+        if(step.batchBuckets() != null && !step.batchBuckets().isEmpty()) {
+            paddedInputs = new ShapeBucketCache<>(Math.max(1, step.maxShapeBuckets()));
+        }
     }
 
 
@@ -210,10 +217,12 @@ public class DL4JRunner implements PipelineStepRunner {
 
         if (net != null) {
             INDArray arr = getOnlyArray(data);
+            long batchSize = arr.size(0);
             INDArray out;
             synchronized (net) {
-                out = net.output(arr);
+                out = net.output(pad(new INDArray[]{arr})[0]);
             }
+            out = BatchPadding.slice(out, batchSize);
 
             String outName = outputName();
 
@@ -246,9 +255,13 @@ public class DL4JRunner implements PipelineStepRunner {
                     }
                 }
             }
+            long batchSize = input[0].size(0);
             INDArray[] out;
             synchronized (graph) {
-                out = graph.output(input);
+                out = graph.output(pad(input));
+            }
+            for (int i = 0; i < out.length; i++) {
+                out[i] = BatchPadding.slice(out[i], batchSize);
             }
 
             //Work out output names
@@ -273,6 +286,36 @@ public class DL4JRunner implements PipelineStepRunner {
         }
     }
 
+    /**
+     * Pad the inputs up to the nearest configured batch size (see {@link DL4JStep#batchBuckets()}), reusing the padded
+     * input buffers of previous requests with the same padded shape. Must be called while holding the model lock, as
+     * the buffers are shared.
+     */
+    private INDArray[] pad(INDArray[] input) {
+        if (paddedInputs == null) {
+            return input;
+        }
+
+        long batchSize = input[0].size(0);
+        long paddedBatchSize = ShapeBucketCache.bucketSize(batchSize, step.batchBuckets());
+        if (paddedBatchSize == batchSize) {
+            return input;
+        }
+
+        long[][] shapes = new long[input.length][];
+        for (int i = 0; i < input.length; i++) {
+            shapes[i] = BatchPadding.paddedShape(input[i], paddedBatchSize);
+        }
+        INDArray[] buffers = paddedInputs.computeIfAbsent(ShapeBucketCache.signature(shapes), k -> new INDArray[input.length]);
+
+        INDArray[] padded = new INDArray[input.length];
+        for (int i = 0; i < input.length; i++) {
+            padded[i] = BatchPadding.pad(input[i], paddedBatchSize, buffers[i]);
+            buffers[i] = padded[i];
+        }
+        return padded;
+    }
+
     private List<String> outputNames() {
         return step != null ? step.outputNames() : kStep.outputNames();
     }
@@ -28,6 +28,7 @@ public class JsonCoverageTest extends BaseJsonCoverageTest {
         testConfigSerDe(new DL4JStep()
                 .inputNames("inputNames").loaderClass("loaderClass")
                 .modelUri("modelUri").outputNames("outputNames"));
+        testConfigSerDe(new DL4JStep().modelUri("modelUri").maxShapeBuckets(4).batchBuckets(1, 4, 8));
     }
 
     @Test
@@ -91,6 +91,27 @@ public class TestDL4JStep {
         }
     }
 
+    @Test
+    public void testMLNBatchPadding() throws Exception {
+        File netFile = createIrisMLNFile();
+
+        PipelineExecutor e = SequencePipeline.builder()
+                .add(new DL4JStep()
+                        .modelUri(netFile.getAbsolutePath())
+                        .batchBuckets(4, 8))
+                .build()
+                .executor();
+
+        //3 and 4 are padded to the same bucket. 5 is padded to 8, and 9 is larger than all buckets
+        for (int batchSize : new int[]{3, 4, 3, 5, 9}) {
+            INDArray arr = Nd4j.rand(DataType.FLOAT, batchSize, 4);
+            INDArray exp = predictFromFile(netFile, arr);
+
+            INDArray actual = e.exec(Data.singleton("in", NDArray.create(arr))).getNDArray("default").getAs(INDArray.class);
+            assertEquals(exp, actual);
+        }
+    }
+
     @Test
     public void testSimpleCompGraph() throws Exception {
 
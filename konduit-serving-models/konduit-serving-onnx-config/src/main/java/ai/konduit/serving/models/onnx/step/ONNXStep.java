@@ -53,6 +53,52 @@ public class ONNXStep implements PipelineStep {
             "Must be a java.util.Function<String,MultiLayerNetwork> or java.util.Function<String,ComputationGraph>")
     private String loaderClass;
 
+    @Schema(description = "Number of threads used to parallelize the execution within nodes. 0 means the ONNX Runtime " +
+            "default (the number of physical cores) is used.", defaultValue = "1")
+    private int intraOpNumThreads = 1;
+
+    @Schema(description = "Number of threads used to parallelize the execution of the graph (across nodes). Only used " +
+            "with the PARALLEL execution mode. 0 means the ONNX Runtime default is used.", defaultValue = "0")
+    private int interOpNumThreads = 0;
+
+    @Schema(description = "Whether the graph nodes are executed sequentially or in parallel (where possible).",
+            defaultValue = "SEQUENTIAL")
+    private ExecutionMode executionMode = ExecutionMode.SEQUENTIAL;
+
+    @Schema(description = "Graph optimizations applied when the session is created.", defaultValue = "EXTENDED")
+    private GraphOptimizationLevel graphOptimizationLevel = GraphOptimizationLevel.EXTENDED;
+
+    @Schema(description = "Whether the memory allocation pattern of the first run should be recorded and reused to " +
+            "pre-allocate memory for the following runs. Most effective with fixed input shapes.", defaultValue = "true")
+    private boolean memoryPattern = true;
+
+    @Schema(description = "Whether the CPU memory arena allocator should be used.", defaultValue = "true")
+    private boolean cpuMemoryArena = true;
+
+    @Schema(description = "Whether inputs and outputs should be bound to the session through IO binding. With IO binding, " +
+            "outputs with a static shape are written directly into pre-allocated arrays, without any copies.",
+            defaultValue = "true")
+    private boolean ioBinding = true;
+
+    @Schema(description = "Whether the graph optimized model should be saved to the model cache directory, and loaded from " +
+            "there (without optimizing it again) on the following server starts. The cache entries are keyed by the model " +
+            "file contents, the graph optimization level, the ONNX Runtime version and the platform.", defaultValue = "true")
+    private boolean optimizedModelCache = true;
+
+    @Schema(description = "Maximum number of distinct input shapes for which the output shapes are remembered. With IO " +
+            "binding, outputs with dynamic dimensions are then pre-allocated and written into directly by ONNX Runtime for " +
+            "input shapes that were already seen, instead of being copied. Outputs whose shapes turn out to depend on the " +
+            "input values are not pre-allocated. The least recently used shape is evicted first.",
+            defaultValue = "8")
+    private int maxShapeBuckets = 8;
+
+    @Schema(description = "Optional batch sizes to pad the session inputs to, for example [1, 4, 8]. Padding to a few " +
+            "fixed batch sizes keeps the number of distinct input shapes seen by ONNX Runtime (and so the number of " +
+            "remembered output shapes, see maxShapeBuckets) small. The first dimension of every input is zero padded up " +
+            "to the smallest listed size that fits, and the first dimension of every output is sliced back. Inputs " +
+            "larger than the largest listed size are run as is.")
+    private List<Integer> batchBuckets;
+
     public ONNXStep(@JsonProperty("modelUri") String modelUri, @JsonProperty("inputNames") List<String> inputNames,
                     @JsonProperty("outputNames") List<String> outputNames){
         this.modelUri = modelUri;
@@ -60,6 +106,16 @@ public class ONNXStep implements PipelineStep {
         this.outputNames = outputNames;
     }
 
+    @Schema(description = "The ONNX Runtime graph execution mode.")
+    public enum ExecutionMode {
+        SEQUENTIAL, PARALLEL
+    }
+
+    @Schema(description = "The ONNX Runtime graph optimization level.")
+    public enum GraphOptimizationLevel {
+        DISABLE_ALL, BASIC, EXTENDED, ALL
+    }
+
     @Tolerate
     public ONNXStep inputNames(String... inputNames) {
         return this.inputNames(Arrays.asList(inputNames));
@@ -69,4 +125,9 @@ public class ONNXStep implements PipelineStep {
     public ONNXStep outputNames(String... outputNames) {
         return this.outputNames(Arrays.asList(outputNames));
     }
+
+    @Tolerate
+    public ONNXStep batchBuckets(Integer... batchBuckets) {
+        return this.batchBuckets(Arrays.asList(batchBuckets));
+    }
 }
@@ -22,28 +22,47 @@
 package ai.konduit.serving.models.onnx.step;
 
 import ai.konduit.serving.annotation.runner.CanRun;
+import ai.konduit.serving.data.nd4j.util.BatchPadding;
 import ai.konduit.serving.models.onnx.utils.ONNXUtils;
 import ai.konduit.serving.pipeline.api.context.Context;
 import ai.konduit.serving.pipeline.api.data.Data;
 import ai.konduit.serving.pipeline.api.data.NDArray;
+import ai.konduit.serving.pipeline.api.protocol.URIResolver;
 import ai.konduit.serving.pipeline.api.step.PipelineStep;
 import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
+import ai.konduit.serving.pipeline.util.ModelCacheUtils;
+import ai.konduit.serving.pipeline.util.ShapeBucketCache;
 import lombok.extern.slf4j.Slf4j;
 import org.bytedeco.javacpp.*;
 import org.bytedeco.onnxruntime.*;
 import org.nd4j.common.base.Preconditions;
-import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 
-import static ai.konduit.serving.models.onnx.utils.ONNXUtils.getDataBuffer;
+import static ai.konduit.serving.models.onnx.utils.ONNXUtils.getArray;
 import static ai.konduit.serving.models.onnx.utils.ONNXUtils.getTensor;
 import static org.bytedeco.onnxruntime.global.onnxruntime.*;
 
+/**
+ * Runs an ONNX model with ONNX Runtime.<br>
+ * The input/output names, data types and shapes are read from the model once, when the session is created. With
+ * IO binding enabled (the default), outputs with a fully static shape are written by ONNX Runtime directly into
+ * arrays allocated by ND4J before the run, so they can be returned without copying. Outputs with dynamic dimensions
+ * are allocated by ONNX Runtime and copied out after the run - except for input shapes that were already seen: the
+ * output shapes are remembered per input shape (see {@link ONNXStep#maxShapeBuckets()}), so that these outputs can be
+ * pre-allocated as well. If a run with these pre-allocated outputs fails (the output shapes depend on the input
+ * values), it is retried without them, and they are no longer pre-allocated for that input shape. Inputs can be padded up to fixed batch sizes (see {@link ONNXStep#batchBuckets()}) to
+ * limit the number of distinct input shapes.<br>
+ * The graph optimized model is cached (see {@link ONNXStep#optimizedModelCache()}), so that the graph optimizations
+ * only have to be run the first time a model is loaded.
+ */
 @Slf4j
 @CanRun({ONNXStep.class})
 public class ONNXRunner implements PipelineStepRunner {
@@ -57,28 +76,212 @@ public class ONNXRunner implements PipelineStepRunner {
     private   static Env env;
     private Pointer bp;
 
+    private List<NodeInfo> inputs;
+    private List<NodeInfo> outputs;
+    private PointerPointer<BytePointer> inputNamesPointer;
+    private PointerPointer<BytePointer> outputNamesPointer;
+
+    private ShapeBucketCache<OutputShapes> outputShapes;
+
+    private File pendingOptimizedModel;
+    private File cachedOptimizedModel;
+    private Pointer optimizedModelPathPointer;
+
     public ONNXRunner(ONNXStep onnxStep) {
         this.onnxStep = onnxStep;
         if(env == null) {
             env = new Env(ONNXUtils.getOnnxLogLevelFromLogger(log), new BytePointer("konduit-serving-onnx-session-" + UUID.randomUUID().toString()));
             env.retainReference();
         }
-        sessionOptions = new SessionOptions();
-        sessionOptions.SetGraphOptimizationLevel(ORT_ENABLE_EXTENDED);
-        sessionOptions.SetIntraOpNumThreads(1);
+        sessionOptions = createSessionOptions(onnxStep);
         sessionOptions.retainReference();
         allocator = new OrtAllocator();
         allocator.retainReference();
-        bp = Loader.getPlatform().toLowerCase().startsWith("windows") ? new CharPointer(onnxStep.modelUri()) : new BytePointer(onnxStep.modelUri());
+        bp = pathPointer(resolveModelPath(onnxStep, sessionOptions));
         runOptions = new RunOptions();
         memoryInfo = MemoryInfo.CreateCpu(OrtArenaAllocator, OrtMemTypeDefault);
         session = new Session(env, bp, sessionOptions);
         //retain the session reference to prevent pre emptive release of the session.
         session.retainReference();
+        commitOptimizedModel();
+
+        loadNodeInfo();
+        outputShapes = new ShapeBucketCache<>(Math.max(1, onnxStep.maxShapeBuckets()));
+    }
+
+    /**
+     * If enabled, returns the path of the cached optimized model when it exists - loading it with graph optimizations
+     * disabled, as it's already optimized. Otherwise, the session options are set up to save the optimized model to
+     * the cache while the session is created from the original model.
+     */
+    private String resolveModelPath(ONNXStep onnxStep, SessionOptions sessionOptions) {
+        String modelPath = onnxStep.modelUri();
+        if(!onnxStep.optimizedModelCache() || onnxStep.graphOptimizationLevel() == ONNXStep.GraphOptimizationLevel.DISABLE_ALL) {
+            return modelPath;
+        }
+
+        try {
+            File modelFile = URIResolver.getFile(modelPath);
+            // Everything in the session options that can change the optimized graph
+            String key = ModelCacheUtils.cacheKey(modelFile,
+                    "graphOptimizationLevel=" + onnxStep.graphOptimizationLevel(),
+                    "executionMode=" + onnxStep.executionMode(),
+                    "intraOpNumThreads=" + onnxStep.intraOpNumThreads(),
+                    "interOpNumThreads=" + onnxStep.interOpNumThreads(),
+                    "executionProviders=" + executionProviders(),
+                    Loader.getVersion("org.bytedeco", "onnxruntime"),
+                    Loader.getPlatform());
+            File cachedModel = new File(ModelCacheUtils.getCacheDir("onnx", key), "optimized.onnx");
+
+            if(cachedModel.exists()) {
+                log.info("Loading optimized ONNX model from cache: {}", cachedModel.getAbsolutePath());
+                sessionOptions.SetGraphOptimizationLevel(ORT_DISABLE_ALL);
+                return cachedModel.getAbsolutePath();
+            }
+
+            pendingOptimizedModel = ModelCacheUtils.tempFileFor(cachedModel);
+            cachedOptimizedModel = cachedModel;
+            optimizedModelPathPointer = pathPointer(pendingOptimizedModel.getAbsolutePath());
+            sessionOptions.SetOptimizedModelFilePath(optimizedModelPathPointer);
+            return modelFile.getAbsolutePath();
+        } catch (Throwable t) {
+            log.warn("Unable to use the optimized ONNX model cache for model {}. Loading the model without the cache.", modelPath, t);
+            return modelPath;
+        }
+    }
+
+    /**
+     * @return The execution providers available in the loaded ONNX Runtime build (for example CPU only, or CUDA and
+     * CPU for the GPU build), as the optimized graph is specific to the providers its nodes were assigned to
+     */
+    private static String executionProviders() {
+        StringVector providers = GetAvailableProviders();
+        List<String> names = new ArrayList<>((int) providers.size());
+        for (long i = 0; i < providers.size(); i++) {
+            names.add(providers.get(i).getString());
+        }
+        return String.join(",", names);
+    }
+
+    private static Pointer pathPointer(String path) {
+        // ORTCHAR_T is wchar_t on Windows
+        return Loader.getPlatform().toLowerCase().startsWith("windows") ? new CharPointer(path) : new BytePointer(path);
+    }
+
+    private void commitOptimizedModel() {
+        if(pendingOptimizedModel == null) {
+            return;
+        }
+
+        if(pendingOptimizedModel.exists() && ModelCacheUtils.commit(pendingOptimizedModel, cachedOptimizedModel)) {
+            log.info("Saved optimized ONNX model to cache: {}", cachedOptimizedModel.getAbsolutePath());
+        }
+        pendingOptimizedModel = null;
+    }
+
+    private static SessionOptions createSessionOptions(ONNXStep onnxStep) {
+        SessionOptions sessionOptions = new SessionOptions();
+
+        ONNXStep.GraphOptimizationLevel optimizationLevel = onnxStep.graphOptimizationLevel() != null ?
+                onnxStep.graphOptimizationLevel() : ONNXStep.GraphOptimizationLevel.EXTENDED;
+        switch (optimizationLevel) {
+            case DISABLE_ALL:
+                sessionOptions.SetGraphOptimizationLevel(ORT_DISABLE_ALL);
+                break;
+            case BASIC:
+                sessionOptions.SetGraphOptimizationLevel(ORT_ENABLE_BASIC);
+                break;
+            case EXTENDED:
+                sessionOptions.SetGraphOptimizationLevel(ORT_ENABLE_EXTENDED);
+                break;
+            case ALL:
+                sessionOptions.SetGraphOptimizationLevel(ORT_ENABLE_ALL);
+                break;
+        }
+
+        sessionOptions.SetExecutionMode(onnxStep.executionMode() == ONNXStep.ExecutionMode.PARALLEL ? ORT_PARALLEL : ORT_SEQUENTIAL);
 
+        if(onnxStep.intraOpNumThreads() > 0) {
+            sessionOptions.SetIntraOpNumThreads(onnxStep.intraOpNumThreads());
+        }
+
+        if(onnxStep.interOpNumThreads() > 0) {
+            sessionOptions.SetInterOpNumThreads(onnxStep.interOpNumThreads());
+        }
+
+        if(onnxStep.memoryPattern()) {
+            sessionOptions.EnableMemPattern();
+        } else {
+            sessionOptions.DisableMemPattern();
+        }
+
+        if(onnxStep.cpuMemoryArena()) {
+            sessionOptions.EnableCpuMemArena();
+        } else {
+            sessionOptions.DisableCpuMemArena();
+        }
+
+        return sessionOptions;
     }
 
+    /**
+     * Query the input/output names, types and shapes once, instead of on every {@link #exec(Context, Data)} call.
+     * Only the outputs requested through {@link ONNXStep#outputNames()} are computed.
+     */
+    private void loadNodeInfo() {
+        long numInputNodes = session.GetInputCount();
+        inputs = new ArrayList<>((int) numInputNodes);
+        for (int i = 0; i < numInputNodes; i++) {
+            BytePointer name = session.GetInputNameAllocated(i, allocator);
+            try (TypeInfo typeInfo = session.GetInputTypeInfo(i)) {
+                inputs.add(nodeInfo(name, typeInfo));
+            }
+        }
 
+        long numOutputNodes = session.GetOutputCount();
+        List<NodeInfo> allOutputs = new ArrayList<>((int) numOutputNodes);
+        for (int i = 0; i < numOutputNodes; i++) {
+            BytePointer name = session.GetOutputNameAllocated(i, allocator);
+            try (TypeInfo typeInfo = session.GetOutputTypeInfo(i)) {
+                allOutputs.add(nodeInfo(name, typeInfo));
+            }
+        }
+
+        if(onnxStep.outputNames() == null || onnxStep.outputNames().isEmpty()) {
+            outputs = allOutputs;
+        } else {
+            outputs = new ArrayList<>(onnxStep.outputNames().size());
+            for(String outputName : onnxStep.outputNames()) {
+                NodeInfo output = allOutputs.stream().filter(o -> o.name.equals(outputName)).findFirst().orElse(null);
+                Preconditions.checkNotNull(output,"Output name " + outputName + " not found in the model outputs!");
+                outputs.add(output);
+            }
+        }
+
+        inputNamesPointer = new PointerPointer<>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            inputNamesPointer.put(i, inputs.get(i).namePointer);
+        }
+
+        outputNamesPointer = new PointerPointer<>(outputs.size());
+        for (int i = 0; i < outputs.size(); i++) {
+            outputNamesPointer.put(i, outputs.get(i).namePointer);
+        }
+
+        inputNamesPointer.retainReference();
+        outputNamesPointer.retainReference();
+    }
+
+    /**
+     * Reads the element type and shape from the type info once. The caller closes the type info; the tensor info and
+     * the shape copy are closed here.
+     */
+    private static NodeInfo nodeInfo(BytePointer name, TypeInfo typeInfo) {
+        try (ConstTensorTypeAndShapeInfo tensorInfo = typeInfo.GetTensorTypeAndShapeInfo();
+             LongPointer shape = tensorInfo.GetShape()) {
+            return new NodeInfo(name, tensorInfo.GetElementType(), shape);
+        }
+    }
 
     @Override
     public void close() {
@@ -89,6 +292,8 @@ public class ONNXRunner implements PipelineStepRunner {
         sessionOptions.releaseReference();
         allocator.releaseReference();
         runOptions.releaseReference();
+        inputNamesPointer.releaseReference();
+        outputNamesPointer.releaseReference();
     }
 
     @Override
@@ -98,59 +303,216 @@ public class ONNXRunner implements PipelineStepRunner {
 
     @Override
     public Data exec(Context ctx, Data data) {
-        Data ret = Data.empty();
-        long numInputNodes = session.GetInputCount();
-        long numOutputNodes = session.GetOutputCount();
+        INDArray[] inputArrays = new INDArray[inputs.size()];
+        Value[] inputValues = new Value[inputs.size()];
+        try {
+            for (int i = 0; i < inputs.size(); i++) {
+                NodeInfo input = inputs.get(i);
+                Preconditions.checkState(data.has(input.name), "Input %s not found in data", input.name);
+                inputArrays[i] = data.getNDArray(input.name).getAs(INDArray.class);
+            }
 
-        PointerPointer<BytePointer> inputNodeNames = new PointerPointer<>(numInputNodes);
-        PointerPointer<BytePointer> outputNodeNames = new PointerPointer<>(numOutputNodes);
+            long batchSize = inputArrays.length > 0 && inputArrays[0].rank() > 0 ? inputArrays[0].size(0) : -1;
+            long paddedBatchSize = batchSize < 0 ? batchSize : ShapeBucketCache.bucketSize(batchSize, onnxStep.batchBuckets());
 
-        Value inputVal = new Value(numInputNodes);
+            long[][] inputShapes = new long[inputArrays.length][];
+            for (int i = 0; i < inputs.size(); i++) {
+                if(paddedBatchSize != batchSize) {
+                    inputArrays[i] = BatchPadding.pad(inputArrays[i], paddedBatchSize, null);
+                }
+                inputArrays[i] = inputs.get(i).prepare(inputArrays[i]);
+                inputShapes[i] = inputArrays[i].shape();
+                inputValues[i] = getTensor(inputArrays[i], memoryInfo);
+                Preconditions.checkState(inputValues[i].IsTensor(),"Input must be a tensor.");
+            }
 
-        for (int i = 0; i < numInputNodes; i++) {
-            BytePointer inputName = session.GetInputNameAllocated(i, allocator);
-            inputNodeNames.put(i, inputName);
-            INDArray arr = data.getNDArray(inputName.getString()).getAs(INDArray.class);
-            Value inputTensor = getTensor(arr, memoryInfo);
-            Preconditions.checkState(inputTensor.IsTensor(),"Input must be a tensor.");
-            inputVal.position(i).put(inputTensor);
+            INDArray[] outputArrays = onnxStep.ioBinding() ?
+                    runWithIoBinding(inputValues, ShapeBucketCache.signature(inputShapes)) : run(inputValues);
+
+            Data ret = Data.empty();
+            for (int i = 0; i < outputs.size(); i++) {
+                INDArray output = paddedBatchSize != batchSize ? BatchPadding.slice(outputArrays[i], batchSize) : outputArrays[i];
+                ret.put(outputs.get(i).name, NDArray.create(output));
+            }
+            return ret;
+        } finally {
+            for (Value value : inputValues) {
+                if(value != null) {
+                    value.close();
+                }
+            }
         }
+    }
 
-        //reset position after iterating
-        inputVal.position(0);
+    private INDArray[] runWithIoBinding(Value[] inputValues, String inputSignature) {
+        OutputShapes known = outputShapes.get(inputSignature);
+        if(known != null && known.confirmed) {
+            try {
+                return bindAndRun(inputValues, known.shapes);
+            } catch (RuntimeException e) {
+                // Output shapes that depend on the input values (e.g. the number of detections after NMS) can be the
+                // same on two runs by chance. Stop pre-allocating the outputs for these input shapes, and run unbound
+                log.debug("Run with output shapes learned for input shapes {} failed. Outputs won't be pre-allocated for them.",
+                        inputSignature, e);
+                outputShapes.put(inputSignature, new OutputShapes(null, false));
+                return bindAndRun(inputValues, null);
+            }
+        }
 
-        for (int i = 0; i < numOutputNodes; i++) {
-            BytePointer outputName = session.GetOutputNameAllocated(i, allocator);
-            outputNodeNames.put(i, outputName);
+        INDArray[] outputArrays = bindAndRun(inputValues, null);
+        if(known == null || known.shapes != null) {
+            long[][] shapes = new long[outputArrays.length][];
+            for (int i = 0; i < outputArrays.length; i++) {
+                shapes[i] = outputArrays[i].shape();
+            }
+            if(known == null) {
+                outputShapes.put(inputSignature, new OutputShapes(shapes, false));
+            } else if(Arrays.deepEquals(known.shapes, shapes)) {
+                // Same output shapes on a second run: pre-allocate the outputs from now on
+                outputShapes.put(inputSignature, new OutputShapes(shapes, true));
+            } else {
+                // The output shapes depend on the input values, not only on the input shapes
+                log.debug("Output shapes for input shapes {} aren't fixed. Outputs won't be pre-allocated for them.", inputSignature);
+                outputShapes.put(inputSignature, new OutputShapes(null, false));
+            }
         }
+        return outputArrays;
+    }
+
+    /**
+     * @param knownShapes The output shapes, if known from a previous run with the same input shapes. Otherwise, only
+     *                    outputs with a static shape declared in the model are pre-allocated.
+     */
+    private INDArray[] bindAndRun(Value[] inputValues, long[][] knownShapes) {
+        INDArray[] outputArrays = new INDArray[outputs.size()];
+        Value[] outputValues = new Value[outputs.size()];
+
+        try (IoBinding ioBinding = new IoBinding(session)) {
+            for (int i = 0; i < inputs.size(); i++) {
+                ioBinding.BindInput(inputs.get(i).name, inputValues[i]);
+            }
+
+            for (int i = 0; i < outputs.size(); i++) {
+                NodeInfo output = outputs.get(i);
+                long[] shape = output.isStaticShape() ? output.shape : knownShapes != null ? knownShapes[i] : null;
+                if(shape != null) {
+                    // ONNX Runtime writes the output directly into the ND4J array memory
+                    outputArrays[i] = Nd4j.createUninitialized(output.dataType, shape);
+                    outputValues[i] = getTensor(outputArrays[i], memoryInfo);
+                    ioBinding.BindOutput(output.name, outputValues[i]);
+                } else {
+                    ioBinding.BindOutput(output.name, memoryInfo.asOrtMemoryInfo());
+                }
+            }
+
+            session.Run(runOptions, ioBinding);
+
+            ValueVector boundOutputs = null;
+            for (int i = 0; i < outputs.size(); i++) {
+                if(outputArrays[i] == null) {
+                    if(boundOutputs == null) {
+                        boundOutputs = ioBinding.GetOutputValues();
+                    }
+                    // The memory is owned by ONNX Runtime and released with the binding
+                    outputArrays[i] = getArray(boundOutputs.get(i)).dup();
+                }
+            }
+
+            return outputArrays;
+        } finally {
+            for (Value value : outputValues) {
+                if(value != null) {
+                    value.close();
+                }
+            }
+        }
+    }
+
+    private INDArray[] run(Value[] inputValues) {
+        Value inputVal = new Value(inputValues.length);
+        for (int i = 0; i < inputValues.length; i++) {
+            inputVal.position(i).put(inputValues[i]);
+        }
+        //reset position after iterating
+        inputVal.position(0);
 
         ValueVector outputVector = session.Run(
                 runOptions,
-                inputNodeNames,
+                inputNamesPointer,
                 inputVal,
-                numInputNodes,
-                outputNodeNames,
-                numOutputNodes);
+                inputValues.length,
+                outputNamesPointer,
+                outputs.size());
 
-        Map<String, INDArray> output = new LinkedHashMap<>();
+        INDArray[] outputArrays = new INDArray[outputs.size()];
+        for (int i = 0; i < outputs.size(); i++) {
+            // The memory is owned by ONNX Runtime and released with the output vector
+            outputArrays[i] = getArray(outputVector.get(i)).dup();
+        }
+        outputVector.close();
 
-        for (int i = 0; i < numOutputNodes; i++) {
-            Value outValue = outputVector.get(i);
+        return outputArrays;
+    }
 
-            DataBuffer buffer = getDataBuffer(outValue);
-            output.put((outputNodeNames.get(BytePointer.class, i)).getString(), Nd4j.create(buffer));
-        }
+    /**
+     * Name, element type and shape of a model input or output, as declared in the model.
+     */
+    private static class NodeInfo {
+        private final BytePointer namePointer;
+        private final String name;
+        private final DataType dataType;
+        private final long[] shape;
 
-        Preconditions.checkNotNull(output,"Output must not be null!");
-        for(String outputName : onnxStep.outputNames()) {
-            Preconditions.checkNotNull(output.get(outputName),"Output name " + outputName + " not found in output!");
-            ret.put(outputName, NDArray.create(output.get(outputName)));
+        private NodeInfo(BytePointer namePointer, int elementType, LongPointer shape) {
+            this.namePointer = namePointer;
+            this.namePointer.retainReference();
+            this.name = namePointer.getString();
+            this.dataType = ONNXUtils.dataTypeForOnnxType(elementType);
+            // Dynamic (symbolic) dimensions are reported as -1
+            this.shape = new long[shape == null ? 0 : (int) shape.capacity()];
+            if(this.shape.length > 0) {
+                shape.get(this.shape);
+            }
         }
 
+        private boolean isStaticShape() {
+            for (long dimension : shape) {
+                if(dimension <= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
 
-        return ret;
+        /**
+         * ONNX Runtime reads the input directly from the array memory, so the array has to be a contiguous c ordered
+         * array of the type declared in the model.
+         */
+        private INDArray prepare(INDArray array) {
+            if(array.dataType() != dataType) {
+                array = array.castTo(dataType);
+            }
 
+            if(array.isView() || array.ordering() != 'c') {
+                array = array.dup('c');
+            }
 
+            return array;
+        }
     }
 
+    /**
+     * Output shapes seen for one input shape signature. Outputs are only pre-allocated once the same shapes were seen
+     * on two runs; shapes is null if the output shapes changed between runs, or a run with the pre-allocated outputs
+     * failed (i.e., they depend on the input values).
+     */
+    private static class OutputShapes {
+        private final long[][] shapes;
+        private final boolean confirmed;
+
+        private OutputShapes(long[][] shapes, boolean confirmed) {
+            this.shapes = shapes;
+            this.confirmed = confirmed;
+        }
+    }
 }
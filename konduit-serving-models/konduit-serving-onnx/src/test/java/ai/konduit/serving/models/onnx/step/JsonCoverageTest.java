@@ -25,7 +25,12 @@ public class JsonCoverageTest extends BaseJsonCoverageTest {
     public void testONNXStep() {
         testConfigSerDe(new ONNXStep()
                 .inputNames("inputNames").loaderClass("loaderClass")
-                .modelUri("modelUri").outputNames("outputNames"));
+                .modelUri("modelUri").outputNames("outputNames")
+                .intraOpNumThreads(4).interOpNumThreads(2)
+                .executionMode(ONNXStep.ExecutionMode.PARALLEL)
+                .graphOptimizationLevel(ONNXStep.GraphOptimizationLevel.ALL)
+                .memoryPattern(false).cpuMemoryArena(false).ioBinding(false)
+                .optimizedModelCache(false).maxShapeBuckets(4).batchBuckets(1, 4, 8));
     }
 
 
@@ -13,6 +13,8 @@ import org.nd4j.linalg.factory.Nd4j;
 import javax.annotation.concurrent.NotThreadSafe;
 import java.io.File;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 @NotThreadSafe
@@ -42,6 +44,27 @@ public class ONNXStepTests {
         System.out.println(outRet);
     }
 
+    @Test
+    public void testOnnxMnistWithoutIoBinding() {
+        File f = Resources.asFile("mnist-8.onnx");
+        INDArray arr = Nd4j.rand(DataType.FLOAT, 1,1,28,28);
+        Data d = Data.singleton("Input3", NDArray.create(arr));
+
+        INDArray withBinding = SequencePipeline.builder()
+                .add(new ONNXStep().inputNames("Input3").outputNames("Plus214_Output_0").modelUri(f.getAbsolutePath()))
+                .build().executor().exec(d)
+                .getNDArray("Plus214_Output_0").getAs(INDArray.class);
+
+        INDArray withoutBinding = SequencePipeline.builder()
+                .add(new ONNXStep().inputNames("Input3").outputNames("Plus214_Output_0").modelUri(f.getAbsolutePath())
+                        .ioBinding(false).intraOpNumThreads(0).graphOptimizationLevel(ONNXStep.GraphOptimizationLevel.ALL))
+                .build().executor().exec(d)
+                .getNDArray("Plus214_Output_0").getAs(INDArray.class);
+
+        assertArrayEquals(new long[]{1, 10}, withBinding.shape());
+        assertEquals(withoutBinding, withBinding);
+    }
+
     @Test
     public void testOnnxAdd() {
         File f = Resources.asFile("add.onnx");
@@ -67,4 +90,28 @@ public class ONNXStepTests {
         System.out.println(outRet);
     }
 
+    @Test
+    public void testDataDependentOutputShapes() {
+        //NonZero: the output shape [1, count] depends on the input values, not only on the input shape
+        File f = Resources.asFile("nonzero.onnx");
+        PipelineExecutor e = SequencePipeline.builder()
+                .add(new ONNXStep().inputNames("x").outputNames("y").modelUri(f.getAbsolutePath()))
+                .build().executor();
+
+        //Same output shape on two runs: the output shape is learned for input shape [4]
+        for(int i = 0; i < 2; i++) {
+            INDArray out = nonZero(e, 0, 1, 0, 0);
+            assertEquals(Nd4j.createFromArray(new long[][]{{1}}), out);
+        }
+
+        //Different number of non-zero values for the same input shape: has to fall back to unbound outputs
+        assertEquals(Nd4j.createFromArray(new long[][]{{0, 2, 3}}), nonZero(e, 1, 0, 2, 3));
+        assertEquals(Nd4j.createFromArray(new long[][]{{1}}), nonZero(e, 0, 1, 0, 0));
+    }
+
+    private static INDArray nonZero(PipelineExecutor e, float... values) {
+        Data d = Data.singleton("x", NDArray.create(Nd4j.createFromArray(values)));
+        return e.exec(d).getNDArray("y").getAs(INDArray.class);
+    }
+
 }
@@ -48,6 +48,32 @@ public class SameDiffStep implements PipelineStep {
     @Schema(description = "Enable verbose mode, defaults to false")
     private boolean verboseMode = false;
 
+    @Schema(description = "Execute inference inside a per-thread ND4J workspace, so that memory for intermediate arrays " +
+            "is reused across requests instead of being allocated (and garbage collected) on every request. The outputs " +
+            "are detached from the workspace once, at the end of each execution.", defaultValue = "false")
+    private boolean useWorkspaces = false;
+
+    @Schema(description = "Reuse the output arrays across requests on the same thread while the output shapes and data " +
+            "types don't change. The outputs of one execution are then only valid until the next execution on the same " +
+            "thread, so this should only be enabled when the outputs are fully consumed (e.g. serialized) before the next " +
+            "request. Most effective together with useWorkspaces.", defaultValue = "false")
+    private boolean reuseOutputArrays = false;
+
+    @Schema(description = "Maximum number of threads used by ND4J to execute individual operations. 0 means the ND4J " +
+            "default is used. Note that this is a process wide setting.", defaultValue = "0")
+    private int numThreads = 0;
+
+    @Schema(description = "Maximum number of distinct input shapes for which per thread state (padded input buffers and, " +
+            "with reuseOutputArrays, the output arrays) is kept. The least recently used shape is evicted first.",
+            defaultValue = "8")
+    private int maxShapeBuckets = 8;
+
+    @Schema(description = "Optional batch sizes to pad the placeholder arrays to, for example [1, 4, 8]. The first dimension " +
+            "of each placeholder is zero padded up to the smallest listed size that fits, so only a few distinct shapes " +
+            "reach the graph and the per-shape state (see maxShapeBuckets) is reused. Outputs are sliced back to the " +
+            "original batch size, so all requested outputs must have the batch as their first dimension.")
+    private List<Integer> batchBuckets;
+
     public SameDiffStep(@JsonProperty("modelUri") String modelUri,
                     @JsonProperty("outputNames") List<String> outputNames,
                     @JsonProperty("debugMode") boolean debugMode,
@@ -67,4 +93,9 @@ public class SameDiffStep implements PipelineStep {
     public SameDiffStep outputNames(String... outputNames) {
         return this.outputNames(Arrays.asList(outputNames));
     }
+
+    @Tolerate
+    public SameDiffStep batchBuckets(Integer... batchBuckets) {
+        return this.batchBuckets(Arrays.asList(batchBuckets));
+    }
 }
@@ -16,6 +16,7 @@
 package ai.konduit.serving.models.samediff.step;
 
 import ai.konduit.serving.annotation.runner.CanRun;
+import ai.konduit.serving.data.nd4j.util.BatchPadding;
 import ai.konduit.serving.pipeline.api.context.Context;
 import ai.konduit.serving.pipeline.api.data.Data;
 import ai.konduit.serving.pipeline.api.data.NDArray;
@@ -24,27 +25,51 @@ import ai.konduit.serving.pipeline.api.exception.ModelLoadingException;
 import ai.konduit.serving.pipeline.api.protocol.URIResolver;
 import ai.konduit.serving.pipeline.api.step.PipelineStep;
 import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
-import org.nd4j.autodiff.listeners.At;
+import ai.konduit.serving.pipeline.util.ShapeBucketCache;
 import org.nd4j.autodiff.samediff.SameDiff;
-import org.nd4j.autodiff.samediff.internal.InferenceSession;
 import org.nd4j.common.base.Preconditions;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
+import org.nd4j.linalg.api.memory.enums.LearningPolicy;
+import org.nd4j.linalg.api.memory.enums.MirroringPolicy;
+import org.nd4j.linalg.api.memory.enums.SpillPolicy;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 
 import java.io.File;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs a {@link SameDiffStep}.<br>
+ * The model is loaded once and shared by all threads. SameDiff keeps one inference session per calling thread, so
+ * the per-thread state of the runner (placeholder map, workspace and reusable output arrays - see
+ * {@link SameDiffStep#useWorkspaces()} and {@link SameDiffStep#reuseOutputArrays()}) is kept per thread as well.<br>
+ * Padded input buffers (see {@link SameDiffStep#batchBuckets()}) and reusable output arrays are kept per input shape,
+ * for the {@link SameDiffStep#maxShapeBuckets()} most recently used input shapes.
+ */
 @CanRun(SameDiffStep.class)
 public class SameDiffRunner implements PipelineStepRunner {
 
     public static final String DEFAULT_OUT_NAME_SINGLE = "default";
 
+    private static final WorkspaceConfiguration WORKSPACE_CONFIGURATION = WorkspaceConfiguration.builder()
+            .initialSize(0)
+            .overallocationLimit(0.2)
+            .policyAllocation(AllocationPolicy.OVERALLOCATE)
+            .policyLearning(LearningPolicy.FIRST_LOOP)
+            .policyMirroring(MirroringPolicy.FULL)
+            .policySpill(SpillPolicy.REALLOCATE)
+            .build();
 
     private SameDiffStep step;
     private final SameDiff sd;
+    private final List<String> inputs;
+    private final String[] outputNames;
+    private final String workspaceId = "SAMEDIFF_RUNNER_" + UUID.randomUUID().toString();
+    private final ThreadLocal<ThreadState> threadState;
+    private final Set<ThreadState> threadStates = ConcurrentHashMap.newKeySet();       //All created thread states, to release on close
 
     public SameDiffRunner(SameDiffStep step) {
         this.step = step;
@@ -60,16 +85,35 @@ public class SameDiffRunner implements PipelineStepRunner {
             throw new ModelLoadingException("Failed to load SameDiff model from URI " + step.modelUri(), e);
         }
 
+        List<String> outNames = step.outputNames();
+        Preconditions.checkState(outNames != null && !outNames.isEmpty(), "No output names were provided in the SameDiffStep configuration");
+        outputNames = outNames.toArray(new String[0]);
+        inputs = new ArrayList<>(sd.inputs());
+        int maxShapeBuckets = Math.max(1, step.maxShapeBuckets());
+        threadState = ThreadLocal.withInitial(() -> {
+            ThreadState state = new ThreadState(maxShapeBuckets);
+            threadStates.add(state);
+            return state;
+        });
+
         Nd4j.getExecutioner().enableDebugMode(step.debugMode());
         Nd4j.getExecutioner().enableVerboseMode(step.verboseMode());
 
-
+        if(step.numThreads() > 0) {
+            Nd4j.getEnvironment().setMaxThreads(step.numThreads());
+            Nd4j.getEnvironment().setMaxMasterThreads(step.numThreads());
+        }
     }
 
 
     @Override
     public void close() {
-
+        //The thread local only clears the state of the calling thread: release the arrays held for all other threads too
+        for(ThreadState state : threadStates){
+            state.clear();
+        }
+        threadStates.clear();
+        threadState.remove();
     }
 
     @Override
@@ -79,30 +123,102 @@ public class SameDiffRunner implements PipelineStepRunner {
 
     @Override
     public Data exec(Context ctx, Data data) {
+        ThreadState state = threadState.get();
 
         //First: Get array
-
-        Map<String,INDArray> m = new HashMap<>();
-        List<String> inputs = sd.inputs();
+        Map<String,INDArray> m = state.placeholders;
+        long batchSize = -1;
         for(String s : inputs){
             if(!data.has(s))
                 throw new IllegalStateException("Expected to find NDArray with name \"" + s + "\" in data - not found. Data keys: " + data.keys());
             if(data.type(s) != ValueType.NDARRAY)
                 throw new IllegalStateException("Input Data field \"" + s + "\" is not an NDArray - is type : " + data.type(s));
-            m.put(s, data.getNDArray(s).getAs(INDArray.class));
+            INDArray arr = data.getNDArray(s).getAs(INDArray.class);
+            if(batchSize < 0 && arr.rank() > 0)
+                batchSize = arr.size(0);
+            m.put(s, arr);
         }
 
-        List<String> outNames = step.outputNames();
-        Preconditions.checkState(outNames != null && !outNames.isEmpty(), "No output names were provided in the SameDiffStep configuration");
-        ;
-
-        Map<String,INDArray> out = sd.output(m,outNames.toArray(new String[outNames.size()]));
+        long paddedBatchSize = batchSize < 0 ? batchSize : ShapeBucketCache.bucketSize(batchSize, step.batchBuckets());
+        long[][] shapes = new long[inputs.size()][];
+        for(int i = 0; i < shapes.length; i++){
+            INDArray arr = m.get(inputs.get(i));
+            shapes[i] = paddedBatchSize != batchSize ? BatchPadding.paddedShape(arr, paddedBatchSize) : arr.shape();
+        }
+        ShapeBucket bucket = state.buckets.computeIfAbsent(ShapeBucketCache.signature(shapes), k -> new ShapeBucket());
+
+        if(paddedBatchSize != batchSize){
+            for(String s : inputs){
+                INDArray padded = BatchPadding.pad(m.get(s), paddedBatchSize, bucket.inputs.get(s));
+                bucket.inputs.put(s, padded);
+                m.put(s, padded);
+            }
+        }
 
         Data d = Data.empty();
-        for(Map.Entry<String,INDArray> e : out.entrySet()){
-            d.put(e.getKey(), NDArray.create(e.getValue()));
+        try {
+            Map<String,INDArray> out;
+            if (step.useWorkspaces()) {
+                try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().getAndActivateWorkspace(WORKSPACE_CONFIGURATION, workspaceId)) {
+                    out = detachOutputs(bucket, sd.output(m, outputNames));
+                }
+            } else {
+                out = detachOutputs(bucket, sd.output(m, outputNames));
+            }
+
+            for(Map.Entry<String,INDArray> e : out.entrySet()){
+                INDArray arr = paddedBatchSize != batchSize ? BatchPadding.slice(e.getValue(), batchSize) : e.getValue();
+                d.put(e.getKey(), NDArray.create(arr));
+            }
+        } finally {
+            //Don't hold on to the input arrays between requests
+            m.clear();
         }
 
         return d;
     }
+
+    /**
+     * Move the outputs out of the workspace (if any) - into the reusable output arrays of the shape bucket if enabled
+     */
+    private Map<String,INDArray> detachOutputs(ShapeBucket bucket, Map<String,INDArray> out) {
+        Map<String,INDArray> ret = new LinkedHashMap<>();
+        for(Map.Entry<String,INDArray> e : out.entrySet()){
+            INDArray arr = e.getValue();
+            if(step.reuseOutputArrays()) {
+                INDArray reusable = bucket.outputs.get(e.getKey());
+                if(reusable != null && reusable.dataType() == arr.dataType() && Arrays.equals(reusable.shape(), arr.shape())) {
+                    reusable.assign(arr);
+                    arr = reusable;
+                } else {
+                    arr = arr.isAttached() ? arr.detach() : arr;
+                    bucket.outputs.put(e.getKey(), arr);
+                }
+            } else if(arr.isAttached()) {
+                arr = arr.detach();
+            }
+
+            ret.put(e.getKey(), arr);
+        }
+        return ret;
+    }
+
+    private static class ThreadState {
+        private final Map<String,INDArray> placeholders = new HashMap<>();
+        private final ShapeBucketCache<ShapeBucket> buckets;
+
+        private ThreadState(int maxShapeBuckets) {
+            buckets = new ShapeBucketCache<>(maxShapeBuckets);
+        }
+
+        private void clear() {
+            //Placeholders are already cleared after each call
+            buckets.clear();
+        }
+    }
+
+    private static class ShapeBucket {
+        private final Map<String,INDArray> inputs = new HashMap<>();
+        private final Map<String,INDArray> outputs = new HashMap<>();
+    }
 }
@@ -45,6 +45,9 @@ public class JsonCoverageTest extends BaseJsonCoverageTest {
     public void testSameDiffStep() {
         testConfigSerDe(new SameDiffStep().outputNames("outputNames")
                 .modelUri("modelUri"));
+        testConfigSerDe(new SameDiffStep().outputNames("outputNames").modelUri("modelUri")
+                .useWorkspaces(true).reuseOutputArrays(true).numThreads(2)
+                .maxShapeBuckets(4).batchBuckets(1, 4, 8));
         testConfigSerDe(new SameDiffTrainerStep());
     }
 
@@ -36,7 +36,7 @@ import org.nd4j.linalg.factory.Nd4j;
 import java.io.File;
 import java.util.Collections;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class TestSameDiffServing {
 
@@ -80,6 +80,74 @@ public class TestSameDiffServing {
         assertEquals(outExp, outArr2);
     }
 
+    @Test
+    public void testSameDiffWorkspacesAndOutputReuse() throws Exception {
+        SameDiff sd = getModel();
+
+        File dir = testDir.newFolder();
+        File f = new File(dir, "samediff.bin");
+        sd.save(f, false);
+
+        Pipeline p = SequencePipeline.builder()
+                .add(new SameDiffStep()
+                        .modelUri(f.toURI().toString())
+                        .outputNames("out")
+                        .useWorkspaces(true)
+                        .reuseOutputArrays(true))
+                .build();
+
+        PipelineExecutor exec = p.executor();
+
+        INDArray previous = null;
+        for (int i = 0; i < 5; i++) {
+            INDArray inArr = Nd4j.rand(DataType.FLOAT, 3, 784);
+            INDArray outExp = sd.outputSingle(Collections.singletonMap("in", inArr), "out");
+
+            INDArray outArr = exec.exec(Data.singleton("in", NDArray.create(inArr))).getNDArray("out").getAs(INDArray.class);
+            assertEquals(outExp, outArr);
+            assertFalse(outArr.isAttached());
+
+            if (previous != null) {
+                //Same shape - the output array is reused
+                assertSame(previous, outArr);
+            }
+            previous = outArr;
+        }
+
+        //Different shape - a new output array is returned
+        INDArray inArr = Nd4j.rand(DataType.FLOAT, 5, 784);
+        INDArray outExp = sd.outputSingle(Collections.singletonMap("in", inArr), "out");
+        INDArray outArr = exec.exec(Data.singleton("in", NDArray.create(inArr))).getNDArray("out").getAs(INDArray.class);
+        assertEquals(outExp, outArr);
+        assertNotSame(previous, outArr);
+    }
+
+    @Test
+    public void testSameDiffBatchPadding() throws Exception {
+        SameDiff sd = getModel();
+
+        File dir = testDir.newFolder();
+        File f = new File(dir, "samediff.bin");
+        sd.save(f, false);
+
+        PipelineExecutor exec = SequencePipeline.builder()
+                .add(new SameDiffStep()
+                        .modelUri(f.toURI().toString())
+                        .outputNames("out")
+                        .batchBuckets(4, 8)
+                        .maxShapeBuckets(1))
+                .build()
+                .executor();
+
+        for (int batchSize : new int[]{3, 4, 5, 3, 9}) {
+            INDArray inArr = Nd4j.rand(DataType.FLOAT, batchSize, 784);
+            INDArray outExp = sd.outputSingle(Collections.singletonMap("in", inArr), "out");
+
+            INDArray outArr = exec.exec(Data.singleton("in", NDArray.create(inArr))).getNDArray("out").getAs(INDArray.class);
+            assertEquals(outExp, outArr);
+        }
+    }
+
     public static SameDiff getModel(){
         Nd4j.getRandom().setSeed(12345);
         SameDiff sd = SameDiff.create();
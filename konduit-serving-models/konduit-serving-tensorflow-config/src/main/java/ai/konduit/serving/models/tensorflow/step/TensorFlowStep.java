@@ -48,6 +48,36 @@ public class TensorFlowStep implements PipelineStep {
     @Schema(description = "Uniform Resource Identifier of model")
     private String modelUri;
 
+    @Schema(description = "Whether the resolved model format (frozen graph or SavedModel) should be cached in the model " +
+            "cache directory, keyed by the model file contents. On the following server starts, the model is loaded " +
+            "directly in the cached format, without first trying (and failing) to load it in the other format.",
+            defaultValue = "true")
+    private boolean modelCache = true;
+
+    @Schema(description = "Number of threads used to parallelize the execution of individual operations. 0 means the " +
+            "TensorFlow default (the number of cores) is used.", defaultValue = "0")
+    private int intraOpParallelismThreads = 0;
+
+    @Schema(description = "Number of threads used to execute independent operations in parallel. 0 means the TensorFlow " +
+            "default (the number of cores) is used.", defaultValue = "0")
+    private int interOpParallelismThreads = 0;
+
+    @Schema(description = "Whether operations should be placed on another device (e.g. the CPU) if the device they are " +
+            "assigned to in the graph isn't available.", defaultValue = "false")
+    private boolean allowSoftPlacement = false;
+
+    @Schema(description = "Whether the XLA JIT compiler should be enabled for the whole graph.", defaultValue = "false")
+    private boolean xlaJit = false;
+
+    @Schema(description = "Whether each session should use its own thread pools, instead of the process wide pools shared " +
+            "by all sessions. Mostly useful together with a session pool and small per session thread counts.",
+            defaultValue = "false")
+    private boolean usePerSessionThreads = false;
+
+    @Schema(description = "Number of sessions created for the graph. With 1, all requests run concurrently on a single " +
+            "(thread safe) session. With more than 1, each request borrows a session from the pool.", defaultValue = "1")
+    private int sessionPoolSize = 1;
+
     @Tolerate
     public TensorFlowStep inputNames(String... inputNames) {
         return this.inputNames(Arrays.asList(inputNames));
@@ -19,6 +19,7 @@
 package ai.konduit.serving.models.tensorflow.step;
 
 import ai.konduit.serving.annotation.runner.CanRun;
+import ai.konduit.serving.models.tensorflow.util.TensorFlowUtil;
 import ai.konduit.serving.pipeline.api.context.Context;
 import ai.konduit.serving.pipeline.api.data.Data;
 import ai.konduit.serving.pipeline.api.data.NDArray;
@@ -27,19 +28,27 @@ import ai.konduit.serving.pipeline.api.protocol.URIResolver;
 import ai.konduit.serving.pipeline.api.step.PipelineStep;
 import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
 import ai.konduit.serving.pipeline.impl.data.ValueNotFoundException;
+import ai.konduit.serving.pipeline.util.ModelCacheUtils;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.bytedeco.javacpp.Loader;
 import org.nd4j.common.base.Preconditions;
 import org.tensorflow.Graph;
+import org.tensorflow.Operation;
+import org.tensorflow.Output;
 import org.tensorflow.SavedModelBundle;
 import org.tensorflow.Session;
 import org.tensorflow.Tensor;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 @Slf4j
 @CanRun(TensorFlowStep.class)
@@ -51,9 +60,18 @@ public class TensorFlowRunner implements PipelineStepRunner {
         Loader.load(org.bytedeco.tensorflow.presets.tensorflow.class);
     }
 
+    private static final String FORMAT_FILE = "format";
+    private static final String FROZEN_FORMAT = "FROZEN";
+    private static final String SAVED_MODEL_FORMAT = "SAVED_MODEL";
+    private static final String SAVED_MODEL_DIR = "saved_model";
+
     private final TensorFlowStep step;
     private Graph graph;
     private Session sess;
+    private List<Session> sessions;
+    private BlockingQueue<Session> sessionPool;
+    private Output<?>[] feeds;
+    private Output<?>[] fetches;
 
     public TensorFlowRunner(@NonNull TensorFlowStep step) {
         this.step = step;
@@ -62,8 +80,10 @@ public class TensorFlowRunner implements PipelineStepRunner {
 
     @Override
     public void close() {
-        if(sess != null)
-            sess.close();
+        if(sessions != null) {
+            for (Session s : sessions)
+                s.close();
+        }
 
         //TODO AB 2020/05/13 - For some reason this deadlocks, never returns :/
 //        if(graph != null )
@@ -77,10 +97,34 @@ public class TensorFlowRunner implements PipelineStepRunner {
 
     @Override
     public Data exec(Context ctx, Data data) {
-        Preconditions.checkState(step.inputNames() != null, "TensorFlowStep input array names are not set (null)");
+        Session.Runner r;
+        Session session = null;
+        if (sessionPool == null) {
+            // Session.run is thread safe - concurrent requests share the session
+            r = sess.runner();
+        } else {
+            try {
+                session = sessionPool.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for a TensorFlow session from the pool", e);
+            }
+            r = session.runner();
+        }
 
-        Session.Runner r = sess.runner();
-        for (String s : step.inputNames()) {
+        try {
+            return exec(r, data);
+        } finally {
+            if (session != null) {
+                sessionPool.add(session);
+            }
+        }
+    }
+
+    private Data exec(Session.Runner r, Data data) {
+        List<String> inNames = step.inputNames();
+        for (int i = 0; i < feeds.length; i++) {
+            String s = inNames.get(i);
             if(!data.has(s)){
                 throw new ValueNotFoundException( "Error in TensorFlowStep: Input data does not have a value corresponding to TensorFlowStep.inputNames value \"" +
                         s + "\" - data keys = " + data.keys());
@@ -94,23 +138,11 @@ public class TensorFlowRunner implements PipelineStepRunner {
 
             NDArray arr = data.getNDArray(s);       //TODO checks
             Tensor<?> t = arr.getAs(Tensor.class);  //TODO casting
-            r.feed(s, t);
+            r.feed(feeds[i], t);
         }
 
-        List<String> outNames = step.outputNames();
-        for (String s : outNames) {
-            String name;
-            int idx;
-            if (s.contains(":")) {
-                //TODO checks
-                int i = s.indexOf(":");
-                name = s.substring(0, i);
-                idx = Integer.parseInt(s.substring(i + 1));
-            } else {
-                name = s;
-                idx = 0;
-            }
-            r.fetch(name, idx);
+        for (Output<?> fetch : fetches) {
+            r.fetch(fetch);
         }
 
         List<Tensor<?>> l;
@@ -127,6 +159,7 @@ public class TensorFlowRunner implements PipelineStepRunner {
         }
 
 
+        List<String> outNames = step.outputNames();
         Data out = Data.empty();
         for (int i = 0; i < outNames.size(); i++) {
             Tensor<?> t = l.get(i);
@@ -152,6 +185,23 @@ public class TensorFlowRunner implements PipelineStepRunner {
         File origFile = URIResolver.getFile(uri);
         Preconditions.checkState(origFile.exists(), "Model file does not exist: " + uri);
 
+        File cacheDir = null;
+        if (step.modelCache()) {
+            try {
+                cacheDir = ModelCacheUtils.getCacheDir("tensorflow", ModelCacheUtils.cacheKey(origFile));
+            } catch (Throwable t) {
+                log.warn("Unable to use the model cache for TensorFlow model {}. Loading the model without the cache.", uri, t);
+            }
+        }
+
+        String cachedFormat = cacheDir == null ? null : readCachedFormat(cacheDir);
+        if (SAVED_MODEL_FORMAT.equals(cachedFormat)) {
+            SavedModelBundle b = SavedModelBundle.load(new File(cacheDir, SAVED_MODEL_DIR).getAbsolutePath(), "serve");
+            graph = b.graph();
+            log.info("Loaded TensorFlow SavedModel (format resolved from model cache)");
+            createSessions();
+            return;
+        }
 
         //Try to load frozen model:
         Throwable frozenErr = null;
@@ -160,6 +210,9 @@ public class TensorFlowRunner implements PipelineStepRunner {
             graph = new Graph();
             graph.importGraphDef(bytes);
             log.info("Loaded TensorFlow frozen model");
+            if (cacheDir != null && cachedFormat == null) {
+                writeCachedFormat(cacheDir, FROZEN_FORMAT);
+            }
         } catch (Throwable t) {
             frozenErr = t;
             graph = null;
@@ -170,7 +223,8 @@ public class TensorFlowRunner implements PipelineStepRunner {
         //TF has bad API here: The DIRECTORY path is provided, and the file must be exactly "saved_model.pb" - this is hardcoded in TF
         if (graph == null) {
             try {
-                File dir = ai.konduit.serving.pipeline.util.FileUtils.getTempFileDir("tf_model_" + System.nanoTime());
+                File dir = cacheDir != null ? ModelCacheUtils.tempFileFor(new File(cacheDir, SAVED_MODEL_DIR)) :
+                        ai.konduit.serving.pipeline.util.FileUtils.getTempFileDir("tf_model_" + System.nanoTime());
                 File f = new File(dir, "saved_model.pb");
                 FileUtils.copyFile(origFile, f);
 
@@ -178,6 +232,11 @@ public class TensorFlowRunner implements PipelineStepRunner {
 
                 graph = b.graph();
                 log.info("Loaded TensorFlow SavedModel");
+
+                // Keep the SavedModel directory in the cache, so it doesn't have to be copied again on the next start
+                if (cacheDir != null && ModelCacheUtils.commit(dir, new File(cacheDir, SAVED_MODEL_DIR))) {
+                    writeCachedFormat(cacheDir, SAVED_MODEL_FORMAT);
+                }
             } catch (Throwable t) {
                 log.error("Error loading graph: Attempted to load as both a frozen model .pb and a SavedModel .pb - both failed");
                 log.error("Frozen model loading exception:", frozenErr);
@@ -186,6 +245,93 @@ public class TensorFlowRunner implements PipelineStepRunner {
             }
         }
 
-        this.sess = new Session(graph);
+        createSessions();
+    }
+
+    /**
+     * Resolve the input/output names to graph {@link Output}s once, and create the session(s) with the configured
+     * ConfigProto.
+     */
+    private void createSessions() {
+        Preconditions.checkState(step.inputNames() != null, "TensorFlowStep input array names are not set (null)");
+        Preconditions.checkState(step.outputNames() != null, "TensorFlowStep output array names are not set (null)");
+
+        feeds = new Output<?>[step.inputNames().size()];
+        for (int i = 0; i < feeds.length; i++) {
+            feeds[i] = resolveOutput(step.inputNames().get(i));
+        }
+
+        fetches = new Output<?>[step.outputNames().size()];
+        for (int i = 0; i < fetches.length; i++) {
+            fetches[i] = resolveOutput(step.outputNames().get(i));
+        }
+
+        byte[] configProto = TensorFlowUtil.configProto(step);
+        int poolSize = Math.max(1, step.sessionPoolSize());
+        sessions = new ArrayList<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            sessions.add(configProto.length == 0 ? new Session(graph) : new Session(graph, configProto));
+        }
+
+        sess = sessions.get(0);
+        if (poolSize > 1) {
+            sessionPool = new ArrayBlockingQueue<>(poolSize, false, sessions);
+        }
+        log.info("Created {} TensorFlow session(s)", poolSize);
+    }
+
+    /**
+     * @param name An output name, in the format "opName" or "opName:index"
+     */
+    private Output<?> resolveOutput(String name) {
+        String opName;
+        int idx;
+        int i = name.lastIndexOf(':');
+        if (i > 0) {
+            opName = name.substring(0, i);
+            try {
+                idx = Integer.parseInt(name.substring(i + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException("Invalid TensorFlow output name \"" + name + "\": expected \"opName\" or \"opName:index\"", e);
+            }
+        } else {
+            opName = name;
+            idx = 0;
+        }
+
+        Operation op = graph.operation(opName);
+        Preconditions.checkState(op != null, "TensorFlowStep (%s): no operation named \"%s\" found in the graph", name(), opName);
+        Preconditions.checkState(idx < op.numOutputs(), "TensorFlowStep (%s): operation \"%s\" has %s outputs, output index %s is invalid",
+                name(), opName, op.numOutputs(), idx);
+        return op.output(idx);
+    }
+
+    private static String readCachedFormat(File cacheDir) {
+        File formatFile = new File(cacheDir, FORMAT_FILE);
+        if (!formatFile.exists()) {
+            return null;
+        }
+
+        try {
+            String format = FileUtils.readFileToString(formatFile, StandardCharsets.UTF_8).trim();
+            if (SAVED_MODEL_FORMAT.equals(format) && !new File(new File(cacheDir, SAVED_MODEL_DIR), "saved_model.pb").exists()) {
+                return null;
+            }
+            return format;
+        } catch (IOException e) {
+            log.warn("Unable to read cached TensorFlow model format from {}", formatFile.getAbsolutePath(), e);
+            return null;
+        }
+    }
+
+    private static void writeCachedFormat(File cacheDir, String format) {
+        File formatFile = new File(cacheDir, FORMAT_FILE);
+        File temp = ModelCacheUtils.tempFileFor(formatFile);
+        try {
+            FileUtils.writeStringToFile(temp, format, StandardCharsets.UTF_8);
+            ModelCacheUtils.commit(temp, formatFile);
+        } catch (IOException e) {
+            log.warn("Unable to write cached TensorFlow model format to {}", formatFile.getAbsolutePath(), e);
+        }
     }
 }
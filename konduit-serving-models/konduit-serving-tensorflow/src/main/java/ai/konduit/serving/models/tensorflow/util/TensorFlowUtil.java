@@ -18,10 +18,13 @@
 
 package ai.konduit.serving.models.tensorflow.util;
 
+import ai.konduit.serving.models.tensorflow.step.TensorFlowStep;
 import ai.konduit.serving.pipeline.api.data.NDArrayType;
 import org.tensorflow.DataType;
 import org.tensorflow.types.UInt8;
 
+import java.io.ByteArrayOutputStream;
+
 public class TensorFlowUtil {
 
     private TensorFlowUtil(){ }
@@ -77,4 +80,67 @@ public class TensorFlowUtil {
         }
     }
 
+    /**
+     * Serialize the session level settings of the given step to a {@code tensorflow.ConfigProto} protobuf message,
+     * as expected by {@link org.tensorflow.Session#Session(org.tensorflow.Graph, byte[])}. The message is encoded
+     * directly, as the TensorFlow protobuf classes aren't available with TF Java.
+     *
+     * @return The serialized ConfigProto. Empty (all defaults) if nothing is configured.
+     */
+    public static byte[] configProto(TensorFlowStep step) {
+        ByteArrayOutputStream configProto = new ByteArrayOutputStream();
+
+        // ConfigProto.intra_op_parallelism_threads = 2
+        if (step.intraOpParallelismThreads() > 0) {
+            writeVarintField(configProto, 2, step.intraOpParallelismThreads());
+        }
+
+        // ConfigProto.inter_op_parallelism_threads = 5
+        if (step.interOpParallelismThreads() > 0) {
+            writeVarintField(configProto, 5, step.interOpParallelismThreads());
+        }
+
+        // ConfigProto.allow_soft_placement = 7
+        if (step.allowSoftPlacement()) {
+            writeVarintField(configProto, 7, 1);
+        }
+
+        // ConfigProto.use_per_session_threads = 9
+        if (step.usePerSessionThreads()) {
+            writeVarintField(configProto, 9, 1);
+        }
+
+        // ConfigProto.graph_options = 10 -> GraphOptions.optimizer_options = 3 -> OptimizerOptions.global_jit_level = 5 (ON_1 = 1)
+        if (step.xlaJit()) {
+            ByteArrayOutputStream optimizerOptions = new ByteArrayOutputStream();
+            writeVarintField(optimizerOptions, 5, 1);
+
+            ByteArrayOutputStream graphOptions = new ByteArrayOutputStream();
+            writeMessageField(graphOptions, 3, optimizerOptions.toByteArray());
+
+            writeMessageField(configProto, 10, graphOptions.toByteArray());
+        }
+
+        return configProto.toByteArray();
+    }
+
+    private static void writeVarintField(ByteArrayOutputStream out, int fieldNumber, long value) {
+        writeVarint(out, ((long) fieldNumber << 3));
+        writeVarint(out, value);
+    }
+
+    private static void writeMessageField(ByteArrayOutputStream out, int fieldNumber, byte[] message) {
+        writeVarint(out, ((long) fieldNumber << 3) | 2);
+        writeVarint(out, message.length);
+        out.write(message, 0, message.length);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
 }
@@ -42,7 +42,8 @@ public class JsonCoverageTest extends BaseJsonCoverageTest {
     @Test
     public void testTensorFlowStepStep() {
         testConfigSerDe(new TensorFlowStep().inputNames("inputNames").outputNames("outputNames")
-                .modelUri("modelUri"));
+                .modelUri("modelUri").intraOpParallelismThreads(4).interOpParallelismThreads(2)
+                .allowSoftPlacement(true).xlaJit(true).usePerSessionThreads(true).sessionPoolSize(4).modelCache(false));
     }
 
 
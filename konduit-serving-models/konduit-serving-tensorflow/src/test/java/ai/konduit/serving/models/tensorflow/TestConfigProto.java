@@ -0,0 +1,52 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package ai.konduit.serving.models.tensorflow;
+
+import ai.konduit.serving.models.tensorflow.step.TensorFlowStep;
+import ai.konduit.serving.models.tensorflow.util.TensorFlowUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class TestConfigProto {
+
+    @Test
+    public void testDefaultConfigProto() {
+        assertArrayEquals(new byte[0], TensorFlowUtil.configProto(new TensorFlowStep()));
+    }
+
+    @Test
+    public void testConfigProtoEncoding() {
+        TensorFlowStep step = new TensorFlowStep()
+                .intraOpParallelismThreads(4)
+                .interOpParallelismThreads(300)
+                .allowSoftPlacement(true)
+                .usePerSessionThreads(true)
+                .xlaJit(true);
+
+        byte[] expected = {
+                0x10, 0x04,                      // intra_op_parallelism_threads = 4
+                0x28, (byte) 0xAC, 0x02,         // inter_op_parallelism_threads = 300
+                0x38, 0x01,                      // allow_soft_placement = true
+                0x48, 0x01,                      // use_per_session_threads = true
+                0x52, 0x04, 0x1A, 0x02, 0x28, 0x01 // graph_options { optimizer_options { global_jit_level: ON_1 } }
+        };
+
+        assertArrayEquals(expected, TensorFlowUtil.configProto(step));
+    }
+}
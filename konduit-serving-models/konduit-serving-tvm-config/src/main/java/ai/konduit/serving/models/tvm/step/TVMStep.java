@@ -53,6 +53,12 @@ public class TVMStep implements PipelineStep {
     @Schema(description = "Lazy initialization of the step. Useful when model is being created within the pipeline.")
     private boolean lazyInit;
 
+    @Schema(description = "Optional batch sizes the TVM module was compiled for, for example [1, 4, 8]. TVM modules usually " +
+            "have static input shapes; with this set, a request with a smaller batch is zero padded up to the smallest " +
+            "listed batch size, and the module outputs are sliced back to the request's batch size. Requests with a " +
+            "batch larger than all listed sizes are passed to the module unchanged.")
+    private List<Integer> batchBuckets;
+
     @Tolerate
     public TVMStep inputNames(String... inputNames) {
         return this.inputNames(Arrays.asList(inputNames));
@@ -62,5 +68,9 @@ public class TVMStep implements PipelineStep {
     public TVMStep outputNames(String... outputNames) {
         return this.outputNames(Arrays.asList(outputNames));
     }
-}
 
+    @Tolerate
+    public TVMStep batchBuckets(Integer... batchBuckets) {
+        return this.batchBuckets(Arrays.asList(batchBuckets));
+    }
+}
@@ -19,6 +19,7 @@
 package ai.konduit.serving.models.tvm.step;
 
 import ai.konduit.serving.annotation.runner.CanRun;
+import ai.konduit.serving.data.nd4j.util.BatchPadding;
 import ai.konduit.serving.pipeline.api.context.Context;
 import ai.konduit.serving.pipeline.api.data.Data;
 import ai.konduit.serving.pipeline.api.data.NDArray;
@@ -27,6 +28,7 @@ import ai.konduit.serving.pipeline.api.protocol.URIResolver;
 import ai.konduit.serving.pipeline.api.step.PipelineStep;
 import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
 import ai.konduit.serving.pipeline.impl.data.ValueNotFoundException;
+import ai.konduit.serving.pipeline.util.ShapeBucketCache;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
@@ -83,6 +85,7 @@ public class TVMRunner implements PipelineStepRunner {
         }
         Preconditions.checkState(step.inputNames() != null, "TVMStep input array names are not set (null)");
         Map<String,INDArray> input = new HashMap<>();
+        long batchSize = -1;
         for (String s : step.inputNames()) {
             if(!data.has(s)){
                 throw new ValueNotFoundException( "Error in TVMStep: Input data does not have a value corresponding to TensorFlowStep.inputNames value \"" +
@@ -97,10 +100,21 @@ public class TVMRunner implements PipelineStepRunner {
 
             NDArray arr = data.getNDArray(s);
             INDArray arr2 = arr.getAs(INDArray.class);
+            if(batchSize < 0 && arr2.rank() > 0) {
+                batchSize = arr2.size(0);
+            }
             input.put(s,arr2);
 
         }
 
+        //Pad up to a batch size the model was compiled for, if configured
+        long paddedBatchSize = batchSize < 0 ? batchSize : ShapeBucketCache.bucketSize(batchSize, step.batchBuckets());
+        if(paddedBatchSize != batchSize) {
+            for(Map.Entry<String,INDArray> e : input.entrySet()) {
+                e.setValue(BatchPadding.pad(e.getValue(), paddedBatchSize, null));
+            }
+        }
+
         Data out = Data.empty();
         List<String> outNames = step.outputNames();
         Map<String, INDArray> exec = tvmRunner.exec(input);
@@ -109,7 +123,8 @@ public class TVMRunner implements PipelineStepRunner {
                 throw new IllegalStateException("Output names " + outNames + " did not contain value output from tvm " + outputValues.getKey() + " - please ensure the output names are the same as the target model being run.");
             }
 
-            out.put(outputValues.getKey(),NDArray.create(outputValues.getValue()));
+            INDArray outArr = paddedBatchSize != batchSize ? BatchPadding.slice(outputValues.getValue(), batchSize) : outputValues.getValue();
+            out.put(outputValues.getKey(),NDArray.create(outArr));
         }
 
         return out;
@@ -24,12 +24,18 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.image.BufferedImage;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.Iterator;
 @Slf4j
 public abstract class BaseImageFile {
 
@@ -91,37 +97,70 @@ public abstract class BaseImageFile {
     }
 
     protected void initHW() {
-        if(height != null && width != null)
+        if(height != null && width != null && channels != null)
             return;
+
+        //Read only the header if possible: this avoids decoding the full image just to get its size
+        if(readHeader())
+            return;
+
         BufferedImage bi = Image.create(this).getAs(BufferedImage.class);
         height = bi.getHeight();
         width = bi.getWidth();
-        switch(bi.getType()) {
+        channels = channelsFor(bi.getType());
+    }
+
+    protected boolean readHeader() {
+        try(ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(getBytes()))) {
+            if(iis == null)
+                return false;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if(!readers.hasNext())
+                return false;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                ImageTypeSpecifier type = reader.getRawImageType(0);
+                if(type == null)
+                    return false;
+                width = reader.getWidth(0);
+                height = reader.getHeight(0);
+                channels = channelsFor(type.getBufferedImageType());
+                return true;
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Unable to read {} image header", formatName(), e);
+            return false;
+        }
+    }
+
+    protected static Integer channelsFor(int bufferedImageType) {
+        switch(bufferedImageType) {
             case BufferedImage.TYPE_3BYTE_BGR:
             case BufferedImage.TYPE_INT_RGB:
             case BufferedImage.TYPE_INT_BGR:
             case BufferedImage.TYPE_USHORT_555_RGB:
             case BufferedImage.TYPE_USHORT_565_RGB:
-                channels = 3;
-                break;
+                return 3;
             case BufferedImage.TYPE_INT_ARGB:
             case BufferedImage.TYPE_4BYTE_ABGR_PRE:
             case BufferedImage.TYPE_4BYTE_ABGR:
             case BufferedImage.TYPE_INT_ARGB_PRE:
                 log.warn("Note: Loaded image resolved to a channel with an alpha channel. Defaulting to 3 channels. Konduit Serving currently ignores the alpha channel (which normally would be a 4th channel.)");
-                channels = 4 - 1;
-                break;
+                return 4 - 1;
             case BufferedImage.TYPE_BYTE_BINARY:
             case BufferedImage.TYPE_BYTE_GRAY:
             case BufferedImage.TYPE_BYTE_INDEXED:
             case BufferedImage.TYPE_USHORT_GRAY:
-                channels = 1;
-                break;
+                return 1;
             case BufferedImage.TYPE_CUSTOM:
-               channels = 3;
                log.warn("Note: Loaded image resolved to type custom with BufferedImage. Defaulting to 3 channels for custom image type.");
-               break;
-
+               return 3;
+            default:
+                return null;
         }
     }
 
@@ -29,6 +29,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 @Slf4j
 public class AsyncPipelineExecutor implements PipelineExecutor {
@@ -36,7 +38,7 @@ public class AsyncPipelineExecutor implements PipelineExecutor {
     protected final AsyncPipeline pipeline;
     protected final Trigger trigger;
     protected final PipelineExecutor underlyingExec;
-
+    protected final List<Consumer<Data>> listeners = new CopyOnWriteArrayList<>();
 
     public AsyncPipelineExecutor(AsyncPipeline pipeline){
         this.pipeline = pipeline;
@@ -44,7 +46,39 @@ public class AsyncPipelineExecutor implements PipelineExecutor {
         this.underlyingExec = pipeline.underlying().executor();
 
         //Set up trigger callback:
-        trigger.setCallback(underlyingExec::exec);
+        trigger.setCallback(this::execAndPublish);
+    }
+
+    /**
+     * Add a listener that is called (from the trigger's thread) with every new output produced by the underlying
+     * pipeline. Listeners should return quickly, as the next execution doesn't start until all listeners have
+     * been called.
+     *
+     * @param listener Listener to add
+     */
+    public void addListener(Consumer<Data> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a listener previously added by {@link #addListener(Consumer)}
+     *
+     * @param listener Listener to remove
+     */
+    public void removeListener(Consumer<Data> listener) {
+        listeners.remove(listener);
+    }
+
+    protected Data execAndPublish(Data data) {
+        Data out = underlyingExec.exec(data);
+        for (Consumer<Data> listener : listeners) {
+            try {
+                listener.accept(out);
+            } catch (Throwable t) {
+                log.error("Error in AsyncPipelineExecutor output listener", t);
+            }
+        }
+        return out;
     }
 
     @Override
@@ -0,0 +1,282 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.impl.step.bbox.nms;
+
+import ai.konduit.serving.pipeline.api.data.BoundingBox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-max suppression on primitive arrays of box coordinates.<br>
+ * Hard NMS sorts the candidates once (as packed score/index longs), then checks each candidate only against the
+ * already selected boxes in the same cells of a uniform grid - so the cost is close to linear in the number of
+ * candidates for typical detection outputs, rather than quadratic.<br>
+ * Soft-NMS (LINEAR/GAUSSIAN) has to update the scores of all remaining boxes after each selection, and is quadratic
+ * in the number of candidates above the score threshold.
+ */
+public class NonMaxSuppression {
+
+    private static final int MAX_GRID_SIZE = 64;
+
+    private NonMaxSuppression(){ }
+
+    /**
+     * Apply non-max suppression to a list of bounding boxes, using the configuration of the step
+     *
+     * @return The boxes that were not suppressed, in order of decreasing probability
+     */
+    public static List<BoundingBox> apply(List<BoundingBox> boxes, NonMaxSuppressionStep step){
+        return apply(boxes, step.iouThreshold(), step.scoreThreshold(), step.topK() == null ? -1 : step.topK(),
+                step.classAware(), step.method(), step.sigma());
+    }
+
+    /**
+     * Apply non-max suppression to a list of bounding boxes. Boxes without a probability are treated as having
+     * probability 0; boxes without a label are treated as one class.
+     *
+     * @param topK  Maximum number of boxes to return; -1 for no limit
+     * @return The boxes that were not suppressed, in order of decreasing probability. For soft-NMS, the returned boxes
+     * have the decayed probability
+     */
+    public static List<BoundingBox> apply(List<BoundingBox> boxes, double iouThreshold, double scoreThreshold, int topK,
+                                          boolean classAware, NonMaxSuppressionStep.Method method, double sigma){
+        int n = boxes.size();
+        float[] x1 = new float[n];
+        float[] y1 = new float[n];
+        float[] x2 = new float[n];
+        float[] y2 = new float[n];
+        float[] scores = new float[n];
+        int[] classes = classAware ? new int[n] : null;
+        Map<String,Integer> classIdx = classAware ? new HashMap<>() : null;
+        for( int i=0; i<n; i++ ){
+            BoundingBox bb = boxes.get(i);
+            x1[i] = (float) Math.min(bb.x1(), bb.x2());
+            x2[i] = (float) Math.max(bb.x1(), bb.x2());
+            y1[i] = (float) Math.min(bb.y1(), bb.y2());
+            y2[i] = (float) Math.max(bb.y1(), bb.y2());
+            scores[i] = bb.probability() == null ? 0.0f : bb.probability().floatValue();
+            if(classAware){
+                String label = bb.label();
+                if(label == null){
+                    classes[i] = -1;
+                } else {
+                    Integer idx = classIdx.get(label);
+                    if(idx == null){
+                        idx = classIdx.size();
+                        classIdx.put(label, idx);
+                    }
+                    classes[i] = idx;
+                }
+            }
+        }
+
+        boolean hard = method == null || method == NonMaxSuppressionStep.Method.HARD;
+        int[] keep = hard ?
+                hard(x1, y1, x2, y2, scores, classes, n, iouThreshold, scoreThreshold, topK) :
+                soft(x1, y1, x2, y2, scores, classes, n, iouThreshold, scoreThreshold, topK, method, sigma);
+
+        List<BoundingBox> out = new ArrayList<>(keep.length);
+        for(int i : keep){
+            BoundingBox bb = boxes.get(i);
+            if(!hard){
+                bb = BoundingBox.createXY(bb.x1(), bb.x2(), bb.y1(), bb.y2(), bb.label(), (double) scores[i]);
+            }
+            out.add(bb);
+        }
+        return out;
+    }
+
+    /**
+     * Hard non-max suppression. Coordinates must satisfy x1 <= x2 and y1 <= y2; any (consistent) units may be used.
+     *
+     * @param classes Class index for each box, or null for class-agnostic suppression
+     * @param n       Number of boxes (arrays may be longer than this)
+     * @param topK    Maximum number of boxes to keep; -1 for no limit
+     * @return Indices of the kept boxes, in order of decreasing score
+     */
+    public static int[] hard(float[] x1, float[] y1, float[] x2, float[] y2, float[] scores, int[] classes, int n,
+                             double iouThreshold, double scoreThreshold, int topK){
+        long[] order = sortedByScore(scores, n, scoreThreshold);
+        int m = order.length;
+        int maxKeep = topK < 0 ? m : Math.min(topK, m);
+        if(maxKeep == 0)
+            return new int[0];
+
+        //Uniform grid over the extent of the candidates. Boxes with IoU > 0 share at least one cell
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for(long l : order){
+            int i = (int) l;
+            minX = Math.min(minX, x1[i]);
+            minY = Math.min(minY, y1[i]);
+            maxX = Math.max(maxX, x2[i]);
+            maxY = Math.max(maxY, y2[i]);
+        }
+        int g = Math.max(1, Math.min(MAX_GRID_SIZE, (int) Math.sqrt(m)));
+        float cellW = Math.max((maxX - minX) / g, Float.MIN_NORMAL);
+        float cellH = Math.max((maxY - minY) / g, Float.MIN_NORMAL);
+        int[][] cells = new int[g * g][];
+        int[] cellCounts = new int[g * g];
+        int[] checked = new int[n];      //Last candidate (+1) that each kept box was checked against
+        float[] areas = new float[n];
+
+        int[] keep = new int[maxKeep];
+        int numKeep = 0;
+        for( int c=0; c<m && numKeep < maxKeep; c++ ){
+            int i = (int) order[c];
+            areas[i] = (x2[i] - x1[i]) * (y2[i] - y1[i]);
+            int cx0 = cell(x1[i], minX, cellW, g);
+            int cx1 = cell(x2[i], minX, cellW, g);
+            int cy0 = cell(y1[i], minY, cellH, g);
+            int cy1 = cell(y2[i], minY, cellH, g);
+
+            boolean suppressed = false;
+            search:
+            for( int cy=cy0; cy<=cy1; cy++ ){
+                for( int cx=cx0; cx<=cx1; cx++ ){
+                    int cellIdx = cy * g + cx;
+                    int[] cell = cells[cellIdx];
+                    for( int k=0; k<cellCounts[cellIdx]; k++ ){
+                        int j = cell[k];
+                        if(checked[j] == c + 1)
+                            continue;
+                        checked[j] = c + 1;
+                        if(classes != null && classes[i] != classes[j])
+                            continue;
+                        if(iou(x1, y1, x2, y2, areas, i, j) > iouThreshold){
+                            suppressed = true;
+                            break search;
+                        }
+                    }
+                }
+            }
+
+            if(suppressed)
+                continue;
+
+            keep[numKeep++] = i;
+            for( int cy=cy0; cy<=cy1; cy++ ){
+                for( int cx=cx0; cx<=cx1; cx++ ){
+                    int cellIdx = cy * g + cx;
+                    if(cells[cellIdx] == null){
+                        cells[cellIdx] = new int[4];
+                    } else if(cellCounts[cellIdx] == cells[cellIdx].length){
+                        cells[cellIdx] = Arrays.copyOf(cells[cellIdx], 2 * cellCounts[cellIdx]);
+                    }
+                    cells[cellIdx][cellCounts[cellIdx]++] = i;
+                }
+            }
+        }
+
+        return numKeep == keep.length ? keep : Arrays.copyOf(keep, numKeep);
+    }
+
+    /**
+     * Soft non-max suppression (LINEAR or GAUSSIAN). The scores array is modified in place: after this method returns,
+     * it contains the decayed scores.
+     *
+     * @see #hard(float[], float[], float[], float[], float[], int[], int, double, double, int)
+     */
+    public static int[] soft(float[] x1, float[] y1, float[] x2, float[] y2, float[] scores, int[] classes, int n,
+                             double iouThreshold, double scoreThreshold, int topK, NonMaxSuppressionStep.Method method, double sigma){
+        long[] order = sortedByScore(scores, n, scoreThreshold);
+        int m = order.length;
+        int[] remaining = new int[m];
+        float[] areas = new float[n];
+        for( int c=0; c<m; c++ ){
+            int i = (int) order[c];
+            remaining[c] = i;
+            areas[i] = (x2[i] - x1[i]) * (y2[i] - y1[i]);
+        }
+
+        int maxKeep = topK < 0 ? m : Math.min(topK, m);
+        int[] keep = new int[maxKeep];
+        int numKeep = 0;
+        while(m > 0 && numKeep < maxKeep){
+            //Select the highest (decayed) score
+            int best = 0;
+            for( int c=1; c<m; c++ ){
+                if(scores[remaining[c]] > scores[remaining[best]])
+                    best = c;
+            }
+            int i = remaining[best];
+            keep[numKeep++] = i;
+            remaining[best] = remaining[--m];
+
+            //Decay the scores of overlapping boxes, and remove those that drop below the threshold
+            int c = 0;
+            while(c < m){
+                int j = remaining[c];
+                if(classes == null || classes[i] == classes[j]){
+                    double iou = iou(x1, y1, x2, y2, areas, i, j);
+                    if(method == NonMaxSuppressionStep.Method.GAUSSIAN){
+                        scores[j] *= (float) Math.exp(-iou * iou / sigma);
+                    } else if(iou > iouThreshold){
+                        scores[j] *= (float) (1.0 - iou);
+                    }
+                    if(scores[j] < scoreThreshold){
+                        remaining[c] = remaining[--m];
+                        continue;
+                    }
+                }
+                c++;
+            }
+        }
+
+        return numKeep == keep.length ? keep : Arrays.copyOf(keep, numKeep);
+    }
+
+    /**
+     * @return The indices of the boxes with score >= threshold, in order of decreasing score (and increasing index for
+     * equal scores), in the lower 32 bits of each value
+     */
+    protected static long[] sortedByScore(float[] scores, int n, double threshold){
+        long[] order = new long[n];
+        int m = 0;
+        for( int i=0; i<n; i++ ){
+            if(scores[i] >= threshold){
+                //Map the float bits to an int with the same order, then negate it for descending order
+                int bits = Float.floatToIntBits(scores[i]);
+                bits ^= (bits >> 31) & 0x7FFFFFFF;
+                order[m++] = ((long) ~bits << 32) | i;
+            }
+        }
+        order = m == n ? order : Arrays.copyOf(order, m);
+        Arrays.sort(order);
+        return order;
+    }
+
+    protected static int cell(float v, float min, float cellSize, int g){
+        int c = (int) ((v - min) / cellSize);
+        return c < 0 ? 0 : (c >= g ? g - 1 : c);
+    }
+
+    protected static double iou(float[] x1, float[] y1, float[] x2, float[] y2, float[] areas, int i, int j){
+        float w = Math.min(x2[i], x2[j]) - Math.max(x1[i], x1[j]);
+        float h = Math.min(y2[i], y2[j]) - Math.max(y1[i], y1[j]);
+        if(w <= 0 || h <= 0)
+            return 0.0;
+        double inter = (double) w * h;
+        double union = areas[i] + areas[j] - inter;
+        return union <= 0 ? 0.0 : inter / union;
+    }
+}
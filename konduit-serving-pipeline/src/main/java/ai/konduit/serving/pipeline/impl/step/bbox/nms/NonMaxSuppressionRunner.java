@@ -0,0 +1,81 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package ai.konduit.serving.pipeline.impl.step.bbox.nms;
+
+import ai.konduit.serving.annotation.runner.CanRun;
+import ai.konduit.serving.pipeline.api.context.Context;
+import ai.konduit.serving.pipeline.api.data.BoundingBox;
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.ValueType;
+import ai.konduit.serving.pipeline.api.step.PipelineStep;
+import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
+import ai.konduit.serving.pipeline.util.DataUtils;
+import lombok.NonNull;
+import org.nd4j.common.base.Preconditions;
+
+import java.util.List;
+
+@CanRun(NonMaxSuppressionStep.class)
+public class NonMaxSuppressionRunner implements PipelineStepRunner {
+
+    protected final NonMaxSuppressionStep step;
+
+    public NonMaxSuppressionRunner(@NonNull NonMaxSuppressionStep step){
+        Preconditions.checkState(step.iouThreshold() >= 0.0 && step.iouThreshold() <= 1.0,
+                "NonMaxSuppressionStep: iouThreshold must be between 0.0 and 1.0, got %s", step.iouThreshold());
+        Preconditions.checkState(step.method() != NonMaxSuppressionStep.Method.GAUSSIAN || step.sigma() > 0.0,
+                "NonMaxSuppressionStep: sigma must be positive for GAUSSIAN soft-NMS, got %s", step.sigma());
+        this.step = step;
+    }
+
+    @Override
+    public void close() {
+        //No op
+    }
+
+    @Override
+    public PipelineStep getPipelineStep() {
+        return step;
+    }
+
+    @Override
+    public Data exec(Context ctx, Data data) {
+        String inputName = step.inputName();
+        if(inputName == null){
+            String errMultipleKeys = "Bounding box field name was not provided and could not be inferred: multiple List<BoundingBox> fields exist: %s and %s";
+            String errNoKeys = "Bounding box field name was not provided and could not be inferred: no List<BoundingBox> fields exist";
+            inputName = DataUtils.inferField(data, ValueType.BOUNDING_BOX, true, errMultipleKeys, errNoKeys);
+        }
+
+        Preconditions.checkState(data.type(inputName) == ValueType.LIST && data.listType(inputName) == ValueType.BOUNDING_BOX,
+                "Data[%s] is not a List<BoundingBox>", inputName);
+
+        List<BoundingBox> out = NonMaxSuppression.apply(data.getListBoundingBox(inputName), step);
+
+        String outName = step.outputName() == null ? inputName : step.outputName();
+        Data d = Data.singletonList(outName, out, ValueType.BOUNDING_BOX);
+        if(step.keepOtherValues()){
+            for(String s : data.keys()){
+                if(!inputName.equals(s) && !outName.equals(s)){
+                    d.copyFrom(s, data);
+                }
+            }
+        }
+        return d;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.impl.step.bbox.nms;
+
+import ai.konduit.serving.annotation.json.JsonName;
+import ai.konduit.serving.pipeline.api.step.PipelineStep;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * Non-max suppression for a {@code List<BoundingBox>}, such as the output of {@code YoloToBoundingBoxStep}
+ * or {@code SSDToBoundingBoxStep}.<br>
+ * Boxes are processed in order of decreasing probability; a box is removed (HARD) or has its probability decayed
+ * (LINEAR/GAUSSIAN, i.e., soft-NMS) if its intersection over union (IoU) with an already selected box is larger than
+ * iouThreshold. If classAware is true, only boxes with the same label suppress each other.<br>
+ * The output boxes are sorted by decreasing probability. See {@link NonMaxSuppression} for the implementation.
+ */
+@Data
+@Accessors(fluent = true)
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonName("NMS")
+@Schema(description = "A pipeline step that applies non-max suppression to a list of bounding boxes, removing (or for " +
+        "soft-NMS, decaying the probability of) boxes that overlap with higher probability boxes.")
+public class NonMaxSuppressionStep implements PipelineStep {
+
+    public enum Method {HARD, LINEAR, GAUSSIAN}
+
+    @Schema(description = "Name of the input List<BoundingBox> - optional. If not set, the input is inferred (assuming a " +
+            "single List<BoundingBox> exists in the input)")
+    protected String inputName;
+
+    @Schema(description = "Output key name for the List<BoundingBox> after non-max suppression - optional. If not set, " +
+            "the input name is used (i.e., the input boxes are replaced)")
+    protected String outputName;
+
+    @Schema(description = "Intersection over union threshold: a box that overlaps with a higher probability box by more " +
+            "than this is suppressed.",
+            defaultValue = "0.5")
+    protected double iouThreshold = 0.5;
+
+    @Schema(description = "Boxes with probability (after any soft-NMS decay) below this value are removed.",
+            defaultValue = "0.0")
+    protected double scoreThreshold = 0.0;
+
+    @Schema(description = "Optional - maximum number of boxes to return. If not set: all boxes that are not suppressed are returned.")
+    protected Integer topK;
+
+    @Schema(description = "If true: only boxes with the same label suppress each other. If false: boxes suppress each " +
+            "other regardless of their labels.",
+            defaultValue = "true")
+    protected boolean classAware = true;
+
+    @Schema(description = "The suppression method. HARD: overlapping boxes are removed. LINEAR: soft-NMS, the probability " +
+            "of an overlapping box is multiplied by (1 - IoU). GAUSSIAN: soft-NMS, the probability of an overlapping box " +
+            "is multiplied by exp(-IoU^2 / sigma), for all overlapping boxes regardless of iouThreshold.",
+            defaultValue = "HARD")
+    protected Method method = Method.HARD;
+
+    @Schema(description = "Sigma for GAUSSIAN soft-NMS.",
+            defaultValue = "0.5")
+    protected double sigma = 0.5;
+
+    @Schema(description = "If true, other data key and values from the previous step are kept and passed on to the next step as well.",
+            defaultValue = "true")
+    protected boolean keepOtherValues = true;
+
+}
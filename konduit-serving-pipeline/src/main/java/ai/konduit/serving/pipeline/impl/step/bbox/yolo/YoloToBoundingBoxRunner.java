@@ -26,13 +26,14 @@ import ai.konduit.serving.pipeline.api.data.NDArray;
 import ai.konduit.serving.pipeline.api.data.ValueType;
 import ai.konduit.serving.pipeline.api.step.PipelineStep;
 import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
-import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
+import ai.konduit.serving.pipeline.impl.step.bbox.nms.NonMaxSuppression;
+import ai.konduit.serving.pipeline.impl.step.bbox.nms.NonMaxSuppressionStep;
 import ai.konduit.serving.pipeline.util.DataUtils;
 import ai.konduit.serving.pipeline.util.NDArrayUtils;
 import lombok.AllArgsConstructor;
 import org.nd4j.common.base.Preconditions;
 
-import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -67,7 +68,7 @@ public class YoloToBoundingBoxRunner implements PipelineStepRunner {
         }
 
         NDArray arr = data.getNDArray(input);
-        Preconditions.checkState(arr.rank() == 4, "YoloToBoundingBoxStep: Data field \"%s\" is NDArray but must be rank 4. Got array with rank %s,shape %s", arr.rank(), arr.shape());
+        Preconditions.checkState(arr.rank() == 4, "YoloToBoundingBoxStep: Data field \"%s\" is NDArray but must be rank 4. Got array with rank %s, shape %s", input, arr.rank(), arr.shape());
 
         Preconditions.checkState(step.numClasses() != null || step.classLabels() != null, "YoloToBoundingBoxStep: either numClasses" +
                 " field or classLabels field must be set");
@@ -75,40 +76,43 @@ public class YoloToBoundingBoxRunner implements PipelineStepRunner {
         int numClasses = step.numClasses() != null ? step.numClasses() : step.classLabels().size();
         Preconditions.checkState(numClasses > 0, "YoloToBoundingboxStep: Number of classes must be > 0");
 
-        if(!step.nchw()){
-            arr = NDArray.create(NDArrayUtils.nhwcToNchw(arr.getAs(float[][][][].class)));
-        }
-
-        //Activation have format: [mb, B*(5+C), H, W]
+        //Activations have format [mb, B*(5+C), H, W] (NCHW) or [mb, H, W, B*(5+C)] (NHWC)
+        //We read them in place, from a flat buffer: offset(i, box, k, y, x) = exampleOffset + cellOffset + (box*(5+C) + k) * channelStride
+        boolean nchw = step.nchw();
         long n = arr.size(0);
-        long b5c = arr.size(1);
-        long h = arr.size(2);
-        long w = arr.size(3);
+        long b5c = nchw ? arr.size(1) : arr.size(3);
+        int h = (int) (nchw ? arr.size(2) : arr.size(1));
+        int w = (int) (nchw ? arr.size(3) : arr.size(2));
 
         int b = (int) (b5c / (numClasses + 5));
         int c = (int) (b5c / b - 5);
+        int boxStride = 5 + c;
+        int channelStride = nchw ? h * w : 1;
 
-        //Reshape to [mb, B, 5+C, H, W]
-        SerializedNDArray sa = arr.getAs(SerializedNDArray.class);
-        ByteBuffer bb = sa.getBuffer();
-        SerializedNDArray sa5 = new SerializedNDArray(sa.getType(), new long[]{n, b, 5 + c, h, w}, bb);
-        float[][][][][] f5 = NDArray.create(sa5).getAs(float[][][][][].class);
-
+        FloatBuffer fb = NDArrayUtils.flatFloatBuffer(arr);
+        double threshold = step.threshold();
         List<String> classLabels = step.classLabels();
 
         List<BoundingBox> out = new ArrayList<>();
+        List<BoundingBox> exampleBoxes = new ArrayList<>();
         for( int i = 0; i < n; i++ ) {
+            exampleBoxes.clear();
+            int exampleOffset = (int) (i * b5c * h * w);
             for (int x = 0; x < w; x++) {
                 for (int y = 0; y < h; y++) {
+                    int cellOffset = exampleOffset + (nchw ? y * w + x : (int) ((y * w + x) * b5c));
                     for (int box = 0; box < b; box++) {
-                        float conf = f5[i][box][4][y][x];
-                        if(conf < step.threshold())
+                        int boxOffset = cellOffset + box * boxStride * channelStride;
+
+                        //Check the confidence first: most boxes are below the threshold
+                        float conf = fb.get(boxOffset + 4 * channelStride);
+                        if(conf < threshold)
                             continue;
 
-                        float px = f5[i][box][0][y][x]; //Originally: in 0 to 1 in grid cell
-                        float py = f5[i][box][1][y][x]; //Originally: in 0 to 1 in grid cell
-                        float pw = f5[i][box][2][y][x]; //In grid units (for example, 0 to 13)
-                        float ph = f5[i][box][3][y][x]; //In grid units (for example, 0 to 13)
+                        float px = fb.get(boxOffset);                       //Originally: in 0 to 1 in grid cell
+                        float py = fb.get(boxOffset + channelStride);       //Originally: in 0 to 1 in grid cell
+                        float pw = fb.get(boxOffset + 2 * channelStride);   //In grid units (for example, 0 to 13)
+                        float ph = fb.get(boxOffset + 3 * channelStride);   //In grid units (for example, 0 to 13)
 
                         //Convert the "position in grid cell" to "position in image (in grid cell units)"
                         px += x;
@@ -117,8 +121,9 @@ public class YoloToBoundingBoxRunner implements PipelineStepRunner {
                         //Probabilities
                         float prob = 0.0f;
                         int pIdx = 0;
+                        int classOffset = boxOffset + 5 * channelStride;
                         for( int cl=0; cl < c; cl++) {
-                            float f = f5[i][box][5+cl][y][x];
+                            float f = fb.get(classOffset + cl * channelStride);
                             if(f > prob){
                                 prob = f;
                                 pIdx = cl;
@@ -132,10 +137,18 @@ public class YoloToBoundingBoxRunner implements PipelineStepRunner {
                             lbl = classLabels.get(pIdx);
                         }
 
-                        out.add(BoundingBox.create(px/w, py/h, ph/h, pw/w, lbl, (double)prob));
+                        exampleBoxes.add(BoundingBox.create(px/w, py/h, ph/h, pw/w, lbl, (double)prob));
                     }
                 }
             }
+
+            //Optional non-max suppression within each example, between boxes of the same class
+            if(step.nmsThreshold() == null) {
+                out.addAll(exampleBoxes);
+            } else {
+                out.addAll(NonMaxSuppression.apply(exampleBoxes, step.nmsThreshold(), 0.0, -1, true,
+                        NonMaxSuppressionStep.Method.HARD, 0.0));
+            }
         }
 
         Data dOut;
@@ -89,8 +89,10 @@ public class YoloToBoundingBoxStep implements PipelineStep {
     @Schema(description = "The threshold, in range 0.0 to 1.0. Any boxes with object confidence less than this will be ignored")
     protected double threshold = 0.5;
 
-    @Schema(description = "Non-max suppression threshold to use, to filter closely overlapping objects")
-    protected double nmsThreshold = 0.5;
+    @Schema(description = "Optional non-max suppression threshold, to filter closely overlapping objects: if set, a box is " +
+            "removed if its intersection over union with a higher probability box of the same class is larger than this, " +
+            "and the boxes are returned in order of decreasing probability. If not set, no non-max suppression is applied")
+    protected Double nmsThreshold = null;
 
     @Schema(description = "Number of classes. Not required if classLabels are provided")
     protected Integer numClasses;
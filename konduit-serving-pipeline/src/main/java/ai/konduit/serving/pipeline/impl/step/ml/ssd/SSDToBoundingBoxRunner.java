@@ -26,12 +26,16 @@ import ai.konduit.serving.pipeline.api.data.NDArray;
 import ai.konduit.serving.pipeline.api.data.ValueType;
 import ai.konduit.serving.pipeline.api.step.PipelineStep;
 import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
+import ai.konduit.serving.pipeline.impl.step.bbox.nms.NonMaxSuppression;
+import ai.konduit.serving.pipeline.impl.step.bbox.nms.NonMaxSuppressionStep;
+import ai.konduit.serving.pipeline.util.NDArrayUtils;
 import io.micrometer.core.instrument.util.IOUtils;
 import lombok.AllArgsConstructor;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.math3.exception.OutOfRangeException;
 
 import java.io.InputStream;
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -58,128 +62,84 @@ public class SSDToBoundingBoxRunner implements PipelineStepRunner {
         double threshold = step.threshold();
         String key = "detection_boxes";     //TODO
         String prob = "detection_scores";
+        String labels = "detection_classes";
+
+        //Read the first example in place from flat buffers: boxes have shape [batch, num, 4], scores and classes [batch, num]
         NDArray bND = data.getNDArray(key);
         NDArray pND = data.getNDArray(prob);
-        float[][][] bArr = bND.getAs(float[][][].class);        //Batch, num, xy
-        float[][] pArr = pND.getAs(float[][].class);            //Batch, num
-
-        if (step.classLabels != null) {
-
-
-            String labels = "detection_classes";
-            NDArray lND = data.getNDArray(labels);
-            float[][] lArr = lND.getAs(float[][].class);
-
-            List<BoundingBox> l = new ArrayList<>();
-            for (int i = 0; i < bArr[0].length; i++) {
-                //SSD order usually: [y1, x1, y2, x2]
-                double y1 = bArr[0][i][0];
-                double x1 = bArr[0][i][1];
-                double y2 = bArr[0][i][2];
-                double x2 = bArr[0][i][3];
-                double p = pArr[0][i];
-
-                if(p < threshold)
-                    continue;
-
-                if(step.aspectRatio() != null){
-                    double[] d = adjustAspect(x1, x2, y1, y2, step.aspectRatio());
-                    x1 = d[0];
-                    x2 = d[1];
-                    y1 = d[2];
-                    y2 = d[3];
-                }
-
-                if(step.scale() != null && step.scale() != 1.0){
-                    double s = step.scale();
-                    double cx = (x1+x2) / 2.0;
-                    double cy = (y1+y2) / 2.0;
-                    x1 = cx - (cx-x1) * s;
-                    x2 = cx + (x2-cx) * s;
-                    y1 = cy - (cy-y1) * s;
-                    y2 = cy + (y2-cy) * s;
-                }
-
-
-                float label = lArr[0][i];
-                if (step.classLabels.size() > 0 && (int) label > step.classLabels.size()) {
-                    throw new ArrayIndexOutOfBoundsException(String.format("Predicted label index was %s but only %s labels were provided", (int) label, step.classLabels.size()));
-                }
-
-                l.add(BoundingBox.createXY(x1, x2, y1, y2, !step.classLabels.isEmpty() ? step.classLabels.get((int) label - 1) : "no label provided", p));
+        int num = (int) pND.size(1);
+        FloatBuffer bBuf = NDArrayUtils.flatFloatBuffer(bND);
+        FloatBuffer pBuf = NDArrayUtils.flatFloatBuffer(pND);
+
+        List<String> classLabels = step.classLabels();
+        FloatBuffer lBuf = classLabels == null ? null : NDArrayUtils.flatFloatBuffer(data.getNDArray(labels));
+
+        List<BoundingBox> l = new ArrayList<>();
+        for (int i = 0; i < num; i++) {
+            //Check the score first: most detections are usually below the threshold
+            double p = pBuf.get(i);
+            if(p < threshold)
+                continue;
+
+            //SSD order usually: [y1, x1, y2, x2]
+            double y1 = bBuf.get(4 * i);
+            double x1 = bBuf.get(4 * i + 1);
+            double y2 = bBuf.get(4 * i + 2);
+            double x2 = bBuf.get(4 * i + 3);
+
+            if(step.aspectRatio() != null){
+                double[] d = adjustAspect(x1, x2, y1, y2, step.aspectRatio());
+                x1 = d[0];
+                x2 = d[1];
+                y1 = d[2];
+                y2 = d[3];
             }
 
-            //TODO copy other data to output
-
-            String outName = step.outputName();
-            if (outName == null)
-                outName = SSDToBoundingBoxStep.DEFAULT_OUTPUT_NAME;
-
-            Data d = Data.singletonList(outName, l, ValueType.BOUNDING_BOX);
-
-            if (step.keepOtherValues()) {
-                for (String s : data.keys()) {
-                    if (!key.equals(s) && !prob.equals(s)) {
-                        d.copyFrom(s, data);
-                    }
-                }
+            if(step.scale() != null && step.scale() != 1.0){
+                double s = step.scale();
+                double cx = (x1+x2) / 2.0;
+                double cy = (y1+y2) / 2.0;
+                x1 = cx - (cx-x1) * s;
+                x2 = cx + (x2-cx) * s;
+                y1 = cy - (cy-y1) * s;
+                y2 = cy + (y2-cy) * s;
             }
 
-            return d;
-        } else {
-
-            List<BoundingBox> l = new ArrayList<>();
-            for (int i = 0; i < bArr[0].length; i++) {
-                //SSD order usually: [y1, x1, y2, x2]
-                double y1 = bArr[0][i][0];
-                double x1 = bArr[0][i][1];
-                double y2 = bArr[0][i][2];
-                double x2 = bArr[0][i][3];
-                double p = pArr[0][i];
-
-                if(p < threshold)
-                    continue;
-
-                if(step.aspectRatio() != null){
-                    double[] d = adjustAspect(x1, x2, y1, y2, step.aspectRatio());
-                    x1 = d[0];
-                    x2 = d[1];
-                    y1 = d[2];
-                    y2 = d[3];
-                }
-
-
-                if(step.scale() != null && step.scale() != 1.0){
-                    double s = step.scale();
-                    double cx = (x1+x2) / 2.0;
-                    double cy = (y1+y2) / 2.0;
-                    x1 = cx - (cx-x1) * s;
-                    x2 = cx + (x2-cx) * s;
-                    y1 = cy - (cy-y1) * s;
-                    y2 = cy + (y2-cy) * s;
+            String lbl = null;
+            if(lBuf != null){
+                float label = lBuf.get(i);
+                if (classLabels.size() > 0 && (int) label > classLabels.size()) {
+                    throw new ArrayIndexOutOfBoundsException(String.format("Predicted label index was %s but only %s labels were provided", (int) label, classLabels.size()));
                 }
-
-                l.add(BoundingBox.createXY(x1, x2, y1, y2, null, p));
+                lbl = !classLabels.isEmpty() ? classLabels.get((int) label - 1) : "no label provided";
             }
 
-            //TODO copy other data to output
+            l.add(BoundingBox.createXY(x1, x2, y1, y2, lbl, p));
+        }
+
+        l = nms(l);
 
-            String outName = step.outputName();
-            if (outName == null)
-                outName = SSDToBoundingBoxStep.DEFAULT_OUTPUT_NAME;
+        String outName = step.outputName();
+        if (outName == null)
+            outName = SSDToBoundingBoxStep.DEFAULT_OUTPUT_NAME;
 
-            Data d = Data.singletonList(outName, l, ValueType.BOUNDING_BOX);
+        Data d = Data.singletonList(outName, l, ValueType.BOUNDING_BOX);
 
-            if (step.keepOtherValues()) {
-                for (String s : data.keys()) {
-                    if (!key.equals(s) && !prob.equals(s)) {
-                        d.copyFrom(s, data);
-                    }
+        if (step.keepOtherValues()) {
+            for (String s : data.keys()) {
+                if (!key.equals(s) && !prob.equals(s)) {
+                    d.copyFrom(s, data);
                 }
             }
-
-            return d;
         }
+
+        return d;
+    }
+
+    protected List<BoundingBox> nms(List<BoundingBox> l){
+        if(step.nmsThreshold() == null)
+            return l;
+        return NonMaxSuppression.apply(l, step.nmsThreshold(), 0.0, -1, true, NonMaxSuppressionStep.Method.HARD, 0.0);
     }
 
     protected double[] adjustAspect(double x1, double x2, double y1, double y2, double aspect){
@@ -42,6 +42,9 @@ import java.util.List;
  *     will be increased; the other dimension will not change. That is, the pre-aspect-ratio-corrected box will be contained
  *     fully within the output box
  *     </li>
+ *     <li><b>nmsThreshold</b>: An optional intersection over union threshold for non-max suppression between boxes of
+ *     the same class. Applied after scale and aspect ratio adjustment. See {@code NonMaxSuppressionStep} for more
+ *     options</li>
  * </ul>
  *
  */
@@ -92,6 +95,10 @@ public class SSDToBoundingBoxStep implements PipelineStep {
             defaultValue = DEFAULT_OUTPUT_NAME)
     protected String outputName = DEFAULT_OUTPUT_NAME;
 
+    @Schema(description = "Optional non-max suppression threshold: if set, a box is removed if its intersection over union " +
+            "with a higher probability box of the same class is larger than this. If not set, no non-max suppression is applied")
+    protected Double nmsThreshold = null;
+
     @Tolerate
     public SSDToBoundingBoxStep classLabels(String... classLabels) {
         return this.classLabels(Arrays.asList(classLabels));
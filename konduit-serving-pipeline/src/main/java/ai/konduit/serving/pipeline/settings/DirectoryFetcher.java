@@ -139,6 +139,20 @@ public class DirectoryFetcher {
         );
     }
 
+    /**
+     * Creates the model cache directory if missing and fetches it.
+     * @return konduit-serving model cache directory
+     */
+    public static File getModelCacheDir() {
+        return createAndValidateDirectory(
+                KonduitSettings.fetchValueBasedOnPriority(
+                        System.getenv(EnvironmentConstants.MODEL_CACHE_DIR),
+                        System.getProperty(PropertiesConstants.MODEL_CACHE_DIR),
+                        getDefaultModelCacheDir()
+                )
+        );
+    }
+
     /**
      * Returns user home directory
      * @return user home directory
@@ -195,6 +209,14 @@ public class DirectoryFetcher {
         return createAndValidateDirectory(new File(getWorkingDir(), Constants.DEFAULT_COMMAND_LOGS_DIR_NAME)).getAbsolutePath();
     }
 
+    /**
+     * Creates the default model cache directory if missing and fetches it.
+     * @return konduit-serving default model cache directory absolute path.
+     */
+    public static String getDefaultModelCacheDir() {
+        return createAndValidateDirectory(new File(getWorkingDir(), Constants.DEFAULT_MODEL_CACHE_DIR_NAME)).getAbsolutePath();
+    }
+
     /**
      * Creates the default file upload directory if missing and fetches it.
      * @return konduit-serving default file upload directory absolute path.
@@ -69,6 +69,11 @@ public class Constants {
      */
     public static final String DEFAULT_SERVERS_DATA_DIR_NAME = "servers";
 
+    /**
+     * Default directory name for the cached optimized/resolved model artifacts.
+     */
+    public static final String DEFAULT_MODEL_CACHE_DIR_NAME = "model_cache";
+
     /**
      * Name of the log file which contains the logging data for the {@code /logs}
      * endpoint.
@@ -73,6 +73,11 @@ public class EnvironmentConstants {
      */
     public static final String FILE_UPLOADS_DIR = "KONDUIT_FILE_UPLOADS_DIR";
 
+    /**
+     * Sets the directory where optimized/resolved model artifacts are cached between server restarts
+     */
+    public static final String MODEL_CACHE_DIR = "KONDUIT_MODEL_CACHE_DIR";
+
     public static final String START_HTTP_SERVER_FOR_KAFKA = "KONDUIT_START_HTTP_SERVER_FOR_KAFKA";
 
     public static final String HTTP_KAFKA_HOST = "KONDUIT_HTTP_KAFKA_HOST";
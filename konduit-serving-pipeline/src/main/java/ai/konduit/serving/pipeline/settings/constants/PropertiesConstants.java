@@ -67,6 +67,11 @@ public class PropertiesConstants {
      */
     public static final String FILE_UPLOADS_DIR = "konduit.file.uploads.dir";
 
+    /**
+     * Sets the directory where optimized/resolved model artifacts are cached between server restarts
+     */
+    public static final String MODEL_CACHE_DIR = "konduit.model.cache.dir";
+
     public static final String START_HTTP_SERVER_FOR_KAFKA = "konduit.start.http.server.for.kafka";
 
     public static final String HTTP_KAFKA_HOST = "konduit.http.kafka.host";
@@ -0,0 +1,172 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.util;
+
+import ai.konduit.serving.pipeline.settings.DirectoryFetcher;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+
+/**
+ * Utilities for caching artifacts derived from a model file (optimized models, resolved model formats, etc.) in the
+ * model cache directory ({@link DirectoryFetcher#getModelCacheDir()}), so that they can be reused across server
+ * restarts and by other servers sharing the same cache directory.<br>
+ * Entries are keyed by the SHA-256 hash of the model file contents and the options that affect the cached artifact.
+ * The content hash of a model file is itself cached (by path, size and last modified time - see
+ * {@link #contentHash(File)}), so that large models aren't read in full on every start.
+ */
+@Slf4j
+public class ModelCacheUtils {
+
+    /**
+     * Files modified less than this long ago don't get their content hash cached, as a later modification within the
+     * file system's timestamp granularity wouldn't change the last modified time
+     */
+    private static final long MIN_FILE_AGE_MS = 2000;
+
+    private ModelCacheUtils(){ }
+
+    /**
+     * @param modelFile The model file
+     * @param options   Any options that affect the cached artifact (optimization levels, library versions, platform...)
+     * @return A cache key for the given model file contents and options
+     */
+    public static String cacheKey(@NonNull File modelFile, String... options) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update(contentHash(modelFile).getBytes(StandardCharsets.UTF_8));
+
+        for (String option : options) {
+            digest.update((byte) 0);
+            digest.update(String.valueOf(option).getBytes(StandardCharsets.UTF_8));
+        }
+
+        return toHex(digest.digest());
+    }
+
+    /**
+     * @return The SHA-256 hash (hex) of the file contents. The hash is stored in the model cache directory along with
+     * the file's size and last modified time, and is only computed again (reading the whole file) if either of them
+     * changed.
+     */
+    public static String contentHash(@NonNull File file) throws IOException {
+        File canonicalFile = file.getCanonicalFile();
+        String pathHash = toHex(sha256().digest(canonicalFile.getPath().getBytes(StandardCharsets.UTF_8)));
+        File hashFile = new File(DirectoryFetcher.createAndValidateDirectory(
+                new File(DirectoryFetcher.getModelCacheDir(), "hashes")), pathHash);
+
+        long size = canonicalFile.length();
+        long lastModified = canonicalFile.lastModified();
+        String prefix = size + " " + lastModified + " ";
+        if (hashFile.exists()) {
+            try {
+                String entry = new String(Files.readAllBytes(hashFile.toPath()), StandardCharsets.UTF_8).trim();
+                if (entry.startsWith(prefix) && entry.length() == prefix.length() + 64) {
+                    return entry.substring(prefix.length());
+                }
+            } catch (IOException e) {
+                log.debug("Unable to read cached content hash for {}", canonicalFile.getPath(), e);
+            }
+        }
+
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[1024 * 1024];
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(canonicalFile))) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        String hash = toHex(digest.digest());
+
+        if (System.currentTimeMillis() - lastModified >= MIN_FILE_AGE_MS &&
+                canonicalFile.length() == size && canonicalFile.lastModified() == lastModified) {
+            File temp = tempFileFor(hashFile);
+            try {
+                Files.write(temp.toPath(), (prefix + hash).getBytes(StandardCharsets.UTF_8));
+                commit(temp, hashFile);
+            } catch (IOException e) {
+                log.debug("Unable to cache content hash for {}", canonicalFile.getPath(), e);
+                org.apache.commons.io.FileUtils.deleteQuietly(temp);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @param type The type of the cached artifacts - for example "onnx" or "tensorflow"
+     * @param key  The cache key - see {@link #cacheKey(File, String...)}
+     * @return The cache directory for the given type and key. The directory is created if it doesn't exist.
+     */
+    public static File getCacheDir(@NonNull String type, @NonNull String key) {
+        return DirectoryFetcher.createAndValidateDirectory(new File(new File(DirectoryFetcher.getModelCacheDir(), type), key));
+    }
+
+    /**
+     * @return A temporary file next to the given target file, to be written and then moved with
+     * {@link #commit(File, File)}, so that concurrently starting servers never see a partially written artifact.
+     */
+    public static File tempFileFor(@NonNull File target) {
+        return new File(target.getParentFile(), target.getName() + ".tmp-" + UUID.randomUUID().toString());
+    }
+
+    /**
+     * Atomically (where supported by the file system) move the written temporary file (or directory) to the target
+     * location. If the move fails - for example because another process created the entry in the meantime - the
+     * temporary file is deleted.
+     *
+     * @return true if the target file now exists
+     */
+    public static boolean commit(@NonNull File temp, @NonNull File target) {
+        try {
+            try {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException atomicMoveFailure) {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            log.warn("Unable to write model cache entry {}", target.getAbsolutePath(), e);
+            org.apache.commons.io.FileUtils.deleteQuietly(temp);
+            return target.exists();
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported on this JVM", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
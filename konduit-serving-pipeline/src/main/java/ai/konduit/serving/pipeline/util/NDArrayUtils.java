@@ -20,6 +20,11 @@ package ai.konduit.serving.pipeline.util;
 
 import ai.konduit.serving.pipeline.api.data.NDArray;
 import ai.konduit.serving.pipeline.api.data.NDArrayType;
+import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
+import org.nd4j.common.base.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 
 public class NDArrayUtils {
 
@@ -117,4 +122,20 @@ public class NDArrayUtils {
 
         return nchw;
     }
+
+    /**
+     * Get a flat (row major, C order) view of a float NDArray, without creating nested Java arrays.<br>
+     * Elements should be read using absolute indexing - i.e., {@code fb.get(idx)}. The returned buffer shares its
+     * memory with the array's serialized form, so it should not be modified.
+     * @param arr Float NDArray
+     * @return Float buffer view of the array
+     */
+    public static FloatBuffer flatFloatBuffer(NDArray arr){
+        SerializedNDArray sa = arr.getAs(SerializedNDArray.class);
+        Preconditions.checkState(sa.getType() == NDArrayType.FLOAT, "Only FLOAT arrays are supported, got array of type %s", sa.getType());
+        //duplicate() does not keep the byte order, so copy it from the original buffer (as the SerializedNDArray converters use it)
+        ByteBuffer bb = sa.getBuffer().duplicate().order(sa.getBuffer().order());
+        bb.position(0);
+        return bb.asFloatBuffer();
+    }
 }
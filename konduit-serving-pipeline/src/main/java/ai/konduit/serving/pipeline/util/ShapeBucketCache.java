@@ -0,0 +1,167 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.util;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A least recently used cache of per input shape state for model runners - for example pre-allocated buffers or
+ * backend execution plans - keyed by the shape signature of the inputs (see {@link #signature(long[]...)}).<br>
+ * At most {@code maxBuckets} entries are kept. When an entry is evicted (or the cache is cleared), its value is
+ * closed if it implements {@link AutoCloseable}.<br>
+ * Requests can be padded up to the nearest configured batch size (see {@link #bucketSize(long, List)}) so that a
+ * handful of buckets serve all the batch sizes seen in practice.
+ *
+ * @param <V> Type of the per shape state
+ */
+@Slf4j
+public class ShapeBucketCache<V> {
+
+    private final int maxBuckets;
+    private final LinkedHashMap<String, V> buckets;
+
+    /**
+     * @param maxBuckets Maximum number of shape buckets to keep. Must be positive
+     */
+    public ShapeBucketCache(int maxBuckets) {
+        if (maxBuckets <= 0) {
+            throw new IllegalArgumentException("Maximum number of shape buckets must be positive, got " + maxBuckets);
+        }
+        this.maxBuckets = maxBuckets;
+        this.buckets = new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                if (size() > ShapeBucketCache.this.maxBuckets) {
+                    log.debug("Evicting shape bucket {}", eldest.getKey());
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return The value for the given shape signature, or null if there's none. Marks the entry as recently used.
+     */
+    public synchronized V get(@NonNull String signature) {
+        return buckets.get(signature);
+    }
+
+    /**
+     * @return The value for the given shape signature, creating (and caching) it with the given function if there's
+     * none - possibly evicting the least recently used bucket.
+     */
+    public synchronized V computeIfAbsent(@NonNull String signature, @NonNull Function<String, V> create) {
+        V value = buckets.get(signature);
+        if (value == null) {
+            value = create.apply(signature);
+            if (value != null) {
+                buckets.put(signature, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Set the value for the given shape signature, closing the previous value, if any.
+     */
+    public synchronized void put(@NonNull String signature, @NonNull V value) {
+        V previous = buckets.put(signature, value);
+        if (previous != null && previous != value) {
+            closeQuietly(previous);
+        }
+    }
+
+    public synchronized int size() {
+        return buckets.size();
+    }
+
+    public int maxBuckets() {
+        return maxBuckets;
+    }
+
+    /**
+     * Remove and close all the cached values.
+     */
+    public synchronized void clear() {
+        for (V value : buckets.values()) {
+            closeQuietly(value);
+        }
+        buckets.clear();
+    }
+
+    /**
+     * @return A signature for the given input shapes, for use as a cache key - for example "[1,3,224,224];[1,10]"
+     */
+    public static String signature(@NonNull long[]... shapes) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < shapes.length; i++) {
+            if (i > 0) {
+                sb.append(';');
+            }
+            sb.append('[');
+            long[] shape = shapes[i];
+            for (int j = 0; j < shape.length; j++) {
+                if (j > 0) {
+                    sb.append(',');
+                }
+                sb.append(shape[j]);
+            }
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param size    The actual size - usually the batch size of a request
+     * @param buckets The bucket sizes to pad up to. May be null or empty, and doesn't need to be sorted
+     * @return The smallest bucket size that is greater than or equal to the given size, or the size itself if there's
+     * no such bucket (in which case no padding should be done)
+     */
+    public static long bucketSize(long size, List<Integer> buckets) {
+        if (buckets == null) {
+            return size;
+        }
+
+        long best = Long.MAX_VALUE;
+        for (Integer bucket : buckets) {
+            if (bucket != null && bucket >= size && bucket < best) {
+                best = bucket;
+            }
+        }
+        return best == Long.MAX_VALUE ? size : best;
+    }
+
+    private static void closeQuietly(Object value) {
+        if (value instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) value).close();
+            } catch (Exception e) {
+                log.warn("Error closing evicted shape bucket", e);
+            }
+        }
+    }
+}
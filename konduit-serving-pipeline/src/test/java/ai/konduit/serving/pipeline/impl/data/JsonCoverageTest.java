@@ -29,6 +29,7 @@ import ai.konduit.serving.pipeline.impl.pipeline.graph.switchfn.DataStringSwitch
 import ai.konduit.serving.pipeline.impl.pipeline.loop.SimpleLoopTrigger;
 import ai.konduit.serving.pipeline.impl.pipeline.loop.TimeLoopTrigger;
 import ai.konduit.serving.pipeline.impl.step.bbox.filter.BoundingBoxFilterStep;
+import ai.konduit.serving.pipeline.impl.step.bbox.nms.NonMaxSuppressionStep;
 import ai.konduit.serving.pipeline.impl.step.bbox.point.BoundingBoxToPointStep;
 import ai.konduit.serving.pipeline.impl.step.bbox.yolo.YoloToBoundingBoxStep;
 import ai.konduit.serving.pipeline.impl.step.logging.LoggingStep;
@@ -86,6 +87,20 @@ public class JsonCoverageTest extends BaseJsonCoverageTest {
                 .outputName("bar"));
     }
 
+    @Test
+    public void testNonMaxSuppressionStep() {
+        testConfigSerDe(new NonMaxSuppressionStep()
+                .inputName("foo")
+                .outputName("bar")
+                .iouThreshold(0.4)
+                .scoreThreshold(0.1)
+                .topK(10)
+                .classAware(false)
+                .method(NonMaxSuppressionStep.Method.GAUSSIAN)
+                .sigma(0.3)
+                .keepOtherValues(false));
+    }
+
     @Test
     public void testLoggingStep() {
         testConfigSerDe(new LoggingStep().log(LoggingStep.Log.KEYS_AND_VALUES).logLevel(Level.INFO).keyFilterRegex("\\d{3}"));
@@ -109,7 +124,8 @@ public class JsonCoverageTest extends BaseJsonCoverageTest {
                 .classLabels("a","b","c")
                 .keepOtherValues(false)
                 .scale(0.5)
-                .threshold(0.5));
+                .threshold(0.5)
+                .nmsThreshold(0.4));
 
     }
 
@@ -34,7 +34,10 @@ import org.junit.Test;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -183,4 +186,42 @@ public class AsyncPipelineTest {
         }
 
     }
+
+    @Test
+    public void testAsyncPipelineListeners() throws Exception {
+        CountStep cs = new CountStep();
+        Pipeline p = SequencePipeline.builder()
+                .add(cs)
+                .build();
+
+        Trigger t = new SimpleLoopTrigger(10);
+        AtomicInteger received = new AtomicInteger();
+        CountDownLatch receivedLatch = new CountDownLatch(3);
+        Consumer<Data> listener = d -> {
+            received.incrementAndGet();
+            receivedLatch.countDown();
+        };
+        try {
+            AsyncPipeline a = new AsyncPipeline(p, t);
+            AsyncPipelineExecutor exec = (AsyncPipelineExecutor) a.executor();
+            exec.addListener(listener);
+
+            assertTrue("Listener didn't receive any outputs", receivedLatch.await(10, TimeUnit.SECONDS));
+
+            exec.removeListener(listener);
+
+            //Listeners are called from the trigger thread in order, so once a listener added after the removal has been
+            //called, the removed listener can't be called anymore
+            AtomicInteger countAfterRemoval = new AtomicInteger(-1);
+            CountDownLatch afterLatch = new CountDownLatch(3);
+            exec.addListener(d -> {
+                countAfterRemoval.compareAndSet(-1, received.get());
+                afterLatch.countDown();
+            });
+            assertTrue("Second listener didn't receive any outputs", afterLatch.await(10, TimeUnit.SECONDS));
+            assertEquals(countAfterRemoval.get(), received.get());
+        } finally {
+            t.stop();
+        }
+    }
 }
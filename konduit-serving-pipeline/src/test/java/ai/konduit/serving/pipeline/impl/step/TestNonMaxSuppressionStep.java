@@ -0,0 +1,163 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.impl.step;
+
+import ai.konduit.serving.pipeline.api.data.BoundingBox;
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.ValueType;
+import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
+import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import ai.konduit.serving.pipeline.impl.step.bbox.nms.NonMaxSuppression;
+import ai.konduit.serving.pipeline.impl.step.bbox.nms.NonMaxSuppressionStep;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestNonMaxSuppressionStep {
+
+    @Test
+    public void testHard() {
+        BoundingBox a1 = BoundingBox.createXY(0.1, 0.3, 0.1, 0.3, "a", 0.6);
+        BoundingBox a2 = BoundingBox.createXY(0.11, 0.31, 0.1, 0.3, "a", 0.9);     //Overlaps a1
+        BoundingBox b1 = BoundingBox.createXY(0.1, 0.3, 0.12, 0.32, "b", 0.7);     //Overlaps a1 and a2, different class
+        BoundingBox a3 = BoundingBox.createXY(0.6, 0.8, 0.6, 0.8, "a", 0.5);       //No overlap
+        List<BoundingBox> in = Arrays.asList(a1, a2, b1, a3);
+
+        for (boolean nullNames : new boolean[]{false, true}) {
+            for (boolean classAware : new boolean[]{false, true}) {
+                Pipeline p = SequencePipeline.builder()
+                        .add(new NonMaxSuppressionStep()
+                                .inputName(nullNames ? null : "bbox")
+                                .outputName(nullNames ? null : "out")
+                                .iouThreshold(0.5)
+                                .classAware(classAware))
+                        .build();
+
+                Data d = Data.singletonList("bbox", in, ValueType.BOUNDING_BOX);
+                d.put("somekey", "somevalue");
+                Data out = p.executor().exec(d);
+
+                List<BoundingBox> l = out.getListBoundingBox(nullNames ? "bbox" : "out");
+                if (classAware) {
+                    assertEquals(Arrays.asList(a2, b1, a3), l);
+                } else {
+                    assertEquals(Arrays.asList(a2, a3), l);
+                }
+                assertEquals("somevalue", out.getString("somekey"));
+
+                assertEquals(p, Pipeline.fromJson(p.toJson()));
+            }
+        }
+
+        //Score threshold and topK
+        assertEquals(Arrays.asList(a2, b1), NonMaxSuppression.apply(in, 0.5, 0.55, -1, true, NonMaxSuppressionStep.Method.HARD, 0.0));
+        assertEquals(Arrays.asList(a2), NonMaxSuppression.apply(in, 0.5, 0.0, 1, true, NonMaxSuppressionStep.Method.HARD, 0.0));
+    }
+
+    @Test
+    public void testSoft() {
+        BoundingBox a1 = BoundingBox.createXY(0.0, 1.0, 0.0, 1.0, "a", 0.9);
+        BoundingBox a2 = BoundingBox.createXY(0.0, 1.0, 0.0, 0.8, "a", 0.8);       //IoU 0.8 with a1
+        BoundingBox a3 = BoundingBox.createXY(2.0, 3.0, 2.0, 3.0, "a", 0.5);       //No overlap
+
+        List<BoundingBox> l = NonMaxSuppression.apply(Arrays.asList(a1, a2, a3), 0.5, 0.0, -1, true, NonMaxSuppressionStep.Method.LINEAR, 0.0);
+        assertEquals(3, l.size());
+        assertEquals(0.9, l.get(0).probability(), 1e-6);
+        assertEquals(0.5, l.get(1).probability(), 1e-6);
+        assertEquals(0.8 * 0.2, l.get(2).probability(), 1e-6);
+        assertEquals(a2.y2(), l.get(2).y2(), 1e-6);
+
+        l = NonMaxSuppression.apply(Arrays.asList(a1, a2, a3), 0.5, 0.0, -1, true, NonMaxSuppressionStep.Method.GAUSSIAN, 0.5);
+        assertEquals(3, l.size());
+        assertEquals(0.8 * Math.exp(-0.64 / 0.5), l.get(2).probability(), 1e-6);
+
+        //Decayed below the score threshold
+        l = NonMaxSuppression.apply(Arrays.asList(a1, a2, a3), 0.5, 0.2, -1, true, NonMaxSuppressionStep.Method.LINEAR, 0.0);
+        assertEquals(2, l.size());
+    }
+
+    @Test
+    public void testHardMatchesPairwise() {
+        //The grid-based implementation should give exactly the same result as checking all pairs
+        Random r = new Random(12345);
+        for (int n : new int[]{0, 1, 10, 200, 3000}) {
+            List<BoundingBox> in = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                double x = r.nextDouble() * 0.9;
+                double y = r.nextDouble() * 0.9;
+                double w = 0.01 + r.nextDouble() * (r.nextBoolean() ? 0.05 : 0.3);
+                double h = 0.01 + r.nextDouble() * 0.1;
+                //Some duplicate scores, to check the tie-break order
+                double p = Math.round(r.nextDouble() * 100) / 100.0;
+                in.add(BoundingBox.createXY(x, x + w, y, y + h, String.valueOf(r.nextInt(3)), p));
+            }
+
+            for (boolean classAware : new boolean[]{false, true}) {
+                List<BoundingBox> exp = pairwise(in, 0.4, classAware);
+                List<BoundingBox> act = NonMaxSuppression.apply(in, 0.4, 0.0, -1, classAware, NonMaxSuppressionStep.Method.HARD, 0.0);
+                assertEquals(exp, act);
+                assertTrue(n == 0 || act.size() > 0);
+            }
+        }
+    }
+
+    private static List<BoundingBox> pairwise(List<BoundingBox> in, double iouThreshold, boolean classAware) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < in.size(); i++)
+            order.add(i);
+        order.sort((i, j) -> {
+            int c = Float.compare(in.get(j).probability().floatValue(), in.get(i).probability().floatValue());
+            return c != 0 ? c : Integer.compare(i, j);
+        });
+
+        List<BoundingBox> out = new ArrayList<>();
+        for (int i : order) {
+            BoundingBox bb = in.get(i);
+            boolean keep = true;
+            for (BoundingBox k : out) {
+                if (classAware && !k.label().equals(bb.label()))
+                    continue;
+                if (iou(bb, k) > iouThreshold) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep)
+                out.add(bb);
+        }
+        return out;
+    }
+
+    private static double iou(BoundingBox a, BoundingBox b) {
+        float w = Math.min((float) a.x2(), (float) b.x2()) - Math.max((float) a.x1(), (float) b.x1());
+        float h = Math.min((float) a.y2(), (float) b.y2()) - Math.max((float) a.y1(), (float) b.y1());
+        if (w <= 0 || h <= 0)
+            return 0.0;
+        float areaA = ((float) a.x2() - (float) a.x1()) * ((float) a.y2() - (float) a.y1());
+        float areaB = ((float) b.x2() - (float) b.x1()) * ((float) b.y2() - (float) b.y1());
+        double inter = (double) w * h;
+        return inter / (areaA + areaB - inter);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package ai.konduit.serving.pipeline.impl.step;
+
+import ai.konduit.serving.pipeline.api.data.BoundingBox;
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.NDArray;
+import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import ai.konduit.serving.pipeline.impl.step.ml.ssd.SSDToBoundingBoxStep;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestSSDToBoundingBoxStep {
+
+    @Test
+    public void testNms(){
+        //Boxes are [y1, x1, y2, x2]; box 1 overlaps box 0 with IoU 0.62 (same class), box 2 has the same position as box 1
+        //but a different class. Classes are 1-based indices into the labels
+        Data in = Data.empty();
+        in.put("detection_boxes", NDArray.create(new float[][][]{{
+                {0.1f, 0.1f, 0.5f, 0.5f},
+                {0.15f, 0.15f, 0.55f, 0.55f},
+                {0.15f, 0.15f, 0.55f, 0.55f}}}));
+        in.put("detection_scores", NDArray.create(new float[][]{{0.7f, 0.8f, 0.9f}}));
+        in.put("detection_classes", NDArray.create(new float[][]{{1, 1, 2}}));
+
+        //No non-max suppression by default: all boxes, in detection order
+        List<BoundingBox> all = SequencePipeline.builder().add(new SSDToBoundingBoxStep().classLabels("a", "b"))
+                .build().executor().exec(in)
+                .getListBoundingBox(SSDToBoundingBoxStep.DEFAULT_OUTPUT_NAME);
+        assertEquals(3, all.size());
+        assertEquals(Arrays.asList("a", "a", "b"), Arrays.asList(all.get(0).label(), all.get(1).label(), all.get(2).label()));
+
+        //With non-max suppression: box 0 is suppressed by the higher probability box 1 of the same class
+        List<BoundingBox> nms = SequencePipeline.builder().add(new SSDToBoundingBoxStep().classLabels("a", "b").nmsThreshold(0.5))
+                .build().executor().exec(in)
+                .getListBoundingBox(SSDToBoundingBoxStep.DEFAULT_OUTPUT_NAME);
+        assertEquals(Arrays.asList(all.get(2), all.get(1)), nms);
+    }
+}
@@ -31,10 +31,12 @@ import ai.konduit.serving.pipeline.util.NDArrayUtils;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public class TestYoloStep {
 
@@ -129,4 +131,49 @@ public class TestYoloStep {
 
         }
     }
+
+    @Test
+    public void testYoloNms(){
+        //1 box prior, 2 classes, 4x4 grid, NCHW: [mb, B*(5+C), H, W]
+        float[][][][] f = new float[1][7][4][4];
+        //Box 0 at cell (x=1, y=1): center (1.5, 1.5), size 2x2, class a
+        setBox(f, 1, 1, 0.5f, 0.5f, 2.0f, 2.0f, 0.9f, 0.1f);
+        //Box 1 at cell (x=2, y=1): center (2.0, 1.5), size 2x2, class a - IoU with box 0 is 0.6
+        setBox(f, 2, 1, 0.0f, 0.5f, 2.0f, 2.0f, 0.8f, 0.2f);
+        //Box 2 at cell (x=3, y=3): no overlap, class b, highest probability
+        setBox(f, 3, 3, 0.5f, 0.5f, 1.0f, 1.0f, 0.05f, 0.95f);
+
+        Data in = Data.singleton("in", NDArray.create(f));
+
+        //Non-max suppression is not applied by default: all boxes, in grid order
+        YoloToBoundingBoxStep step = new YoloToBoundingBoxStep().classLabels("a", "b");
+        assertNull(step.nmsThreshold());
+        List<BoundingBox> all = SequencePipeline.builder().add(step).build().executor().exec(in)
+                .getListBoundingBox(YoloToBoundingBoxStep.DEFAULT_OUTPUT_NAME);
+        assertEquals(3, all.size());
+        assertEquals(Arrays.asList("a", "a", "b"), Arrays.asList(all.get(0).label(), all.get(1).label(), all.get(2).label()));
+
+        //With non-max suppression: the lower probability overlapping box of the same class is removed, and the boxes
+        //are in order of decreasing probability
+        List<BoundingBox> nms = SequencePipeline.builder().add(new YoloToBoundingBoxStep().classLabels("a", "b").nmsThreshold(0.5))
+                .build().executor().exec(in)
+                .getListBoundingBox(YoloToBoundingBoxStep.DEFAULT_OUTPUT_NAME);
+        assertEquals(Arrays.asList(all.get(2), all.get(0)), nms);
+
+        //Threshold above the IoU: nothing is suppressed
+        nms = SequencePipeline.builder().add(new YoloToBoundingBoxStep().classLabels("a", "b").nmsThreshold(0.7))
+                .build().executor().exec(in)
+                .getListBoundingBox(YoloToBoundingBoxStep.DEFAULT_OUTPUT_NAME);
+        assertEquals(Arrays.asList(all.get(2), all.get(0), all.get(1)), nms);
+    }
+
+    private static void setBox(float[][][][] f, int x, int y, float px, float py, float w, float h, float probA, float probB){
+        f[0][0][y][x] = px;
+        f[0][1][y][x] = py;
+        f[0][2][y][x] = w;
+        f[0][3][y][x] = h;
+        f[0][4][y][x] = 1.0f;       //Confidence
+        f[0][5][y][x] = probA;
+        f[0][6][y][x] = probB;
+    }
 }
@@ -0,0 +1,101 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package ai.konduit.serving.pipeline.util;
+
+import ai.konduit.serving.pipeline.settings.constants.PropertiesConstants;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class ModelCacheUtilsTest {
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void testCacheKey() throws IOException {
+        File model1 = testDir.newFile();
+        File model2 = testDir.newFile();
+        FileUtils.writeStringToFile(model1, "model contents", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(model2, "model contents", StandardCharsets.UTF_8);
+
+        // Same contents and options (regardless of the file location) -> same key
+        assertEquals(ModelCacheUtils.cacheKey(model1, "EXTENDED"), ModelCacheUtils.cacheKey(model2, "EXTENDED"));
+        assertEquals(64, ModelCacheUtils.cacheKey(model1).length());
+
+        assertNotEquals(ModelCacheUtils.cacheKey(model1, "EXTENDED"), ModelCacheUtils.cacheKey(model1, "ALL"));
+        assertNotEquals(ModelCacheUtils.cacheKey(model1, "a", "bc"), ModelCacheUtils.cacheKey(model1, "ab", "c"));
+
+        FileUtils.writeStringToFile(model2, "other model contents", StandardCharsets.UTF_8);
+        assertNotEquals(ModelCacheUtils.cacheKey(model1, "EXTENDED"), ModelCacheUtils.cacheKey(model2, "EXTENDED"));
+    }
+
+    @Test
+    public void testContentHashCached() throws IOException {
+        String cacheDirProperty = System.getProperty(PropertiesConstants.MODEL_CACHE_DIR);
+        System.setProperty(PropertiesConstants.MODEL_CACHE_DIR, testDir.newFolder().getAbsolutePath());
+        try {
+            File model = testDir.newFile();
+            FileUtils.writeStringToFile(model, "model contents", StandardCharsets.UTF_8);
+            long lastModified = System.currentTimeMillis() - 60000;
+            assertTrue(model.setLastModified(lastModified));
+            String hash = ModelCacheUtils.contentHash(model);
+
+            // Same size and last modified time: the cached hash is used, without reading the file
+            FileUtils.writeStringToFile(model, "other contents", StandardCharsets.UTF_8);
+            assertTrue(model.setLastModified(lastModified));
+            assertEquals(hash, ModelCacheUtils.contentHash(model));
+
+            // Different last modified time: hashed again
+            assertTrue(model.setLastModified(lastModified + 1000));
+            String newHash = ModelCacheUtils.contentHash(model);
+            assertNotEquals(hash, newHash);
+
+            // Different size: hashed again
+            FileUtils.writeStringToFile(model, "longer model contents", StandardCharsets.UTF_8);
+            assertTrue(model.setLastModified(lastModified + 1000));
+            String longerHash = ModelCacheUtils.contentHash(model);
+            assertNotEquals(newHash, longerHash);
+            assertNotEquals(hash, longerHash);
+        } finally {
+            if (cacheDirProperty == null) {
+                System.clearProperty(PropertiesConstants.MODEL_CACHE_DIR);
+            } else {
+                System.setProperty(PropertiesConstants.MODEL_CACHE_DIR, cacheDirProperty);
+            }
+        }
+    }
+
+    @Test
+    public void testCommit() throws IOException {
+        File target = new File(testDir.newFolder(), "optimized.onnx");
+        File temp = ModelCacheUtils.tempFileFor(target);
+        assertEquals(target.getParentFile(), temp.getParentFile());
+
+        FileUtils.writeStringToFile(temp, "optimized", StandardCharsets.UTF_8);
+        assertTrue(ModelCacheUtils.commit(temp, target));
+        assertFalse(temp.exists());
+        assertEquals("optimized", FileUtils.readFileToString(target, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package ai.konduit.serving.pipeline.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ShapeBucketCacheTest {
+
+    @Test
+    public void testSignature() {
+        assertEquals("[1,3,224,224];[1,10]", ShapeBucketCache.signature(new long[]{1, 3, 224, 224}, new long[]{1, 10}));
+        assertEquals("[]", ShapeBucketCache.signature(new long[0]));
+    }
+
+    @Test
+    public void testBucketSize() {
+        assertEquals(1, ShapeBucketCache.bucketSize(1, Arrays.asList(8, 1, 4)));
+        assertEquals(4, ShapeBucketCache.bucketSize(3, Arrays.asList(8, 1, 4)));
+        assertEquals(8, ShapeBucketCache.bucketSize(5, Arrays.asList(8, 1, 4)));
+        //Larger than the largest bucket: not padded
+        assertEquals(9, ShapeBucketCache.bucketSize(9, Arrays.asList(8, 1, 4)));
+        assertEquals(3, ShapeBucketCache.bucketSize(3, null));
+    }
+
+    @Test
+    public void testLruEviction() {
+        AtomicInteger closed = new AtomicInteger();
+        ShapeBucketCache<AutoCloseable> cache = new ShapeBucketCache<>(2);
+
+        AutoCloseable a = closed::incrementAndGet;
+        AutoCloseable b = closed::incrementAndGet;
+        AutoCloseable c = closed::incrementAndGet;
+
+        assertSame(a, cache.computeIfAbsent("a", k -> a));
+        assertSame(b, cache.computeIfAbsent("b", k -> b));
+        //Access "a" so that "b" is the least recently used bucket
+        assertSame(a, cache.computeIfAbsent("a", k -> { throw new IllegalStateException("Should be cached"); }));
+
+        cache.computeIfAbsent("c", k -> c);
+        assertEquals(2, cache.size());
+        assertEquals(1, closed.get());
+        assertNull(cache.get("b"));
+        assertSame(a, cache.get("a"));
+        assertSame(c, cache.get("c"));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(3, closed.get());
+    }
+}
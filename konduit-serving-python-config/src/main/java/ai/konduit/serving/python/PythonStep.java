@@ -20,6 +20,7 @@ import ai.konduit.serving.model.PythonConfig;
 import ai.konduit.serving.pipeline.api.step.PipelineStep;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.Accessors;
@@ -39,4 +40,22 @@ public class PythonStep implements PipelineStep {
             "You can escape a \" with a \\ character. Each input/output is then space separated within the quotes. The format is:" +
             "name, python type, konduit serving value type.")
     private PythonConfig pythonConfig;
+
+    @Schema(description = "Number of Python worker processes executing this step. 0 (the default) executes the Python " +
+            "code in process, where all the Python steps of the server are serialized by the GIL. With 1 or more, each " +
+            "worker is a separate Python process with the import code and the compiled Python code preloaded, and " +
+            "requests are dispatched to the first idle worker. Crashed workers are restarted.", defaultValue = "0")
+    @Builder.Default
+    private int workers = 0;
+
+    @Schema(description = "Python executable used for the worker processes. If not set, it's resolved from the python " +
+            "configuration (python, conda, venv or custom path) or defaults to the bundled JavaCPP Python. The " +
+            "environment must have numpy installed.")
+    private String pythonExecutable;
+
+    @Schema(description = "Size in bytes of the shared memory segment of each worker process, through which input and " +
+            "output arrays are exchanged without serialization. Arrays that don't fit are sent inline through the " +
+            "worker's pipe instead.", defaultValue = "67108864")
+    @Builder.Default
+    private long workerSharedMemoryBytes = 64 * 1024 * 1024;
 }
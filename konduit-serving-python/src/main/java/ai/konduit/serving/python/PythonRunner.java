@@ -25,13 +25,18 @@ import ai.konduit.serving.pipeline.api.python.models.AppendType;
 import ai.konduit.serving.pipeline.api.step.PipelineStep;
 import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
 import ai.konduit.serving.python.util.KonduitPythonUtils;
+import ai.konduit.serving.python.worker.PythonWorkerPool;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.nd4j.common.base.Preconditions;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.python4j.Python;
 import org.nd4j.python4j.PythonExecutioner;
+import org.nd4j.python4j.PythonGC;
 import org.nd4j.python4j.PythonGIL;
+import org.nd4j.python4j.PythonObject;
+import org.nd4j.python4j.PythonTypes;
 import org.nd4j.python4j.PythonVariable;
 import org.nd4j.python4j.PythonVariables;
 
@@ -49,6 +54,11 @@ public class PythonRunner implements PipelineStepRunner {
 
     private PythonStep pythonStep;
     private String code;
+    private PythonWorkerPool workerPool;
+    private PythonObject compiledCode;
+    private PythonObject execFunction;
+    /** Only used while holding the GIL */
+    private PythonVariables outputs;
 
 
     @SneakyThrows
@@ -57,6 +67,17 @@ public class PythonRunner implements PipelineStepRunner {
         this.pythonStep = pythonStep;
         String code = pythonStep.pythonConfig().getPythonCode();
 
+        if (pythonStep.workers() > 0) {
+            this.code = code != null ? code : readCode(pythonStep.pythonConfig().getPythonCodePath());
+            String importCode = pythonStep.pythonConfig().getImportCode();
+            if (importCode == null && pythonStep.pythonConfig().getImportCodePath() != null) {
+                importCode = readCode(pythonStep.pythonConfig().getImportCodePath());
+            }
+            // The code runs in the worker processes, with their own interpreters
+            this.workerPool = new PythonWorkerPool(pythonStep, importCode, this.code);
+            return;
+        }
+
         AppendType appendType = this.pythonStep.pythonConfig().getAppendType();
         String pythonLibrariesPath = this.pythonStep.pythonConfig().getPythonLibrariesPath();
 
@@ -97,16 +118,29 @@ public class PythonRunner implements PipelineStepRunner {
             log.info("Resolving import code from " + pythonStep.pythonConfig().getImportCodePath());
         }
 
-        if(importCode != null) {
-            try(PythonGIL ignored = PythonGIL.lock()) {
+        try(PythonGIL ignored = PythonGIL.lock()) {
+            if(importCode != null) {
                 PythonExecutioner.exec(importCode);
             }
+
+            // Compiled once: each execution then runs the code object instead of parsing the source again
+            compiledCode = Python.attr("compile").call(this.code, "<python step>", "exec");
+            execFunction = Python.attr("exec");
         }
+
+        outputs = KonduitPythonUtils.createOutputVariables(pythonStep.pythonConfig());
+    }
+
+    private static String readCode(String path) throws IOException {
+        log.info("Resolving code from " + path);
+        return FileUtils.readFileToString(new File(path), StandardCharsets.UTF_8);
     }
 
     @Override
     public void close() {
-
+        if (workerPool != null) {
+            workerPool.close();
+        }
     }
 
     @Override
@@ -118,24 +152,39 @@ public class PythonRunner implements PipelineStepRunner {
     @Override
     public Data exec(Context ctx, Data data) {
         Data ret = Data.empty();
-        System.out.println("Creating outputs");
-        PythonVariables outputs = KonduitPythonUtils.createOutputVariables(pythonStep.pythonConfig());
-        System.out.println("Created outputs");
+        if (workerPool != null) {
+            PythonVariables inputs = KonduitPythonUtils.createPythonVariablesFromDataInput(data, pythonStep.pythonConfig());
+            Map<String, Object> values = workerPool.exec(inputs);
+
+            PythonVariables outputs = new PythonVariables();
+            for (Map.Entry<String, PythonIO> output : pythonStep.pythonConfig().getIoOutputs().entrySet()) {
+                outputs.add(output.getKey(), PythonTypes.get(output.getValue().pythonType()), values.get(output.getKey()));
+            }
+            convertOutputs(ret, outputs);
+            return ret;
+        }
+
         PythonVariables pythonVariables = KonduitPythonUtils.createPythonVariablesFromDataInput(data, pythonStep.pythonConfig());
-        System.out.println("After created python variables");
         try(PythonGIL ignored = PythonGIL.lock()) {
-            log.debug("Thread " + Thread.currentThread().getId() + " has the GIL. Name of thread " + Thread.currentThread().getName());
-            log.debug("Py gil state " + (PyGILState_Check() > 0));
-            runExec(ret, outputs, pythonVariables);
+            if(log.isTraceEnabled()) {
+                log.trace("Thread {} has the GIL. Py gil state {}", Thread.currentThread().getName(), PyGILState_Check() > 0);
+            }
+            runExec(ret, pythonVariables);
         }
 
         return ret;
     }
 
-    private void runExec(Data ret, PythonVariables outputs, PythonVariables pythonVariables) throws IOException {
-        System.out.println("Before execution of code " + code);
-        PythonExecutioner.exec(code, pythonVariables, outputs);
-        System.out.println("After execution of code " + code);
+    private void runExec(Data ret, PythonVariables pythonVariables) throws IOException {
+        PythonExecutioner.setVariables(pythonVariables);
+        try(PythonGC ignored = PythonGC.watch()) {
+            execFunction.call(compiledCode, Python.globals());
+        }
+        PythonExecutioner.getVariables(outputs);
+        convertOutputs(ret, outputs);
+    }
+
+    private void convertOutputs(Data ret, PythonVariables outputs) throws IOException {
         Preconditions.checkNotNull(outputs,"No outputs found!");
         for(PythonVariable variable : outputs) {
             PythonIO pythonIO = pythonStep.pythonConfig().getIoOutputs().get(variable.getName());
@@ -160,9 +209,7 @@ public class PythonRunner implements PipelineStepRunner {
                             pythonStep.pythonConfig());
                     break;
                 case "numpy.ndarray":
-                    System.out.println("Before insert ndarray");
                     ret.put(variable.getName(),new ND4JNDArray(KonduitPythonUtils.getWithType(outputs,variable.getName(),INDArray.class)));
-                    System.out.println("After insert ndarray");
                     break;
                 case "str":
                     ret.put(variable.getName(),KonduitPythonUtils.getWithType(outputs,variable.getName(),String.class));
@@ -30,7 +30,9 @@ import org.bytedeco.javacv.Frame;
 import org.bytedeco.opencv.opencv_core.Mat;
 
 import org.nd4j.common.base.Preconditions;
+import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.python4j.*;
 import org.nd4j.python4j.numpy.NumpyArray;
 
@@ -46,6 +48,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import static org.bytedeco.opencv.global.opencv_core.CV_8U;
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC;
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
 import static org.nd4j.python4j.PythonTypes.*;
 
 public class KonduitPythonUtils {
@@ -344,6 +349,32 @@ public class KonduitPythonUtils {
         throw new IllegalArgumentException("Illegal image type " + image.getClass());
     }
 
+    /**
+     * Convert an image to a uint8 array of shape [height, width, channels] in RGB (or RGBA) channel order,
+     * which is passed to python as a numpy array sharing the same memory - instead of encoding the image
+     * as jpeg bytes that the python code would then have to decode again.
+     * @param image the image to convert
+     * @return the HWC uint8 array
+     */
+    public static INDArray imageToNDArray(Image image) {
+        Mat mat = image.getAs(Mat.class);
+        Preconditions.checkState(mat.depth() == CV_8U, "Only 8 bit images can be passed to python as numpy arrays. Image depth was %s", mat.depth());
+        int channels = mat.channels();
+        INDArray arr = Nd4j.createUninitialized(DataType.UBYTE, new long[]{mat.rows(), mat.cols(), channels}, 'c');
+
+        //Write directly in to the array's buffer, converting from OpenCV's BGR order on the way
+        Mat out = new Mat(mat.rows(), mat.cols(), CV_8UC(channels), new BytePointer(arr.data().addressPointer()));
+        if(channels == 3) {
+            cvtColor(mat, out, COLOR_BGR2RGB);
+        } else if(channels == 4) {
+            cvtColor(mat, out, COLOR_BGRA2RGBA);
+        } else {
+            mat.copyTo(out);
+        }
+        out.release();
+        return arr;
+    }
+
     /**
      * Adds an image to a set of python variables.
      * Also adds the length as key_len
@@ -600,7 +631,11 @@ public class KonduitPythonUtils {
                     break;
                 case IMAGE:
                     Image image = data.getImage(key);
-                    addImageToPython(pythonVariables,key,image);
+                    if(NumpyArray.INSTANCE.getName().equals(pythonIO.pythonType())) {
+                        pythonVariables.add(key, NumpyArray.INSTANCE, imageToNDArray(image));
+                    } else {
+                        addImageToPython(pythonVariables,key,image);
+                    }
                     break;
                 case BOUNDING_BOX:
                     BoundingBox boundingBox = data.getBoundingBox(key);
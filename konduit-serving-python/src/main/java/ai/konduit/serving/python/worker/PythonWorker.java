@@ -0,0 +1,190 @@
+/* ******************************************************************************
+ * Copyright (c) 2022 Konduit K.K.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+package ai.konduit.serving.python.worker;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.python4j.PythonVariable;
+import org.nd4j.python4j.PythonVariables;
+
+import java.io.*;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single Python worker process, with its own shared memory segment. Not thread safe: a worker executes one request
+ * at a time - see {@link PythonWorkerPool}.<br>
+ * An {@link IOException} from {@link #exec(PythonVariables)} means the process died or the framing is broken, and the
+ * worker has to be replaced. Errors raised by the Python code are thrown as {@link IllegalStateException}s instead,
+ * and the worker can still be used.
+ */
+@Slf4j
+public class PythonWorker implements Closeable {
+
+    @Getter
+    private final int id;
+    private final Process process;
+    private final DataOutputStream requests;
+    private final DataInputStream responses;
+    private final File sharedMemoryFile;
+    private final MappedByteBuffer sharedMemory;
+
+    /**
+     * Start a worker process and wait for it to be ready: import code executed and code compiled.
+     *
+     * @param command           The Python executable and worker script
+     * @param environment       Additional environment variables for the process
+     * @param importCode        Python code executed once at startup. May be null
+     * @param code              Python code executed for each request
+     * @param outputs           The output names and their python types, in order
+     * @param sharedMemoryBytes Size of the shared memory segment
+     */
+    public PythonWorker(int id, List<String> command, Map<String, String> environment, String importCode, String code,
+                        Map<String, String> outputs, long sharedMemoryBytes) throws IOException {
+        this.id = id;
+
+        File sharedMemoryDir = new File("/dev/shm");
+        if (!sharedMemoryDir.isDirectory() || !sharedMemoryDir.canWrite()) {
+            sharedMemoryDir = new File(System.getProperty("java.io.tmpdir"));
+        }
+        sharedMemoryFile = File.createTempFile("konduit-python-worker-" + id + "-", ".shm", sharedMemoryDir);
+        sharedMemoryFile.deleteOnExit();
+        try (RandomAccessFile file = new RandomAccessFile(sharedMemoryFile, "rw")) {
+            file.setLength(sharedMemoryBytes);
+            sharedMemory = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, sharedMemoryBytes);
+            sharedMemory.order(ByteOrder.nativeOrder());
+        }
+
+        List<String> processCommand = new ArrayList<>(command);
+        processCommand.add(sharedMemoryFile.getAbsolutePath());
+        processCommand.add(String.valueOf(sharedMemoryBytes));
+        ProcessBuilder processBuilder = new ProcessBuilder(processCommand)
+                .redirectError(ProcessBuilder.Redirect.INHERIT);
+        processBuilder.environment().putAll(environment);
+
+        try {
+            process = processBuilder.start();
+        } catch (IOException e) {
+            sharedMemoryFile.delete();
+            throw e;
+        }
+        requests = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        responses = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+
+        try {
+            ByteArrayOutputStream setup = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(setup);
+            PythonWorkerProtocol.writeString(out, importCode == null ? "" : importCode);
+            PythonWorkerProtocol.writeString(out, code);
+            out.writeInt(outputs.size());
+            for (Map.Entry<String, String> output : outputs.entrySet()) {
+                PythonWorkerProtocol.writeString(out, output.getKey());
+                PythonWorkerProtocol.writeString(out, output.getValue());
+            }
+            writeFrame(setup);
+
+            DataInputStream ready = readFrame();
+            if (ready.readByte() != PythonWorkerProtocol.STATUS_OK) {
+                throw new IllegalStateException("Python worker " + id + " failed to start:\n" + PythonWorkerProtocol.readString(ready));
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+
+        log.debug("Python worker {} started", id);
+    }
+
+    /**
+     * Execute the Python code with the given inputs
+     *
+     * @return The output values by name
+     */
+    public Map<String, Object> exec(PythonVariables inputs) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream bodyOut = new DataOutputStream(body);
+        PythonWorkerProtocol.Encoder encoder = new PythonWorkerProtocol.Encoder(bodyOut, sharedMemory);
+        bodyOut.writeInt(inputs.size());
+        for (PythonVariable<?> input : inputs) {
+            PythonWorkerProtocol.writeString(bodyOut, input.getName());
+            encoder.writeValue(input.getValue());
+        }
+
+        ByteArrayOutputStream request = new ByteArrayOutputStream(body.size() + 8);
+        DataOutputStream requestOut = new DataOutputStream(request);
+        // The outputs are placed after the inputs, which the Python code may still reference
+        requestOut.writeLong(PythonWorkerProtocol.align(encoder.sharedMemoryOffset()));
+        body.writeTo(requestOut);
+        writeFrame(request);
+
+        DataInputStream response = readFrame();
+        if (response.readByte() != PythonWorkerProtocol.STATUS_OK) {
+            throw new IllegalStateException("Error executing Python code in worker " + id + ":\n" + PythonWorkerProtocol.readString(response));
+        }
+
+        int count = response.readInt();
+        Map<String, Object> outputs = new LinkedHashMap<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = PythonWorkerProtocol.readString(response);
+            outputs.put(name, PythonWorkerProtocol.readValue(response, sharedMemory));
+        }
+        return outputs;
+    }
+
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+
+    private void writeFrame(ByteArrayOutputStream payload) throws IOException {
+        requests.writeInt(payload.size());
+        payload.writeTo(requests);
+        requests.flush();
+    }
+
+    private DataInputStream readFrame() throws IOException {
+        byte[] payload = new byte[responses.readInt()];
+        responses.readFully(payload);
+        return new DataInputStream(new ByteArrayInputStream(payload));
+    }
+
+    /**
+     * Stop the worker process - gracefully by closing its input, forcibly if it doesn't exit within 5 seconds
+     */
+    @Override
+    public void close() {
+        try {
+            requests.close();
+        } catch (IOException e) {
+            log.trace("Error closing Python worker {} input", id, e);
+        }
+
+        try {
+            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+
+        if (!sharedMemoryFile.delete()) {
+            log.debug("Unable to delete Python worker shared memory file {}", sharedMemoryFile.getAbsolutePath());
+        }
+    }
+}
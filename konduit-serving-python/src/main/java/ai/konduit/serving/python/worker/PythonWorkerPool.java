@@ -0,0 +1,217 @@
+/* ******************************************************************************
+ * Copyright (c) 2022 Konduit K.K.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+package ai.konduit.serving.python.worker;
+
+import ai.konduit.serving.model.PythonConfig;
+import ai.konduit.serving.model.PythonIO;
+import ai.konduit.serving.pipeline.api.python.PythonPathUtils;
+import ai.konduit.serving.pipeline.api.python.models.PythonConfigType;
+import ai.konduit.serving.pipeline.api.python.models.PythonDetails;
+import ai.konduit.serving.python.PythonStep;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.bytedeco.javacpp.Loader;
+import org.nd4j.common.base.Preconditions;
+import org.nd4j.python4j.PythonVariables;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collectors;
+
+/**
+ * A pool of Python worker processes executing the code of a {@link PythonStep} in parallel, outside of the JVM's
+ * embedded interpreter and its GIL - see {@link PythonStep#workers()}.<br>
+ * Requests are dispatched to the first idle worker. Workers that crash are restarted; the request that was being
+ * executed by a crashed worker fails.
+ */
+@Slf4j
+public class PythonWorkerPool implements Closeable {
+
+    private static final String WORKER_SCRIPT = "konduit_python_worker.py";
+
+    private final List<String> command;
+    private final Map<String, String> environment = new HashMap<>();
+    private final String importCode;
+    private final String code;
+    private final Map<String, String> outputs = new LinkedHashMap<>();
+    private final long sharedMemoryBytes;
+    private final BlockingQueue<PythonWorker> idle = new LinkedBlockingQueue<>();
+    private final PythonWorker[] workers;
+    private volatile boolean closed;
+
+    public PythonWorkerPool(@NonNull PythonStep pythonStep, String importCode, @NonNull String code) throws IOException {
+        Preconditions.checkState(pythonStep.workers() > 0, "Number of Python workers must be positive, got %s", pythonStep.workers());
+        Preconditions.checkState(pythonStep.workerSharedMemoryBytes() > 0 && pythonStep.workerSharedMemoryBytes() <= Integer.MAX_VALUE,
+                "Python worker shared memory size must be between 1 and %s bytes, got %s", Integer.MAX_VALUE, pythonStep.workerSharedMemoryBytes());
+
+        this.importCode = importCode;
+        this.code = code;
+        this.sharedMemoryBytes = pythonStep.workerSharedMemoryBytes();
+
+        PythonConfig pythonConfig = pythonStep.pythonConfig();
+        if (pythonConfig.getIoOutputs() != null) {
+            for (Map.Entry<String, PythonIO> output : pythonConfig.getIoOutputs().entrySet()) {
+                outputs.put(output.getKey(), output.getValue().pythonType());
+            }
+        }
+
+        String pythonExecutable = resolvePythonExecutable(pythonStep);
+        if (pythonConfig.getPythonLibrariesPath() != null) {
+            String pythonPath = environment.get("PYTHONPATH");
+            environment.put("PYTHONPATH", pythonPath == null ? pythonConfig.getPythonLibrariesPath() :
+                    pythonPath + File.pathSeparator + pythonConfig.getPythonLibrariesPath());
+        }
+        command = Arrays.asList(pythonExecutable, extractWorkerScript().getAbsolutePath());
+
+        log.info("Starting {} Python workers with {}", pythonStep.workers(), pythonExecutable);
+        workers = new PythonWorker[pythonStep.workers()];
+        try {
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = startWorker(i);
+                idle.add(workers[i]);
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Execute the Python code on an idle worker, waiting for one if they're all busy
+     *
+     * @return The output values by name
+     */
+    public Map<String, Object> exec(PythonVariables inputs) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Python worker pool is closed");
+        }
+
+        PythonWorker worker = idle.take();
+        try {
+            if (!worker.isAlive()) {
+                log.warn("Python worker {} exited. Restarting it.", worker.getId());
+                worker = restart(worker);
+            }
+            return worker.exec(inputs);
+        } catch (IOException e) {
+            log.error("Python worker {} crashed. Restarting it.", worker.getId(), e);
+            try {
+                worker = restart(worker);
+            } catch (IOException | RuntimeException restartFailure) {
+                // Will be retried by the next request using this worker
+                log.error("Unable to restart Python worker {}", worker.getId(), restartFailure);
+            }
+            throw new IllegalStateException("Python worker crashed while executing the request", e);
+        } finally {
+            if (closed) {
+                worker.close();
+            } else {
+                idle.add(worker);
+            }
+        }
+    }
+
+    private PythonWorker restart(PythonWorker worker) throws IOException {
+        worker.close();
+        PythonWorker restarted = startWorker(worker.getId());
+        synchronized (workers) {
+            workers[worker.getId()] = restarted;
+        }
+        return restarted;
+    }
+
+    private PythonWorker startWorker(int id) throws IOException {
+        return new PythonWorker(id, command, environment, importCode, code, outputs, sharedMemoryBytes);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (workers) {
+            for (PythonWorker worker : workers) {
+                if (worker != null) {
+                    worker.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolve the Python executable for the worker processes: {@link PythonStep#pythonExecutable()} if set, otherwise
+     * the executable of the python configuration's installation, or the bundled JavaCPP Python (with its numpy) as
+     * a fallback.
+     */
+    private String resolvePythonExecutable(PythonStep pythonStep) throws IOException {
+        if (pythonStep.pythonExecutable() != null && !pythonStep.pythonExecutable().isEmpty()) {
+            return pythonStep.pythonExecutable();
+        }
+
+        PythonConfig pythonConfig = pythonStep.pythonConfig();
+        PythonConfigType type = pythonConfig.getPythonConfigType();
+        String pythonPath = pythonConfig.getPythonPath();
+        if (type != null) {
+            switch (type) {
+                case PYTHON:
+                    return PythonPathUtils.findPythonInstallations().stream()
+                            .filter(details -> details.id().equals(pythonPath))
+                            .map(PythonDetails::path)
+                            .findFirst()
+                            .orElseThrow(() -> new IllegalStateException("No python installation with id " + pythonPath));
+                case CONDA:
+                    return PythonConfig.findCondaDetails(pythonPath).environments().stream()
+                            .filter(details -> details.id().equals(pythonConfig.getEnvironmentName()))
+                            .map(PythonDetails::path)
+                            .findFirst()
+                            .orElseThrow(() -> new IllegalStateException("No conda environment named " +
+                                    pythonConfig.getEnvironmentName() + " for conda id " + pythonPath));
+                case VENV:
+                    return PythonPathUtils.findVenvInstallations().stream()
+                            .filter(details -> details.id().equals(pythonPath))
+                            .map(details -> PythonPathUtils.getVenvPythonFile(details.path()).getAbsolutePath())
+                            .findFirst()
+                            .orElseThrow(() -> new IllegalStateException("No venv installation with id " + pythonPath));
+                case CUSTOM:
+                    return pythonPath;
+                case JAVACPP:
+                default:
+                    break;
+            }
+        }
+
+        environment.put("PYTHONPATH", Arrays.stream(org.bytedeco.numpy.presets.numpy.cachePackages())
+                .map(File::getAbsolutePath)
+                .collect(Collectors.joining(File.pathSeparator)));
+        return Loader.load(org.bytedeco.cpython.python.class);
+    }
+
+    private static File extractWorkerScript() throws IOException {
+        File script = File.createTempFile("konduit_python_worker", ".py");
+        script.deleteOnExit();
+        try (InputStream in = PythonWorkerPool.class.getResourceAsStream(WORKER_SCRIPT)) {
+            if (in == null) {
+                throw new IllegalStateException("Python worker script " + WORKER_SCRIPT + " not found on the classpath");
+            }
+            FileUtils.copyInputStreamToFile(in, script);
+        }
+        return script;
+    }
+}
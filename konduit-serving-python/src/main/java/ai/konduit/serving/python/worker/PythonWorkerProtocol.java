@@ -0,0 +1,326 @@
+/* ******************************************************************************
+ * Copyright (c) 2022 Konduit K.K.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+package ai.konduit.serving.python.worker;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Framing between {@link PythonWorker} and the Python worker process (konduit_python_worker.py). Frames are a
+ * big-endian int length followed by the payload, over the worker's stdin (requests) and stdout (responses).<br>
+ * Setup: [import code][code][output count]([output name][output python type])*<br>
+ * Request: [shared memory offset for the outputs: long][input count]([name][value])*<br>
+ * Response: [status: byte] then either [output count]([name][value])* or, with {@link #STATUS_ERROR}, the Python
+ * traceback.<br>
+ * Values are a type tag followed by the value. Arrays are written to the worker's shared memory segment when they fit,
+ * and inline otherwise. Strings are an int length followed by UTF-8 bytes.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class PythonWorkerProtocol {
+
+    public static final byte NONE = 0;
+    public static final byte BOOL = 1;
+    public static final byte INT = 2;
+    public static final byte FLOAT = 3;
+    public static final byte STR = 4;
+    public static final byte BYTES = 5;
+    public static final byte NDARRAY_SHM = 6;
+    public static final byte NDARRAY_INLINE = 7;
+    public static final byte LIST = 8;
+    public static final byte DICT = 9;
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_ERROR = 1;
+
+    /**
+     * Alignment of the arrays in the shared memory segment
+     */
+    public static final int ALIGNMENT = 64;
+
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes values, placing arrays sequentially in the shared memory segment from offset 0.
+     */
+    public static class Encoder {
+        private final DataOutputStream out;
+        private final ByteBuffer sharedMemory;
+        private long sharedMemoryOffset;
+
+        public Encoder(DataOutputStream out, ByteBuffer sharedMemory) {
+            this.out = out;
+            this.sharedMemory = sharedMemory;
+        }
+
+        /**
+         * @return The offset of the end of the arrays written to the shared memory segment so far
+         */
+        public long sharedMemoryOffset() {
+            return sharedMemoryOffset;
+        }
+
+        public void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NONE);
+            } else if (value instanceof Boolean) {
+                out.writeByte(BOOL);
+                out.writeByte((Boolean) value ? 1 : 0);
+            } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                out.writeByte(INT);
+                out.writeLong(((Number) value).longValue());
+            } else if (value instanceof Double || value instanceof Float) {
+                out.writeByte(FLOAT);
+                out.writeDouble(((Number) value).doubleValue());
+            } else if (value instanceof CharSequence) {
+                out.writeByte(STR);
+                writeString(out, value.toString());
+            } else if (value instanceof byte[]) {
+                out.writeByte(BYTES);
+                out.writeInt(((byte[]) value).length);
+                out.write((byte[]) value);
+            } else if (value instanceof INDArray) {
+                writeArray((INDArray) value);
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                out.writeByte(LIST);
+                out.writeInt(list.size());
+                for (Object item : list) {
+                    writeValue(item);
+                }
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                out.writeByte(DICT);
+                out.writeInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeString(out, String.valueOf(entry.getKey()));
+                    writeValue(entry.getValue());
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported value type for a Python worker: " + value.getClass().getName());
+            }
+        }
+
+        private void writeArray(INDArray array) throws IOException {
+            INDArray contiguous = array.isView() || array.offset() != 0 || array.ordering() != 'c' ? array.dup('c') : array;
+            long bytes = contiguous.length() * contiguous.dataType().width();
+            long offset = align(sharedMemoryOffset);
+            boolean inSharedMemory = offset + bytes <= sharedMemory.capacity();
+
+            out.writeByte(inSharedMemory ? NDARRAY_SHM : NDARRAY_INLINE);
+            writeString(out, numpyType(contiguous.dataType()));
+            long[] shape = contiguous.shape();
+            out.writeInt(shape.length);
+            for (long dimension : shape) {
+                out.writeLong(dimension);
+            }
+
+            ByteBuffer source = null;
+            if (bytes > 0) {
+                source = contiguous.data().asNio().duplicate();
+                source.clear();
+                source.limit(Math.toIntExact(bytes));
+            }
+
+            if (inSharedMemory) {
+                if (source != null) {
+                    ByteBuffer target = sharedMemory.duplicate();
+                    target.position(Math.toIntExact(offset));
+                    target.put(source);
+                }
+                out.writeLong(offset);
+                sharedMemoryOffset = offset + bytes;
+            } else {
+                byte[] content = new byte[Math.toIntExact(bytes)];
+                if (source != null) {
+                    source.get(content);
+                }
+                out.writeInt(content.length);
+                out.write(content);
+            }
+        }
+    }
+
+    /**
+     * Read a value. Arrays are always copied out of the shared memory segment, as it's reused by the next request.
+     */
+    public static Object readValue(DataInputStream in, ByteBuffer sharedMemory) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NONE:
+                return null;
+            case BOOL:
+                return in.readByte() != 0;
+            case INT:
+                return in.readLong();
+            case FLOAT:
+                return in.readDouble();
+            case STR:
+                return readString(in);
+            case BYTES:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return bytes;
+            case NDARRAY_SHM:
+            case NDARRAY_INLINE:
+                return readArray(tag, in, sharedMemory);
+            case LIST:
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, sharedMemory));
+                }
+                return list;
+            case DICT:
+                int entries = in.readInt();
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < entries; i++) {
+                    String key = readString(in);
+                    map.put(key, readValue(in, sharedMemory));
+                }
+                return map;
+            default:
+                throw new IOException("Unknown value tag " + tag + " received from Python worker");
+        }
+    }
+
+    private static INDArray readArray(byte tag, DataInputStream in, ByteBuffer sharedMemory) throws IOException {
+        DataType dataType = dataType(readString(in));
+        long[] shape = new long[in.readInt()];
+        for (int i = 0; i < shape.length; i++) {
+            shape[i] = in.readLong();
+        }
+
+        long length = 1;
+        for (long dimension : shape) {
+            length *= dimension;
+        }
+        long bytes = length * dataType.width();
+
+        ByteBuffer source;
+        if (tag == NDARRAY_SHM) {
+            long offset = in.readLong();
+            source = sharedMemory.duplicate();
+            source.position(Math.toIntExact(offset));
+            source.limit(Math.toIntExact(offset + bytes));
+        } else {
+            byte[] content = new byte[in.readInt()];
+            in.readFully(content);
+            source = ByteBuffer.wrap(content);
+        }
+
+        if (bytes == 0) {
+            return Nd4j.create(dataType, shape);
+        }
+
+        INDArray array = Nd4j.createUninitialized(dataType, shape, 'c');
+        ByteBuffer target = array.data().asNio().duplicate();
+        target.clear();
+        target.put(source);
+        return array;
+    }
+
+    public static long align(long offset) {
+        return (offset + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    /**
+     * @return The numpy dtype name for the given ND4J data type
+     */
+    public static String numpyType(DataType dataType) {
+        switch (dataType) {
+            case DOUBLE:
+                return "float64";
+            case FLOAT:
+                return "float32";
+            case HALF:
+                return "float16";
+            case LONG:
+                return "int64";
+            case INT:
+                return "int32";
+            case SHORT:
+                return "int16";
+            case BYTE:
+                return "int8";
+            case UBYTE:
+                return "uint8";
+            case UINT16:
+                return "uint16";
+            case UINT32:
+                return "uint32";
+            case UINT64:
+                return "uint64";
+            case BOOL:
+                return "bool";
+            default:
+                throw new IllegalArgumentException("Arrays of type " + dataType + " can't be sent to a Python worker");
+        }
+    }
+
+    /**
+     * @return The ND4J data type for the given numpy dtype name
+     */
+    public static DataType dataType(String numpyType) {
+        switch (numpyType) {
+            case "float64":
+                return DataType.DOUBLE;
+            case "float32":
+                return DataType.FLOAT;
+            case "float16":
+                return DataType.HALF;
+            case "int64":
+                return DataType.LONG;
+            case "int32":
+                return DataType.INT;
+            case "int16":
+                return DataType.SHORT;
+            case "int8":
+                return DataType.BYTE;
+            case "uint8":
+                return DataType.UBYTE;
+            case "uint16":
+                return DataType.UINT16;
+            case "uint32":
+                return DataType.UINT32;
+            case "uint64":
+                return DataType.UINT64;
+            case "bool":
+                return DataType.BOOL;
+            default:
+                throw new IllegalArgumentException("Unsupported numpy array type received from Python worker: " + numpyType);
+        }
+    }
+}
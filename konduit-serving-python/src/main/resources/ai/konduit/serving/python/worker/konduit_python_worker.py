@@ -0,0 +1,265 @@
+#  ******************************************************************************
+#  * Copyright (c) 2022 Konduit K.K.
+#  *
+#  * This program and the accompanying materials are made available under the
+#  * terms of the Apache License, Version 2.0 which is available at
+#  * https://www.apache.org/licenses/LICENSE-2.0.
+#  *
+#  * Unless required by applicable law or agreed to in writing, software
+#  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+#  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+#  * License for the specific language governing permissions and limitations
+#  * under the License.
+#  *
+#  * SPDX-License-Identifier: Apache-2.0
+#  *****************************************************************************
+
+# Python worker process for the PythonStep process pool mode. See PythonWorkerProtocol (Java) for the framing.
+# Usage: python konduit_python_worker.py <shared memory file> <shared memory size>
+
+import mmap
+import struct
+import sys
+import traceback
+
+import numpy as np
+
+NONE, BOOL, INT, FLOAT, STR, BYTES, NDARRAY_SHM, NDARRAY_INLINE, LIST, DICT = range(10)
+STATUS_OK, STATUS_ERROR = 0, 1
+ALIGNMENT = 64
+
+
+class Reader(object):
+    def __init__(self, payload):
+        self.payload = payload
+        self.position = 0
+
+    def read(self, fmt):
+        values = struct.unpack_from(fmt, self.payload, self.position)
+        self.position += struct.calcsize(fmt)
+        return values[0]
+
+    def read_bytes(self):
+        length = self.read('>i')
+        value = self.payload[self.position:self.position + length]
+        self.position += length
+        return bytes(value)
+
+    def read_str(self):
+        return self.read_bytes().decode('utf-8')
+
+
+class Writer(object):
+    def __init__(self, shm, shm_offset):
+        self.parts = []
+        self.shm = shm
+        self.shm_offset = shm_offset
+
+    def write(self, fmt, value):
+        self.parts.append(struct.pack(fmt, value))
+
+    def write_bytes(self, value):
+        self.write('>i', len(value))
+        self.parts.append(value)
+
+    def write_str(self, value):
+        self.write_bytes(value.encode('utf-8'))
+
+    def frame(self):
+        payload = b''.join(self.parts)
+        return struct.pack('>i', len(payload)) + payload
+
+
+def read_value(reader, shm):
+    tag = reader.read('>b')
+    if tag == NONE:
+        return None
+    if tag == BOOL:
+        return reader.read('>b') != 0
+    if tag == INT:
+        return reader.read('>q')
+    if tag == FLOAT:
+        return reader.read('>d')
+    if tag == STR:
+        return reader.read_str()
+    if tag == BYTES:
+        return reader.read_bytes()
+    if tag == NDARRAY_SHM or tag == NDARRAY_INLINE:
+        dtype = np.dtype(reader.read_str())
+        rank = reader.read('>i')
+        shape = tuple(reader.read('>q') for _ in range(rank))
+        count = int(np.prod(shape)) if rank > 0 else 1
+        if tag == NDARRAY_SHM:
+            offset = reader.read('>q')
+            # Zero copy view of the shared memory. Only valid until the next request.
+            return np.frombuffer(shm, dtype=dtype, count=count, offset=offset).reshape(shape)
+        return np.frombuffer(reader.read_bytes(), dtype=dtype, count=count).reshape(shape).copy()
+    if tag == LIST:
+        return [read_value(reader, shm) for _ in range(reader.read('>i'))]
+    if tag == DICT:
+        result = {}
+        for _ in range(reader.read('>i')):
+            key = reader.read_str()
+            result[key] = read_value(reader, shm)
+        return result
+    raise ValueError('Unknown value tag %d' % tag)
+
+
+def write_value(writer, value):
+    if value is None:
+        writer.write('>b', NONE)
+    elif isinstance(value, (bool, np.bool_)):
+        writer.write('>b', BOOL)
+        writer.write('>b', 1 if value else 0)
+    elif isinstance(value, (int, np.integer)):
+        writer.write('>b', INT)
+        writer.write('>q', int(value))
+    elif isinstance(value, (float, np.floating)):
+        writer.write('>b', FLOAT)
+        writer.write('>d', float(value))
+    elif isinstance(value, str):
+        writer.write('>b', STR)
+        writer.write_str(value)
+    elif isinstance(value, (bytes, bytearray, memoryview)):
+        writer.write('>b', BYTES)
+        writer.write_bytes(bytes(value))
+    elif isinstance(value, np.ndarray):
+        write_array(writer, value)
+    elif isinstance(value, (list, tuple)):
+        writer.write('>b', LIST)
+        writer.write('>i', len(value))
+        for item in value:
+            write_value(writer, item)
+    elif isinstance(value, dict):
+        writer.write('>b', DICT)
+        writer.write('>i', len(value))
+        for key, item in value.items():
+            writer.write_str(str(key))
+            write_value(writer, item)
+    else:
+        raise TypeError('Unsupported output type %s' % type(value))
+
+
+def write_array(writer, array):
+    if array.dtype.kind not in 'biuf':
+        raise TypeError('Unsupported array data type %s' % array.dtype)
+    array = np.ascontiguousarray(array)
+    offset = (writer.shm_offset + ALIGNMENT - 1) // ALIGNMENT * ALIGNMENT
+    in_shm = offset + array.nbytes <= len(writer.shm)
+
+    writer.write('>b', NDARRAY_SHM if in_shm else NDARRAY_INLINE)
+    writer.write_str(array.dtype.name)
+    writer.write('>i', array.ndim)
+    for dimension in array.shape:
+        writer.write('>q', dimension)
+
+    if in_shm:
+        np.copyto(np.ndarray(array.shape, dtype=array.dtype, buffer=writer.shm, offset=offset), array)
+        writer.write('>q', offset)
+        writer.shm_offset = offset + array.nbytes
+    else:
+        writer.write_bytes(array.tobytes())
+
+
+def convert(value, python_type):
+    """Converts an output to its declared python type, as the in process execution does"""
+    if value is None:
+        return None
+    if python_type == 'str':
+        return value if isinstance(value, str) else str(value)
+    if python_type == 'int':
+        return int(value)
+    if python_type == 'float':
+        return float(value)
+    if python_type == 'bool':
+        return bool(value)
+    if python_type == 'bytes':
+        return bytes(value)
+    if python_type == 'numpy.ndarray':
+        return np.asarray(value)
+    if python_type == 'list':
+        return list(value)
+    if python_type == 'dict':
+        return dict(value)
+    return value
+
+
+def read_frame(stream):
+    header = stream.read(4)
+    if len(header) < 4:
+        return None
+    length = struct.unpack('>i', header)[0]
+    payload = stream.read(length)
+    if len(payload) < length:
+        return None
+    return payload
+
+
+def write_frame(stream, frame):
+    stream.write(frame)
+    stream.flush()
+
+
+def error_frame(shm):
+    writer = Writer(shm, 0)
+    writer.write('>b', STATUS_ERROR)
+    writer.write_str(traceback.format_exc())
+    return writer.frame()
+
+
+def main():
+    shm_file = open(sys.argv[1], 'r+b')
+    shm = mmap.mmap(shm_file.fileno(), int(sys.argv[2]))
+
+    requests = sys.stdin.buffer
+    responses = sys.stdout.buffer
+    # The user code's print() output must not end up in the responses
+    sys.stdout = sys.stderr
+
+    setup = Reader(read_frame(requests))
+    import_code = setup.read_str()
+    code = setup.read_str()
+    outputs = [(setup.read_str(), setup.read_str()) for _ in range(setup.read('>i'))]
+
+    scope = {'__name__': '__main__'}
+    try:
+        if import_code:
+            exec(compile(import_code, '<import code>', 'exec'), scope)
+        compiled = compile(code, '<python code>', 'exec')
+    except Exception:
+        write_frame(responses, error_frame(shm))
+        return
+
+    ready = Writer(shm, 0)
+    ready.write('>b', STATUS_OK)
+    write_frame(responses, ready.frame())
+
+    while True:
+        payload = read_frame(requests)
+        if payload is None:
+            break
+
+        try:
+            request = Reader(payload)
+            output_offset = request.read('>q')
+            for _ in range(request.read('>i')):
+                name = request.read_str()
+                scope[name] = read_value(request, shm)
+
+            exec(compiled, scope)
+
+            writer = Writer(shm, output_offset)
+            writer.write('>b', STATUS_OK)
+            writer.write('>i', len(outputs))
+            for name, python_type in outputs:
+                writer.write_str(name)
+                write_value(writer, convert(scope.get(name), python_type))
+            response = writer.frame()
+        except Exception:
+            response = error_frame(shm)
+
+        write_frame(responses, response)
+
+
+if __name__ == '__main__':
+    main()
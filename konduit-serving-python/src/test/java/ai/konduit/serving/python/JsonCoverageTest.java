@@ -67,6 +67,8 @@ public class JsonCoverageTest extends BaseJsonCoverageTest {
     public void testPythonStep() {
         testConfigSerDe(new PythonStep().pythonConfig((PythonConfig.builder()
         .build())));
+        testConfigSerDe(new PythonStep().pythonConfig((PythonConfig.builder()
+        .build())).workers(4).pythonExecutable("/usr/bin/python3").workerSharedMemoryBytes(1024 * 1024));
     }
 
     @Test
@@ -32,6 +32,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.nd4j.common.io.ClassPathResource;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.python4j.PythonContextManager;
 import org.nd4j.python4j.PythonGIL;
@@ -40,10 +42,10 @@ import org.nd4j.python4j.PythonVariables;
 import java.io.File;
 import java.io.FileInputStream;
 import java.nio.charset.Charset;
-import java.util.Arrays;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.bytedeco.opencv.global.opencv_imgcodecs.imread;
 import static org.junit.Assert.*;
@@ -381,6 +383,44 @@ public class PythonRunnerTests {
         assertEquals(mat.step(),mat2.step());
     }
 
+    @Test
+    public void testImageAsNumpyInput() throws Exception {
+        ClassPathResource classPathResource = new ClassPathResource("data/5_32x32.png");
+        Mat mat = imread(classPathResource.getFile().getAbsolutePath());
+
+        PythonConfig pythonConfig = PythonConfig.builder()
+                .ioInput("image", PythonIO.builder()
+                        .pythonType("numpy.ndarray")
+                        .type(ValueType.IMAGE)
+                        .build())
+                .ioOutput("shape", PythonIO.builder()
+                        .pythonType("str")
+                        .type(ValueType.STRING)
+                        .build())
+                .ioOutput("dtype", PythonIO.builder()
+                        .pythonType("str")
+                        .type(ValueType.STRING)
+                        .build())
+                .pythonCode("shape = str(list(image.shape))\ndtype = str(image.dtype)\n")
+                .build();
+
+        PipelineExecutor executor = SequencePipeline.builder()
+                .add(new PythonStep().pythonConfig(pythonConfig))
+                .build()
+                .executor();
+
+        // Executed more than once, to run the cached compiled code again
+        for (int i = 0; i < 2; i++) {
+            Data exec = executor.exec(Data.singleton("image", new MatImage(mat)));
+            assertEquals("[" + mat.rows() + ", " + mat.cols() + ", " + mat.channels() + "]", exec.getString("shape"));
+            assertEquals("uint8", exec.getString("dtype"));
+        }
+
+        INDArray arr = KonduitPythonUtils.imageToNDArray(new MatImage(mat));
+        assertEquals(DataType.UBYTE, arr.dataType());
+        assertArrayEquals(new long[]{mat.rows(), mat.cols(), mat.channels()}, arr.shape());
+    }
+
     @Test
     public void testNdArray() {
         PythonConfig pythonConfig = PythonConfig.builder()
@@ -418,4 +458,98 @@ public class PythonRunnerTests {
         assertEquals(assertion.getNDArray("output"),exec.getNDArray("output"));
     }
 
+    @Test
+    public void testNdArrayWorkers() throws Exception {
+        PythonConfig pythonConfig = PythonConfig.builder()
+                .ioInput("input", PythonIO.builder()
+                        .pythonType("numpy.ndarray")
+                        .type(ValueType.NDARRAY)
+                        .build())
+                .ioInput("crash", PythonIO.builder()
+                        .pythonType("bool")
+                        .type(ValueType.BOOLEAN)
+                        .build())
+                .ioInput("barrier", PythonIO.builder()
+                        .pythonType("str")
+                        .type(ValueType.STRING)
+                        .build())
+                .ioOutput("output", PythonIO.builder()
+                        .pythonType("numpy.ndarray")
+                        .type(ValueType.NDARRAY)
+                        .build())
+                .ioOutput("pid", PythonIO.builder()
+                        .pythonType("int")
+                        .type(ValueType.INT64)
+                        .build())
+                .importCode("import os\nimport time\nimport numpy as np\n")
+                // With a barrier directory: wait until 2 processes have entered it, which only happens if 2 requests
+                // are executed at the same time by different workers
+                .pythonCode("if crash: os._exit(1)\n" +
+                        "if barrier:\n" +
+                        "    open(os.path.join(barrier, str(os.getpid())), 'w').close()\n" +
+                        "    deadline = time.time() + 60\n" +
+                        "    while len(os.listdir(barrier)) < 2:\n" +
+                        "        if time.time() > deadline: raise RuntimeError('Timeout waiting for a second worker')\n" +
+                        "        time.sleep(0.01)\n" +
+                        "output = input * 2\npid = os.getpid()\n")
+                .build();
+
+        PythonStep pythonStep = new PythonStep()
+                .pythonConfig(pythonConfig)
+                .workers(2)
+                .workerSharedMemoryBytes(1024);
+        PipelineExecutor executor = SequencePipeline.builder()
+                .add(pythonStep)
+                .build()
+                .executor();
+
+        try {
+            // Small enough for the shared memory segment
+            Data small = Data.singleton("input", new ND4JNDArray(Nd4j.linspace(1, 12, 12).reshape(3, 4)));
+            small.put("crash", false);
+            small.put("barrier", "");
+            assertEquals(Nd4j.linspace(1, 12, 12).reshape(3, 4).mul(2), executor.exec(small).getNDArray("output").getAs(INDArray.class));
+
+            // Too large for the shared memory segment: sent inline
+            Data large = Data.singleton("input", new ND4JNDArray(Nd4j.ones(DataType.FLOAT, 32, 32)));
+            large.put("crash", false);
+            large.put("barrier", "");
+            assertEquals(Nd4j.ones(DataType.FLOAT, 32, 32).mul(2), executor.exec(large).getNDArray("output").getAs(INDArray.class));
+
+            // Requests run in parallel in separate processes: both requests wait on the barrier until the other
+            // one has entered it
+            File barrierDir = folder.newFolder();
+            Data barrier = small.clone();
+            barrier.put("barrier", barrierDir.getAbsolutePath());
+            ExecutorService threads = Executors.newFixedThreadPool(2);
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                futures.add(threads.submit(() -> executor.exec(barrier.clone()).getLong("pid")));
+            }
+            Set<Long> pids = new HashSet<>();
+            for (Future<Long> future : futures) {
+                pids.add(future.get());
+            }
+            threads.shutdown();
+            assertEquals(2, pids.size());
+            assertEquals(2, barrierDir.list().length);
+
+            // A crashed worker fails its request and is restarted
+            Data crash = Data.singleton("input", new ND4JNDArray(Nd4j.scalar(1.0)));
+            crash.put("crash", true);
+            crash.put("barrier", "");
+            try {
+                executor.exec(crash);
+                fail("Expected exception");
+            } catch (IllegalStateException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("crashed"));
+            }
+
+            for (int i = 0; i < 4; i++) {
+                assertEquals(Nd4j.linspace(1, 12, 12).reshape(3, 4).mul(2), executor.exec(small).getNDArray("output").getAs(INDArray.class));
+            }
+        } finally {
+            executor.close();
+        }
+    }
 }
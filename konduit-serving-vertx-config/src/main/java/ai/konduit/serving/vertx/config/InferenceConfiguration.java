@@ -56,6 +56,10 @@ public class InferenceConfiguration implements Serializable, TextConfig {
     @Schema(description = "Server type.", defaultValue = "HTTP")
     private ServerProtocol protocol = ServerProtocol.HTTP;
 
+    @Schema(description = "Path of the unix domain socket to listen on, for the HTTP_UDS and SHARED_MEMORY protocols. " +
+            "If not set, a socket file named after the serving id is created in the servers data directory.")
+    private String domainSocketPath = null;
+
     @Schema(description = "Static HTTP content root.", defaultValue = "static-content")
     private String staticContentRoot = "static-content";
 
@@ -65,12 +69,42 @@ public class InferenceConfiguration implements Serializable, TextConfig {
     @Schema(description = "Static HTTP content index page", defaultValue = "index.html")
     private String staticContentIndexPage = "/index.html";
 
+    @Schema(description = "If true, HTTP request bodies (including multipart file uploads) are read and decoded in memory, " +
+            "without writing anything to the file uploads directory. Custom endpoints then have to read the uploads " +
+            "with StreamingBodyHandler.getUploads, as RoutingContext.fileUploads() is empty. If false, multipart file " +
+            "uploads are first written to the file uploads directory and read back from there.", defaultValue = "false")
+    private boolean streamRequestBody = false;
+
+    @Schema(description = "Maximum size of an HTTP request body, in bytes. Larger requests are rejected with a 413 status " +
+            "code. -1 means no limit.", defaultValue = "-1")
+    private long maxRequestBodySize = -1;
+
     @Schema(description = "Kafka related configuration.", defaultValue = "{}")
     private KafkaConfiguration kafkaConfiguration = new KafkaConfiguration();
 
     @Schema(description = "Mqtt related configuration.", defaultValue = "{}")
     private MqttConfiguration mqttConfiguration = new MqttConfiguration();
 
+    @Schema(description = "Shared memory protocol related configuration.", defaultValue = "{}")
+    private SharedMemoryConfiguration sharedMemoryConfiguration = new SharedMemoryConfiguration();
+
+    @Schema(description = "Vert.x threading (event loops, worker pool, verticle instances) and native transport " +
+            "related configuration.", defaultValue = "{}")
+    private VertxConfiguration vertxConfiguration = new VertxConfiguration();
+
+    @Schema(description = "Transport (TCP/HTTP/2, compression, timeouts) related configuration.", defaultValue = "{}")
+    private TransportConfiguration transportConfiguration = new TransportConfiguration();
+
+    @Schema(description = "Pipeline warm-up configuration. The warm-up runs before the server starts listening.", defaultValue = "{}")
+    private WarmupConfiguration warmupConfiguration = new WarmupConfiguration();
+
+    @Schema(description = "Multi model hosting configuration. Pipelines from a model repository are served in addition " +
+            "to (or instead of) the main pipeline.", defaultValue = "{}")
+    private MultiModelConfiguration multiModelConfiguration = new MultiModelConfiguration();
+
+    @Schema(description = "Pipeline hot reload configuration.", defaultValue = "{}")
+    private ReloadConfiguration reloadConfiguration = new ReloadConfiguration();
+
     @Schema(description = "List of custom endpoint class names that are configured to " +
             "provide custom endpoints functionality (fully qualified Java path - for example com.mycompany.MyEndpointsClass).")
     private List<String> customEndpoints = new ArrayList<>();
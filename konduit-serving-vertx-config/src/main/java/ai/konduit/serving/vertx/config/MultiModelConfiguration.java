@@ -0,0 +1,69 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.config;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+
+@Data
+@Accessors(fluent=true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Configuration for hosting multiple pipelines in a single server (HTTP protocol only). Pipelines " +
+        "are addressed by name and version on the /models/{name}/versions/{version}/predict route, loaded on first use " +
+        "from the model repository and kept in a least recently used cache that's bounded by count and by memory.")
+public class MultiModelConfiguration implements Serializable {
+
+    @Schema(description = "Base URI (or path) of the model repository. The pipeline of a model is loaded from " +
+            "{modelRepository}/{name}/{version}/{pipelineFileName}, either a local path or a file, http, https or " +
+            "ftp URI. Multi model hosting is disabled if this isn't set.")
+    private String modelRepository = null;
+
+    @Schema(description = "File name of the pipeline configuration in each model version directory. YAML is used for " +
+            "files ending with .yaml or .yml, and JSON otherwise.", defaultValue = "pipeline.json")
+    private String pipelineFileName = "pipeline.json";
+
+    @Schema(description = "Version used for the /models/{name}/predict route, where no version is given.", defaultValue = "1")
+    private String defaultVersion = "1";
+
+    @Schema(description = "Maximum number of pipelines loaded at the same time. When a pipeline is loaded beyond this " +
+            "limit, the least recently used pipelines are closed.", defaultValue = "16")
+    private int maxLoadedModels = 16;
+
+    @Schema(description = "Maximum estimated memory in bytes (on-heap and native) of the loaded pipelines. When it's " +
+            "exceeded, the least recently used pipelines are closed. The memory of a pipeline is measured while it's " +
+            "loaded. 0 means there's no memory limit.", defaultValue = "0")
+    private long maxMemoryBytes = 0;
+
+    @Schema(description = "Pipelines that haven't been used for this many seconds are closed. 0 means pipelines are only " +
+            "closed when one of the limits is reached.", defaultValue = "0")
+    private long idleTimeoutSeconds = 0;
+
+    /**
+     * @return true if a model repository is configured
+     */
+    public boolean enabled() {
+        return modelRepository != null && !modelRepository.isEmpty();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.config;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+
+@Data
+@Accessors(fluent=true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Configuration for reloading the pipeline without restarting the server. The new pipeline is " +
+        "created and warmed up in the background, then swapped in atomically. Requests in flight on the old pipeline " +
+        "complete before it's closed.")
+public class ReloadConfiguration implements Serializable {
+
+    @Schema(description = "Enables pipeline reloads: the POST /reload route for the HTTP protocols, and the " +
+            "pipelineUri change detection for all the protocols. By default, POST /reload only re-reads pipelineUri, " +
+            "and is only accepted from the loopback address.", defaultValue = "false")
+    private boolean enabled = false;
+
+    @Schema(description = "Token for POST /reload. If set, requests must have an \"Authorization: Bearer <token>\" " +
+            "header, and are accepted from any address. If not set, only requests from the loopback address (or over " +
+            "a unix domain socket) are accepted.")
+    private String token = null;
+
+    @Schema(description = "If true, POST /reload also accepts a pipeline JSON in the request body, instead of only " +
+            "re-reading pipelineUri. A pipeline can run arbitrary code (for example with a Python step), so only enable " +
+            "this together with a token, or if all the local users are trusted.", defaultValue = "false")
+    private boolean allowRequestPipeline = false;
+
+    @Schema(description = "Path or URI (file, http, https or ftp) of the pipeline configuration to reload the pipeline " +
+            "from. YAML is used for files ending with .yaml or .yml, and JSON otherwise. If the inference configuration " +
+            "has no pipeline, the initial pipeline is also loaded from here.")
+    private String pipelineUri = null;
+
+    @Schema(description = "Interval in seconds at which pipelineUri is checked for changes. The pipeline is reloaded " +
+            "when its content changes. 0 disables change detection.", defaultValue = "5")
+    private long watchIntervalSeconds = 5;
+
+    @Schema(description = "Maximum time in seconds to wait for the requests in flight on the old pipeline to " +
+            "complete, before closing it anyway.", defaultValue = "60")
+    private long drainTimeoutSeconds = 60;
+
+    /**
+     * @return true if reloads are enabled, and a pipeline URI to watch and a watch interval are configured
+     */
+    public boolean watchEnabled() {
+        return enabled && pipelineUri != null && !pipelineUri.isEmpty() && watchIntervalSeconds > 0;
+    }
+}
@@ -24,10 +24,14 @@ import io.swagger.v3.oas.annotations.media.Schema;
         "HTTP -> starts an http server, <br>" +
         "MQTT -> starts an mqtt server, <br>" +
         "GRPC -> start a grpc server, <br>" +
-        "KAFKA -> connect to a kafka message queue.")
+        "KAFKA -> connect to a kafka message queue, <br>" +
+        "HTTP_UDS -> starts an http server listening on a unix domain socket (for co-located clients), <br>" +
+        "SHARED_MEMORY -> exchanges data with co-located clients through a memory mapped ring buffer.")
 public enum ServerProtocol {
     HTTP,
     MQTT,
     GRPC,
-    KAFKA
+    KAFKA,
+    HTTP_UDS,
+    SHARED_MEMORY
 }
@@ -0,0 +1,48 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.config;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+
+@Data
+@Accessors(fluent=true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Configuration for the SHARED_MEMORY protocol. The inputs and outputs are written into the slots of " +
+        "a memory mapped ring buffer file, and only the slot indices and lengths are exchanged over the control channel " +
+        "(a unix domain socket if native transports are available, or a local TCP socket otherwise).")
+public class SharedMemoryConfiguration implements Serializable {
+
+    @Schema(description = "Path of the memory mapped ring buffer file. If not set, a file named after the serving id is " +
+            "created in /dev/shm (if available) or in the servers data directory.")
+    private String ringBufferPath = null;
+
+    @Schema(description = "Number of slots in the ring buffer, i.e. the maximum number of in-flight requests.", defaultValue = "16")
+    private int slotCount = 16;
+
+    @Schema(description = "Size of each slot in bytes. Both the serialized input and output of a request have to fit in a slot.",
+            defaultValue = "16777216")
+    private int slotSize = 16 * 1024 * 1024;
+}
@@ -0,0 +1,117 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.config;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Transport level (TCP/HTTP) settings shared by all the servers started by konduit-serving: the HTTP inference server,
+ * the gRPC server and the HTTP health server that runs alongside the Kafka consumer.<br>
+ * Values of -1 for the buffer sizes and the accept backlog mean that the operating system/Vert.x defaults are used.
+ */
+@Data
+@Accessors(fluent=true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Transport (TCP/HTTP) related configuration, applied to the HTTP, gRPC and Kafka health servers.")
+public class TransportConfiguration implements Serializable {
+
+    @Schema(description = "Whether HTTP/2 should be negotiated (through ALPN) on SSL connections. Cleartext HTTP/2 (h2c, " +
+            "through prior knowledge or an HTTP/1.1 upgrade) is always accepted. The stream and window settings below apply " +
+            "to both.", defaultValue = "false")
+    private boolean http2 = false;
+
+    @Schema(description = "Maximum number of concurrent HTTP/2 streams per connection. For gRPC this is the maximum " +
+            "number of concurrent calls per connection. -1 means no explicit limit.", defaultValue = "-1")
+    private long maxConcurrentStreams = -1;
+
+    @Schema(description = "HTTP/2 initial stream flow control window size, in bytes. Also used as the gRPC flow " +
+            "control window. -1 means the default is used.", defaultValue = "-1")
+    private int http2InitialWindowSize = -1;
+
+    @Schema(description = "HTTP/2 connection level flow control window size, in bytes. -1 means the default is used.",
+            defaultValue = "-1")
+    private int http2ConnectionWindowSize = -1;
+
+    @Schema(description = "Whether HTTP response compression is supported at all.", defaultValue = "true")
+    private boolean compressionSupported = true;
+
+    @Schema(description = "Compression level (1-9) used for compressed responses.", defaultValue = "6")
+    private int compressionLevel = 6;
+
+    @Schema(description = "Responses smaller than this size (in bytes) are never compressed.", defaultValue = "1024")
+    private int compressionMinResponseSize = 1024;
+
+    @Schema(description = "Prefixes of the response content types that are allowed to be compressed. Binary " +
+            "responses (such as application/octet-stream) are usually not worth compressing.",
+            defaultValue = "[\"application/json\", \"text/\"]")
+    private List<String> compressionContentTypes = new ArrayList<>(Arrays.asList("application/json", "text/"));
+
+    @Schema(description = "TCP accept backlog for the server sockets. -1 means the default is used. Not applied to the gRPC server.", defaultValue = "-1")
+    private int acceptBacklog = -1;
+
+    @Schema(description = "TCP receive buffer size, in bytes. -1 means the default is used.", defaultValue = "-1")
+    private int receiveBufferSize = -1;
+
+    @Schema(description = "TCP send buffer size, in bytes. -1 means the default is used.", defaultValue = "-1")
+    private int sendBufferSize = -1;
+
+    @Schema(description = "Time (in seconds) after which an idle connection is closed. 0 means connections never time out.",
+            defaultValue = "0")
+    private int idleTimeoutSeconds = 0;
+
+    @Schema(description = "Whether TCP keep alive is enabled.", defaultValue = "true")
+    private boolean tcpKeepAlive = true;
+
+    @Schema(description = "Whether TCP no delay (disabling Nagle's algorithm) is enabled.", defaultValue = "true")
+    private boolean tcpNoDelay = true;
+
+    /**
+     * Check if a response with the given content type and size should be compressed, according to
+     * {@link #compressionSupported()}, {@link #compressionContentTypes()} and {@link #compressionMinResponseSize()}
+     *
+     * @param contentType Content type of the response. May be null.
+     * @param responseSize Size of the response, in bytes
+     * @return True if the response should be compressed, false otherwise
+     */
+    public boolean shouldCompress(String contentType, long responseSize) {
+        if (!compressionSupported || contentType == null || responseSize < compressionMinResponseSize) {
+            return false;
+        }
+
+        if (compressionContentTypes != null) {
+            for (String compressionContentType : compressionContentTypes) {
+                if (contentType.startsWith(compressionContentType)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+}
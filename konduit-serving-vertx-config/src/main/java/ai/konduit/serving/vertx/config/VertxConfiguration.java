@@ -0,0 +1,59 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package ai.konduit.serving.vertx.config;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+
+/**
+ * Threading and transport settings of the Vert.x instance that hosts the server.<br>
+ * Values of 0 for the pool sizes and the verticle instances mean that the Vert.x/command line defaults are used.
+ * Each verticle instance is bound to its own event loop (assigned round-robin), so with a pipeline that executes on
+ * the event loop, the number of verticle instances is the number of requests that can be processed in parallel.
+ */
+@Data
+@Accessors(fluent=true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Vert.x threading and native transport related configuration.")
+public class VertxConfiguration implements Serializable {
+
+    @Schema(description = "Whether the native transport (epoll on Linux) should be used, if available. Falls back to the " +
+            "NIO transport if the native transport can't be loaded. Always enabled for the HTTP_UDS and SHARED_MEMORY protocols.",
+            defaultValue = "false")
+    private boolean preferNativeTransport = false;
+
+    @Schema(description = "Number of event loop threads. 0 means the Vert.x default (twice the number of cores) is used.",
+            defaultValue = "0")
+    private int eventLoopPoolSize = 0;
+
+    @Schema(description = "Number of worker threads, used for blocking operations. 0 means the Vert.x default (20) is used.",
+            defaultValue = "0")
+    private int workerPoolSize = 0;
+
+    @Schema(description = "Number of server verticle instances to deploy. Each instance runs on its own event loop and " +
+            "shares the server port with the other instances. 0 means a single instance (or the number given on the " +
+            "command line) is deployed. The HTTP_UDS and SHARED_MEMORY protocols support a single instance only.",
+            defaultValue = "0")
+    private int verticleInstances = 0;
+}
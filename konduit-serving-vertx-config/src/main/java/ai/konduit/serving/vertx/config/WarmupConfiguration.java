@@ -0,0 +1,72 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.config;
+
+import ai.konduit.serving.pipeline.api.data.NDArrayType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Accessors(fluent=true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Configuration for warming up the pipeline when the server starts. The warm-up inputs are run " +
+        "through the whole pipeline before the server starts listening, so that the first requests don't pay for JIT " +
+        "compilation, lazy native library and model initialization or backend graph compilation. Warm-up is skipped if " +
+        "neither synthetic inputs nor a sample data file are configured.")
+public class WarmupConfiguration implements Serializable {
+
+    @Schema(description = "Number of times the warm-up inputs are run through the pipeline.", defaultValue = "10")
+    private int iterations = 10;
+
+    @Schema(description = "Path or URI of a recorded sample input: a Data instance in JSON format (.json files) or in the " +
+            "binary format written by Data.save (any other file). Used instead of the synthetic inputs, if set.")
+    private String sampleDataPath = null;
+
+    @Schema(description = "Synthetic (zero filled) NDArray inputs to generate, when no sample data file is set.")
+    private List<WarmupInput> inputs = new ArrayList<>();
+
+    @Schema(description = "If true, the server fails to start if the warm-up fails. Otherwise, the failure is logged and " +
+            "the server starts anyway.", defaultValue = "false")
+    private boolean failOnError = false;
+
+    @Data
+    @Accessors(fluent=true)
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "A synthetic NDArray input used for warming up the pipeline.")
+    public static class WarmupInput implements Serializable {
+
+        @Schema(description = "Name of the input - i.e. the Data key it's set under.")
+        private String name;
+
+        @Schema(description = "Shape of the generated array - for example [1, 3, 224, 224].")
+        private long[] shape;
+
+        @Schema(description = "Data type of the generated array.", defaultValue = "FLOAT")
+        private NDArrayType dataType = NDArrayType.FLOAT;
+    }
+}
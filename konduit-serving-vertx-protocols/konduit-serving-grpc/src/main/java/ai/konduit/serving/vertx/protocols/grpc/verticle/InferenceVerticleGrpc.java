@@ -23,8 +23,12 @@ import ai.konduit.serving.pipeline.impl.data.ProtoData;
 import ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataScheme;
 import ai.konduit.serving.vertx.protocols.grpc.api.InferenceGrpc;
 import ai.konduit.serving.pipeline.settings.constants.EnvironmentConstants;
+import ai.konduit.serving.vertx.config.InferenceConfiguration;
+import ai.konduit.serving.vertx.config.TransportConfiguration;
 import ai.konduit.serving.vertx.verticle.InferenceVerticle;
+import io.grpc.netty.NettyServerBuilder;
 import io.grpc.stub.StreamObserver;
+import io.netty.channel.ChannelOption;
 import io.vertx.core.Promise;
 import io.vertx.core.impl.ContextInternal;
 import io.vertx.core.json.JsonObject;
@@ -32,6 +36,8 @@ import io.vertx.grpc.VertxServer;
 import io.vertx.grpc.VertxServerBuilder;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.concurrent.TimeUnit;
+
 @Slf4j
 public class InferenceVerticleGrpc extends InferenceVerticle {
 
@@ -76,7 +82,7 @@ public class InferenceVerticleGrpc extends InferenceVerticle {
                     return;
                 }
 
-                VertxServer rpcServer = VertxServerBuilder
+                VertxServerBuilder rpcServerBuilder = VertxServerBuilder
                         .forAddress(vertx, inferenceConfiguration.host(), inferenceConfiguration.port())
                         .addService(new InferenceGrpc.InferenceImplBase() {
                             @Override
@@ -90,8 +96,11 @@ public class InferenceVerticleGrpc extends InferenceVerticle {
                                     responseObserver.onError(throwable);
                                 }
                             }
-                        })
-                        .build();
+                        });
+
+                applyTransportOptions(rpcServerBuilder.nettyBuilder());
+
+                VertxServer rpcServer = rpcServerBuilder.build();
 
                 rpcServer.start(handler -> {
                     if(handler.succeeded()) {
@@ -123,4 +132,35 @@ public class InferenceVerticleGrpc extends InferenceVerticle {
 
 
     }
+
+    /**
+     * Applies the {@link InferenceConfiguration#transportConfiguration()} settings to the gRPC netty server. The accept
+     * backlog isn't configurable for the gRPC server.
+     */
+    protected void applyTransportOptions(NettyServerBuilder nettyBuilder) {
+        TransportConfiguration transportConfiguration = transportConfiguration();
+
+        nettyBuilder.withChildOption(ChannelOption.TCP_NODELAY, transportConfiguration.tcpNoDelay())
+                .withChildOption(ChannelOption.SO_KEEPALIVE, transportConfiguration.tcpKeepAlive());
+
+        if (transportConfiguration.receiveBufferSize() > 0) {
+            nettyBuilder.withChildOption(ChannelOption.SO_RCVBUF, transportConfiguration.receiveBufferSize());
+        }
+
+        if (transportConfiguration.sendBufferSize() > 0) {
+            nettyBuilder.withChildOption(ChannelOption.SO_SNDBUF, transportConfiguration.sendBufferSize());
+        }
+
+        if (transportConfiguration.maxConcurrentStreams() > 0) {
+            nettyBuilder.maxConcurrentCallsPerConnection((int) Math.min(Integer.MAX_VALUE, transportConfiguration.maxConcurrentStreams()));
+        }
+
+        if (transportConfiguration.http2InitialWindowSize() > 0) {
+            nettyBuilder.flowControlWindow(transportConfiguration.http2InitialWindowSize());
+        }
+
+        if (transportConfiguration.idleTimeoutSeconds() > 0) {
+            nettyBuilder.maxConnectionIdle(transportConfiguration.idleTimeoutSeconds(), TimeUnit.SECONDS);
+        }
+    }
 }
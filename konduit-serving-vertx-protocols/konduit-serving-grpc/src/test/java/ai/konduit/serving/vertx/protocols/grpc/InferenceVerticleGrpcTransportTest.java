@@ -0,0 +1,130 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.protocols.grpc;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.impl.data.JData;
+import ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataScheme;
+import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import ai.konduit.serving.pipeline.impl.step.logging.LoggingStep;
+import ai.konduit.serving.vertx.api.DeployKonduitServing;
+import ai.konduit.serving.vertx.config.InferenceConfiguration;
+import ai.konduit.serving.vertx.config.ServerProtocol;
+import ai.konduit.serving.vertx.config.TransportConfiguration;
+import ai.konduit.serving.vertx.protocols.grpc.api.InferenceGrpc;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.grpc.VertxChannelBuilder;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.event.Level;
+
+/**
+ * gRPC server with the {@link TransportConfiguration} options set, which are applied to the netty server builder.
+ */
+@RunWith(VertxUnitRunner.class)
+public class InferenceVerticleGrpcTransportTest {
+
+    static InferenceConfiguration configuration;
+    static Vertx vertx;
+    static ManagedChannel channel;
+    static InferenceGrpc.InferenceVertxStub inferenceVertxStub;
+
+    @BeforeClass
+    public static void setUp(TestContext testContext) {
+        configuration = new InferenceConfiguration()
+                .protocol(ServerProtocol.GRPC)
+                .transportConfiguration(new TransportConfiguration()
+                        .maxConcurrentStreams(4)
+                        .http2InitialWindowSize(1024 * 1024)
+                        .receiveBufferSize(256 * 1024)
+                        .sendBufferSize(256 * 1024)
+                        .tcpNoDelay(true)
+                        .tcpKeepAlive(true)
+                        .idleTimeoutSeconds(1))
+                .pipeline(SequencePipeline.builder()
+                        .add(new LoggingStep().log(LoggingStep.Log.KEYS_AND_VALUES).logLevel(Level.ERROR))
+                        .build());
+
+        Async async = testContext.async();
+
+        vertx = DeployKonduitServing.deploy(new VertxOptions(),
+                new DeploymentOptions(),
+                configuration,
+                handler -> {
+                    if(handler.succeeded()) {
+                        channel = VertxChannelBuilder
+                                .forAddress(vertx, "localhost", handler.result().getActualPort())
+                                .usePlaintext(true)
+                                .build();
+
+                        inferenceVertxStub = InferenceGrpc.newVertxStub(channel);
+
+                        async.complete();
+                    } else {
+                        testContext.fail(handler.cause());
+                    }
+                });
+    }
+
+    @Test
+    public void testIdleConnectionClosedByServer(TestContext testContext) throws InvalidProtocolBufferException {
+        Data input = JData.singleton("key", "value");
+        DataScheme request = DataScheme.parseFrom(input.asBytes());
+
+        Async async = testContext.async();
+
+        inferenceVertxStub.predict(request, ar -> {
+            if (ar.succeeded()) {
+                testContext.assertEquals(input, Data.fromBytes(ar.result().toByteArray()));
+                testContext.assertEquals(ConnectivityState.READY, channel.getState(false));
+
+                // The server closes the connection once it has been idle for idleTimeoutSeconds. The client side idle
+                // timeout is much longer (30 minutes by default), so the channel only goes idle due to the server.
+                long end = System.currentTimeMillis() + 15000;
+                vertx.setPeriodic(100, timerId -> {
+                    if (channel.getState(false) == ConnectivityState.IDLE) {
+                        vertx.cancelTimer(timerId);
+                        async.complete();
+                    } else if (System.currentTimeMillis() > end) {
+                        vertx.cancelTimer(timerId);
+                        testContext.fail("Connection wasn't closed by the server after the idle timeout");
+                    }
+                });
+            } else {
+                testContext.fail(ar.cause());
+            }
+        });
+    }
+
+    @AfterClass
+    public static void tearDown(TestContext testContext) {
+        channel.shutdownNow();
+        vertx.close(testContext.asyncAssertSuccess());
+    }
+}
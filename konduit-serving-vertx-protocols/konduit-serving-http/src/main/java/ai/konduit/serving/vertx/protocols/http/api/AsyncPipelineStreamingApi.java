@@ -0,0 +1,258 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.protocols.http.api;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.impl.pipeline.AsyncPipelineExecutor;
+import io.vertx.core.Context;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.ServerWebSocket;
+import io.vertx.ext.web.RoutingContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static io.vertx.core.http.HttpHeaders.CONTENT_ENCODING;
+import static io.vertx.core.http.HttpHeaders.CONTENT_TYPE;
+
+/**
+ * Pushes the outputs of an {@link ai.konduit.serving.pipeline.impl.pipeline.AsyncPipeline} to subscribed clients,
+ * either as Server-Sent Events ({@link #sse(RoutingContext)}) or as WebSocket messages ({@link #webSocket(RoutingContext)}),
+ * instead of clients having to poll the predict endpoint.<br>
+ * Each subscriber only ever holds the latest output: if a subscriber is slow (its write queue is full) or an output
+ * arrives before the subscriber's minimum interval (the {@code intervalMs} query parameter) has elapsed, the
+ * output is dropped for that subscriber only.
+ */
+@Slf4j
+public class AsyncPipelineStreamingApi {
+
+    public static final String INTERVAL_MS_PARAM = "intervalMs";
+    public static final String FORMAT_PARAM = "format";
+
+    private final Context context;
+    private final AsyncPipelineExecutor pipelineExecutor;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Consumer<Data> listener = this::publish;
+
+    public AsyncPipelineStreamingApi(Context context, AsyncPipelineExecutor pipelineExecutor) {
+        this.context = context;
+        this.pipelineExecutor = pipelineExecutor;
+        this.pipelineExecutor.addListener(listener);
+    }
+
+    /**
+     * Stream the pipeline outputs as Server-Sent Events, with the JSON serialized output as the event data.
+     */
+    public void sse(RoutingContext ctx) {
+        HttpServerResponse response = ctx.response();
+        response.setChunked(true)
+                .setStatusCode(200)
+                .putHeader(CONTENT_TYPE, "text/event-stream")
+                // Compression would buffer the events instead of sending them as they are produced
+                .putHeader(CONTENT_ENCODING, HttpHeaders.IDENTITY)
+                .putHeader(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .putHeader(HttpHeaders.CONNECTION, "keep-alive");
+        // Flush the headers so that the clients know the stream has started
+        response.write(":\n\n");
+
+        Subscriber subscriber = new Subscriber(parseInterval(ctx)) {
+            @Override
+            protected boolean isWriteQueueFull() {
+                return response.writeQueueFull();
+            }
+
+            @Override
+            protected void write(StreamedOutput output) {
+                // Multi-line data has to be sent as multiple "data:" lines
+                response.write("data: " + output.json().replace("\n", "\ndata: ") + "\n\n");
+            }
+        };
+
+        response.closeHandler(v -> unsubscribe(subscriber));
+        response.exceptionHandler(throwable -> {
+            log.debug("Error while streaming server-sent events", throwable);
+            unsubscribe(subscriber);
+        });
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Stream the pipeline outputs as WebSocket messages. By default the JSON serialized outputs are sent as text
+     * messages. With the {@code format=binary} query parameter, the binary (protobuf) outputs are sent as binary messages.
+     */
+    public void webSocket(RoutingContext ctx) {
+        boolean binary = "binary".equalsIgnoreCase(ctx.request().getParam(FORMAT_PARAM));
+        long intervalNanos = parseInterval(ctx);
+        ServerWebSocket webSocket = ctx.request().upgrade();
+
+        Subscriber subscriber = new Subscriber(intervalNanos) {
+            @Override
+            protected boolean isWriteQueueFull() {
+                return webSocket.writeQueueFull();
+            }
+
+            @Override
+            protected void write(StreamedOutput output) {
+                if (binary) {
+                    webSocket.writeBinaryMessage(Buffer.buffer(output.bytes()));
+                } else {
+                    webSocket.writeTextMessage(output.json());
+                }
+            }
+        };
+
+        webSocket.closeHandler(v -> unsubscribe(subscriber));
+        webSocket.exceptionHandler(throwable -> {
+            log.debug("Error while streaming to websocket", throwable);
+            unsubscribe(subscriber);
+        });
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Stop receiving outputs from the pipeline executor and drop all subscribers.
+     */
+    public void close() {
+        pipelineExecutor.removeListener(listener);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.closed = true;
+        }
+        subscribers.clear();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscriber.closed = true;
+        if (subscribers.remove(subscriber) && subscriber.dropped.get() > 0) {
+            log.debug("Streaming subscriber closed. {} outputs were dropped for it.", subscriber.dropped.get());
+        }
+    }
+
+    private void publish(Data output) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        StreamedOutput streamedOutput = new StreamedOutput(output);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(streamedOutput);
+        }
+    }
+
+    private static long parseInterval(RoutingContext ctx) {
+        String intervalMs = ctx.request().getParam(INTERVAL_MS_PARAM);
+        if (intervalMs == null) {
+            return 0;
+        }
+
+        try {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, Long.parseLong(intervalMs)));
+        } catch (NumberFormatException exception) {
+            throw new KonduitServingHttpException(HttpApiErrorCode.DATA_PARSING_ERROR,
+                    String.format("Invalid %s query parameter: %s", INTERVAL_MS_PARAM, intervalMs));
+        }
+    }
+
+    /**
+     * An output shared between all subscribers, so that it's serialized at most once per format.
+     */
+    private static class StreamedOutput {
+        private final Data data;
+        private String json;
+        private byte[] bytes;
+
+        private StreamedOutput(Data data) {
+            this.data = data;
+        }
+
+        // Only called from the (single) verticle context
+        private String json() {
+            if (json == null) {
+                json = data.toJson();
+            }
+            return json;
+        }
+
+        private byte[] bytes() {
+            if (bytes == null) {
+                bytes = data.asBytes();
+            }
+            return bytes;
+        }
+    }
+
+    private abstract class Subscriber {
+        private final long minIntervalNanos;
+        private final AtomicReference<StreamedOutput> pending = new AtomicReference<>();
+        private final AtomicLong dropped = new AtomicLong();
+        private long lastSent = 0;
+        private volatile boolean closed = false;
+
+        private Subscriber(long minIntervalNanos) {
+            this.minIntervalNanos = minIntervalNanos;
+        }
+
+        protected abstract boolean isWriteQueueFull();
+
+        protected abstract void write(StreamedOutput output);
+
+        /**
+         * Called from the trigger thread. Only the latest output is kept - a drain of the pending output is
+         * scheduled on the verticle context only if there isn't one scheduled already.
+         */
+        private void offer(StreamedOutput output) {
+            if (closed) {
+                return;
+            }
+
+            if (pending.getAndSet(output) != null) {
+                dropped.incrementAndGet();
+            } else {
+                context.runOnContext(v -> drain());
+            }
+        }
+
+        private void drain() {
+            StreamedOutput output = pending.getAndSet(null);
+            if (output == null || closed) {
+                return;
+            }
+
+            long now = System.nanoTime();
+            if ((lastSent != 0 && now - lastSent < minIntervalNanos) || isWriteQueueFull()) {
+                dropped.incrementAndGet();
+                return;
+            }
+
+            lastSent = now;
+            try {
+                write(output);
+            } catch (Throwable throwable) {
+                log.debug("Failed to write streamed output, removing subscriber", throwable);
+                unsubscribe(this);
+            }
+        }
+    }
+}
@@ -27,7 +27,12 @@ import io.swagger.v3.oas.annotations.media.Schema;
         "INVALID_CONTENT_TYPE_HEADER -> If the Content-Type header has an invalid value. Currently it should be either application/json or application/octet-stream " +
         "MISSING_OR_EMPTY_ACCEPT_HEADER -> If the request has no Accept header " +
         "INVALID_ACCEPT_HEADER -> If the Accept header has an invalid value. Currently it should be either application/json or application/octet-stream " +
-        "PIPELINE_PROCESSING_ERROR -> If there's an error while processing the data through the pipeline.")
+        "PIPELINE_PROCESSING_ERROR -> If there's an error while processing the data through the pipeline. " +
+        "MODEL_NOT_FOUND -> If the requested model or model version doesn't exist in the model repository " +
+        "INVALID_MODEL_NAME -> If the requested model name or version contains characters that aren't allowed " +
+        "MODEL_LOADING_ERROR -> If the requested model pipeline couldn't be loaded. " +
+        "PIPELINE_RELOAD_ERROR -> If the new pipeline for a reload is missing or invalid. " +
+        "PIPELINE_RELOAD_FORBIDDEN -> If a reload request isn't authorized, or has a pipeline in the body when that isn't allowed.")
 public enum HttpApiErrorCode {
     /**
      * If the incoming data cannot be parsed
@@ -57,5 +62,31 @@ public enum HttpApiErrorCode {
     /**
      * If there's an error while processing the data through the {@link Pipeline}.
      */
-    PIPELINE_PROCESSING_ERROR
+    PIPELINE_PROCESSING_ERROR,
+
+    /**
+     * If the requested model or model version doesn't exist in the model repository (multi model hosting)
+     */
+    MODEL_NOT_FOUND,
+
+    /**
+     * If the requested model name or version contains characters that aren't allowed (multi model hosting)
+     */
+    INVALID_MODEL_NAME,
+
+    /**
+     * If the requested model {@link Pipeline} couldn't be loaded (multi model hosting)
+     */
+    MODEL_LOADING_ERROR,
+
+    /**
+     * If the new {@link Pipeline} for a reload is missing or invalid
+     */
+    PIPELINE_RELOAD_ERROR,
+
+    /**
+     * If a reload request isn't authorized (missing or invalid token, or not from the loopback address), or has a
+     * {@link Pipeline} in the request body while that isn't allowed
+     */
+    PIPELINE_RELOAD_FORBIDDEN
 }
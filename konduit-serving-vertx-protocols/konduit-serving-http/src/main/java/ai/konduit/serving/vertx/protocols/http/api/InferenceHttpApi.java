@@ -25,14 +25,17 @@ import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
 import ai.konduit.serving.pipeline.impl.format.JavaImageFactory;
 import ai.konduit.serving.pipeline.registry.ImageFactoryRegistry;
 import ai.konduit.serving.pipeline.registry.NDArrayConverterRegistry;
+import ai.konduit.serving.vertx.config.TransportConfiguration;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
+import io.netty.buffer.ByteBufInputStream;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerResponse;
 import io.vertx.ext.web.FileUpload;
 import io.vertx.ext.web.RoutingContext;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -42,14 +45,16 @@ import org.nd4j.shade.guava.base.Strings;
 import javax.imageio.ImageIO;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.List;
 
 import static io.netty.handler.codec.http.HttpHeaderValues.*;
 import static io.vertx.core.http.HttpHeaders.ACCEPT;
+import static io.vertx.core.http.HttpHeaders.CONTENT_ENCODING;
 import static io.vertx.core.http.HttpHeaders.CONTENT_TYPE;
 
-@AllArgsConstructor
 @Getter
 public class InferenceHttpApi {
 
@@ -62,6 +67,7 @@ public class InferenceHttpApi {
     protected static Counter requestsHandledCounter = null;
 
     protected final PipelineExecutor pipelineExecutor;
+    protected final TransportConfiguration transportConfiguration;
     protected static MeterRegistry registry = null;
 
     static {
@@ -70,18 +76,43 @@ public class InferenceHttpApi {
         NDArrayConverterRegistry.addConverter(new ND4JConverters.SerializedToNd4jArrConverter());
     }
 
+    public InferenceHttpApi(PipelineExecutor pipelineExecutor) {
+        this(pipelineExecutor, new TransportConfiguration());
+    }
+
+    public InferenceHttpApi(PipelineExecutor pipelineExecutor, TransportConfiguration transportConfiguration) {
+        this.pipelineExecutor = pipelineExecutor;
+        this.transportConfiguration = transportConfiguration;
+    }
+
     public static Data extractData(String contentType, RoutingContext ctx) {
         try {
             if (contentType.contains(APPLICATION_JSON.toString())) {
                 return Data.fromJson(ctx.getBodyAsString(StandardCharsets.UTF_8.name()));
             } else if (contentType.contains(APPLICATION_OCTET_STREAM.toString())) {
-                return Data.fromBytes(ctx.getBody().getBytes());
+                // Parsing from the underlying netty buffer directly, without copying it into a byte array first
+                try (InputStream inputStream = new ByteBufInputStream(ctx.getBody().getByteBuf())) {
+                    return Data.fromStream(inputStream);
+                }
             } else if(contentType.contains(MULTIPART_FORM_DATA.toString())) {
                 StringBuilder stringBuilder = new StringBuilder("{");
                 ctx.request().formAttributes().forEach(entry -> stringBuilder.append(String.format(",\"%s\":%s", entry.getKey(), entry.getValue().startsWith("[") ? entry.getValue() : String.format("\"%s\"", entry.getValue()))));
                 stringBuilder.append("}");
                 Data data = Data.fromJson(stringBuilder.toString().replaceFirst(",",""));
 
+                List<InMemoryFileUpload> inMemoryFileUploads = StreamingBodyHandler.getUploads(ctx);
+                if(inMemoryFileUploads != null) {
+                    for(InMemoryFileUpload fileUpload : inMemoryFileUploads) {
+                        if(StringUtils.containsIgnoreCase(fileUpload.getContentType(), "image")) {
+                            try (InputStream inputStream = new ByteBufInputStream(fileUpload.getData().getByteBuf())) {
+                                data.put(fileUpload.getName(), Image.create(ImageIO.read(inputStream)));
+                            }
+                        } else {
+                            data.put(fileUpload.getName(), fileUpload.getData().getBytes());
+                        }
+                    }
+                }
+
                 for(FileUpload fileUpload: ctx.fileUploads()) {
                     if(StringUtils.containsIgnoreCase(fileUpload.contentType(), "image")) {
                         data.put(fileUpload.name(), Image.create(ImageIO.read(new File(fileUpload.uploadedFileName()))));
@@ -105,6 +136,14 @@ public class InferenceHttpApi {
 
     //TODO: add swagger related annotations to this method or update this class for better swagger annotations support
     public void predict(RoutingContext ctx) {
+        predict(ctx, pipelineExecutor);
+    }
+
+    /**
+     * Same as {@link #predict(RoutingContext)}, but executing the given pipeline executor - for example one of the
+     * pipelines of a multi model server.
+     */
+    public void predict(RoutingContext ctx, PipelineExecutor pipelineExecutor) {
         double requestTimeStart = (double) System.nanoTime();
         String contentType = ctx.request().headers().get(CONTENT_TYPE);
         String accept = ctx.request().headers().get(ACCEPT);
@@ -134,15 +173,17 @@ public class InferenceHttpApi {
         }
 
         if(accept.contains(APPLICATION_JSON.toString())) {
-            ctx.response()
+            byte[] json = output.toJson().getBytes(StandardCharsets.UTF_8);
+            setContentEncoding(ctx.response(), APPLICATION_JSON.toString(), json.length)
                     .setStatusCode(200)
                     .putHeader(CONTENT_TYPE, APPLICATION_JSON.toString())
-                    .end(output.toJson(), StandardCharsets.UTF_8.name());
+                    .end(Buffer.buffer(json));
         } else if(accept.contains(APPLICATION_OCTET_STREAM.toString())) {
-            ctx.response()
+            byte[] bytes = output.asBytes();
+            setContentEncoding(ctx.response(), APPLICATION_OCTET_STREAM.toString(), bytes.length)
                     .setStatusCode(200)
                     .putHeader(CONTENT_TYPE, APPLICATION_OCTET_STREAM.toString())
-                    .end(Buffer.buffer(output.asBytes()));
+                    .end(Buffer.buffer(bytes));
         } else {
             throw new KonduitServingHttpException(HttpApiErrorCode.INVALID_ACCEPT_HEADER,
                     String.format("Invalid Accept header %s. Should be one of [application/json, application/octet-stream]", accept));
@@ -156,6 +197,18 @@ public class InferenceHttpApi {
         requestTime = requestTimeEnd - requestTimeStart;
     }
 
+    /**
+     * Disables the response compression (through the "Content-Encoding: identity" header) if the response content type
+     * or size isn't worth compressing, as specified by {@link TransportConfiguration#shouldCompress(String, long)}
+     */
+    protected HttpServerResponse setContentEncoding(HttpServerResponse response, String contentType, long responseSize) {
+        if(transportConfiguration != null && !transportConfiguration.shouldCompress(contentType, responseSize)) {
+            response.putHeader(CONTENT_ENCODING, HttpHeaders.IDENTITY);
+        }
+
+        return response;
+    }
+
     public static void setMetrics(MeterRegistry registry, Iterable<Tag> tags) {
         if(registry != null) {
             InferenceHttpApi.registry = registry;
@@ -0,0 +1,177 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.protocols.http.api;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.netty.handler.codec.http.HttpHeaderValues.APPLICATION_X_WWW_FORM_URLENCODED;
+import static io.netty.handler.codec.http.HttpHeaderValues.MULTIPART_FORM_DATA;
+
+/**
+ * A replacement for the Vert.x {@link io.vertx.ext.web.handler.BodyHandler} that never touches the file system.<br>
+ * - Non multipart bodies are accumulated (pre-sized from the Content-Length header, if available) and set as the
+ * routing context body, so they can be parsed directly from the underlying Netty buffer.<br>
+ * - Multipart file uploads are decoded in memory and made available as a list of {@link InMemoryFileUpload}s
+ * through {@link #getUploads(RoutingContext)}. Form attributes are available from the request as usual.<br>
+ * Requests whose body is larger than the maximum body size fail with a 413 status code.
+ */
+public class StreamingBodyHandler implements Handler<RoutingContext> {
+
+    public static final String UPLOADS_KEY = "konduit.inMemoryUploads";
+
+    private static final String BODY_HANDLED_KEY = "konduit.streamingBodyHandled";
+
+    private final long maxBodySize;
+
+    /**
+     * @param maxBodySize Maximum request body size in bytes. Values <= 0 mean no limit.
+     */
+    public StreamingBodyHandler(long maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * Get the multipart file uploads that were decoded in memory for the current request.
+     *
+     * @return The in-memory uploads, or null if the request body wasn't handled by a {@link StreamingBodyHandler}
+     */
+    public static List<InMemoryFileUpload> getUploads(RoutingContext ctx) {
+        return ctx.get(UPLOADS_KEY);
+    }
+
+    @Override
+    public void handle(RoutingContext ctx) {
+        HttpServerRequest request = ctx.request();
+
+        if (request.headers().contains(HttpHeaders.UPGRADE, HttpHeaders.WEBSOCKET, true)) {
+            ctx.next();
+            return;
+        }
+
+        // The handler can be called again on a reroute, in which case the body has already been read
+        Boolean handled = ctx.get(BODY_HANDLED_KEY);
+        if (handled != null && handled) {
+            ctx.next();
+            return;
+        }
+        ctx.put(BODY_HANDLED_KEY, true);
+
+        long contentLength = parseContentLength(request);
+        if (maxBodySize > 0 && contentLength > maxBodySize) {
+            ctx.fail(413);
+            return;
+        }
+
+        String contentType = request.getHeader(HttpHeaders.CONTENT_TYPE);
+        boolean isForm = contentType != null &&
+                (contentType.toLowerCase().contains(MULTIPART_FORM_DATA.toString()) ||
+                        contentType.toLowerCase().contains(APPLICATION_X_WWW_FORM_URLENCODED.toString()));
+
+        new BodyState(ctx, contentLength, isForm).start();
+    }
+
+    private static long parseContentLength(HttpServerRequest request) {
+        String contentLength = request.getHeader(HttpHeaders.CONTENT_LENGTH);
+        if (contentLength == null) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(contentLength);
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+
+    private class BodyState {
+        private final RoutingContext ctx;
+        private final boolean isForm;
+        private final Buffer body;
+        private final List<InMemoryFileUpload> uploads = new ArrayList<>();
+        private long received = 0;
+        private boolean failed = false;
+
+        private BodyState(RoutingContext ctx, long contentLength, boolean isForm) {
+            this.ctx = ctx;
+            this.isForm = isForm;
+            // Form bodies are decoded by the request itself - there's no need to keep the raw bytes around
+            this.body = isForm ? Buffer.buffer(0) :
+                    (contentLength > 0 && contentLength <= Integer.MAX_VALUE ? Buffer.buffer((int) contentLength) : Buffer.buffer());
+        }
+
+        private void start() {
+            HttpServerRequest request = ctx.request();
+
+            if (isForm) {
+                request.setExpectMultipart(true);
+                request.uploadHandler(upload -> {
+                    Buffer uploadData = Buffer.buffer();
+                    upload.handler(chunk -> {
+                        if (!failed) {
+                            uploadData.appendBuffer(chunk);
+                        }
+                    });
+                    upload.exceptionHandler(this::fail);
+                    upload.endHandler(v -> uploads.add(new InMemoryFileUpload(upload.name(), upload.filename(),
+                            upload.contentType(), uploadData)));
+                });
+            }
+
+            request.handler(chunk -> {
+                if (failed) {
+                    return;
+                }
+
+                received += chunk.length();
+                if (maxBodySize > 0 && received > maxBodySize) {
+                    failed = true;
+                    ctx.fail(413);
+                } else if (!isForm) {
+                    body.appendBuffer(chunk);
+                }
+            });
+
+            request.exceptionHandler(this::fail);
+
+            request.endHandler(v -> {
+                if (failed) {
+                    return;
+                }
+
+                ctx.setBody(body);
+                ctx.put(UPLOADS_KEY, uploads);
+                ctx.next();
+            });
+        }
+
+        private void fail(Throwable throwable) {
+            if (!failed) {
+                failed = true;
+                ctx.fail(throwable);
+            }
+        }
+    }
+}
@@ -23,14 +23,22 @@ import ai.konduit.serving.endpoint.HttpEndpoints;
 import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
 import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
 import ai.konduit.serving.pipeline.impl.metrics.MetricsProvider;
+import ai.konduit.serving.pipeline.impl.pipeline.AsyncPipelineExecutor;
 import ai.konduit.serving.pipeline.registry.MicrometerRegistry;
 import ai.konduit.serving.pipeline.settings.DirectoryFetcher;
 import ai.konduit.serving.pipeline.settings.constants.EnvironmentConstants;
 import ai.konduit.serving.pipeline.util.ObjectMappers;
+import ai.konduit.serving.vertx.config.ServerProtocol;
+import ai.konduit.serving.vertx.protocols.http.api.AsyncPipelineStreamingApi;
 import ai.konduit.serving.vertx.protocols.http.api.ErrorResponse;
 import ai.konduit.serving.vertx.protocols.http.api.HttpApiErrorCode;
 import ai.konduit.serving.vertx.protocols.http.api.InferenceHttpApi;
 import ai.konduit.serving.vertx.protocols.http.api.KonduitServingHttpException;
+import ai.konduit.serving.vertx.protocols.http.api.StreamingBodyHandler;
+import ai.konduit.serving.vertx.config.ReloadConfiguration;
+import ai.konduit.serving.vertx.multimodel.MultiModelManager;
+import ai.konduit.serving.vertx.reload.ReloadablePipelineExecutor;
+import ai.konduit.serving.vertx.util.PipelineConfigs;
 import ai.konduit.serving.vertx.verticle.InferenceVerticle;
 import com.google.common.base.Strings;
 import io.micrometer.core.instrument.Counter;
@@ -39,15 +47,18 @@ import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
 import io.micrometer.core.instrument.binder.system.ProcessorMetrics;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
 import io.vertx.core.http.HttpServerOptions;
-import io.vertx.core.http.HttpVersion;
 import io.vertx.core.impl.ContextInternal;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.net.PemKeyCertOptions;
 import io.vertx.core.net.SelfSignedCertificate;
+import io.vertx.core.net.SocketAddress;
 import io.vertx.ext.web.Route;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
@@ -60,6 +71,10 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
 import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.*;
 
 import static ai.konduit.serving.pipeline.settings.KonduitSettings.getServingId;
@@ -69,6 +84,8 @@ import static io.vertx.core.http.HttpHeaders.CONTENT_TYPE;
 @Slf4j
 public class InferenceVerticleHttp extends InferenceVerticle {
 
+    private AsyncPipelineStreamingApi streamingApi;
+
     @Override
     public void start(Promise<Void> startPromise) {
         vertx.executeBlocking(handler -> {
@@ -110,51 +127,96 @@ public class InferenceVerticleHttp extends InferenceVerticle {
                     return;
                 }
 
-                vertx.createHttpServer(createOptions(inferenceConfiguration.port(),
+                boolean useDomainSocket = inferenceConfiguration.protocol() == ServerProtocol.HTTP_UDS;
+                if (useDomainSocket && !vertx.isNativeTransportEnabled()) {
+                    startPromise.fail(new IllegalStateException("Unable to listen on a unix domain socket: native transport " +
+                            "is not available on this platform. Use the HTTP protocol instead."));
+                    return;
+                }
+
+                if (useDomainSocket && context.getInstanceCount() > 1) {
+                    // Each instance would replace the socket file of the previous one
+                    startPromise.fail(new IllegalStateException("The HTTP_UDS protocol supports a single verticle instance " +
+                            "only, as all the instances would listen on the same unix domain socket path. Found " +
+                            context.getInstanceCount() + " instances."));
+                    return;
+                }
+
+                HttpServer httpServer = vertx.createHttpServer(createOptions(inferenceConfiguration.port(),
                         inferenceConfiguration.useSsl(),
                         inferenceConfiguration.sslKeyPath(),
                         inferenceConfiguration.sslCertificatePath()))
                         .requestHandler(createRouter())
-                        .exceptionHandler(throwable -> log.error("Error occurred during http request.", throwable))
-                        .listen(port, inferenceConfiguration.host(), handler -> {
-                            if (handler.failed()) {
-                                startPromise.fail(handler.cause());
-                            } else {
-                                int actualPort = handler.result().actualPort();
-                                inferenceConfiguration.port(actualPort);
+                        .exceptionHandler(throwable -> log.error("Error occurred during http request.", throwable));
+
+                Handler<AsyncResult<HttpServer>> listenHandler = handler -> {
+                    if (handler.failed()) {
+                        startPromise.fail(handler.cause());
+                    } else {
+                        int actualPort = handler.result().actualPort();
+                        if (!useDomainSocket) {
+                            inferenceConfiguration.port(actualPort);
+                        }
 
-                                try {
-                                    ((ContextInternal) context).getDeployment()
-                                            .deploymentOptions()
-                                            .setConfig(new JsonObject(inferenceConfiguration.toJson()));
+                        try {
+                            ((ContextInternal) context).getDeployment()
+                                    .deploymentOptions()
+                                    .setConfig(new JsonObject(inferenceConfiguration.toJson()));
 
-                                    long pid = getPid();
+                            long pid = getPid();
 
-                                    saveInspectionDataIfRequired(pid);
+                            saveInspectionDataIfRequired(pid);
 
-                                    log.info("Inference HTTP server is listening on host: '{}'", inferenceConfiguration.host());
-                                    log.info("Inference HTTP server started on port {} with {} pipeline steps", actualPort, pipeline.size());
-                                    startPromise.complete();
-                                } catch (Throwable throwable) {
-                                    startPromise.fail(throwable);
-                                }
+                            int pipelineSteps = pipeline != null ? pipeline.size() : 0;
+                            if (useDomainSocket) {
+                                log.info("Inference HTTP server started on unix domain socket '{}' with {} pipeline steps",
+                                        inferenceConfiguration.domainSocketPath(), pipelineSteps);
+                            } else {
+                                log.info("Inference HTTP server is listening on host: '{}'", inferenceConfiguration.host());
+                                log.info("Inference HTTP server started on port {} with {} pipeline steps", actualPort, pipelineSteps);
                             }
-                        });
+                            startPromise.complete();
+                        } catch (Throwable throwable) {
+                            startPromise.fail(throwable);
+                        }
+                    }
+                };
+
+                if (useDomainSocket) {
+                    String socketPath = domainSocketPath();
+                    File socketFile = new File(socketPath);
+                    if (socketFile.exists() && !socketFile.delete()) {
+                        startPromise.fail(new IllegalStateException("Unable to delete stale unix domain socket file: " + socketPath));
+                        return;
+                    }
+                    socketFile.deleteOnExit();
+                    inferenceConfiguration.domainSocketPath(socketPath);
+
+                    httpServer.listen(SocketAddress.domainSocketAddress(socketPath), listenHandler);
+                } else {
+                    httpServer.listen(port, inferenceConfiguration.host(), listenHandler);
+                }
             }
         });
 
     }
 
+    @Override
+    public void stop(Promise<Void> stopPromise) {
+        if (streamingApi != null) {
+            // Stops the async pipeline from calling the streaming listener
+            streamingApi.close();
+            streamingApi = null;
+        }
+
+        super.stop(stopPromise);
+    }
+
     private HttpServerOptions createOptions(int port, boolean useSsl, String sslKeyPath, String sslCertificatePath) {
         HttpServerOptions httpServerOptions = new HttpServerOptions()
                 .setPort(port)
                 .setHost("0.0.0.0")
                 .setSslHandshakeTimeout(0)
-                .setCompressionSupported(true)
-                .setTcpKeepAlive(true)
-                .setTcpNoDelay(true)
-                .setAlpnVersions(Arrays.asList(HttpVersion.HTTP_1_0, HttpVersion.HTTP_1_1, HttpVersion.HTTP_2))
-                .setUseAlpn(false)
                 .setSsl(useSsl);
 
         if (useSsl) {
@@ -178,7 +240,7 @@ public class InferenceVerticleHttp extends InferenceVerticle {
             }
         }
 
-        return httpServerOptions;
+        return applyHttpTransportOptions(httpServerOptions);
     }
 
     public Router createRouter() {
@@ -232,10 +294,18 @@ public class InferenceVerticleHttp extends InferenceVerticle {
                     });
         }
 
-        inferenceRouter.post().handler(BodyHandler.create()
-                .setUploadsDirectory(DirectoryFetcher.getFileUploadsDir().getAbsolutePath())
-                .setDeleteUploadedFilesOnEnd(true)
-                .setMergeFormAttributes(true))
+        Handler<RoutingContext> bodyHandler;
+        if (inferenceConfiguration.streamRequestBody()) {
+            bodyHandler = new StreamingBodyHandler(inferenceConfiguration.maxRequestBodySize());
+        } else {
+            bodyHandler = BodyHandler.create()
+                    .setBodyLimit(inferenceConfiguration.maxRequestBodySize())
+                    .setUploadsDirectory(DirectoryFetcher.getFileUploadsDir().getAbsolutePath())
+                    .setDeleteUploadedFilesOnEnd(true)
+                    .setMergeFormAttributes(true);
+        }
+
+        inferenceRouter.post().handler(bodyHandler)
                 .failureHandler(failureHandler -> {
                     Throwable throwable = failureHandler.failure();
                     int statusCode = failureHandler.statusCode();
@@ -252,6 +322,10 @@ public class InferenceVerticleHttp extends InferenceVerticle {
 
                     if (throwable instanceof KonduitServingHttpException) {
                         sendErrorResponse(failureHandler, ((KonduitServingHttpException) throwable).getErrorResponse());
+                    } else if (throwable == null && statusCode == 413) {
+                        failureHandler.response()
+                                .setStatusCode(413)
+                                .end(String.format("Request body exceeds the maximum size of %s bytes", inferenceConfiguration.maxRequestBodySize()));
                     } else {
                         failureHandler.response()
                                 .setStatusCode(500)
@@ -261,15 +335,58 @@ public class InferenceVerticleHttp extends InferenceVerticle {
 
         InferenceHttpApi.setMetrics(registry, tags);
 
-        InferenceHttpApi inferenceHttpApi = new InferenceHttpApi(pipelineExecutor);
+        InferenceHttpApi inferenceHttpApi = new InferenceHttpApi(pipelineExecutor, transportConfiguration());
 
-        inferenceRouter.post("/predict")
-                .consumes(APPLICATION_JSON.toString())
-                .consumes(APPLICATION_OCTET_STREAM.toString())
-                .consumes(MULTIPART_FORM_DATA.toString())
-                .produces(APPLICATION_JSON.toString())
-                .produces(APPLICATION_OCTET_STREAM.toString())
-                .handler(inferenceHttpApi::predict);
+        if (pipelineExecutor != null) {
+            inferenceRouter.post("/predict")
+                    .consumes(APPLICATION_JSON.toString())
+                    .consumes(APPLICATION_OCTET_STREAM.toString())
+                    .consumes(MULTIPART_FORM_DATA.toString())
+                    .produces(APPLICATION_JSON.toString())
+                    .produces(APPLICATION_OCTET_STREAM.toString())
+                    .handler(inferenceHttpApi::predict);
+        }
+
+        if (pipelineExecutor instanceof ReloadablePipelineExecutor) {
+            log.info("Pipeline reloads enabled. Adding endpoint /reload");
+
+            inferenceRouter.post("/reload")
+                    .produces(APPLICATION_JSON.toString())
+                    .handler(this::reloadPipeline);
+        }
+
+        if (multiModelManager != null) {
+            log.info("Multi model hosting enabled with model repository {}. Adding endpoints " +
+                            "/models/:name/predict, /models/:name/versions/:version/predict and /models",
+                    inferenceConfiguration.multiModelConfiguration().modelRepository());
+
+            for (String path : new String[]{"/models/:name/predict", "/models/:name/versions/:version/predict"}) {
+                inferenceRouter.post(path)
+                        .consumes(APPLICATION_JSON.toString())
+                        .consumes(APPLICATION_OCTET_STREAM.toString())
+                        .consumes(MULTIPART_FORM_DATA.toString())
+                        .produces(APPLICATION_JSON.toString())
+                        .produces(APPLICATION_OCTET_STREAM.toString())
+                        .handler(ctx -> predictModel(ctx, inferenceHttpApi));
+            }
+
+            inferenceRouter.get("/models")
+                    .produces(APPLICATION_JSON.toString())
+                    .handler(this::listModels);
+        }
+
+        if (pipelineExecutor instanceof AsyncPipelineExecutor) {
+            log.info("Async pipeline detected, adding streaming endpoints /stream (server-sent events) and /stream/ws (websocket)");
+
+            streamingApi = new AsyncPipelineStreamingApi(context, (AsyncPipelineExecutor) pipelineExecutor);
+
+            inferenceRouter.get("/stream")
+                    .produces("text/event-stream")
+                    .handler(streamingApi::sse);
+
+            inferenceRouter.get("/stream/ws")
+                    .handler(streamingApi::webSocket);
+        }
 
         File staticContentRoot = new File(inferenceConfiguration.staticContentRoot());
 
@@ -302,20 +419,157 @@ public class InferenceVerticleHttp extends InferenceVerticle {
         }
 
         //Custom endpoints:
-        if (inferenceConfiguration.customEndpoints() != null && !inferenceConfiguration.customEndpoints().isEmpty()) {
+        if (pipelineExecutor != null && inferenceConfiguration.customEndpoints() != null && !inferenceConfiguration.customEndpoints().isEmpty()) {
             addCustomEndpoints(inferenceHttpApi, inferenceRouter);
         }
 
         return inferenceRouter;
     }
 
+    /**
+     * Executes the pipeline of the model given by the "name" and (optional) "version" path parameters, loading it
+     * first if it isn't loaded yet. Runs on a worker thread as loading a model can take a while.
+     */
+    private void predictModel(RoutingContext ctx, InferenceHttpApi inferenceHttpApi) {
+        String name = ctx.pathParam("name");
+        String version = ctx.pathParam("version");
+
+        vertx.executeBlocking(handler -> {
+            MultiModelManager.Lease lease;
+            try {
+                lease = multiModelManager.acquire(name, version);
+            } catch (MultiModelManager.ModelNotFoundException exception) {
+                handler.fail(new KonduitServingHttpException(HttpApiErrorCode.MODEL_NOT_FOUND, exception.getMessage()));
+                return;
+            } catch (MultiModelManager.InvalidModelNameException exception) {
+                handler.fail(new KonduitServingHttpException(HttpApiErrorCode.INVALID_MODEL_NAME, exception.getMessage()));
+                return;
+            } catch (Throwable throwable) {
+                handler.fail(new KonduitServingHttpException(HttpApiErrorCode.MODEL_LOADING_ERROR, throwable));
+                return;
+            }
+
+            try (MultiModelManager.Lease l = lease) {
+                inferenceHttpApi.predict(ctx, l.executor());
+                handler.complete();
+            } catch (Throwable throwable) {
+                handler.fail(throwable);
+            }
+        }, false, result -> {
+            if (result.failed()) {
+                ctx.fail(result.cause());
+            }
+        });
+    }
+
+    /**
+     * Reloads the pipeline in all the verticle instances, from the configured pipeline URI, or from the pipeline JSON
+     * in the request body if {@link ReloadConfiguration#allowRequestPipeline()} is set. Only requests with the configured
+     * token, or from the loopback address if no token is configured, are accepted. Responds once the new pipeline
+     * configuration is validated - the reload itself happens in the background (see {@link InferenceVerticle#reload(String)}).
+     */
+    private void reloadPipeline(RoutingContext ctx) {
+        ReloadConfiguration reloadConfiguration = inferenceConfiguration.reloadConfiguration();
+        if (!isReloadAuthorized(ctx, reloadConfiguration)) {
+            log.warn("Rejected pipeline reload request from {}", ctx.request().remoteAddress());
+            sendErrorResponse(ctx, HttpApiErrorCode.PIPELINE_RELOAD_FORBIDDEN, Strings.isNullOrEmpty(reloadConfiguration.token()) ?
+                    "Pipeline reloads are only accepted from the loopback address" :
+                    "Missing or invalid reload token in the Authorization header");
+            return;
+        }
+
+        String body = ctx.getBodyAsString();
+        if (body != null && !body.trim().isEmpty() && !reloadConfiguration.allowRequestPipeline()) {
+            sendErrorResponse(ctx, HttpApiErrorCode.PIPELINE_RELOAD_FORBIDDEN, "Reloading from a pipeline in the " +
+                    "request body isn't enabled (reloadConfiguration.allowRequestPipeline). Send an empty body to reload " +
+                    "from the configured pipeline URI.");
+            return;
+        }
+
+        vertx.<String>executeBlocking(handler -> {
+            try {
+                if (body != null && !body.trim().isEmpty()) {
+                    handler.complete(Pipeline.fromJson(body).toJson());
+                    return;
+                }
+
+                if (reloadConfiguration.pipelineUri() == null || reloadConfiguration.pipelineUri().isEmpty()) {
+                    handler.fail(new KonduitServingHttpException(HttpApiErrorCode.PIPELINE_RELOAD_ERROR,
+                            "No pipeline was given in the request body, and no pipeline URI to reload from is configured"));
+                    return;
+                }
+                handler.complete(PipelineConfigs.load(reloadConfiguration.pipelineUri()).toJson());
+            } catch (Throwable throwable) {
+                handler.fail(new KonduitServingHttpException(HttpApiErrorCode.PIPELINE_RELOAD_ERROR, throwable));
+            }
+        }, false, result -> {
+            if (result.failed()) {
+                ctx.fail(result.cause());
+            } else {
+                vertx.eventBus().publish(RELOAD_ADDRESS, result.result());
+
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("status", "reloading");
+                ctx.response()
+                        .setStatusCode(202)
+                        .putHeader(CONTENT_TYPE, APPLICATION_JSON.toString())
+                        .end(ObjectMappers.toJson(response));
+            }
+        });
+    }
+
+    private static boolean isReloadAuthorized(RoutingContext ctx, ReloadConfiguration reloadConfiguration) {
+        if (!Strings.isNullOrEmpty(reloadConfiguration.token())) {
+            String authorization = ctx.request().getHeader(HttpHeaders.AUTHORIZATION);
+            return authorization != null && MessageDigest.isEqual(
+                    ("Bearer " + reloadConfiguration.token()).getBytes(StandardCharsets.UTF_8),
+                    authorization.getBytes(StandardCharsets.UTF_8));
+        }
+
+        SocketAddress remoteAddress = ctx.request().remoteAddress();
+        if (remoteAddress == null) {
+            return false;
+        }
+        if (remoteAddress.path() != null) {
+            // Unix domain socket: only reachable from this machine
+            return true;
+        }
+        try {
+            return InetAddress.getByName(remoteAddress.host()).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    private void listModels(RoutingContext ctx) {
+        List<Map<String, Object>> models = new ArrayList<>();
+        for (MultiModelManager.LoadedPipeline loadedPipeline : multiModelManager.loadedPipelines()) {
+            Map<String, Object> model = new LinkedHashMap<>();
+            model.put("name", loadedPipeline.getName());
+            model.put("version", loadedPipeline.getVersion());
+            model.put("memoryBytes", loadedPipeline.getMemoryBytes());
+            model.put("loadedAt", loadedPipeline.getLoadedAt());
+            model.put("lastUsed", loadedPipeline.getLastUsed());
+            models.add(model);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("models", models);
+        response.put("totalMemoryBytes", multiModelManager.totalMemoryBytes());
+
+        ctx.response()
+                .setStatusCode(200)
+                .putHeader(CONTENT_TYPE, APPLICATION_JSON.toString())
+                .end(ObjectMappers.toJson(response));
+    }
+
     private void sendErrorResponse(RoutingContext ctx, ErrorResponse errorResponse) {
         sendErrorResponse(ctx, errorResponse.getErrorCode(), errorResponse.getErrorMessage());
     }
 
     private void sendErrorResponse(RoutingContext ctx, HttpApiErrorCode errorCode, String errorMessage) {
         ctx.response()
-                .setStatusCode(500)
+                .setStatusCode(statusCode(errorCode))
                 .putHeader(CONTENT_TYPE, APPLICATION_JSON.toString())
                 .end(ObjectMappers.toJson(ErrorResponse.builder()
                         .errorCode(errorCode)
@@ -323,6 +577,19 @@ public class InferenceVerticleHttp extends InferenceVerticle {
                         .build()));
     }
 
+    private static int statusCode(HttpApiErrorCode errorCode) {
+        switch (errorCode) {
+            case INVALID_MODEL_NAME:
+                return 400;
+            case PIPELINE_RELOAD_FORBIDDEN:
+                return 403;
+            case MODEL_NOT_FOUND:
+                return 404;
+            default:
+                return 500;
+        }
+    }
+
     private void addCustomEndpoints(InferenceHttpApi inferenceHttpApi, Router inferenceRouter) {
         List<String> e = inferenceConfiguration.customEndpoints();
         PipelineExecutor pe = inferenceHttpApi.getPipelineExecutor();
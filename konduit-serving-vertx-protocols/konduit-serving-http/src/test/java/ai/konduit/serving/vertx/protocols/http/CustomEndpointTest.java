@@ -29,6 +29,7 @@ import ai.konduit.serving.vertx.config.InferenceDeploymentResult;
 import ai.konduit.serving.vertx.config.ServerProtocol;
 import ai.konduit.serving.vertx.protocols.http.test.CustomGetEndpoint;
 import ai.konduit.serving.vertx.protocols.http.test.CustomHttpEndpoint;
+import ai.konduit.serving.vertx.protocols.http.test.CustomMultipartEndpoint;
 import ai.konduit.serving.vertx.protocols.http.test.CustomPostEndpoint;
 import com.jayway.restassured.http.ContentType;
 import com.jayway.restassured.response.Response;
@@ -152,6 +153,20 @@ public class CustomEndpointTest {
         assertEquals(input, d);
     }
 
+    @Test
+    public void inferenceVerticleCustomMultipart(TestContext testContext) {
+        // The default (disk backed) body handler makes the uploads available through RoutingContext.fileUploads()
+        Response response = given().port(inferenceDeploymentResult.getActualPort())
+                .multiPart("file", "file.bin", new byte[]{1, 2, 3, 4, 5})
+                .multiPart("attribute", "value")
+                .accept(ContentType.TEXT)
+                .post(CustomMultipartEndpoint.PATH)
+                .andReturn();
+
+        testContext.assertEquals(200, response.statusCode());
+        testContext.assertEquals("file=5;attribute=value", response.asString());
+    }
+
     @AfterClass
     public static void tearDown(TestContext testContext) {
         vertx.close(testContext.asyncAssertSuccess());
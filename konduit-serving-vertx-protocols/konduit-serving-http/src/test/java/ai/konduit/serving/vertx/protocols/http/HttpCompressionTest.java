@@ -0,0 +1,161 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.protocols.http;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.impl.data.JData;
+import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import ai.konduit.serving.pipeline.impl.step.logging.LoggingStep;
+import ai.konduit.serving.vertx.api.DeployKonduitServing;
+import ai.konduit.serving.vertx.config.InferenceConfiguration;
+import ai.konduit.serving.vertx.config.InferenceDeploymentResult;
+import ai.konduit.serving.vertx.config.ServerProtocol;
+import ai.konduit.serving.vertx.config.TransportConfiguration;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.event.Level;
+
+import java.nio.charset.StandardCharsets;
+
+import static io.netty.handler.codec.http.HttpHeaderValues.APPLICATION_JSON;
+import static io.netty.handler.codec.http.HttpHeaderValues.APPLICATION_OCTET_STREAM;
+import static io.vertx.core.http.HttpHeaders.ACCEPT;
+import static io.vertx.core.http.HttpHeaders.ACCEPT_ENCODING;
+import static io.vertx.core.http.HttpHeaders.CONTENT_ENCODING;
+import static io.vertx.core.http.HttpHeaders.CONTENT_TYPE;
+
+/**
+ * Response compression, as configured by {@link TransportConfiguration#compressionMinResponseSize()} and
+ * {@link TransportConfiguration#compressionContentTypes()}.
+ */
+@RunWith(VertxUnitRunner.class)
+public class HttpCompressionTest {
+
+    public static final String PREDICT_ENDPOINT = "/predict";
+    public static final int MIN_RESPONSE_SIZE = 1024;
+
+    static Vertx vertx;
+    static HttpClient client;
+    static InferenceDeploymentResult inferenceDeploymentResult;
+
+    @BeforeClass
+    public static void setUp(TestContext testContext) {
+        InferenceConfiguration configuration = new InferenceConfiguration()
+                .protocol(ServerProtocol.HTTP)
+                .transportConfiguration(new TransportConfiguration()
+                        .compressionSupported(true)
+                        .compressionMinResponseSize(MIN_RESPONSE_SIZE))
+                .pipeline(SequencePipeline.builder()
+                        .add(new LoggingStep().log(LoggingStep.Log.KEYS_AND_VALUES).logLevel(Level.ERROR))
+                        .build());
+
+        Async async = testContext.async();
+
+        vertx = DeployKonduitServing.deploy(new VertxOptions(),
+                new DeploymentOptions(),
+                configuration,
+                handler -> {
+                    if(handler.succeeded()) {
+                        inferenceDeploymentResult = handler.result();
+                        // No automatic decompression, so that the Content-Encoding header can be checked
+                        client = vertx.createHttpClient(new HttpClientOptions().setTryUseCompression(false));
+                        async.complete();
+                    } else {
+                        testContext.fail(handler.cause());
+                    }
+                });
+    }
+
+    @Test
+    public void testLargeJsonCompressed(TestContext testContext) {
+        Data input = JData.singleton("key", StringUtils.repeat("a", 2 * MIN_RESPONSE_SIZE));
+        post(testContext, input.toJson(), APPLICATION_JSON.toString(), "gzip");
+    }
+
+    @Test
+    public void testSmallJsonNotCompressed(TestContext testContext) {
+        Data input = JData.singleton("key", "value");
+        post(testContext, input.toJson(), APPLICATION_JSON.toString(), null);
+    }
+
+    @Test
+    public void testMultiByteJsonCompressed(TestContext testContext) {
+        // Fewer characters than the minimum size, but more bytes: the threshold applies to the encoded size
+        String value = StringUtils.repeat("€", MIN_RESPONSE_SIZE / 2);
+        Data input = JData.singleton("key", value);
+        String json = input.toJson();
+        testContext.assertTrue(json.length() < MIN_RESPONSE_SIZE);
+        testContext.assertTrue(json.getBytes(StandardCharsets.UTF_8).length >= MIN_RESPONSE_SIZE);
+
+        post(testContext, json, APPLICATION_JSON.toString(), "gzip");
+    }
+
+    @Test
+    public void testBinaryNotCompressed(TestContext testContext) {
+        Data input = JData.singleton("key", new byte[4 * MIN_RESPONSE_SIZE]);
+        Async async = testContext.async();
+
+        client.post(inferenceDeploymentResult.getActualPort(), "localhost", PREDICT_ENDPOINT, response -> {
+            testContext.assertEquals(200, response.statusCode());
+            testContext.assertNotEquals("gzip", response.getHeader(CONTENT_ENCODING));
+            async.complete();
+        }).putHeader(CONTENT_TYPE, APPLICATION_OCTET_STREAM.toString())
+                .putHeader(ACCEPT, APPLICATION_OCTET_STREAM.toString())
+                .putHeader(ACCEPT_ENCODING, "gzip")
+                .end(Buffer.buffer(input.asBytes()));
+    }
+
+    private void post(TestContext testContext, String json, String accept, String expectedEncoding) {
+        Async async = testContext.async();
+
+        client.post(inferenceDeploymentResult.getActualPort(), "localhost", PREDICT_ENDPOINT, response -> {
+            testContext.assertEquals(200, response.statusCode());
+            String encoding = response.getHeader(CONTENT_ENCODING);
+            if (expectedEncoding == null) {
+                testContext.assertNotEquals("gzip", encoding);
+            } else {
+                testContext.assertEquals(expectedEncoding, encoding);
+            }
+            async.complete();
+        }).putHeader(CONTENT_TYPE, APPLICATION_JSON.toString())
+                .putHeader(ACCEPT, accept)
+                .putHeader(ACCEPT_ENCODING, "gzip")
+                .end(json);
+    }
+
+    @AfterClass
+    public static void tearDown(TestContext testContext) {
+        if (client != null) {
+            client.close();
+        }
+        vertx.close(testContext.asyncAssertSuccess());
+    }
+}
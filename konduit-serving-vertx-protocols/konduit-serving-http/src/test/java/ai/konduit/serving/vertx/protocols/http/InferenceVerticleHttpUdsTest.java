@@ -0,0 +1,139 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.protocols.http;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.impl.data.JData;
+import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import ai.konduit.serving.pipeline.impl.step.logging.LoggingStep;
+import ai.konduit.serving.vertx.api.DeployKonduitServing;
+import ai.konduit.serving.vertx.config.InferenceConfiguration;
+import ai.konduit.serving.vertx.config.ServerProtocol;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.slf4j.event.Level;
+
+import java.io.File;
+import java.io.IOException;
+
+import static io.netty.handler.codec.http.HttpHeaderValues.APPLICATION_JSON;
+import static io.vertx.core.http.HttpHeaders.ACCEPT;
+import static io.vertx.core.http.HttpHeaders.CONTENT_TYPE;
+
+@RunWith(VertxUnitRunner.class)
+public class InferenceVerticleHttpUdsTest {
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    static InferenceConfiguration configuration;
+    static Vertx vertx;
+    static HttpClient client;
+
+    @BeforeClass
+    public static void setUp(TestContext testContext) throws IOException {
+        // Unix domain sockets need the native transport
+        Vertx check = Vertx.vertx(new VertxOptions().setPreferNativeTransport(true));
+        boolean nativeTransport = check.isNativeTransportEnabled();
+        check.close();
+        Assume.assumeTrue("Native transport isn't available on this platform", nativeTransport);
+
+        configuration = new InferenceConfiguration()
+                .protocol(ServerProtocol.HTTP_UDS)
+                .domainSocketPath(new File(folder.newFolder(), "konduit.sock").getAbsolutePath())
+                .pipeline(SequencePipeline.builder()
+                        .add(new LoggingStep().log(LoggingStep.Log.KEYS_AND_VALUES).logLevel(Level.ERROR))
+                        .build());
+
+        Async async = testContext.async();
+
+        vertx = DeployKonduitServing.deploy(new VertxOptions(),
+                new DeploymentOptions(),
+                configuration,
+                handler -> {
+                    if (handler.succeeded()) {
+                        client = vertx.createHttpClient();
+                        async.complete();
+                    } else {
+                        testContext.fail(handler.cause());
+                    }
+                });
+    }
+
+    @Test
+    public void testHttpUdsRoundTrip(TestContext testContext) {
+        Data input = JData.singleton("key_uds", "value");
+        Async async = testContext.async();
+
+        client.request(HttpMethod.POST, SocketAddress.domainSocketAddress(configuration.domainSocketPath()),
+                80, "localhost", "/predict")
+                .handler(response -> {
+                    testContext.assertEquals(200, response.statusCode());
+                    response.bodyHandler(body -> {
+                        testContext.assertEquals(input, Data.fromJson(body.toString()));
+                        async.complete();
+                    });
+                })
+                .exceptionHandler(testContext::fail)
+                .putHeader(CONTENT_TYPE, APPLICATION_JSON.toString())
+                .putHeader(ACCEPT, APPLICATION_JSON.toString())
+                .end(input.toJson());
+    }
+
+    @Test
+    public void testMultipleInstancesRejected(TestContext testContext) {
+        InferenceConfiguration multiInstance = new InferenceConfiguration()
+                .protocol(ServerProtocol.HTTP_UDS)
+                .domainSocketPath(configuration.domainSocketPath() + ".multi")
+                .pipeline(configuration.pipeline());
+
+        Async async = testContext.async();
+        DeployKonduitServing.deploy(new VertxOptions(),
+                new DeploymentOptions().setInstances(2),
+                multiInstance,
+                handler -> {
+                    testContext.assertTrue(handler.failed());
+                    async.complete();
+                });
+    }
+
+    @AfterClass
+    public static void tearDown(TestContext testContext) {
+        if (client != null) {
+            client.close();
+        }
+        if (vertx != null) {
+            vertx.close(testContext.asyncAssertSuccess());
+        }
+    }
+}
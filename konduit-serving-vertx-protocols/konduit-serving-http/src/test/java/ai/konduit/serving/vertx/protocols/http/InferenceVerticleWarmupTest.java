@@ -0,0 +1,138 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package ai.konduit.serving.vertx.protocols.http;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.NDArrayType;
+import ai.konduit.serving.pipeline.impl.data.JData;
+import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import ai.konduit.serving.pipeline.impl.step.logging.LoggingStep;
+import ai.konduit.serving.vertx.api.DeployKonduitServing;
+import ai.konduit.serving.vertx.config.InferenceConfiguration;
+import ai.konduit.serving.vertx.config.ServerProtocol;
+import ai.konduit.serving.vertx.config.WarmupConfiguration;
+import ai.konduit.serving.vertx.protocols.http.test.CountingPipelineStep;
+import ai.konduit.serving.vertx.protocols.http.test.FailureTestingPipelineStep;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.slf4j.event.Level;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+@RunWith(VertxUnitRunner.class)
+public class InferenceVerticleWarmupTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    Vertx vertx;
+
+    @After
+    public void tearDown(TestContext testContext) {
+        InferenceVerticleHttpTest.causeFailure.set(false);
+        CountingPipelineStep.INPUTS.clear();
+        if (vertx != null) {
+            vertx.close(testContext.asyncAssertSuccess());
+        }
+    }
+
+    @Test
+    public void testWarmupWithSampleData(TestContext testContext) throws Exception {
+        File sampleFile = testDir.newFile("sample.json");
+        FileUtils.writeStringToFile(sampleFile, JData.singleton("key", "value").toJson(), StandardCharsets.UTF_8);
+
+        deploy(testContext, new WarmupConfiguration()
+                .iterations(3)
+                .failOnError(true)
+                .sampleDataPath(sampleFile.getAbsolutePath()), true, inputs -> {
+            //All iterations ran on the sample data before the server reported that it started
+            testContext.assertEquals(3, inputs.size());
+            for (Data input : inputs) {
+                testContext.assertEquals(Collections.singletonList("key"), input.keys());
+                testContext.assertEquals("value", input.getString("key"));
+            }
+        });
+    }
+
+    @Test
+    public void testWarmupWithSyntheticInputs(TestContext testContext) {
+        deploy(testContext, new WarmupConfiguration()
+                .iterations(3)
+                .failOnError(true)
+                .inputs(Collections.singletonList(
+                        new WarmupConfiguration.WarmupInput("input", new long[]{2, 3}, NDArrayType.FLOAT))), true, inputs -> {
+            //All iterations ran on the synthetic input before the server reported that it started
+            testContext.assertEquals(3, inputs.size());
+            for (Data input : inputs) {
+                testContext.assertEquals(Collections.singletonList("input"), input.keys());
+                testContext.assertEquals(NDArrayType.FLOAT, input.getNDArray("input").type());
+                testContext.assertTrue(Arrays.equals(new long[]{2, 3}, input.getNDArray("input").shape()));
+            }
+        });
+    }
+
+    @Test
+    public void testWarmupFailure(TestContext testContext) {
+        InferenceVerticleHttpTest.causeFailure.set(true);
+
+        deploy(testContext, new WarmupConfiguration()
+                .iterations(1)
+                .failOnError(true)
+                .inputs(Collections.singletonList(
+                        new WarmupConfiguration.WarmupInput("input", new long[]{1}, NDArrayType.INT32))), false, null);
+    }
+
+    private void deploy(TestContext testContext, WarmupConfiguration warmupConfiguration, boolean expectSuccess,
+                        Consumer<List<Data>> checkWarmupInputs) {
+        InferenceConfiguration configuration = new InferenceConfiguration()
+                .protocol(ServerProtocol.HTTP)
+                .warmupConfiguration(warmupConfiguration)
+                .pipeline(SequencePipeline.builder()
+                        .add(new LoggingStep().log(LoggingStep.Log.KEYS).logLevel(Level.INFO))
+                        .add(new FailureTestingPipelineStep())
+                        .add(new CountingPipelineStep())
+                        .build());
+
+        Async async = testContext.async();
+        vertx = DeployKonduitServing.deploy(new VertxOptions(),
+                new DeploymentOptions(),
+                configuration,
+                handler -> {
+                    testContext.assertEquals(expectSuccess, handler.succeeded());
+                    if (checkWarmupInputs != null) {
+                        checkWarmupInputs.accept(CountingPipelineStep.INPUTS);
+                    }
+                    async.complete();
+                });
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package ai.konduit.serving.vertx.protocols.http;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.impl.data.JData;
+import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import ai.konduit.serving.pipeline.impl.step.logging.LoggingStep;
+import ai.konduit.serving.vertx.api.DeployKonduitServing;
+import ai.konduit.serving.vertx.config.InferenceConfiguration;
+import ai.konduit.serving.vertx.config.InferenceDeploymentResult;
+import ai.konduit.serving.vertx.config.MultiModelConfiguration;
+import ai.konduit.serving.vertx.config.ServerProtocol;
+import ai.konduit.serving.vertx.protocols.http.api.ErrorResponse;
+import com.jayway.restassured.http.ContentType;
+import com.jayway.restassured.response.Response;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.event.Level;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static ai.konduit.serving.vertx.protocols.http.api.HttpApiErrorCode.INVALID_MODEL_NAME;
+import static ai.konduit.serving.vertx.protocols.http.api.HttpApiErrorCode.MODEL_NOT_FOUND;
+import static com.jayway.restassured.RestAssured.given;
+
+@RunWith(VertxUnitRunner.class)
+public class MultiModelEndpointTest {
+
+    public static final String MODELS_ENDPOINT = "/models";
+
+    static Vertx vertx;
+    static InferenceDeploymentResult inferenceDeploymentResult;
+
+    @BeforeClass
+    public static void setUp(TestContext testContext) throws Exception {
+        File repository = Files.createTempDirectory("model-repository").toFile();
+        repository.deleteOnExit();
+        writePipeline(repository, "model_a", "1");
+        writePipeline(repository, "model_a", "2");
+        writePipeline(repository, "model_b", "1");
+
+        InferenceConfiguration configuration = new InferenceConfiguration()
+                .protocol(ServerProtocol.HTTP)
+                .multiModelConfiguration(new MultiModelConfiguration()
+                        .modelRepository(repository.getAbsolutePath()));
+
+        Async async = testContext.async();
+
+        vertx = DeployKonduitServing.deploy(new VertxOptions(),
+                new DeploymentOptions(),
+                configuration,
+                handler -> {
+                    if(handler.succeeded()) {
+                        inferenceDeploymentResult = handler.result();
+                        async.complete();
+                    } else {
+                        testContext.fail(handler.cause());
+                    }
+                });
+    }
+
+    private static void writePipeline(File repository, String name, String version) throws Exception {
+        File file = new File(new File(new File(repository, name), version), "pipeline.json");
+        FileUtils.writeStringToFile(file, SequencePipeline.builder()
+                .add(new LoggingStep().log(LoggingStep.Log.KEYS_AND_VALUES).logLevel(Level.ERROR))
+                .build()
+                .toJson(), StandardCharsets.UTF_8);
+        file.getParentFile().getParentFile().deleteOnExit();
+        file.getParentFile().deleteOnExit();
+        file.deleteOnExit();
+    }
+
+    private static Response predict(String path, Data input) {
+        return given().port(inferenceDeploymentResult.getActualPort())
+                .contentType(ContentType.JSON)
+                .accept(ContentType.JSON)
+                .body(input.toJson())
+                .post(path)
+                .andReturn();
+    }
+
+    @Test
+    public void testPredictDefaultVersion(TestContext testContext) {
+        Data input = JData.singleton("key_default_version", "value");
+
+        Response response = predict(MODELS_ENDPOINT + "/model_a/predict", input);
+
+        testContext.assertEquals(200, response.statusCode());
+        testContext.assertEquals(ContentType.JSON.toString(), response.contentType());
+        testContext.assertEquals(input, Data.fromJson(response.asString()));
+    }
+
+    @Test
+    public void testPredictVersion(TestContext testContext) {
+        Data input = JData.singleton("key_version", 2L);
+
+        Response response = predict(MODELS_ENDPOINT + "/model_a/versions/2/predict", input);
+
+        testContext.assertEquals(200, response.statusCode());
+        testContext.assertEquals(input, Data.fromJson(response.asString()));
+    }
+
+    @Test
+    public void testModelNotFound(TestContext testContext) {
+        Data input = JData.singleton("key", "value");
+
+        Response response = predict(MODELS_ENDPOINT + "/model_c/predict", input);
+        testContext.assertEquals(404, response.statusCode());
+        testContext.assertEquals(MODEL_NOT_FOUND.name(), ErrorResponse.fromJson(response.asString()).getErrorCode().name());
+
+        response = predict(MODELS_ENDPOINT + "/model_b/versions/3/predict", input);
+        testContext.assertEquals(404, response.statusCode());
+        testContext.assertEquals(MODEL_NOT_FOUND.name(), ErrorResponse.fromJson(response.asString()).getErrorCode().name());
+    }
+
+    @Test
+    public void testInvalidModelName(TestContext testContext) {
+        Data input = JData.singleton("key", "value");
+
+        Response response = predict(MODELS_ENDPOINT + "/-model_a/predict", input);
+        testContext.assertEquals(400, response.statusCode());
+        testContext.assertEquals(INVALID_MODEL_NAME.name(), ErrorResponse.fromJson(response.asString()).getErrorCode().name());
+
+        response = predict(MODELS_ENDPOINT + "/model_a/versions/~1/predict", input);
+        testContext.assertEquals(400, response.statusCode());
+        testContext.assertEquals(INVALID_MODEL_NAME.name(), ErrorResponse.fromJson(response.asString()).getErrorCode().name());
+    }
+
+    @Test
+    public void testListModels(TestContext testContext) {
+        testContext.assertEquals(200, predict(MODELS_ENDPOINT + "/model_b/predict", JData.singleton("key", "value")).statusCode());
+
+        Response response = given().port(inferenceDeploymentResult.getActualPort())
+                .accept(ContentType.JSON)
+                .get(MODELS_ENDPOINT)
+                .andReturn();
+
+        testContext.assertEquals(200, response.statusCode());
+        testContext.assertEquals(ContentType.JSON.toString(), response.contentType());
+
+        JsonObject body = new JsonObject(response.asString());
+        testContext.assertTrue(body.containsKey("totalMemoryBytes"));
+        JsonArray models = body.getJsonArray("models");
+        boolean found = false;
+        for (int i = 0; i < models.size(); i++) {
+            JsonObject model = models.getJsonObject(i);
+            if ("model_b".equals(model.getString("name"))) {
+                testContext.assertEquals("1", model.getString("version"));
+                testContext.assertTrue(model.getLong("memoryBytes") >= 0);
+                found = true;
+            }
+        }
+        testContext.assertTrue(found, "model_b not listed in " + body.encode());
+    }
+
+    @AfterClass
+    public static void tearDown(TestContext testContext) {
+        vertx.close(testContext.asyncAssertSuccess());
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.protocols.http;
+
+import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
+import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import ai.konduit.serving.pipeline.impl.step.logging.LoggingStep;
+import ai.konduit.serving.vertx.api.DeployKonduitServing;
+import ai.konduit.serving.vertx.config.InferenceConfiguration;
+import ai.konduit.serving.vertx.config.InferenceDeploymentResult;
+import ai.konduit.serving.vertx.config.ReloadConfiguration;
+import ai.konduit.serving.vertx.config.ServerProtocol;
+import ai.konduit.serving.vertx.protocols.http.api.ErrorResponse;
+import com.jayway.restassured.http.ContentType;
+import com.jayway.restassured.response.Response;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.event.Level;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static ai.konduit.serving.vertx.protocols.http.api.HttpApiErrorCode.PIPELINE_RELOAD_FORBIDDEN;
+import static com.jayway.restassured.RestAssured.given;
+
+@RunWith(VertxUnitRunner.class)
+public class ReloadEndpointTest {
+
+    public static final String RELOAD_ENDPOINT = "/reload";
+    public static final String TOKEN = "test-token";
+
+    static Vertx vertx;
+    static InferenceDeploymentResult inferenceDeploymentResult;
+    static File pipelineFile;
+
+    @BeforeClass
+    public static void setUp(TestContext testContext) throws Exception {
+        pipelineFile = File.createTempFile("reload-pipeline", ".json");
+        pipelineFile.deleteOnExit();
+        FileUtils.writeStringToFile(pipelineFile, pipeline().toJson(), StandardCharsets.UTF_8);
+
+        InferenceConfiguration configuration = new InferenceConfiguration()
+                .protocol(ServerProtocol.HTTP)
+                .reloadConfiguration(new ReloadConfiguration()
+                        .enabled(true)
+                        .token(TOKEN)
+                        .pipelineUri(pipelineFile.getAbsolutePath())
+                        .watchIntervalSeconds(0));
+
+        Async async = testContext.async();
+
+        vertx = DeployKonduitServing.deploy(new VertxOptions(),
+                new DeploymentOptions(),
+                configuration,
+                handler -> {
+                    if(handler.succeeded()) {
+                        inferenceDeploymentResult = handler.result();
+                        async.complete();
+                    } else {
+                        testContext.fail(handler.cause());
+                    }
+                });
+    }
+
+    private static Pipeline pipeline() {
+        return SequencePipeline.builder()
+                .add(new LoggingStep().log(LoggingStep.Log.KEYS_AND_VALUES).logLevel(Level.ERROR))
+                .build();
+    }
+
+    @Test
+    public void testReloadWithoutToken(TestContext testContext) {
+        Response response = given().port(inferenceDeploymentResult.getActualPort())
+                .post(RELOAD_ENDPOINT)
+                .andReturn();
+
+        testContext.assertEquals(403, response.statusCode());
+        testContext.assertEquals(PIPELINE_RELOAD_FORBIDDEN.name(), ErrorResponse.fromJson(response.asString()).getErrorCode().name());
+    }
+
+    @Test
+    public void testReloadWithInvalidToken(TestContext testContext) {
+        Response response = given().port(inferenceDeploymentResult.getActualPort())
+                .header("Authorization", "Bearer wrong-token")
+                .post(RELOAD_ENDPOINT)
+                .andReturn();
+
+        testContext.assertEquals(403, response.statusCode());
+        testContext.assertEquals(PIPELINE_RELOAD_FORBIDDEN.name(), ErrorResponse.fromJson(response.asString()).getErrorCode().name());
+    }
+
+    @Test
+    public void testReloadFromPipelineUri(TestContext testContext) {
+        Response response = given().port(inferenceDeploymentResult.getActualPort())
+                .header("Authorization", "Bearer " + TOKEN)
+                .post(RELOAD_ENDPOINT)
+                .andReturn();
+
+        testContext.assertEquals(202, response.statusCode());
+        testContext.assertEquals(ContentType.JSON.toString(), response.contentType());
+    }
+
+    @Test
+    public void testReloadFromRequestBodyNotAllowed(TestContext testContext) {
+        Response response = given().port(inferenceDeploymentResult.getActualPort())
+                .header("Authorization", "Bearer " + TOKEN)
+                .contentType(ContentType.JSON)
+                .body(pipeline().toJson())
+                .post(RELOAD_ENDPOINT)
+                .andReturn();
+
+        testContext.assertEquals(403, response.statusCode());
+        testContext.assertEquals(PIPELINE_RELOAD_FORBIDDEN.name(), ErrorResponse.fromJson(response.asString()).getErrorCode().name());
+    }
+
+    @AfterClass
+    public static void tearDown(TestContext testContext) {
+        vertx.close(testContext.asyncAssertSuccess());
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.protocols.http;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.impl.data.JData;
+import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import ai.konduit.serving.pipeline.impl.step.logging.LoggingStep;
+import ai.konduit.serving.vertx.api.DeployKonduitServing;
+import ai.konduit.serving.vertx.config.InferenceConfiguration;
+import ai.konduit.serving.vertx.config.InferenceDeploymentResult;
+import ai.konduit.serving.vertx.config.ServerProtocol;
+import com.jayway.restassured.http.ContentType;
+import com.jayway.restassured.response.Response;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.event.Level;
+
+import java.util.Arrays;
+
+import static com.jayway.restassured.RestAssured.given;
+
+/**
+ * Inference with {@link InferenceConfiguration#streamRequestBody()} enabled, i.e., with request bodies and multipart
+ * uploads read in memory by the {@link ai.konduit.serving.vertx.protocols.http.api.StreamingBodyHandler}.
+ */
+@RunWith(VertxUnitRunner.class)
+public class StreamingBodyHandlerTest {
+
+    public static final String PREDICT_ENDPOINT = "/predict";
+    public static final int MAX_BODY_SIZE = 64 * 1024;
+
+    static Vertx vertx;
+    static InferenceDeploymentResult inferenceDeploymentResult;
+
+    @BeforeClass
+    public static void setUp(TestContext testContext) {
+        InferenceConfiguration configuration = new InferenceConfiguration()
+                .protocol(ServerProtocol.HTTP)
+                .streamRequestBody(true)
+                .maxRequestBodySize(MAX_BODY_SIZE)
+                .pipeline(SequencePipeline.builder()
+                        .add(new LoggingStep().log(LoggingStep.Log.KEYS_AND_VALUES).logLevel(Level.ERROR))
+                        .build());
+
+        Async async = testContext.async();
+
+        vertx = DeployKonduitServing.deploy(new VertxOptions(),
+                new DeploymentOptions(),
+                configuration,
+                handler -> {
+                    if(handler.succeeded()) {
+                        inferenceDeploymentResult = handler.result();
+                        async.complete();
+                    } else {
+                        testContext.fail(handler.cause());
+                    }
+                });
+    }
+
+    @Test
+    public void testStreamedJson(TestContext testContext) {
+        Data input = JData.singleton("key_streamed_json", "value");
+
+        Response response = given().port(inferenceDeploymentResult.getActualPort())
+                .contentType(ContentType.JSON)
+                .accept(ContentType.JSON)
+                .body(input.toJson())
+                .post(PREDICT_ENDPOINT)
+                .andReturn();
+
+        testContext.assertEquals(200, response.statusCode());
+        testContext.assertEquals(input, Data.fromJson(response.asString()));
+    }
+
+    @Test
+    public void testStreamedBinary(TestContext testContext) {
+        Data input = JData.singleton("key_streamed_binary", new byte[]{1, 2, 3});
+
+        Response response = given().port(inferenceDeploymentResult.getActualPort())
+                .contentType(ContentType.BINARY)
+                .accept(ContentType.BINARY)
+                .body(input.asBytes())
+                .post(PREDICT_ENDPOINT)
+                .andReturn();
+
+        testContext.assertEquals(200, response.statusCode());
+        testContext.assertEquals(input, Data.fromBytes(response.asByteArray()));
+    }
+
+    @Test
+    public void testStreamedMultipart(TestContext testContext) {
+        byte[] bytes = new byte[1000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+
+        Response response = given().port(inferenceDeploymentResult.getActualPort())
+                .multiPart("file", "file.bin", bytes)
+                .multiPart("attribute", "value")
+                .accept(ContentType.JSON)
+                .post(PREDICT_ENDPOINT)
+                .andReturn();
+
+        testContext.assertEquals(200, response.statusCode());
+        Data output = Data.fromJson(response.asString());
+        testContext.assertTrue(Arrays.equals(bytes, output.getBytes("file")));
+        testContext.assertEquals("value", output.getString("attribute"));
+    }
+
+    @Test
+    public void testBodyTooLarge(TestContext testContext) {
+        Response response = given().port(inferenceDeploymentResult.getActualPort())
+                .contentType(ContentType.BINARY)
+                .accept(ContentType.BINARY)
+                .body(new byte[MAX_BODY_SIZE + 1])
+                .post(PREDICT_ENDPOINT)
+                .andReturn();
+
+        testContext.assertEquals(413, response.statusCode());
+    }
+
+    @AfterClass
+    public static void tearDown(TestContext testContext) {
+        vertx.close(testContext.asyncAssertSuccess());
+    }
+}
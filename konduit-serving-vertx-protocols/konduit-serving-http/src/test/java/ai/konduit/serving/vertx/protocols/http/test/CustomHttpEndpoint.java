@@ -29,6 +29,6 @@ import java.util.List;
 public class CustomHttpEndpoint implements HttpEndpoints {
     @Override
     public List<Endpoint> endpoints(Pipeline p, PipelineExecutor pe) {
-        return Arrays.asList(new CustomPostEndpoint(), new CustomGetEndpoint(pe));
+        return Arrays.asList(new CustomPostEndpoint(), new CustomGetEndpoint(pe), new CustomMultipartEndpoint());
     }
 }
@@ -0,0 +1,76 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.protocols.http.test;
+
+import ai.konduit.serving.endpoint.Endpoint;
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.ext.web.FileUpload;
+import io.vertx.ext.web.RoutingContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static io.netty.handler.codec.http.HttpHeaderValues.MULTIPART_FORM_DATA;
+import static io.netty.handler.codec.http.HttpHeaderValues.TEXT_PLAIN;
+import static io.vertx.core.http.HttpHeaders.CONTENT_TYPE;
+
+/**
+ * A custom endpoint that reads multipart uploads and form attributes directly from the routing context, as custom
+ * endpoints written for the Vert.x BodyHandler do.
+ */
+public class CustomMultipartEndpoint implements Endpoint {
+    public static final String PATH = "custom_multipart_endpoint";
+
+    @Override
+    public HttpMethod type() {
+        return HttpMethod.POST;
+    }
+
+    @Override
+    public String path() {
+        return PATH;
+    }
+
+    @Override
+    public List<String> consumes() {
+        return Collections.singletonList(MULTIPART_FORM_DATA.toString());
+    }
+
+    @Override
+    public List<String> produces() {
+        return Collections.singletonList(TEXT_PLAIN.toString());
+    }
+
+    @Override
+    public Handler<RoutingContext> handler() {
+        return ctx -> {
+            StringBuilder output = new StringBuilder();
+            for (FileUpload fileUpload : ctx.fileUploads()) {
+                output.append(fileUpload.name()).append('=').append(fileUpload.size()).append(';');
+            }
+            output.append("attribute=").append(ctx.request().getFormAttribute("attribute"));
+            ctx.response()
+                    .setStatusCode(200)
+                    .putHeader(CONTENT_TYPE, TEXT_PLAIN.toString())
+                    .end(output.toString(), StandardCharsets.UTF_8.name());
+        };
+    }
+}
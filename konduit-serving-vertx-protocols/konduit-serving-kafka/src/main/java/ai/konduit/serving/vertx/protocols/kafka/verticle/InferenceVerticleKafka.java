@@ -28,7 +28,6 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Promise;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpServerOptions;
-import io.vertx.core.http.HttpVersion;
 import io.vertx.core.impl.ContextInternal;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.net.PemKeyCertOptions;
@@ -48,7 +47,6 @@ import org.apache.kafka.common.serialization.StringSerializer;
 import java.io.File;
 import java.sql.Date;
 import java.time.Instant;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -200,12 +198,7 @@ public class InferenceVerticleKafka extends InferenceVerticle {
                                     .setPort(httpPort)
                                     .setHost(httpHost)
                                     .setSsl(false)
-                                    .setSslHandshakeTimeout(0)
-                                    .setCompressionSupported(true)
-                                    .setTcpKeepAlive(true)
-                                    .setTcpNoDelay(true)
-                                    .setAlpnVersions(Arrays.asList(HttpVersion.HTTP_1_0,HttpVersion.HTTP_1_1))
-                                    .setUseAlpn(false);
+                                    .setSslHandshakeTimeout(0);
 
                             boolean useSsl = inferenceConfiguration.useSsl();
                             String sslKeyPath = inferenceConfiguration.sslKeyPath();
@@ -232,7 +225,7 @@ public class InferenceVerticleKafka extends InferenceVerticle {
                                 }
                             }
 
-                            vertx.createHttpServer(httpServerOptions)
+                            vertx.createHttpServer(applyHttpTransportOptions(httpServerOptions))
                             .requestHandler(httpHandler -> {
                                 if (httpHandler.path().equals("/health")) {
                                     httpHandler.response().end("Kafka server running");
@@ -0,0 +1,186 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.protocols.shm.api;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetSocket;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.core.parsetools.RecordParser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A client for the SHARED_MEMORY protocol, for processes running on the same host as the server.<br>
+ * Each slot of the ring buffer is used by at most one in-flight request. Requests made while all slots are in use are
+ * queued until a slot is released. A ring buffer file should only be used by a single client at a time.<br>
+ * The client can be used from any thread. Response handlers are invoked on the control channel's event loop.
+ */
+@Slf4j
+public class SharedMemoryClient implements Closeable {
+
+    private final NetSocket socket;
+    private final SharedMemoryRingBuffer ringBuffer;
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final Deque<PendingRequest> queuedRequests = new ArrayDeque<>();
+    private final Map<Integer, Handler<AsyncResult<Data>>> inFlight = new HashMap<>();
+
+    private SharedMemoryClient(NetSocket socket, SharedMemoryRingBuffer ringBuffer) {
+        this.socket = socket;
+        this.ringBuffer = ringBuffer;
+
+        for (int i = 0; i < ringBuffer.getSlotCount(); i++) {
+            freeSlots.add(i);
+        }
+
+        socket.handler(RecordParser.newFixed(SharedMemoryProtocol.RESPONSE_FRAME_SIZE, this::handleResponse));
+        socket.closeHandler(v -> failAll(new IOException("Shared memory control channel closed")));
+    }
+
+    /**
+     * Connect to a shared memory server.
+     *
+     * @param vertx          Vert.x instance used for the control channel
+     * @param controlAddress The server's control channel address: a unix domain socket address
+     *                       (see {@link SocketAddress#domainSocketAddress(String)}) or a TCP address
+     * @param ringBufferFile The ring buffer file created by the server
+     * @param handler        Called with the connected client, or the connection failure
+     */
+    public static void connect(Vertx vertx, SocketAddress controlAddress, File ringBufferFile,
+                               Handler<AsyncResult<SharedMemoryClient>> handler) {
+        SharedMemoryRingBuffer ringBuffer;
+        try {
+            ringBuffer = SharedMemoryRingBuffer.open(ringBufferFile);
+        } catch (IOException exception) {
+            handler.handle(Future.failedFuture(exception));
+            return;
+        }
+
+        vertx.createNetClient().connect(controlAddress, result -> {
+            if (result.succeeded()) {
+                handler.handle(Future.succeededFuture(new SharedMemoryClient(result.result(), ringBuffer)));
+            } else {
+                handler.handle(Future.failedFuture(result.cause()));
+            }
+        });
+    }
+
+    /**
+     * Execute the server's pipeline on the given input.
+     */
+    public synchronized void predict(Data input, Handler<AsyncResult<Data>> handler) {
+        Integer slot = freeSlots.poll();
+        if (slot == null) {
+            queuedRequests.add(new PendingRequest(input, handler));
+        } else {
+            send(slot, input, handler);
+        }
+    }
+
+    private void send(int slot, Data input, Handler<AsyncResult<Data>> handler) {
+        int length;
+        try {
+            length = ringBuffer.write(slot, input);
+        } catch (Throwable throwable) {
+            release(slot);
+            handler.handle(Future.failedFuture(throwable));
+            return;
+        }
+
+        inFlight.put(slot, handler);
+        socket.write(Buffer.buffer(SharedMemoryProtocol.REQUEST_FRAME_SIZE).appendInt(slot).appendInt(length));
+    }
+
+    private synchronized void handleResponse(Buffer frame) {
+        int slot = frame.getInt(0);
+        int status = frame.getInt(4);
+        int length = frame.getInt(8);
+
+        Handler<AsyncResult<Data>> handler = inFlight.remove(slot);
+        if (handler == null) {
+            log.warn("Received a response for slot {} which has no request in flight", slot);
+            return;
+        }
+
+        AsyncResult<Data> result;
+        try {
+            if (status == SharedMemoryProtocol.STATUS_OK) {
+                result = Future.succeededFuture(ringBuffer.read(slot, length));
+            } else {
+                result = Future.failedFuture(new IllegalStateException(
+                        new String(ringBuffer.readBytes(slot, length), StandardCharsets.UTF_8)));
+            }
+        } catch (Throwable throwable) {
+            result = Future.failedFuture(throwable);
+        }
+
+        // The output has been read out of the slot, so it can be reused
+        release(slot);
+        handler.handle(result);
+    }
+
+    private void release(int slot) {
+        PendingRequest queued = queuedRequests.poll();
+        if (queued != null) {
+            send(slot, queued.input, queued.handler);
+        } else {
+            freeSlots.add(slot);
+        }
+    }
+
+    private synchronized void failAll(Throwable cause) {
+        for (Handler<AsyncResult<Data>> handler : inFlight.values()) {
+            handler.handle(Future.failedFuture(cause));
+        }
+        inFlight.clear();
+
+        PendingRequest queued;
+        while ((queued = queuedRequests.poll()) != null) {
+            queued.handler.handle(Future.failedFuture(cause));
+        }
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+        ringBuffer.close();
+    }
+
+    private static class PendingRequest {
+        private final Data input;
+        private final Handler<AsyncResult<Data>> handler;
+
+        private PendingRequest(Data input, Handler<AsyncResult<Data>> handler) {
+            this.input = input;
+            this.handler = handler;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.protocols.shm.api;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Control frames exchanged over the shared memory protocol control channel. All values are big-endian ints.<br>
+ * Request (client to server): [slot index][input length]<br>
+ * Response (server to client): [slot index][status][output length]. With {@link #STATUS_ERROR}, the slot contains
+ * a UTF-8 error message instead of the serialized output.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class SharedMemoryProtocol {
+
+    public static final int REQUEST_FRAME_SIZE = 8;
+
+    public static final int RESPONSE_FRAME_SIZE = 12;
+
+    public static final int STATUS_OK = 0;
+
+    public static final int STATUS_ERROR = 1;
+}
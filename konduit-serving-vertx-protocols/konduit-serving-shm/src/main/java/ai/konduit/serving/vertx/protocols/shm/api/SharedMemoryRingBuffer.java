@@ -0,0 +1,227 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.protocols.shm.api;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A memory mapped file, split into fixed size slots, that's shared between the server and a co-located client.<br>
+ * The client serializes the input {@link Data} into a free slot and sends the slot index and length over the control
+ * channel. The server deserializes the input directly from the mapped memory, executes the pipeline and serializes
+ * the output into the same slot, replying with the slot index, a status and the output length. Only those small
+ * control frames (see {@link SharedMemoryProtocol}) go through the socket.<br>
+ * File layout: a {@link #HEADER_SIZE} byte header (magic, version, slot count, slot size), followed by the slots.
+ */
+@Slf4j
+public class SharedMemoryRingBuffer implements Closeable {
+
+    public static final int MAGIC = 0x4B53524D;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 64;
+
+    @Getter
+    private final File file;
+    @Getter
+    private final int slotCount;
+    @Getter
+    private final int slotSize;
+    private final boolean owner;
+    private final MappedByteBuffer buffer;
+
+    private SharedMemoryRingBuffer(File file, int slotCount, int slotSize, boolean owner, MappedByteBuffer buffer) {
+        this.file = file;
+        this.slotCount = slotCount;
+        this.slotSize = slotSize;
+        this.owner = owner;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Create (or overwrite) the ring buffer file and map it into memory. The file is deleted when the ring buffer
+     * is closed.
+     */
+    public static SharedMemoryRingBuffer create(File file, int slotCount, int slotSize) throws IOException {
+        if (slotCount <= 0 || slotSize <= 0) {
+            throw new IllegalArgumentException("Slot count and slot size must be positive. Got slot count " + slotCount +
+                    " and slot size " + slotSize);
+        }
+
+        long size = HEADER_SIZE + (long) slotCount * slotSize;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Ring buffer size (%s slots of %s bytes) must be less than 2GB",
+                    slotCount, slotSize));
+        }
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(size);
+            MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, slotCount);
+            buffer.putInt(12, slotSize);
+            return new SharedMemoryRingBuffer(file, slotCount, slotSize, true, buffer);
+        }
+    }
+
+    /**
+     * Map an existing ring buffer file (created by the server) into memory.
+     */
+    public static SharedMemoryRingBuffer open(File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, randomAccessFile.length());
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("File is not a konduit-serving shared memory ring buffer: " + file.getAbsolutePath());
+            }
+
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException(String.format("Unsupported ring buffer version %s (expected %s)", buffer.getInt(4), VERSION));
+            }
+
+            return new SharedMemoryRingBuffer(file, buffer.getInt(8), buffer.getInt(12), false, buffer);
+        }
+    }
+
+    /**
+     * Deserialize the {@link Data} instance of the given length from the given slot, without copying it out of
+     * the mapped memory first.
+     */
+    public Data read(int slot, int length) throws IOException {
+        return Data.fromStream(new SlotInputStream(slice(slot, length)));
+    }
+
+    /**
+     * Serialize the given {@link Data} instance directly into the given slot.
+     *
+     * @return The number of bytes written
+     */
+    public int write(int slot, Data data) throws IOException {
+        ByteBuffer slice = slice(slot, slotSize);
+        data.write(new SlotOutputStream(slice, slot));
+        return slice.position();
+    }
+
+    /**
+     * Write raw bytes (for example, an error message) into the given slot. The bytes are truncated to the slot size.
+     *
+     * @return The number of bytes written
+     */
+    public int write(int slot, byte[] bytes) {
+        int length = Math.min(bytes.length, slotSize);
+        slice(slot, slotSize).put(bytes, 0, length);
+        return length;
+    }
+
+    /**
+     * Read raw bytes (for example, an error message) from the given slot.
+     */
+    public byte[] readBytes(int slot, int length) {
+        byte[] bytes = new byte[length];
+        slice(slot, length).get(bytes);
+        return bytes;
+    }
+
+    private ByteBuffer slice(int slot, int length) {
+        if (slot < 0 || slot >= slotCount) {
+            throw new IllegalArgumentException(String.format("Invalid slot index %s. Valid range is [0, %s)", slot, slotCount));
+        }
+
+        if (length < 0 || length > slotSize) {
+            throw new IllegalArgumentException(String.format("Invalid length %s for a slot of size %s", length, slotSize));
+        }
+
+        ByteBuffer duplicate = buffer.duplicate();
+        int offset = HEADER_SIZE + slot * slotSize;
+        duplicate.position(offset);
+        duplicate.limit(offset + length);
+        return duplicate.slice();
+    }
+
+    @Override
+    public void close() {
+        // Mapped buffers can't be explicitly unmapped before Java 9 - the mapping is released when the buffer is collected
+        if (owner && file.exists() && !file.delete()) {
+            log.warn("Unable to delete shared memory ring buffer file {}", file.getAbsolutePath());
+        }
+    }
+
+    private static class SlotInputStream extends InputStream {
+        private final ByteBuffer slice;
+
+        private SlotInputStream(ByteBuffer slice) {
+            this.slice = slice;
+        }
+
+        @Override
+        public int read() {
+            return slice.hasRemaining() ? slice.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!slice.hasRemaining()) {
+                return -1;
+            }
+
+            int toRead = Math.min(length, slice.remaining());
+            slice.get(bytes, offset, toRead);
+            return toRead;
+        }
+
+        @Override
+        public int available() {
+            return slice.remaining();
+        }
+    }
+
+    private static class SlotOutputStream extends OutputStream {
+        private final ByteBuffer slice;
+        private final int slot;
+
+        private SlotOutputStream(ByteBuffer slice, int slot) {
+            this.slice = slice;
+            this.slot = slot;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureRemaining(1);
+            slice.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            ensureRemaining(length);
+            slice.put(bytes, offset, length);
+        }
+
+        private void ensureRemaining(int length) throws IOException {
+            if (slice.remaining() < length) {
+                throw new IOException(String.format("Serialized data doesn't fit in ring buffer slot %s of size %s bytes. " +
+                        "Increase the configured slot size.", slot, slice.capacity()));
+            }
+        }
+    }
+}
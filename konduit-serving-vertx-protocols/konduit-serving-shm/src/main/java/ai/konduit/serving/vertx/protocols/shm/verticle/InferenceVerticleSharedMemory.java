@@ -0,0 +1,224 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.protocols.shm.verticle;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.settings.DirectoryFetcher;
+import ai.konduit.serving.pipeline.settings.KonduitSettings;
+import ai.konduit.serving.pipeline.settings.constants.EnvironmentConstants;
+import ai.konduit.serving.vertx.config.SharedMemoryConfiguration;
+import ai.konduit.serving.vertx.protocols.shm.api.SharedMemoryProtocol;
+import ai.konduit.serving.vertx.protocols.shm.api.SharedMemoryRingBuffer;
+import ai.konduit.serving.vertx.verticle.InferenceVerticle;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.impl.ContextInternal;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.NetServerOptions;
+import io.vertx.core.net.NetSocket;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.core.parsetools.RecordParser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves the pipeline over a memory mapped ring buffer (see {@link SharedMemoryRingBuffer}), for clients running
+ * on the same host. The control channel (slot indices, statuses and lengths) is a unix domain socket when native
+ * transports are available, or a TCP socket on the configured host and port otherwise.
+ */
+@Slf4j
+public class InferenceVerticleSharedMemory extends InferenceVerticle {
+
+    private SharedMemoryRingBuffer ringBuffer;
+
+    @Override
+    public void start(Promise<Void> startPromise) {
+        if (context.getInstanceCount() > 1) {
+            // The instances would share the ring buffer file and the control socket path
+            startPromise.fail(new IllegalStateException("The SHARED_MEMORY protocol supports a single verticle instance " +
+                    "only, as all the instances would use the same ring buffer file and control socket path. Found " +
+                    context.getInstanceCount() + " instances."));
+            return;
+        }
+
+        vertx.executeBlocking(handler -> {
+            try {
+                initialize();
+                ringBuffer = createRingBuffer();
+                handler.complete();
+            } catch (Exception exception) {
+                handler.fail(exception);
+                startPromise.fail(exception);
+            }
+        }, resultHandler -> {
+            if (resultHandler.failed()) {
+                if (resultHandler.cause() != null)
+                    startPromise.fail(resultHandler.cause());
+                else {
+                    startPromise.fail("Failed to start. Unknown cause.");
+                }
+            } else {
+                int port;
+
+                String portEnvValue = System.getenv(EnvironmentConstants.KONDUIT_SERVING_PORT);
+                if (portEnvValue != null) {
+                    try {
+                        port = Integer.parseInt(portEnvValue);
+                    } catch (NumberFormatException exception) {
+                        log.error("Environment variable \"{}={}\" isn't a valid port number.",
+                                EnvironmentConstants.KONDUIT_SERVING_PORT, portEnvValue);
+                        startPromise.fail(exception);
+                        return;
+                    }
+                } else {
+                    port = inferenceConfiguration.port();
+                }
+
+                if (port < 0 || port > 0xFFFF) {
+                    startPromise.fail(new Exception("Valid port range is 0 <= port <= 65535. The given port was " + port));
+                    return;
+                }
+
+                NetServerOptions netServerOptions = new NetServerOptions();
+                applyTransportOptions(netServerOptions);
+
+                NetServer netServer = vertx.createNetServer(netServerOptions)
+                        .connectHandler(this::handleConnection)
+                        .exceptionHandler(throwable -> log.error("Error occurred on the shared memory control channel.", throwable));
+
+                boolean useDomainSocket = vertx.isNativeTransportEnabled();
+
+                Handler<AsyncResult<NetServer>> listenHandler = handler -> {
+                    if (handler.failed()) {
+                        startPromise.fail(handler.cause());
+                    } else {
+                        if (!useDomainSocket) {
+                            inferenceConfiguration.port(handler.result().actualPort());
+                        }
+
+                        try {
+                            ((ContextInternal) context).getDeployment()
+                                    .deploymentOptions()
+                                    .setConfig(new JsonObject(inferenceConfiguration.toJson()));
+
+                            long pid = getPid();
+
+                            saveInspectionDataIfRequired(pid);
+
+                            log.info("Shared memory ring buffer created at '{}' with {} slots of {} bytes",
+                                    ringBuffer.getFile().getAbsolutePath(), ringBuffer.getSlotCount(), ringBuffer.getSlotSize());
+                            if (useDomainSocket) {
+                                log.info("Shared memory server control channel listening on unix domain socket '{}'",
+                                        inferenceConfiguration.domainSocketPath());
+                            } else {
+                                log.info("Native transport isn't available. Shared memory server control channel " +
+                                        "listening on host: '{}' and port {}", inferenceConfiguration.host(), inferenceConfiguration.port());
+                            }
+
+                            startPromise.complete();
+                        } catch (Throwable throwable) {
+                            startPromise.fail(throwable);
+                        }
+                    }
+                };
+
+                if (useDomainSocket) {
+                    String socketPath = domainSocketPath();
+                    File socketFile = new File(socketPath);
+                    if (socketFile.exists() && !socketFile.delete()) {
+                        startPromise.fail(new IllegalStateException("Unable to delete stale unix domain socket file: " + socketPath));
+                        return;
+                    }
+                    socketFile.deleteOnExit();
+                    inferenceConfiguration.domainSocketPath(socketPath);
+
+                    netServer.listen(SocketAddress.domainSocketAddress(socketPath), listenHandler);
+                } else {
+                    netServer.listen(port, inferenceConfiguration.host(), listenHandler);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void stop(Promise<Void> stopPromise) {
+        if (ringBuffer != null) {
+            ringBuffer.close();
+        }
+
+        super.stop(stopPromise);
+    }
+
+    private SharedMemoryRingBuffer createRingBuffer() throws Exception {
+        SharedMemoryConfiguration sharedMemoryConfiguration = inferenceConfiguration.sharedMemoryConfiguration();
+        if (sharedMemoryConfiguration == null) {
+            sharedMemoryConfiguration = new SharedMemoryConfiguration();
+            inferenceConfiguration.sharedMemoryConfiguration(sharedMemoryConfiguration);
+        }
+
+        String ringBufferPath = sharedMemoryConfiguration.ringBufferPath();
+        if (ringBufferPath == null || ringBufferPath.isEmpty()) {
+            String fileName = "konduit-serving-" + KonduitSettings.getServingId() + ".shm";
+            File sharedMemoryDir = new File("/dev/shm");
+            ringBufferPath = new File(sharedMemoryDir.isDirectory() && sharedMemoryDir.canWrite() ?
+                    sharedMemoryDir : DirectoryFetcher.getServersDataDir(), fileName).getAbsolutePath();
+            sharedMemoryConfiguration.ringBufferPath(ringBufferPath);
+        }
+
+        File ringBufferFile = new File(ringBufferPath);
+        ringBufferFile.deleteOnExit();
+        return SharedMemoryRingBuffer.create(ringBufferFile, sharedMemoryConfiguration.slotCount(),
+                sharedMemoryConfiguration.slotSize());
+    }
+
+    private void handleConnection(NetSocket socket) {
+        RecordParser parser = RecordParser.newFixed(SharedMemoryProtocol.REQUEST_FRAME_SIZE, frame -> {
+            int slot = frame.getInt(0);
+            int length = frame.getInt(4);
+
+            vertx.<Buffer>executeBlocking(handler -> {
+                Buffer response = Buffer.buffer(SharedMemoryProtocol.RESPONSE_FRAME_SIZE).appendInt(slot);
+                try {
+                    Data output = pipelineExecutor.exec(ringBuffer.read(slot, length));
+                    int outputLength = ringBuffer.write(slot, output);
+                    response.appendInt(SharedMemoryProtocol.STATUS_OK).appendInt(outputLength);
+                } catch (Throwable throwable) {
+                    log.error("Failed to process shared memory request in slot {}", slot, throwable);
+
+                    String message = throwable.getMessage() != null ? throwable.getMessage() : throwable.toString();
+                    int messageLength = slot >= 0 && slot < ringBuffer.getSlotCount() ?
+                            ringBuffer.write(slot, message.getBytes(StandardCharsets.UTF_8)) : 0;
+                    response.appendInt(SharedMemoryProtocol.STATUS_ERROR).appendInt(messageLength);
+                }
+                handler.complete(response);
+            }, false, result -> socket.write(result.result()));
+        });
+
+        socket.handler(parser)
+                .exceptionHandler(throwable -> {
+                    log.error("Error occurred on a shared memory control connection.", throwable);
+                    socket.close();
+                });
+    }
+}
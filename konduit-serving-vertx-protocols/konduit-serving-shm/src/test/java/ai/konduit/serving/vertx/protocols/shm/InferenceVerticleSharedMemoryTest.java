@@ -0,0 +1,127 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.protocols.shm;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.impl.data.JData;
+import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import ai.konduit.serving.pipeline.impl.step.logging.LoggingStep;
+import ai.konduit.serving.vertx.api.DeployKonduitServing;
+import ai.konduit.serving.vertx.config.InferenceConfiguration;
+import ai.konduit.serving.vertx.config.ServerProtocol;
+import ai.konduit.serving.vertx.config.SharedMemoryConfiguration;
+import ai.konduit.serving.vertx.protocols.shm.api.SharedMemoryClient;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.slf4j.event.Level;
+
+import java.io.File;
+import java.io.IOException;
+
+@RunWith(VertxUnitRunner.class)
+public class InferenceVerticleSharedMemoryTest {
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    static InferenceConfiguration configuration;
+    static Vertx vertx;
+    static SharedMemoryClient client;
+
+    @BeforeClass
+    public static void setUp(TestContext testContext) throws IOException {
+        File directory = folder.newFolder();
+
+        configuration = new InferenceConfiguration()
+                .protocol(ServerProtocol.SHARED_MEMORY)
+                .domainSocketPath(new File(directory, "control.sock").getAbsolutePath())
+                .sharedMemoryConfiguration(new SharedMemoryConfiguration()
+                        .ringBufferPath(new File(directory, "ring.shm").getAbsolutePath())
+                        .slotCount(2)
+                        .slotSize(1024 * 1024))
+                .pipeline(SequencePipeline.builder()
+                        .add(new LoggingStep().log(LoggingStep.Log.KEYS_AND_VALUES).logLevel(Level.ERROR))
+                        .build());
+
+        Async async = testContext.async();
+
+        vertx = DeployKonduitServing.deploy(new VertxOptions(),
+                new DeploymentOptions(),
+                configuration,
+                handler -> {
+                    if (handler.succeeded()) {
+                        SocketAddress controlAddress = vertx.isNativeTransportEnabled() ?
+                                SocketAddress.domainSocketAddress(configuration.domainSocketPath()) :
+                                SocketAddress.inetSocketAddress(handler.result().getActualPort(), "localhost");
+
+                        SharedMemoryClient.connect(vertx, controlAddress,
+                                new File(configuration.sharedMemoryConfiguration().ringBufferPath()),
+                                result -> {
+                                    if (result.succeeded()) {
+                                        client = result.result();
+                                        async.complete();
+                                    } else {
+                                        testContext.fail(result.cause());
+                                    }
+                                });
+                    } else {
+                        testContext.fail(handler.cause());
+                    }
+                });
+    }
+
+    @Test
+    public void testSharedMemoryRoundTrip(TestContext testContext) {
+        Async async = testContext.async(5);
+
+        // More requests than slots, so that some of them are queued until a slot is released
+        vertx.runOnContext(v -> {
+            for (int i = 0; i < 5; i++) {
+                Data input = JData.singleton("key", "value" + i);
+                client.predict(input, result -> {
+                    if (result.succeeded()) {
+                        testContext.assertEquals(input, result.result());
+                        async.countDown();
+                    } else {
+                        testContext.fail(result.cause());
+                    }
+                });
+            }
+        });
+    }
+
+    @AfterClass
+    public static void tearDown(TestContext testContext) {
+        if (client != null) {
+            client.close();
+        }
+        vertx.close(testContext.asyncAssertSuccess());
+    }
+}
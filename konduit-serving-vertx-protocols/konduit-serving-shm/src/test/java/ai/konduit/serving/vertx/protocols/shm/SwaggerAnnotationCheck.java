@@ -0,0 +1,34 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+package ai.konduit.serving.vertx.protocols.shm;
+
+import ai.konduit.serving.common.test.BaseSwaggerAnnotationCheck;
+import org.junit.Test;
+
+public class SwaggerAnnotationCheck extends BaseSwaggerAnnotationCheck {
+    @Override
+    public String getPackageName() {
+        return "ai.konduit.serving.vertx.protocols.shm";
+    }
+
+
+    @Test
+    public void checkAnnotations() throws ClassNotFoundException {
+        runTest();
+    }
+}
@@ -23,6 +23,7 @@ import ai.konduit.serving.pipeline.util.ObjectMappers;
 import ai.konduit.serving.vertx.config.InferenceConfiguration;
 import ai.konduit.serving.vertx.config.InferenceDeploymentResult;
 import ai.konduit.serving.vertx.config.ServerProtocol;
+import ai.konduit.serving.vertx.config.VertxConfiguration;
 import io.vertx.core.*;
 import io.vertx.core.impl.VertxImpl;
 import io.vertx.core.json.JsonObject;
@@ -45,6 +46,7 @@ public class DeployKonduitServing {
     public static final String SERVICE_PREFIX = "konduit";
     public static final String INFERENCE_SERVICE_IDENTIFIER = SERVICE_PREFIX + ":ai.konduit.serving:inference";
     protected static final Map<ServerProtocol, String> PROTOCOL_SERVICE_MAP = new EnumMap<>(ServerProtocol.class);
+    protected static final Map<ServerProtocol, String> PROTOCOL_MODULE_MAP = new EnumMap<>(ServerProtocol.class);
 
     static {
         ObjectMappers.json().setDateFormat(new SimpleDateFormat(Constants.DATE_FORMAT));
@@ -54,15 +56,28 @@ public class DeployKonduitServing {
         PROTOCOL_SERVICE_MAP.put(GRPC, "ai.konduit.serving.vertx.protocols.grpc.verticle.InferenceVerticleGrpc");
         PROTOCOL_SERVICE_MAP.put(MQTT, "ai.konduit.serving.vertx.protocols.mqtt.verticle.InferenceVerticleMqtt");
         PROTOCOL_SERVICE_MAP.put(KAFKA, "ai.konduit.serving.vertx.protocols.kafka.verticle.InferenceVerticleKafka");
+        PROTOCOL_SERVICE_MAP.put(HTTP_UDS, "ai.konduit.serving.vertx.protocols.http.verticle.InferenceVerticleHttp");
+        PROTOCOL_SERVICE_MAP.put(SHARED_MEMORY, "ai.konduit.serving.vertx.protocols.shm.verticle.InferenceVerticleSharedMemory");
+
+        // Modules that contain the service classes
+        PROTOCOL_MODULE_MAP.put(HTTP, "konduit-serving-http");
+        PROTOCOL_MODULE_MAP.put(GRPC, "konduit-serving-grpc");
+        PROTOCOL_MODULE_MAP.put(MQTT, "konduit-serving-mqtt");
+        PROTOCOL_MODULE_MAP.put(KAFKA, "konduit-serving-kafka");
+        PROTOCOL_MODULE_MAP.put(HTTP_UDS, "konduit-serving-http");
+        PROTOCOL_MODULE_MAP.put(SHARED_MEMORY, "konduit-serving-shm");
     }
 
     public static Vertx deploy(VertxOptions vertxOptions,
                               DeploymentOptions deploymentOptions,
                               InferenceConfiguration inferenceConfiguration,
                               Handler<AsyncResult<InferenceDeploymentResult>> eventHandler) {
+        applyVertxConfiguration(vertxOptions, deploymentOptions, inferenceConfiguration);
+
         Vertx vertx = Vertx.vertx(vertxOptions
                 .setMaxEventLoopExecuteTime(60)
                 .setMaxEventLoopExecuteTimeUnit(TimeUnit.SECONDS));
+        logVertxDiagnostics(vertx, vertxOptions, deploymentOptions);
         registerInferenceVerticleFactory(vertx);
 
         JsonObject jsonConfiguration;
@@ -112,6 +127,56 @@ public class DeployKonduitServing {
         return vertx;
     }
 
+    /**
+     * Applies the {@link InferenceConfiguration#vertxConfiguration()} settings (native transport, pool sizes and the
+     * number of verticle instances) to the given options. Unset (0) values leave the given options untouched.
+     */
+    public static void applyVertxConfiguration(VertxOptions vertxOptions,
+                                               DeploymentOptions deploymentOptions,
+                                               InferenceConfiguration inferenceConfiguration) {
+        VertxConfiguration vertxConfiguration = inferenceConfiguration.vertxConfiguration();
+        if (vertxConfiguration == null) {
+            vertxConfiguration = new VertxConfiguration();
+        }
+
+        if (vertxConfiguration.preferNativeTransport() ||
+                inferenceConfiguration.protocol() == HTTP_UDS || inferenceConfiguration.protocol() == SHARED_MEMORY) {
+            // Unix domain sockets are only available with the native (epoll/kqueue) transports
+            vertxOptions.setPreferNativeTransport(true);
+        }
+
+        if (vertxConfiguration.eventLoopPoolSize() > 0) {
+            vertxOptions.setEventLoopPoolSize(vertxConfiguration.eventLoopPoolSize());
+        }
+
+        if (vertxConfiguration.workerPoolSize() > 0) {
+            vertxOptions.setWorkerPoolSize(vertxConfiguration.workerPoolSize());
+        }
+
+        if (deploymentOptions != null && vertxConfiguration.verticleInstances() > 0) {
+            deploymentOptions.setInstances(vertxConfiguration.verticleInstances());
+        }
+    }
+
+    /**
+     * Logs the effective threading and transport settings, and warns if the native transport was requested but
+     * couldn't be loaded.
+     */
+    public static void logVertxDiagnostics(Vertx vertx, VertxOptions vertxOptions, DeploymentOptions deploymentOptions) {
+        log.info("Vert.x native transport enabled: {}. Event loop threads: {}, worker threads: {}, verticle instances: {}, available processors: {}",
+                vertx.isNativeTransportEnabled(),
+                vertxOptions.getEventLoopPoolSize(),
+                vertxOptions.getWorkerPoolSize(),
+                deploymentOptions != null ? deploymentOptions.getInstances() : 1,
+                Runtime.getRuntime().availableProcessors());
+
+        if (vertxOptions.getPreferNativeTransport() && !vertx.isNativeTransportEnabled()) {
+            log.warn("Native transport was requested but isn't available on this platform - falling back to the NIO transport. " +
+                    "Make sure that the netty-transport-native-epoll (Linux) or netty-transport-native-kqueue (macOS) " +
+                    "library matching this platform is on the classpath.");
+        }
+    }
+
     public Map<ServerProtocol, String> getProtocolServiceMap() {
         return PROTOCOL_SERVICE_MAP;
     }
@@ -6,6 +6,7 @@ import io.vertx.core.Vertx;
 import io.vertx.core.spi.VerticleFactory;
 import org.apache.commons.lang3.StringUtils;
 
+import static ai.konduit.serving.vertx.api.DeployKonduitServing.PROTOCOL_MODULE_MAP;
 import static ai.konduit.serving.vertx.api.DeployKonduitServing.PROTOCOL_SERVICE_MAP;
 import static ai.konduit.serving.vertx.api.DeployKonduitServing.SERVICE_PREFIX;
 
@@ -38,7 +39,7 @@ public class ServiceVerticleFactory implements VerticleFactory {
                 throw new IllegalStateException(
                         String.format("Missing classes for protocol service %s. Make sure the binaries contain the '%s' module.",
                                 protocolName,
-                                "konduit-serving-" + serverProtocol.name().toLowerCase())
+                                PROTOCOL_MODULE_MAP.get(serverProtocol))
                 );
             }
         } else {
@@ -0,0 +1,514 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.multimodel;
+
+import ai.konduit.serving.pipeline.api.context.Profiler;
+import ai.konduit.serving.pipeline.api.context.ProfilerConfig;
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
+import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
+import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
+import ai.konduit.serving.vertx.config.MultiModelConfiguration;
+import ai.konduit.serving.vertx.util.PipelineConfigs;
+import io.vertx.core.shareddata.Shareable;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Loads pipelines from a model repository on first use, and keeps the loaded {@link PipelineExecutor}s in a least
+ * recently used cache bounded by count and estimated memory (see {@link MultiModelConfiguration}).<br>
+ * Concurrent requests for a model that isn't loaded yet wait for a single load. Pipelines are used through
+ * {@link Lease}s: an evicted pipeline is only closed once all the requests using it are done.<br>
+ * The memory of a pipeline is estimated while it's loaded, as the growth of the used heap plus the growth of the
+ * process resident memory outside of the heap (native memory: ND4J, ONNX Runtime, TensorFlow...). Loads are
+ * serialized, so that the measurements of concurrent loads don't overlap.<br>
+ * Requests for the same pipeline run one at a time, in arrival order: a pipeline is used from many worker threads and
+ * all the verticle instances, while pipeline step runners (which may keep state between calls, such as reused buffers)
+ * are written to be driven by a single thread at a time. Requests for different pipelines run in parallel.<br>
+ * A single instance is shared by all the verticle instances of a Vert.x instance - see {@link Shareable}. Each user of
+ * a shared instance calls {@link #retain()} (except the creator) and {@link #release()}: the instance is closed once
+ * its last user releases it.
+ */
+@Slf4j
+public class MultiModelManager implements Shareable, AutoCloseable {
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+
+    private final MultiModelConfiguration configuration;
+    private final Map<String, CompletableFuture<LoadedPipeline>> pipelines = new ConcurrentHashMap<>();
+    /** Loaded pipelines in least recently used order. Guarded by itself */
+    private final LinkedHashMap<String, LoadedPipeline> lru = new LinkedHashMap<>(16, 0.75f, true);
+    private final Object loadLock = new Object();
+    private long totalMemoryBytes;
+    /** Number of users (verticle instances) of this manager. Guarded by this */
+    private int users = 1;
+    private volatile boolean closed;
+
+    public MultiModelManager(@NonNull MultiModelConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Get the pipeline for the given model name and version, loading it if required. Blocks while the pipeline is
+     * loaded, so this shouldn't be called from an event loop thread. The returned lease must be closed once the
+     * pipeline executor isn't used anymore.
+     */
+    public Lease acquire(@NonNull String name, String version) throws Exception {
+        if (closed) {
+            throw new IllegalStateException("Multi model manager is closed");
+        }
+
+        String resolvedVersion = version == null || version.isEmpty() ? configuration.defaultVersion() : version;
+        validateName("model name", name);
+        validateName("model version", resolvedVersion);
+        String key = key(name, resolvedVersion);
+
+        while (true) {
+            CompletableFuture<LoadedPipeline> future = new CompletableFuture<>();
+            CompletableFuture<LoadedPipeline> existing = pipelines.putIfAbsent(key, future);
+            if (existing == null) {
+                load(name, resolvedVersion, key, future);
+                existing = future;
+            }
+
+            LoadedPipeline loadedPipeline;
+            try {
+                loadedPipeline = existing.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+
+            if (loadedPipeline.acquire()) {
+                synchronized (lru) {
+                    // Marks the pipeline as most recently used
+                    lru.get(key);
+                }
+                return new Lease(loadedPipeline);
+            }
+            // The pipeline was evicted in the meantime - load it again
+            pipelines.remove(key, existing);
+        }
+    }
+
+    private void load(String name, String version, String key, CompletableFuture<LoadedPipeline> future) {
+        LoadedPipeline loadedPipeline;
+        try {
+            synchronized (loadLock) {
+                long heapBefore = usedHeap();
+                long residentBefore = residentMemory();
+                long committedHeapBefore = Runtime.getRuntime().totalMemory();
+
+                String uri = pipelineUri(name, version);
+                log.info("Loading pipeline for model {} version {} from {}", name, version, uri);
+                long start = System.currentTimeMillis();
+
+                Pipeline pipeline = readPipeline(uri);
+                PipelineExecutor executor = pipeline.executor();
+
+                long heapBytes = Math.max(0, usedHeap() - heapBefore);
+                long nativeBytes = 0;
+                if (residentBefore >= 0) {
+                    long residentAfter = residentMemory();
+                    long committedHeapGrowth = Runtime.getRuntime().totalMemory() - committedHeapBefore;
+                    nativeBytes = Math.max(0, residentAfter - residentBefore - Math.max(0, committedHeapGrowth));
+                }
+
+                loadedPipeline = new LoadedPipeline(key, name, version, executor, heapBytes + nativeBytes);
+                log.info("Loaded pipeline for model {} version {} in {} ms. Estimated memory: {} MB on-heap, {} MB native",
+                        name, version, System.currentTimeMillis() - start, heapBytes / (1024 * 1024), nativeBytes / (1024 * 1024));
+            }
+        } catch (Throwable t) {
+            pipelines.remove(key, future);
+            future.completeExceptionally(t);
+            return;
+        }
+
+        synchronized (lru) {
+            lru.put(key, loadedPipeline);
+            totalMemoryBytes += loadedPipeline.getMemoryBytes();
+        }
+        future.complete(loadedPipeline);
+
+        evictIfRequired(key);
+    }
+
+    /**
+     * Evict least recently used pipelines (other than the given one) while the count or memory limit is exceeded
+     */
+    private void evictIfRequired(String keep) {
+        List<LoadedPipeline> evicted = new ArrayList<>();
+        synchronized (lru) {
+            Iterator<Map.Entry<String, LoadedPipeline>> iterator = lru.entrySet().iterator();
+            while (iterator.hasNext() && limitExceeded()) {
+                Map.Entry<String, LoadedPipeline> entry = iterator.next();
+                if (entry.getKey().equals(keep)) {
+                    continue;
+                }
+                iterator.remove();
+                totalMemoryBytes -= entry.getValue().getMemoryBytes();
+                evicted.add(entry.getValue());
+            }
+        }
+
+        for (LoadedPipeline loadedPipeline : evicted) {
+            log.info("Evicting pipeline for model {} version {}", loadedPipeline.getName(), loadedPipeline.getVersion());
+            evict(loadedPipeline);
+        }
+    }
+
+    private boolean limitExceeded() {
+        return (configuration.maxLoadedModels() > 0 && lru.size() > configuration.maxLoadedModels()) ||
+                (configuration.maxMemoryBytes() > 0 && totalMemoryBytes > configuration.maxMemoryBytes());
+    }
+
+    /**
+     * Close the pipelines that haven't been used for longer than the configured idle timeout.
+     */
+    public void evictIdle() {
+        long idleTimeoutMillis = configuration.idleTimeoutSeconds() * 1000;
+        if (idleTimeoutMillis <= 0) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        List<LoadedPipeline> evicted = new ArrayList<>();
+        synchronized (lru) {
+            Iterator<LoadedPipeline> iterator = lru.values().iterator();
+            while (iterator.hasNext()) {
+                LoadedPipeline loadedPipeline = iterator.next();
+                if (now - loadedPipeline.getLastUsed() > idleTimeoutMillis && loadedPipeline.inUse() == 0) {
+                    iterator.remove();
+                    totalMemoryBytes -= loadedPipeline.getMemoryBytes();
+                    evicted.add(loadedPipeline);
+                }
+            }
+        }
+
+        for (LoadedPipeline loadedPipeline : evicted) {
+            log.info("Closing idle pipeline for model {} version {}", loadedPipeline.getName(), loadedPipeline.getVersion());
+            evict(loadedPipeline);
+        }
+    }
+
+    private void evict(LoadedPipeline loadedPipeline) {
+        pipelines.remove(loadedPipeline.getKey());
+        loadedPipeline.evict();
+    }
+
+    /**
+     * @return The currently loaded pipelines, from least to most recently used
+     */
+    public List<LoadedPipeline> loadedPipelines() {
+        synchronized (lru) {
+            return new ArrayList<>(lru.values());
+        }
+    }
+
+    public long totalMemoryBytes() {
+        synchronized (lru) {
+            return totalMemoryBytes;
+        }
+    }
+
+    /**
+     * Close this manager and all its loaded pipelines, regardless of the number of users. See {@link #release()}
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        evictAll();
+    }
+
+    private void evictAll() {
+        List<LoadedPipeline> all;
+        synchronized (lru) {
+            all = new ArrayList<>(lru.values());
+            lru.clear();
+            totalMemoryBytes = 0;
+        }
+        for (LoadedPipeline loadedPipeline : all) {
+            evict(loadedPipeline);
+        }
+    }
+
+    private String pipelineUri(String name, String version) {
+        String repository = configuration.modelRepository();
+        if (repository.endsWith("/")) {
+            repository = repository.substring(0, repository.length() - 1);
+        }
+        return repository + "/" + name + "/" + version + "/" + configuration.pipelineFileName();
+    }
+
+    private static Pipeline readPipeline(String uri) throws IOException {
+        try {
+            return PipelineConfigs.load(uri);
+        } catch (FileNotFoundException e) {
+            throw new ModelNotFoundException("No pipeline configuration found at " + uri);
+        }
+    }
+
+    private static void validateName(String type, String value) {
+        if (!NAME_PATTERN.matcher(value).matches() || value.contains("..")) {
+            throw new InvalidModelNameException("Invalid " + type + " \"" + value + "\". Only letters, digits, '.', '_' and '-' are allowed");
+        }
+    }
+
+    /**
+     * Register one more user of this manager.
+     *
+     * @return False if the manager was already closed (by its last user) - in which case a new manager is required
+     */
+    public synchronized boolean retain() {
+        if (closed) {
+            return false;
+        }
+        users++;
+        return true;
+    }
+
+    /**
+     * Release one user of this manager. The loaded pipelines are closed once all users have released the manager.
+     *
+     * @return True if this was the last user, and the manager is now closed
+     */
+    public boolean release() {
+        synchronized (this) {
+            if (closed || --users > 0) {
+                return false;
+            }
+            closed = true;
+        }
+        evictAll();
+        return true;
+    }
+
+    private static String key(String name, String version) {
+        return name + "/" + version;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * @return The resident memory of the process in bytes (Linux only), or -1 if it isn't available
+     */
+    private static long residentMemory() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"), StandardCharsets.UTF_8)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.substring("VmRSS:".length()).replace("kB", "").trim()) * 1024;
+                }
+            }
+        } catch (Exception e) {
+            log.trace("Unable to read the process resident memory", e);
+        }
+        return -1;
+    }
+
+    /**
+     * Gives access to a loaded pipeline executor. The pipeline isn't closed before the lease is closed, even if it's
+     * evicted in the meantime. Calls to {@link PipelineExecutor#exec(Data)} on the returned executor are serialized with
+     * those of all the other leases of the same pipeline.
+     */
+    public static class Lease implements AutoCloseable {
+        private final LoadedPipeline loadedPipeline;
+        private boolean released;
+
+        private Lease(LoadedPipeline loadedPipeline) {
+            this.loadedPipeline = loadedPipeline;
+        }
+
+        public PipelineExecutor executor() {
+            return loadedPipeline.serializedExecutor;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!released) {
+                released = true;
+                loadedPipeline.release();
+            }
+        }
+    }
+
+    /**
+     * A loaded pipeline, with its reference count and estimated memory.
+     */
+    @Getter
+    public static class LoadedPipeline {
+        private final String key;
+        private final String name;
+        private final String version;
+        private final long memoryBytes;
+        private final long loadedAt = System.currentTimeMillis();
+        private volatile long lastUsed = System.currentTimeMillis();
+        @Getter(lombok.AccessLevel.NONE)
+        private final PipelineExecutor executor;
+        @Getter(lombok.AccessLevel.NONE)
+        private final PipelineExecutor serializedExecutor;
+        @Getter(lombok.AccessLevel.NONE)
+        private int references;
+        @Getter(lombok.AccessLevel.NONE)
+        private boolean evicted;
+
+        private LoadedPipeline(String key, String name, String version, PipelineExecutor executor, long memoryBytes) {
+            this.key = key;
+            this.name = name;
+            this.version = version;
+            this.executor = executor;
+            this.serializedExecutor = new SerializedPipelineExecutor(executor);
+            this.memoryBytes = memoryBytes;
+        }
+
+        private synchronized boolean acquire() {
+            if (evicted) {
+                return false;
+            }
+            references++;
+            lastUsed = System.currentTimeMillis();
+            return true;
+        }
+
+        private void release() {
+            boolean close;
+            synchronized (this) {
+                references--;
+                lastUsed = System.currentTimeMillis();
+                close = evicted && references == 0;
+            }
+            if (close) {
+                closeExecutor();
+            }
+        }
+
+        private void evict() {
+            boolean close;
+            synchronized (this) {
+                if (evicted) {
+                    return;
+                }
+                evicted = true;
+                close = references == 0;
+            }
+            if (close) {
+                closeExecutor();
+            }
+        }
+
+        private synchronized int inUse() {
+            return references;
+        }
+
+        private void closeExecutor() {
+            try {
+                executor.close();
+            } catch (Throwable t) {
+                log.warn("Error closing pipeline for model {} version {}", name, version, t);
+            }
+        }
+    }
+
+    /**
+     * Runs {@link #exec(Data)} calls on the wrapped executor one at a time, in arrival order (fair lock).
+     */
+    private static class SerializedPipelineExecutor implements PipelineExecutor {
+        private final PipelineExecutor executor;
+        private final ReentrantLock lock = new ReentrantLock(true);
+
+        private SerializedPipelineExecutor(PipelineExecutor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public Data exec(Data data) {
+            lock.lock();
+            try {
+                return executor.exec(data);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public Pipeline getPipeline() {
+            return executor.getPipeline();
+        }
+
+        @Override
+        public List<PipelineStepRunner> getRunners() {
+            return executor.getRunners();
+        }
+
+        @Override
+        public void close() {
+            // No op: the pipeline is closed by the manager, once it's evicted and no lease uses it anymore
+        }
+
+        @Override
+        public Logger getLogger() {
+            return executor.getLogger();
+        }
+
+        @Override
+        public void profilerConfig(ProfilerConfig profilerConfig) {
+            executor.profilerConfig(profilerConfig);
+        }
+
+        @Override
+        public Profiler profiler() {
+            return executor.profiler();
+        }
+    }
+
+    /**
+     * Thrown when there's no pipeline configuration for the requested model name and version in the repository.
+     */
+    public static class ModelNotFoundException extends IOException {
+        public ModelNotFoundException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Thrown when the requested model name or version contains characters that aren't allowed.
+     */
+    public static class InvalidModelNameException extends IllegalArgumentException {
+        public InvalidModelNameException(String message) {
+            super(message);
+        }
+    }
+}
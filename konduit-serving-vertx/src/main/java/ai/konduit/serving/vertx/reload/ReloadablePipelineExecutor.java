@@ -0,0 +1,206 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.reload;
+
+import ai.konduit.serving.pipeline.api.context.Profiler;
+import ai.konduit.serving.pipeline.api.context.ProfilerConfig;
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
+import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
+import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link PipelineExecutor} that delegates to another executor, which can be replaced at runtime with
+ * {@link #swap(PipelineExecutor, long)} without failing or blocking any request.<br>
+ * Each request runs entirely on the executor that was current when it started. After a swap, new requests go to the
+ * new executor, and the old one is closed once the requests in flight on it are done. The old executor is never closed
+ * while a request is still running on it: if the drain timeout expires, {@link #swap(PipelineExecutor, long)} returns,
+ * and the old executor is closed when its last request completes.
+ */
+@Slf4j
+public class ReloadablePipelineExecutor implements PipelineExecutor {
+
+    private volatile Generation current;
+    private ProfilerConfig profilerConfig;
+
+    public ReloadablePipelineExecutor(@NonNull PipelineExecutor executor) {
+        this.current = new Generation(executor, 0);
+    }
+
+    @Override
+    public Data exec(Data data) {
+        while (true) {
+            Generation generation = current;
+            if (generation.acquire()) {
+                try {
+                    return generation.executor.exec(data);
+                } finally {
+                    generation.release();
+                }
+            }
+            // Swapped out between reading it and acquiring it: use the new one
+        }
+    }
+
+    /**
+     * Replace the current executor with the given one. Blocks until the requests in flight on the old executor are
+     * done, then closes the old executor. If they aren't done when the drain timeout expires, this returns anyway,
+     * and the old executor is closed once the last of them completes.
+     *
+     * @param executor           The new executor. It should be warmed up already, as it's used for all the requests
+     *                           from now on.
+     * @param drainTimeoutMillis Maximum time to wait for the in flight requests on the old executor
+     * @return The generation number of the new executor: the number of swaps since this executor was created
+     */
+    public long swap(@NonNull PipelineExecutor executor, long drainTimeoutMillis) throws InterruptedException {
+        Generation old;
+        Generation next;
+        synchronized (this) {
+            old = current;
+            next = new Generation(executor, old.number + 1);
+            if (profilerConfig != null) {
+                executor.profilerConfig(profilerConfig);
+            }
+            current = next;
+        }
+
+        int remaining = old.retire(drainTimeoutMillis);
+        if (remaining > 0) {
+            log.warn("{} requests still in flight on the old pipeline after {} ms. It will be closed once they complete.",
+                    remaining, drainTimeoutMillis);
+        } else {
+            old.close();
+        }
+        return next.number;
+    }
+
+    /**
+     * @return The executor that new requests currently go to
+     */
+    public PipelineExecutor current() {
+        return current.executor;
+    }
+
+    /**
+     * @return The number of swaps since this executor was created
+     */
+    public long generation() {
+        return current.number;
+    }
+
+    @Override
+    public Pipeline getPipeline() {
+        return current.executor.getPipeline();
+    }
+
+    @Override
+    public List<PipelineStepRunner> getRunners() {
+        return current.executor.getRunners();
+    }
+
+    @Override
+    public void close() {
+        current.executor.close();
+    }
+
+    @Override
+    public Logger getLogger() {
+        return log;
+    }
+
+    @Override
+    public synchronized void profilerConfig(ProfilerConfig profilerConfig) {
+        this.profilerConfig = profilerConfig;
+        current.executor.profilerConfig(profilerConfig);
+    }
+
+    @Override
+    public Profiler profiler() {
+        return current.executor.profiler();
+    }
+
+    private static class Generation {
+        private final PipelineExecutor executor;
+        private final long number;
+        private int inFlight;
+        private boolean retired;
+        private boolean closeWhenDrained;
+
+        private Generation(PipelineExecutor executor, long number) {
+            this.executor = executor;
+            this.number = number;
+        }
+
+        private synchronized boolean acquire() {
+            if (retired) {
+                return false;
+            }
+            inFlight++;
+            return true;
+        }
+
+        private void release() {
+            boolean close;
+            synchronized (this) {
+                close = --inFlight == 0 && closeWhenDrained;
+                if (inFlight == 0 && retired) {
+                    notifyAll();
+                }
+            }
+            if (close) {
+                log.info("Last request on the old pipeline completed. Closing it.");
+                close();
+            }
+        }
+
+        private void close() {
+            try {
+                executor.close();
+            } catch (Throwable t) {
+                log.warn("Error closing the old pipeline executor", t);
+            }
+        }
+
+        /**
+         * Stop accepting requests and wait for the ones in flight. If some are still in flight after the timeout, the
+         * executor is closed by the last of them in {@link #release()}.
+         *
+         * @return The number of requests still in flight after the timeout
+         */
+        private synchronized int retire(long timeoutMillis) throws InterruptedException {
+            retired = true;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (inFlight > 0) {
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    break;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+            }
+            closeWhenDrained = inFlight > 0;
+            return inFlight;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.util;
+
+import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
+import ai.konduit.serving.pipeline.api.protocol.URIResolver;
+import lombok.NonNull;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Utilities for reading pipeline configurations from a local path or a URI.<br>
+ * Remote configurations are always downloaded again rather than going through the {@link URIResolver} cache, as
+ * they're expected to change (hot reload), and as that cache is keyed by file name only (multi model hosting).
+ */
+public class PipelineConfigs {
+
+    private PipelineConfigs(){ }
+
+    /**
+     * @param uri A local path or a file, http, https or ftp URI
+     * @return The content of the pipeline configuration file
+     * @throws FileNotFoundException If there's no file at the given location
+     */
+    public static String read(@NonNull String uri) throws IOException {
+        if (URIResolver.isUrl(uri)) {
+            return IOUtils.toString(new URL(uri), StandardCharsets.UTF_8);
+        }
+
+        File file = URIResolver.getFile(uri);
+        if (!file.exists()) {
+            throw new FileNotFoundException("No pipeline configuration found at " + uri);
+        }
+        return FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parse a pipeline configuration read from the given URI: as YAML if the URI ends with .yaml or .yml, and as
+     * JSON otherwise.
+     */
+    public static Pipeline parse(@NonNull String uri, @NonNull String content) {
+        String lowerCaseUri = uri.toLowerCase();
+        return lowerCaseUri.endsWith(".yaml") || lowerCaseUri.endsWith(".yml") ? Pipeline.fromYaml(content) : Pipeline.fromJson(content);
+    }
+
+    /**
+     * Same as {@code parse(uri, read(uri))}
+     */
+    public static Pipeline load(@NonNull String uri) throws IOException {
+        return parse(uri, read(uri));
+    }
+}
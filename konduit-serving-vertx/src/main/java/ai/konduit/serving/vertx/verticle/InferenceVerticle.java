@@ -20,20 +20,46 @@
 
 package ai.konduit.serving.vertx.verticle;
 
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.NDArray;
+import ai.konduit.serving.pipeline.api.data.NDArrayType;
 import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
 import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
+import ai.konduit.serving.pipeline.api.protocol.URIResolver;
+import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
+import ai.konduit.serving.pipeline.impl.pipeline.AsyncPipelineExecutor;
 import ai.konduit.serving.vertx.config.InferenceConfiguration;
+import ai.konduit.serving.vertx.config.MultiModelConfiguration;
+import ai.konduit.serving.vertx.config.ReloadConfiguration;
+import ai.konduit.serving.vertx.config.ServerProtocol;
 import ai.konduit.serving.pipeline.settings.DirectoryFetcher;
+import ai.konduit.serving.pipeline.settings.KonduitSettings;
+import ai.konduit.serving.vertx.config.TransportConfiguration;
+import ai.konduit.serving.vertx.config.WarmupConfiguration;
+import ai.konduit.serving.vertx.multimodel.MultiModelManager;
+import ai.konduit.serving.vertx.reload.ReloadablePipelineExecutor;
+import ai.konduit.serving.vertx.util.PipelineConfigs;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Promise;
+import io.vertx.core.http.Http2Settings;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpVersion;
 import io.vertx.core.impl.ContextInternal;
+import io.vertx.core.net.NetServerOptions;
+import io.vertx.core.net.TCPSSLOptions;
+import io.vertx.core.shareddata.LocalMap;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 public abstract class InferenceVerticle extends AbstractVerticle {
@@ -42,11 +68,45 @@ public abstract class InferenceVerticle extends AbstractVerticle {
     protected InferenceConfiguration inferenceConfiguration;
     protected Pipeline pipeline;
     protected PipelineExecutor pipelineExecutor;
+    protected MultiModelManager multiModelManager;
+
+    private static final String MULTI_MODEL_MANAGER_MAP = "konduit-serving-multi-model";
+
+    /**
+     * Event bus address on which new pipeline configurations (as JSON) are published, so that every verticle
+     * instance reloads its pipeline.
+     */
+    public static final String RELOAD_ADDRESS = "konduit-serving-reload";
+    private static final String RELOAD_WATCHER_MAP = "konduit-serving-reload-watcher";
+
+    private volatile String watchedPipelineConfig;
+    private final AtomicBoolean watchInProgress = new AtomicBoolean();
 
     protected void initialize() throws Exception {
         inferenceConfiguration = InferenceConfiguration.fromJson(context.config().encode());
         pipeline = inferenceConfiguration.pipeline();
-        pipelineExecutor = pipeline.executor();
+
+        MultiModelConfiguration multiModelConfiguration = inferenceConfiguration.multiModelConfiguration();
+        if (multiModelConfiguration != null && multiModelConfiguration.enabled()) {
+            ServerProtocol protocol = inferenceConfiguration.protocol();
+            if (protocol != ServerProtocol.HTTP && protocol != ServerProtocol.HTTP_UDS) {
+                throw new IllegalStateException("Multi model hosting is only supported with the HTTP protocols. Protocol was " + protocol);
+            }
+            multiModelManager = sharedMultiModelManager(multiModelConfiguration);
+        }
+
+        ReloadConfiguration reloadConfiguration = inferenceConfiguration.reloadConfiguration();
+        boolean reloadEnabled = reloadConfiguration != null && reloadConfiguration.enabled();
+        if (pipeline == null && reloadEnabled && reloadConfiguration.pipelineUri() != null && !reloadConfiguration.pipelineUri().isEmpty()) {
+            pipeline = PipelineConfigs.load(reloadConfiguration.pipelineUri());
+        }
+
+        if (pipeline != null) {
+            pipelineExecutor = pipeline.executor();
+        } else if (multiModelManager == null) {
+            throw new IllegalStateException("No pipeline is configured. Either a pipeline or a model repository for " +
+                    "multi model hosting has to be set in the inference configuration.");
+        }
 
         log.info("\n\n" +
                 "####################################################################\n" +
@@ -58,10 +118,272 @@ public abstract class InferenceVerticle extends AbstractVerticle {
                 "####################################################################\n");
 
         log.info("Pending server start, please wait...");
+
+        warmUp();
+
+        if (reloadEnabled && pipelineExecutor != null) {
+            enableReload(reloadConfiguration);
+        }
+    }
+
+    /**
+     * Runs the warm-up inputs from {@link InferenceConfiguration#warmupConfiguration()} through the pipeline. Called at
+     * the end of {@link #initialize()}, so the server only starts listening (and reports that it's started) once the
+     * warm-up is done.
+     */
+    protected void warmUp() throws Exception {
+        WarmupConfiguration warmupConfiguration = inferenceConfiguration.warmupConfiguration();
+        if (pipelineExecutor != null && warmupConfiguration != null) {
+            warmUp(pipelineExecutor, warmupConfiguration.failOnError());
+        }
+    }
+
+    /**
+     * Runs the warm-up inputs through the given pipeline executor.
+     *
+     * @param failOnError If true, warm-up errors are thrown instead of being logged
+     */
+    protected void warmUp(PipelineExecutor executor, boolean failOnError) throws Exception {
+        WarmupConfiguration warmupConfiguration = inferenceConfiguration.warmupConfiguration();
+        if (warmupConfiguration == null || warmupConfiguration.iterations() <= 0) {
+            return;
+        }
+
+        Data input;
+        try {
+            input = warmupInput(warmupConfiguration);
+        } catch (Exception exception) {
+            if (failOnError) {
+                throw exception;
+            }
+            log.error("Unable to create the pipeline warm-up input. Skipping warm-up.", exception);
+            return;
+        }
+
+        if (input == null) {
+            return;
+        }
+
+        int iterations = warmupConfiguration.iterations();
+        log.info("Warming up the pipeline with {} iterations...", iterations);
+
+        long[] timesNanos = new long[iterations];
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long iterationStart = System.nanoTime();
+            try {
+                executor.exec(input.clone());
+            } catch (Exception exception) {
+                if (failOnError) {
+                    throw exception;
+                }
+                log.error("Pipeline warm-up failed at iteration {}. Continuing server start.", i + 1, exception);
+                return;
+            }
+            timesNanos[i] = System.nanoTime() - iterationStart;
+        }
+
+        long total = System.nanoTime() - start;
+        long[] sorted = timesNanos.clone();
+        Arrays.sort(sorted);
+        log.info("Pipeline warm-up finished in {} ms. First iteration: {} ms, median: {} ms, last: {} ms, max: {} ms",
+                toMillis(total), toMillis(timesNanos[0]), toMillis(sorted[sorted.length / 2]),
+                toMillis(timesNanos[iterations - 1]), toMillis(sorted[sorted.length - 1]));
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format("%.2f", nanos / 1e6);
+    }
+
+    private Data warmupInput(WarmupConfiguration warmupConfiguration) throws IOException {
+        String sampleDataPath = warmupConfiguration.sampleDataPath();
+        if (sampleDataPath != null && !sampleDataPath.isEmpty()) {
+            File sampleFile = URIResolver.getFile(sampleDataPath);
+            log.info("Using recorded sample input '{}' for pipeline warm-up", sampleFile.getAbsolutePath());
+            return sampleFile.getName().toLowerCase().endsWith(".json") ?
+                    Data.fromJson(FileUtils.readFileToString(sampleFile, StandardCharsets.UTF_8)) :
+                    Data.fromFile(sampleFile);
+        }
+
+        if (warmupConfiguration.inputs() == null || warmupConfiguration.inputs().isEmpty()) {
+            return null;
+        }
+
+        Data data = Data.empty();
+        for (WarmupConfiguration.WarmupInput warmupInput : warmupConfiguration.inputs()) {
+            NDArrayType type = warmupInput.dataType() != null ? warmupInput.dataType() : NDArrayType.FLOAT;
+            if (!type.isFixedWidth()) {
+                throw new IllegalStateException("Unable to generate a warm-up input of type " + type + " for input \"" +
+                        warmupInput.name() + "\". Use a recorded sample input instead.");
+            }
+
+            long[] shape = warmupInput.shape() != null ? warmupInput.shape() : new long[0];
+            long length = 1;
+            for (long dimension : shape) {
+                if (dimension <= 0) {
+                    throw new IllegalStateException("Invalid warm-up input shape " + Arrays.toString(shape) +
+                            " for input \"" + warmupInput.name() + "\": all dimensions must be positive");
+                }
+                length *= dimension;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(length * type.width())).order(ByteOrder.LITTLE_ENDIAN);
+            data.put(warmupInput.name(), NDArray.create(new SerializedNDArray(type, shape, buffer)));
+        }
+        return data;
+    }
+
+    /**
+     * Wraps the pipeline executor so that it can be swapped at runtime, and listens for reload requests on
+     * {@link #RELOAD_ADDRESS}. The first verticle instance also watches the configured pipeline URI for changes.
+     */
+    private void enableReload(ReloadConfiguration reloadConfiguration) {
+        if (pipelineExecutor instanceof AsyncPipelineExecutor) {
+            log.warn("Pipeline reloads aren't supported for async pipelines. Reloads are disabled.");
+            return;
+        }
+
+        pipelineExecutor = new ReloadablePipelineExecutor(pipelineExecutor);
+        context.runOnContext(v -> vertx.eventBus().<String>localConsumer(RELOAD_ADDRESS, message -> reload(message.body())));
+
+        if (reloadConfiguration.watchEnabled() &&
+                vertx.sharedData().<String, Boolean>getLocalMap(RELOAD_WATCHER_MAP).putIfAbsent(RELOAD_WATCHER_MAP, Boolean.TRUE) == null) {
+            String uri = reloadConfiguration.pipelineUri();
+            try {
+                watchedPipelineConfig = PipelineConfigs.read(uri);
+            } catch (IOException e) {
+                log.warn("Unable to read the pipeline configuration at {}. Waiting for it to be created.", uri, e);
+            }
+
+            log.info("Watching {} for pipeline changes every {} seconds", uri, reloadConfiguration.watchIntervalSeconds());
+            vertx.setPeriodic(reloadConfiguration.watchIntervalSeconds() * 1000, timerId -> checkForPipelineChanges(uri));
+        }
+    }
+
+    private void checkForPipelineChanges(String uri) {
+        if (!watchInProgress.compareAndSet(false, true)) {
+            return;
+        }
+
+        vertx.<String>executeBlocking(handler -> {
+            try {
+                String content = PipelineConfigs.read(uri);
+                if (content.equals(watchedPipelineConfig)) {
+                    handler.complete();
+                } else {
+                    // Remembered before parsing, so that an invalid configuration is only reported once
+                    watchedPipelineConfig = content;
+                    handler.complete(PipelineConfigs.parse(uri, content).toJson());
+                }
+            } catch (Throwable throwable) {
+                handler.fail(throwable);
+            }
+        }, false, result -> {
+            watchInProgress.set(false);
+            if (result.failed()) {
+                log.warn("Unable to load the changed pipeline configuration at {}", uri, result.cause());
+            } else if (result.result() != null) {
+                log.info("Pipeline configuration at {} changed. Reloading the pipeline.", uri);
+                vertx.eventBus().publish(RELOAD_ADDRESS, result.result());
+            }
+        });
+    }
+
+    /**
+     * Reloads the pipeline of this verticle instance in the background. Requests keep being served by the current
+     * pipeline until the new one is ready. If anything fails, the current pipeline is kept.
+     *
+     * @param pipelineJson The new pipeline configuration
+     */
+    protected void reload(String pipelineJson) {
+        vertx.executeBlocking(handler -> {
+            try {
+                reloadPipeline(Pipeline.fromJson(pipelineJson));
+                handler.complete();
+            } catch (Throwable throwable) {
+                handler.fail(throwable);
+            }
+        }, false, result -> {
+            if (result.failed()) {
+                log.error("Pipeline reload failed. Still serving the previous pipeline.", result.cause());
+            }
+        });
+    }
+
+    /**
+     * Creates and warms up an executor for the given pipeline, swaps it in and closes the previous executor once
+     * the requests in flight on it are done. Blocks until then.
+     */
+    protected synchronized void reloadPipeline(Pipeline newPipeline) throws Exception {
+        if (!(pipelineExecutor instanceof ReloadablePipelineExecutor)) {
+            throw new IllegalStateException("Pipeline reloads aren't enabled");
+        }
+
+        long start = System.currentTimeMillis();
+        PipelineExecutor newExecutor = newPipeline.executor();
+        try {
+            warmUp(newExecutor, true);
+        } catch (Throwable throwable) {
+            newExecutor.close();
+            throw throwable;
+        }
+
+        long generation = ((ReloadablePipelineExecutor) pipelineExecutor).swap(newExecutor,
+                inferenceConfiguration.reloadConfiguration().drainTimeoutSeconds() * 1000);
+        pipeline = newPipeline;
+        log.info("Pipeline reloaded in {} ms ({} reloads so far)", System.currentTimeMillis() - start, generation);
+    }
+
+    /**
+     * @return The multi model manager shared by all the verticle instances of this Vert.x instance, creating it if
+     * required - so that each model is only loaded once, whatever the number of verticle instances. The manager is
+     * reference counted: it's closed when the last verticle instance using it is stopped.
+     */
+    private MultiModelManager sharedMultiModelManager(MultiModelConfiguration multiModelConfiguration) {
+        LocalMap<String, MultiModelManager> managers = vertx.sharedData().getLocalMap(MULTI_MODEL_MANAGER_MAP);
+        MultiModelManager manager = null;
+        while (manager == null) {
+            MultiModelManager existing = managers.get(MULTI_MODEL_MANAGER_MAP);
+            if (existing == null) {
+                MultiModelManager created = new MultiModelManager(multiModelConfiguration);
+                if (managers.putIfAbsent(MULTI_MODEL_MANAGER_MAP, created) == null) {
+                    manager = created;
+                }
+            } else if (existing.retain()) {
+                manager = existing;
+            } else {
+                // Closed by its last user in the meantime - replace it
+                managers.removeIfPresent(MULTI_MODEL_MANAGER_MAP, existing);
+            }
+        }
+
+        // Each instance has its own timer, as timers are cancelled when the instance that set them is undeployed
+        MultiModelManager m = manager;
+        long idleTimeoutMillis = multiModelConfiguration.idleTimeoutSeconds() * 1000;
+        if (idleTimeoutMillis > 0) {
+            vertx.setPeriodic(Math.max(1000, idleTimeoutMillis / 2),
+                    timerId -> vertx.executeBlocking(handler -> {
+                        m.evictIdle();
+                        handler.complete();
+                    }, false, result -> {
+                        if (result.failed()) {
+                            log.warn("Failed to close idle pipelines", result.cause());
+                        }
+                    }));
+        }
+        return manager;
     }
 
     @Override
     public void stop(Promise<Void> stopPromise) {
+        if (multiModelManager != null) {
+            if (multiModelManager.release()) {
+                vertx.sharedData().<String, MultiModelManager>getLocalMap(MULTI_MODEL_MANAGER_MAP)
+                        .removeIfPresent(MULTI_MODEL_MANAGER_MAP, multiModelManager);
+            }
+            multiModelManager = null;
+        }
+
         if (vertx != null) {
             vertx.close(handler -> {
                 if(handler.succeeded()) {
@@ -76,6 +398,89 @@ public abstract class InferenceVerticle extends AbstractVerticle {
         }
     }
 
+    protected TransportConfiguration transportConfiguration() {
+        TransportConfiguration transportConfiguration = inferenceConfiguration.transportConfiguration();
+        return transportConfiguration != null ? transportConfiguration : new TransportConfiguration();
+    }
+
+    /**
+     * Applies the TCP level settings from {@link InferenceConfiguration#transportConfiguration()} to the given server options.
+     * This is shared between the HTTP, gRPC and the Kafka health servers.
+     */
+    protected void applyTransportOptions(TCPSSLOptions options) {
+        TransportConfiguration transportConfiguration = transportConfiguration();
+
+        options.setTcpKeepAlive(transportConfiguration.tcpKeepAlive())
+                .setTcpNoDelay(transportConfiguration.tcpNoDelay());
+
+        if (transportConfiguration.receiveBufferSize() > 0) {
+            options.setReceiveBufferSize(transportConfiguration.receiveBufferSize());
+        }
+
+        if (transportConfiguration.sendBufferSize() > 0) {
+            options.setSendBufferSize(transportConfiguration.sendBufferSize());
+        }
+
+        if (transportConfiguration.idleTimeoutSeconds() > 0) {
+            options.setIdleTimeout(transportConfiguration.idleTimeoutSeconds())
+                    .setIdleTimeoutUnit(TimeUnit.SECONDS);
+        }
+
+        if (options instanceof NetServerOptions && transportConfiguration.acceptBacklog() > 0) {
+            ((NetServerOptions) options).setAcceptBacklog(transportConfiguration.acceptBacklog());
+        }
+    }
+
+    /**
+     * Applies the TCP, HTTP/2 and compression settings from {@link InferenceConfiguration#transportConfiguration()}
+     * to the given HTTP server options. Should be called after the SSL settings are set on the options, as ALPN is
+     * only used together with SSL.
+     */
+    protected HttpServerOptions applyHttpTransportOptions(HttpServerOptions options) {
+        TransportConfiguration transportConfiguration = transportConfiguration();
+
+        applyTransportOptions(options);
+
+        options.setCompressionSupported(transportConfiguration.compressionSupported())
+                .setCompressionLevel(transportConfiguration.compressionLevel());
+
+        if (transportConfiguration.http2()) {
+            options.setAlpnVersions(Arrays.asList(HttpVersion.HTTP_2, HttpVersion.HTTP_1_1, HttpVersion.HTTP_1_0))
+                    .setUseAlpn(options.isSsl());
+        } else {
+            options.setAlpnVersions(Arrays.asList(HttpVersion.HTTP_1_1, HttpVersion.HTTP_1_0))
+                    .setUseAlpn(false);
+        }
+
+        Http2Settings http2Settings = new Http2Settings();
+        if (transportConfiguration.maxConcurrentStreams() > 0) {
+            http2Settings.setMaxConcurrentStreams(transportConfiguration.maxConcurrentStreams());
+        }
+
+        if (transportConfiguration.http2InitialWindowSize() > 0) {
+            http2Settings.setInitialWindowSize(transportConfiguration.http2InitialWindowSize());
+        }
+        options.setInitialSettings(http2Settings);
+
+        if (transportConfiguration.http2ConnectionWindowSize() > 0) {
+            options.setHttp2ConnectionWindowSize(transportConfiguration.http2ConnectionWindowSize());
+        }
+
+        return options;
+    }
+
+    /**
+     * @return The configured unix domain socket path, or a socket file named after the serving id in the servers
+     * data directory if no path is configured.
+     */
+    protected String domainSocketPath() {
+        String domainSocketPath = inferenceConfiguration.domainSocketPath();
+        if (domainSocketPath == null || domainSocketPath.isEmpty()) {
+            domainSocketPath = new File(DirectoryFetcher.getServersDataDir(), KonduitSettings.getServingId() + ".sock").getAbsolutePath();
+        }
+        return domainSocketPath;
+    }
+
     protected long getPid() {
         return Long.parseLong(ManagementFactory.getRuntimeMXBean().getName().split("@")[0]);
     }
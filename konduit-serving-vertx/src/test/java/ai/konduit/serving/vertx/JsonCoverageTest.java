@@ -18,11 +18,17 @@
 package ai.konduit.serving.vertx;
 
 import ai.konduit.serving.common.test.BaseJsonCoverageTest;
+import ai.konduit.serving.pipeline.api.data.NDArrayType;
 import ai.konduit.serving.pipeline.impl.pipeline.GraphPipeline;
 import ai.konduit.serving.pipeline.impl.pipeline.graph.GraphStep;
 import ai.konduit.serving.pipeline.util.ObjectMappers;
 import ai.konduit.serving.vertx.config.InferenceConfiguration;
+import ai.konduit.serving.vertx.config.MultiModelConfiguration;
+import ai.konduit.serving.vertx.config.ReloadConfiguration;
 import ai.konduit.serving.vertx.config.ServerProtocol;
+import ai.konduit.serving.vertx.config.TransportConfiguration;
+import ai.konduit.serving.vertx.config.VertxConfiguration;
+import ai.konduit.serving.vertx.config.WarmupConfiguration;
 import org.junit.Test;
 
 import java.util.Collections;
@@ -52,6 +58,14 @@ public class JsonCoverageTest extends BaseJsonCoverageTest {
        testConfigSerDe(new InferenceConfiguration()
                .customEndpoints(Collections.singletonList("0"))
                .port(80).protocol(ServerProtocol.HTTP)
+               .transportConfiguration(new TransportConfiguration().http2(true).maxConcurrentStreams(128).idleTimeoutSeconds(30))
+               .vertxConfiguration(new VertxConfiguration().preferNativeTransport(true).eventLoopPoolSize(16).verticleInstances(8))
+               .warmupConfiguration(new WarmupConfiguration().iterations(5).failOnError(true)
+                       .inputs(Collections.singletonList(new WarmupConfiguration.WarmupInput("input", new long[]{1, 3, 224, 224}, NDArrayType.FLOAT))))
+               .multiModelConfiguration(new MultiModelConfiguration().modelRepository("/models").pipelineFileName("pipeline.yaml")
+                       .defaultVersion("2").maxLoadedModels(4).maxMemoryBytes(1L << 30).idleTimeoutSeconds(600))
+               .reloadConfiguration(new ReloadConfiguration().enabled(true).token("secret").allowRequestPipeline(true).pipelineUri("/models/pipeline.yaml")
+                       .watchIntervalSeconds(10).drainTimeoutSeconds(30))
                .pipeline(new GraphPipeline(steps, "foo", "myGraphPipeline"))
        );
     }
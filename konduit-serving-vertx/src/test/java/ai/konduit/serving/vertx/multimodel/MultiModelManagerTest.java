@@ -0,0 +1,204 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.multimodel;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.step.PipelineStep;
+import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import ai.konduit.serving.pipeline.impl.step.logging.LoggingStep;
+import ai.konduit.serving.vertx.config.MultiModelConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.event.Level;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class MultiModelManagerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testLazyLoadingAndEviction() throws Exception {
+        File repository = folder.newFolder();
+        writePipeline(repository, "model_a", "1");
+        writePipeline(repository, "model_b", "1");
+        writePipeline(repository, "model_b", "2");
+
+        MultiModelConfiguration configuration = new MultiModelConfiguration()
+                .modelRepository(repository.getAbsolutePath())
+                .maxLoadedModels(2);
+
+        try (MultiModelManager manager = new MultiModelManager(configuration)) {
+            assertTrue(manager.loadedPipelines().isEmpty());
+
+            Data input = Data.singleton("key", "value");
+            try (MultiModelManager.Lease lease = manager.acquire("model_a", null)) {
+                assertEquals(input, lease.executor().exec(input));
+            }
+            assertEquals(1, manager.loadedPipelines().size());
+            assertEquals("1", manager.loadedPipelines().get(0).getVersion());
+
+            // Already loaded: no second copy
+            manager.acquire("model_a", "1").close();
+            assertEquals(1, manager.loadedPipelines().size());
+
+            manager.acquire("model_b", "1").close();
+            manager.acquire("model_a", "1").close();
+
+            // model_b version 1 is the least recently used, so it should be evicted
+            try (MultiModelManager.Lease lease = manager.acquire("model_b", "2")) {
+                assertEquals(input, lease.executor().exec(input));
+            }
+            assertEquals(2, manager.loadedPipelines().size());
+            assertEquals("model_a", manager.loadedPipelines().get(0).getName());
+            assertEquals("model_b", manager.loadedPipelines().get(1).getName());
+            assertEquals("2", manager.loadedPipelines().get(1).getVersion());
+
+            // Evicted pipelines are loaded again on demand
+            manager.acquire("model_b", "1").close();
+            assertEquals(2, manager.loadedPipelines().size());
+        }
+    }
+
+    @Test
+    public void testModelNotFound() throws Exception {
+        File repository = folder.newFolder();
+        writePipeline(repository, "model_a", "1");
+
+        try (MultiModelManager manager = new MultiModelManager(new MultiModelConfiguration()
+                .modelRepository(repository.getAbsolutePath()))) {
+            try {
+                manager.acquire("model_a", "2");
+                fail("Expected exception");
+            } catch (MultiModelManager.ModelNotFoundException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("model_a"));
+            }
+
+            try {
+                manager.acquire("..", "1");
+                fail("Expected exception");
+            } catch (MultiModelManager.InvalidModelNameException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("model name"));
+            }
+
+            assertTrue(manager.loadedPipelines().isEmpty());
+        }
+    }
+
+    @Test
+    public void testSharedManagerReleasedByLastUser() throws Exception {
+        File repository = folder.newFolder();
+        writePipeline(repository, "model_a", "1");
+
+        // Created by a first user, retained by a second one
+        MultiModelManager manager = new MultiModelManager(new MultiModelConfiguration()
+                .modelRepository(repository.getAbsolutePath()));
+        assertTrue(manager.retain());
+
+        manager.acquire("model_a", "1").close();
+        assertEquals(1, manager.loadedPipelines().size());
+
+        // The pipelines stay loaded while a user remains
+        assertFalse(manager.release());
+        assertEquals(1, manager.loadedPipelines().size());
+        manager.acquire("model_a", "1").close();
+
+        assertTrue(manager.release());
+        assertTrue(manager.loadedPipelines().isEmpty());
+
+        // A closed manager can't be retained or used anymore
+        assertFalse(manager.retain());
+        assertFalse(manager.release());
+        try {
+            manager.acquire("model_a", "1");
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("closed"));
+        }
+    }
+
+    @Test
+    public void testRequestsSerializedPerPipeline() throws Exception {
+        File repository = folder.newFolder();
+        writePipeline(repository, "model_a", "1", new ConcurrencyTestingStep());
+        writePipeline(repository, "model_b", "1", new ConcurrencyTestingStep());
+        ConcurrencyTestingStep.RUNNING.set(0);
+        ConcurrencyTestingStep.MAX_CONCURRENT.set(0);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try (MultiModelManager manager = new MultiModelManager(new MultiModelConfiguration()
+                .modelRepository(repository.getAbsolutePath()))) {
+            Data input = Data.singleton("key", "value");
+
+            // Many concurrent requests (each with its own lease) for the same pipeline run one at a time
+            List<Future<Data>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(executorService.submit(() -> {
+                    try (MultiModelManager.Lease lease = manager.acquire("model_a", "1")) {
+                        return lease.executor().exec(input);
+                    }
+                }));
+            }
+            for (Future<Data> result : results) {
+                assertEquals(input, result.get());
+            }
+            assertEquals(1, ConcurrencyTestingStep.MAX_CONCURRENT.get());
+
+            // Requests for different pipelines still run in parallel
+            try (MultiModelManager.Lease leaseA = manager.acquire("model_a", "1");
+                 MultiModelManager.Lease leaseB = manager.acquire("model_b", "1")) {
+                ConcurrencyTestingStep.MAX_CONCURRENT.set(0);
+                results.clear();
+                for (int i = 0; i < 8; i++) {
+                    MultiModelManager.Lease lease = i % 2 == 0 ? leaseA : leaseB;
+                    results.add(executorService.submit(() -> lease.executor().exec(input)));
+                }
+                for (Future<Data> result : results) {
+                    assertEquals(input, result.get());
+                }
+                assertEquals(2, ConcurrencyTestingStep.MAX_CONCURRENT.get());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static void writePipeline(File repository, String name, String version) throws Exception {
+        writePipeline(repository, name, version, new LoggingStep().log(LoggingStep.Log.KEYS_AND_VALUES).logLevel(Level.INFO));
+    }
+
+    private static void writePipeline(File repository, String name, String version, PipelineStep step) throws Exception {
+        File file = new File(new File(new File(repository, name), version), "pipeline.json");
+        FileUtils.writeStringToFile(file, SequencePipeline.builder()
+                .add(step)
+                .build()
+                .toJson(), StandardCharsets.UTF_8);
+    }
+}
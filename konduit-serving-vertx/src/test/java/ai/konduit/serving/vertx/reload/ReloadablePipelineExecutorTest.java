@@ -0,0 +1,194 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2022 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.reload;
+
+import ai.konduit.serving.pipeline.api.context.Profiler;
+import ai.konduit.serving.pipeline.api.context.ProfilerConfig;
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
+import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
+import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class ReloadablePipelineExecutorTest {
+
+    @Test(timeout = 60000)
+    public void testSwapDrainsInFlightRequests() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        TestExecutor first = new TestExecutor("first", started, finish);
+        TestExecutor second = new TestExecutor("second", null, null);
+
+        ReloadablePipelineExecutor executor = new ReloadablePipelineExecutor(first);
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            Future<Data> inFlight = threads.submit(() -> executor.exec(Data.empty()));
+            started.await();
+
+            Future<Long> swap = threads.submit(() -> executor.swap(second, 30000));
+
+            // New requests go to the new executor while the old one drains
+            while (executor.current() != second) {
+                Thread.sleep(10);
+            }
+            assertEquals("second", executor.exec(Data.empty()).getString("executor"));
+            assertFalse(swap.isDone());
+            assertFalse(first.closed);
+
+            finish.countDown();
+            assertEquals("first", inFlight.get().getString("executor"));
+            assertEquals(1L, (long) swap.get());
+            assertTrue(first.closed);
+            assertFalse(second.closed);
+            assertEquals(1, executor.generation());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testSwapDrainTimeout() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        TestExecutor first = new TestExecutor("first", started, finish);
+
+        ReloadablePipelineExecutor executor = new ReloadablePipelineExecutor(first);
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        try {
+            Future<Data> inFlight = threads.submit(() -> executor.exec(Data.empty()));
+            started.await();
+
+            // The swap returns after the timeout, but the old executor stays open for the request still using it
+            executor.swap(new TestExecutor("second", null, null), 100);
+            assertEquals("second", executor.exec(Data.empty()).getString("executor"));
+            assertFalse(first.closed);
+
+            finish.countDown();
+            assertEquals("first", inFlight.get().getString("executor"));
+            assertTrue(first.closed);
+        } finally {
+            finish.countDown();
+            threads.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testNoFailuresDuringSwaps() throws Exception {
+        ReloadablePipelineExecutor executor = new ReloadablePipelineExecutor(new TestExecutor("0", null, null));
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> workers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                workers.add(threads.submit(() -> {
+                    int count = 0;
+                    for (int j = 0; j < 2000; j++) {
+                        assertNotNull(executor.exec(Data.empty()).getString("executor"));
+                        count++;
+                    }
+                    return count;
+                }));
+            }
+
+            List<TestExecutor> swapped = new ArrayList<>();
+            for (int i = 1; i <= 20; i++) {
+                TestExecutor next = new TestExecutor(String.valueOf(i), null, null);
+                swapped.add(next);
+                executor.swap(next, 30000);
+            }
+
+            for (Future<Integer> worker : workers) {
+                assertEquals(2000, (int) worker.get());
+            }
+
+            for (int i = 0; i < swapped.size() - 1; i++) {
+                assertTrue(swapped.get(i).closed);
+            }
+            assertFalse(swapped.get(swapped.size() - 1).closed);
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    private static class TestExecutor implements PipelineExecutor {
+        private final String name;
+        private final CountDownLatch started;
+        private final CountDownLatch finish;
+        private volatile boolean closed;
+
+        private TestExecutor(String name, CountDownLatch started, CountDownLatch finish) {
+            this.name = name;
+            this.started = started;
+            this.finish = finish;
+        }
+
+        @Override
+        public Data exec(Data data) {
+            if (closed) {
+                throw new IllegalStateException("Executor " + name + " is closed");
+            }
+            if (started != null) {
+                started.countDown();
+                try {
+                    finish.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return Data.singleton("executor", name);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public Pipeline getPipeline() {
+            return null;
+        }
+
+        @Override
+        public List<PipelineStepRunner> getRunners() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Logger getLogger() {
+            return LoggerFactory.getLogger(TestExecutor.class);
+        }
+
+        @Override
+        public void profilerConfig(ProfilerConfig profilerConfig) {
+        }
+
+        @Override
+        public Profiler profiler() {
+            return null;
+        }
+    }
+}